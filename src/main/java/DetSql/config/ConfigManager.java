@@ -25,8 +25,7 @@ public class ConfigManager {
     private final Path configPath;
 
     public ConfigManager() {
-        String userHome = System.getProperty("user.home");
-        Path configDir = Paths.get(userHome, CONFIG_DIR_NAME);
+        Path configDir = getConfigDir();
         this.configPath = configDir.resolve(CONFIG_FILE_NAME);
 
         // 确保配置目录存在
@@ -37,6 +36,13 @@ public class ConfigManager {
         }
     }
 
+    /**
+     * 配置目录 (~/.config/DetSql),溢出队列等运行时文件也放在这里
+     */
+    public static Path getConfigDir() {
+        return Paths.get(System.getProperty("user.home"), CONFIG_DIR_NAME);
+    }
+
     /**
      * 加载配置文件
      * 如果 YAML 文件不存在,尝试迁移老的 Properties 文件
@@ -13,10 +13,15 @@ import java.util.Set;
 public class DefaultConfig {
     // 时间配置默认值(毫秒)
     public static final int DEFAULT_DELAY_TIME_MS = 3000;
+    // 单主机请求最小间隔,默认 0 不限速 (单主机并发由自适应并发限制控制)
     public static final int DEFAULT_STATIC_TIME_MS = 0;
     public static final int DEFAULT_START_TIME_MS = 0;
     public static final int DEFAULT_END_TIME_MS = 0;
 
+    // 发送速率默认值: 全局不限速;突发 1 个,设置限速后请求按间隔均匀发出
+    public static final int DEFAULT_GLOBAL_REQUESTS_PER_SECOND = 0;
+    public static final int DEFAULT_RATE_BURST = 1;
+
     // 请求大小限制(字节) - 默认 10MB
     public static final int MAX_REQUEST_SIZE_BYTES = 10 * 1024 * 1024;
 
@@ -36,6 +41,16 @@ public class DefaultConfig {
     public static final Set<String> DEFAULT_SUFFIX_SET = new HashSet<>(
             Arrays.asList(DEFAULT_SUFFIX_LIST.split("\\|")));
 
+    // 默认高命中参数名（扫描队列优先调度）
+    public static final String DEFAULT_HOT_PARAM_LIST = "id|uid|pid|cid|sid|nid|item|itemid|user|userid|cat|category|"
+            + "type|sort|order|orderby|sortby|by|dir|column|field|page|limit|offset|num|no|key|keyword|q|query|search";
+
+    /**
+     * Default hot parameter set - pre-split for direct use
+     */
+    public static final Set<String> DEFAULT_HOT_PARAM_SET = new HashSet<>(
+            Arrays.asList(DEFAULT_HOT_PARAM_LIST.split("\\|")));
+
     // 默认错误 POC
     public static final String[] DEFAULT_ERR_POCS = {
             "'", "\"", "\\", "`", "1'1", "1\"1"
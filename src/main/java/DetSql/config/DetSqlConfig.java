@@ -85,7 +85,7 @@ public class DetSqlConfig {
     /**
      * 请求间固定延迟 (毫秒)
      */
-    private int staticTimeMs = 100;
+    private int staticTimeMs = DefaultConfig.DEFAULT_STATIC_TIME_MS;
 
     /**
      * 请求间随机延迟起始值 (毫秒)
@@ -97,6 +97,87 @@ public class DetSqlConfig {
      */
     private int endTimeMs = 0;
 
+    /**
+     * 单个目标主机的初始并发请求数 (自适应限流起点)
+     */
+    private int initialConcurrencyPerHost = 4;
+
+    /**
+     * 单个目标主机的最大并发请求数 (自适应限流上限)
+     */
+    private int maxConcurrencyPerHost = 32;
+
+    /**
+     * 是否使用虚拟线程执行扫描和发送 (需要 Java 21+ 运行时,否则回退平台线程池)
+     */
+    private boolean virtualThreadsEnabled = false;
+
+    /**
+     * 虚拟线程模式下同时执行的扫描任务数 (对单个主机的压力仍由主机并发上限控制)
+     */
+    private int virtualScanConcurrency = 256;
+
+    /**
+     * 单个请求扫描时额外并行执行子任务 (参数 × 策略) 的辅助线程数, 0 表示顺序执行
+     */
+    private int unitParallelism = Runtime.getRuntime().availableProcessors();
+
+    /**
+     * 扫描队列优先级: 手动提交 (Send to / Repeater) 请求的加权
+     */
+    private int manualPriorityWeight = 1000;
+
+    /**
+     * 扫描队列优先级: 未测试过参数占比的加权 (同一接口已测过的参数越少越优先)
+     */
+    private int freshParamWeight = 100;
+
+    /**
+     * 扫描队列优先级: 高命中参数名 (id/sort/order 等) 的加权
+     */
+    private int hotParamWeight = 50;
+
+    /**
+     * 高命中参数名 (优先扫描),运行中确认漏洞的参数名也会被学习
+     */
+    private Set<String> hotParamNames = new HashSet<>(DefaultConfig.DEFAULT_HOT_PARAM_SET);
+
+    /**
+     * 是否记录扫描日志 (write-ahead journal),插件重载或 Burp 重启后继续未完成的扫描
+     * 日志含完整请求/响应 (Cookie、Authorization 等),默认关闭,需要时手动开启
+     */
+    private boolean scanJournalEnabled = false;
+
+    /**
+     * 全局每秒请求数上限 (所有主机合计),0 表示不限速
+     */
+    private int globalRequestsPerSecond = DefaultConfig.DEFAULT_GLOBAL_REQUESTS_PER_SECOND;
+
+    /**
+     * 速率控制允许的突发请求数 (令牌桶容量)
+     */
+    private int rateBurst = DefaultConfig.DEFAULT_RATE_BURST;
+
+    /**
+     * 发现漏洞后的提前结束策略: ALL 全部执行, PER_PARAMETER 每个参数确认一个即停止, PER_REQUEST 每个请求确认一个即停止
+     */
+    private FindingPolicy findingPolicy = FindingPolicy.ALL;
+
+    /**
+     * 比较前重新获取基线响应的次数 (0-2),用于学习并屏蔽 token、时间戳等易变区域,0 表示关闭
+     */
+    private int baselineProbeCount = 0;
+
+    /**
+     * HTML 响应按标签/文本 token 序列比较 (忽略 script/style 与空白差异),关闭时按字符比较
+     */
+    private boolean htmlStructureCompare = false;
+
+    /**
+     * JSON 响应按字段表比较 (字段顺序、数值噪声影响小),关闭时按字符比较
+     */
+    private boolean jsonStructureCompare = false;
+
     // ━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━
     // 过滤配置
     // ━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━
@@ -150,6 +231,11 @@ public class DetSqlConfig {
      */
     private Set<String> diyRegexs = new HashSet<>();
 
+    /**
+     * DIY payload 与正则的编译缓存 (监听 diyPayloads / diyRegexs 变化)
+     */
+    private final DiyRuleCache diyRules = new DiyRuleCache(this);
+
     /**
      * SQL 错误检测规则列表
      */
@@ -193,11 +279,42 @@ public class DetSqlConfig {
         this.delayTimeMs = parseIntWithDefault(
                 prop.getProperty("delaytime"), 0);
         this.staticTimeMs = parseIntWithDefault(
-                prop.getProperty("statictime"), 100);
+                prop.getProperty("statictime"), DefaultConfig.DEFAULT_STATIC_TIME_MS);
         this.startTimeMs = parseIntWithDefault(
                 prop.getProperty("starttime"), 0);
         this.endTimeMs = parseIntWithDefault(
                 prop.getProperty("endtime"), 0);
+        this.initialConcurrencyPerHost = parseIntWithDefault(
+                prop.getProperty("initialConcurrencyPerHost"), 4);
+        this.maxConcurrencyPerHost = parseIntWithDefault(
+                prop.getProperty("maxConcurrencyPerHost"), 32);
+        this.virtualThreadsEnabled = Boolean.parseBoolean(
+                prop.getProperty("virtualThreadsEnabled", "false").trim());
+        this.virtualScanConcurrency = parseIntWithDefault(
+                prop.getProperty("virtualScanConcurrency"), 256);
+        this.unitParallelism = parseIntWithDefault(
+                prop.getProperty("unitParallelism"), Runtime.getRuntime().availableProcessors());
+        this.manualPriorityWeight = parseIntWithDefault(
+                prop.getProperty("manualPriorityWeight"), 1000);
+        this.freshParamWeight = parseIntWithDefault(
+                prop.getProperty("freshParamWeight"), 100);
+        this.hotParamWeight = parseIntWithDefault(
+                prop.getProperty("hotParamWeight"), 50);
+        this.hotParamNames = lowerCaseNames(parseSetProperty(
+                prop, "hotParamNames", new HashSet<>(DefaultConfig.DEFAULT_HOT_PARAM_SET)));
+        this.scanJournalEnabled = Boolean.parseBoolean(
+                prop.getProperty("scanJournalEnabled", "false").trim());
+        this.globalRequestsPerSecond = parseIntWithDefault(
+                prop.getProperty("globalRequestsPerSecond"), DefaultConfig.DEFAULT_GLOBAL_REQUESTS_PER_SECOND);
+        this.rateBurst = parseIntWithDefault(
+                prop.getProperty("rateBurst"), DefaultConfig.DEFAULT_RATE_BURST);
+        this.findingPolicy = FindingPolicy.parse(prop.getProperty("findingPolicy"));
+        this.baselineProbeCount = parseIntWithDefault(
+                prop.getProperty("baselineProbeCount"), 0);
+        this.htmlStructureCompare = Boolean.parseBoolean(
+                prop.getProperty("htmlStructureCompare", "false").trim());
+        this.jsonStructureCompare = Boolean.parseBoolean(
+                prop.getProperty("jsonStructureCompare", "false").trim());
 
         // 加载过滤配置
         this.whiteListDomains = parseSetProperty(
@@ -227,10 +344,10 @@ public class DetSqlConfig {
             this.errorPayloadsJson = deriveJsonErrPocs(this.errorPayloads);
         }
 
-        this.diyPayloads = parseSetProperty(
-                prop, "diypayloads", new HashSet<>());
-        this.diyRegexs = parseSetProperty(
-                prop, "diyregex", new HashSet<>());
+        setDiyPayloads(parseSetProperty(
+                prop, "diypayloads", new HashSet<>()));
+        setDiyRegexs(parseSetProperty(
+                prop, "diyregex", new HashSet<>()));
 
         // 加载错误检测规则
         String errorRules = prop.getProperty("errorDetectionRules", "").trim();
@@ -262,6 +379,22 @@ public class DetSqlConfig {
         prop.setProperty("statictime", String.valueOf(staticTimeMs));
         prop.setProperty("starttime", String.valueOf(startTimeMs));
         prop.setProperty("endtime", String.valueOf(endTimeMs));
+        prop.setProperty("initialConcurrencyPerHost", String.valueOf(initialConcurrencyPerHost));
+        prop.setProperty("maxConcurrencyPerHost", String.valueOf(maxConcurrencyPerHost));
+        prop.setProperty("virtualThreadsEnabled", String.valueOf(virtualThreadsEnabled));
+        prop.setProperty("virtualScanConcurrency", String.valueOf(virtualScanConcurrency));
+        prop.setProperty("unitParallelism", String.valueOf(unitParallelism));
+        prop.setProperty("manualPriorityWeight", String.valueOf(manualPriorityWeight));
+        prop.setProperty("freshParamWeight", String.valueOf(freshParamWeight));
+        prop.setProperty("hotParamWeight", String.valueOf(hotParamWeight));
+        prop.setProperty("hotParamNames", String.join("|", hotParamNames));
+        prop.setProperty("scanJournalEnabled", String.valueOf(scanJournalEnabled));
+        prop.setProperty("globalRequestsPerSecond", String.valueOf(globalRequestsPerSecond));
+        prop.setProperty("rateBurst", String.valueOf(rateBurst));
+        prop.setProperty("findingPolicy", findingPolicy.name());
+        prop.setProperty("baselineProbeCount", String.valueOf(baselineProbeCount));
+        prop.setProperty("htmlStructureCompare", String.valueOf(htmlStructureCompare));
+        prop.setProperty("jsonStructureCompare", String.valueOf(jsonStructureCompare));
 
         // 过滤配置
         prop.setProperty("whitelist", String.join("|", whiteListDomains));
@@ -325,6 +458,21 @@ public class DetSqlConfig {
         return new HashSet<>(Arrays.asList(value.split("\\|")));
     }
 
+    /**
+     * 参数名集合转为小写 (Locale.ROOT),去掉首尾空白和空项
+     */
+    private static Set<String> lowerCaseNames(Set<String> names) {
+        Set<String> result = new HashSet<>();
+        if (names != null) {
+            for (String name : names) {
+                if (name != null && !name.isBlank()) {
+                    result.add(name.trim().toLowerCase(Locale.ROOT));
+                }
+            }
+        }
+        return result;
+    }
+
     /**
      * 从基础payload派生JSON安全变体
      * (复制自 DetSql.deriveJsonErrPocs)
@@ -445,6 +593,169 @@ public class DetSqlConfig {
         fireChange("endTimeMs", old, endTimeMs);
     }
 
+    public int getInitialConcurrencyPerHost() {
+        return initialConcurrencyPerHost;
+    }
+
+    public void setInitialConcurrencyPerHost(int initialConcurrencyPerHost) {
+        var old = this.initialConcurrencyPerHost;
+        this.initialConcurrencyPerHost = initialConcurrencyPerHost;
+        fireChange("initialConcurrencyPerHost", old, initialConcurrencyPerHost);
+    }
+
+    public int getMaxConcurrencyPerHost() {
+        return maxConcurrencyPerHost;
+    }
+
+    public void setMaxConcurrencyPerHost(int maxConcurrencyPerHost) {
+        var old = this.maxConcurrencyPerHost;
+        this.maxConcurrencyPerHost = maxConcurrencyPerHost;
+        fireChange("maxConcurrencyPerHost", old, maxConcurrencyPerHost);
+    }
+
+    public boolean isVirtualThreadsEnabled() {
+        return virtualThreadsEnabled;
+    }
+
+    public void setVirtualThreadsEnabled(boolean virtualThreadsEnabled) {
+        var old = this.virtualThreadsEnabled;
+        this.virtualThreadsEnabled = virtualThreadsEnabled;
+        fireChange("virtualThreadsEnabled", old, virtualThreadsEnabled);
+    }
+
+    public int getVirtualScanConcurrency() {
+        return virtualScanConcurrency;
+    }
+
+    public void setVirtualScanConcurrency(int virtualScanConcurrency) {
+        var old = this.virtualScanConcurrency;
+        this.virtualScanConcurrency = virtualScanConcurrency;
+        fireChange("virtualScanConcurrency", old, virtualScanConcurrency);
+    }
+
+    public int getUnitParallelism() {
+        return unitParallelism;
+    }
+
+    public void setUnitParallelism(int unitParallelism) {
+        var old = this.unitParallelism;
+        this.unitParallelism = unitParallelism;
+        fireChange("unitParallelism", old, unitParallelism);
+    }
+
+    public int getManualPriorityWeight() {
+        return manualPriorityWeight;
+    }
+
+    public void setManualPriorityWeight(int manualPriorityWeight) {
+        var old = this.manualPriorityWeight;
+        this.manualPriorityWeight = manualPriorityWeight;
+        fireChange("manualPriorityWeight", old, manualPriorityWeight);
+    }
+
+    public int getFreshParamWeight() {
+        return freshParamWeight;
+    }
+
+    public void setFreshParamWeight(int freshParamWeight) {
+        var old = this.freshParamWeight;
+        this.freshParamWeight = freshParamWeight;
+        fireChange("freshParamWeight", old, freshParamWeight);
+    }
+
+    public int getHotParamWeight() {
+        return hotParamWeight;
+    }
+
+    public void setHotParamWeight(int hotParamWeight) {
+        var old = this.hotParamWeight;
+        this.hotParamWeight = hotParamWeight;
+        fireChange("hotParamWeight", old, hotParamWeight);
+    }
+
+    public Set<String> getHotParamNames() {
+        return hotParamNames;
+    }
+
+    /**
+     * 设置高命中参数名,统一转为小写 (参数名匹配不区分大小写)
+     */
+    public void setHotParamNames(Set<String> hotParamNames) {
+        var old = this.hotParamNames;
+        this.hotParamNames = lowerCaseNames(hotParamNames);
+        fireChange("hotParamNames", old, this.hotParamNames);
+    }
+
+    public boolean isScanJournalEnabled() {
+        return scanJournalEnabled;
+    }
+
+    public void setScanJournalEnabled(boolean scanJournalEnabled) {
+        var old = this.scanJournalEnabled;
+        this.scanJournalEnabled = scanJournalEnabled;
+        fireChange("scanJournalEnabled", old, scanJournalEnabled);
+    }
+
+    public int getGlobalRequestsPerSecond() {
+        return globalRequestsPerSecond;
+    }
+
+    public void setGlobalRequestsPerSecond(int globalRequestsPerSecond) {
+        var old = this.globalRequestsPerSecond;
+        this.globalRequestsPerSecond = globalRequestsPerSecond;
+        fireChange("globalRequestsPerSecond", old, globalRequestsPerSecond);
+    }
+
+    public int getRateBurst() {
+        return rateBurst;
+    }
+
+    public void setRateBurst(int rateBurst) {
+        var old = this.rateBurst;
+        this.rateBurst = rateBurst;
+        fireChange("rateBurst", old, rateBurst);
+    }
+
+    public FindingPolicy getFindingPolicy() {
+        return findingPolicy;
+    }
+
+    public void setFindingPolicy(FindingPolicy findingPolicy) {
+        var old = this.findingPolicy;
+        this.findingPolicy = findingPolicy == null ? FindingPolicy.ALL : findingPolicy;
+        fireChange("findingPolicy", old, this.findingPolicy);
+    }
+
+    public int getBaselineProbeCount() {
+        return baselineProbeCount;
+    }
+
+    public void setBaselineProbeCount(int baselineProbeCount) {
+        var old = this.baselineProbeCount;
+        this.baselineProbeCount = baselineProbeCount;
+        fireChange("baselineProbeCount", old, baselineProbeCount);
+    }
+
+    public boolean isHtmlStructureCompare() {
+        return htmlStructureCompare;
+    }
+
+    public void setHtmlStructureCompare(boolean htmlStructureCompare) {
+        var old = this.htmlStructureCompare;
+        this.htmlStructureCompare = htmlStructureCompare;
+        fireChange("htmlStructureCompare", old, htmlStructureCompare);
+    }
+
+    public boolean isJsonStructureCompare() {
+        return jsonStructureCompare;
+    }
+
+    public void setJsonStructureCompare(boolean jsonStructureCompare) {
+        var old = this.jsonStructureCompare;
+        this.jsonStructureCompare = jsonStructureCompare;
+        fireChange("jsonStructureCompare", old, jsonStructureCompare);
+    }
+
     public Set<String> getWhiteListDomains() {
         return whiteListDomains;
     }
@@ -535,6 +846,13 @@ public class DetSqlConfig {
         fireChange("diyRegexs", old, diyRegexs);
     }
 
+    /**
+     * 编译好的 DIY payload 与正则,各扫描线程共用
+     */
+    public DiyRuleCache getDiyRules() {
+        return diyRules;
+    }
+
     public String[] getErrorDetectionRules() {
         return errorDetectionRules;
     }
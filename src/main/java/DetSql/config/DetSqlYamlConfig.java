@@ -4,6 +4,7 @@
 package DetSql.config;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Properties;
 
@@ -43,7 +44,7 @@ public class DetSqlYamlConfig {
     private int delaytime = 3000;
     
     // 固定请求间隔（毫秒）
-    private int statictime = 0;
+    private int statictime = DefaultConfig.DEFAULT_STATIC_TIME_MS;
     
     // 请求间隔范围 - 开始时间（毫秒）
     private int starttime = 0;
@@ -51,6 +52,54 @@ public class DetSqlYamlConfig {
     // 请求间隔范围 - 结束时间（毫秒）
     private int endtime = 0;
     
+    // 单主机初始并发请求数（自适应限流起点）
+    private int initialConcurrencyPerHost = 4;
+
+    // 单主机最大并发请求数（自适应限流上限）
+    private int maxConcurrencyPerHost = 32;
+
+    // 虚拟线程模式（需要 Java 21+）
+    private boolean virtualThreadsEnabled = false;
+
+    // 虚拟线程模式下同时执行的扫描任务数
+    private int virtualScanConcurrency = 256;
+
+    // 单个请求并行执行子任务（参数 × 策略）的辅助线程数，0 表示顺序执行
+    private int unitParallelism = Runtime.getRuntime().availableProcessors();
+
+    // 扫描优先级：手动提交请求的加权
+    private int manualPriorityWeight = 1000;
+
+    // 扫描优先级：未测试参数占比的加权
+    private int freshParamWeight = 100;
+
+    // 扫描优先级：高命中参数名的加权
+    private int hotParamWeight = 50;
+
+    // 扫描优先级：高命中参数名
+    private List<String> hotParamNames = new ArrayList<>(Arrays.asList(DefaultConfig.DEFAULT_HOT_PARAM_LIST.split("\\|")));
+
+    // 扫描日志: 重启后继续未完成的扫描 (含完整请求/响应,默认关闭)
+    private boolean scanJournalEnabled = false;
+
+    // 全局每秒请求数上限,0 不限速
+    private int globalRequestsPerSecond = DefaultConfig.DEFAULT_GLOBAL_REQUESTS_PER_SECOND;
+
+    // 速率控制突发请求数
+    private int rateBurst = DefaultConfig.DEFAULT_RATE_BURST;
+
+    // 发现漏洞后提前结束: ALL / PER_PARAMETER / PER_REQUEST
+    private String findingPolicy = "ALL";
+
+    // 基线探测次数 (0 关闭)
+    private int baselineProbeCount = 0;
+
+    // HTML 按 token 序列比较
+    private boolean htmlStructureCompare = false;
+
+    // JSON 按字段比较
+    private boolean jsonStructureCompare = false;
+
     // 开关状态
     private boolean switchEnabled = true;
     
@@ -195,6 +244,134 @@ public class DetSqlYamlConfig {
         this.endtime = endtime;
     }
 
+    public int getInitialConcurrencyPerHost() {
+        return initialConcurrencyPerHost;
+    }
+
+    public void setInitialConcurrencyPerHost(int initialConcurrencyPerHost) {
+        this.initialConcurrencyPerHost = initialConcurrencyPerHost;
+    }
+
+    public int getMaxConcurrencyPerHost() {
+        return maxConcurrencyPerHost;
+    }
+
+    public void setMaxConcurrencyPerHost(int maxConcurrencyPerHost) {
+        this.maxConcurrencyPerHost = maxConcurrencyPerHost;
+    }
+
+    public boolean isVirtualThreadsEnabled() {
+        return virtualThreadsEnabled;
+    }
+
+    public void setVirtualThreadsEnabled(boolean virtualThreadsEnabled) {
+        this.virtualThreadsEnabled = virtualThreadsEnabled;
+    }
+
+    public int getVirtualScanConcurrency() {
+        return virtualScanConcurrency;
+    }
+
+    public void setVirtualScanConcurrency(int virtualScanConcurrency) {
+        this.virtualScanConcurrency = virtualScanConcurrency;
+    }
+
+    public int getUnitParallelism() {
+        return unitParallelism;
+    }
+
+    public void setUnitParallelism(int unitParallelism) {
+        this.unitParallelism = unitParallelism;
+    }
+
+    public int getManualPriorityWeight() {
+        return manualPriorityWeight;
+    }
+
+    public void setManualPriorityWeight(int manualPriorityWeight) {
+        this.manualPriorityWeight = manualPriorityWeight;
+    }
+
+    public int getFreshParamWeight() {
+        return freshParamWeight;
+    }
+
+    public void setFreshParamWeight(int freshParamWeight) {
+        this.freshParamWeight = freshParamWeight;
+    }
+
+    public int getHotParamWeight() {
+        return hotParamWeight;
+    }
+
+    public void setHotParamWeight(int hotParamWeight) {
+        this.hotParamWeight = hotParamWeight;
+    }
+
+    public List<String> getHotParamNames() {
+        return hotParamNames;
+    }
+
+    public void setHotParamNames(List<String> hotParamNames) {
+        this.hotParamNames = hotParamNames;
+    }
+
+    public boolean isScanJournalEnabled() {
+        return scanJournalEnabled;
+    }
+
+    public void setScanJournalEnabled(boolean scanJournalEnabled) {
+        this.scanJournalEnabled = scanJournalEnabled;
+    }
+
+    public int getGlobalRequestsPerSecond() {
+        return globalRequestsPerSecond;
+    }
+
+    public void setGlobalRequestsPerSecond(int globalRequestsPerSecond) {
+        this.globalRequestsPerSecond = globalRequestsPerSecond;
+    }
+
+    public int getRateBurst() {
+        return rateBurst;
+    }
+
+    public void setRateBurst(int rateBurst) {
+        this.rateBurst = rateBurst;
+    }
+
+    public String getFindingPolicy() {
+        return findingPolicy;
+    }
+
+    public void setFindingPolicy(String findingPolicy) {
+        this.findingPolicy = findingPolicy;
+    }
+
+    public int getBaselineProbeCount() {
+        return baselineProbeCount;
+    }
+
+    public void setBaselineProbeCount(int baselineProbeCount) {
+        this.baselineProbeCount = baselineProbeCount;
+    }
+
+    public boolean isHtmlStructureCompare() {
+        return htmlStructureCompare;
+    }
+
+    public void setHtmlStructureCompare(boolean htmlStructureCompare) {
+        this.htmlStructureCompare = htmlStructureCompare;
+    }
+
+    public boolean isJsonStructureCompare() {
+        return jsonStructureCompare;
+    }
+
+    public void setJsonStructureCompare(boolean jsonStructureCompare) {
+        this.jsonStructureCompare = jsonStructureCompare;
+    }
+
     public boolean isSwitchEnabled() {
         return switchEnabled;
     }
@@ -314,6 +491,7 @@ public class DetSqlYamlConfig {
         prop.setProperty("errpoclist", joinList(errpoclist));
         prop.setProperty("paramslist", joinList(paramslist));
         prop.setProperty("whiteparamslist", joinList(whiteparamslist));
+        prop.setProperty("hotParamNames", joinList(hotParamNames));
 
         // 多行文本字段直接使用（Properties 会处理换行符）
         prop.setProperty("blackpath", blackpath != null ? blackpath : "");
@@ -325,6 +503,21 @@ public class DetSqlYamlConfig {
         prop.setProperty("statictime", String.valueOf(statictime));
         prop.setProperty("starttime", String.valueOf(starttime));
         prop.setProperty("endtime", String.valueOf(endtime));
+        prop.setProperty("initialConcurrencyPerHost", String.valueOf(initialConcurrencyPerHost));
+        prop.setProperty("maxConcurrencyPerHost", String.valueOf(maxConcurrencyPerHost));
+        prop.setProperty("virtualThreadsEnabled", String.valueOf(virtualThreadsEnabled));
+        prop.setProperty("virtualScanConcurrency", String.valueOf(virtualScanConcurrency));
+        prop.setProperty("unitParallelism", String.valueOf(unitParallelism));
+        prop.setProperty("manualPriorityWeight", String.valueOf(manualPriorityWeight));
+        prop.setProperty("freshParamWeight", String.valueOf(freshParamWeight));
+        prop.setProperty("hotParamWeight", String.valueOf(hotParamWeight));
+        prop.setProperty("scanJournalEnabled", String.valueOf(scanJournalEnabled));
+        prop.setProperty("globalRequestsPerSecond", String.valueOf(globalRequestsPerSecond));
+        prop.setProperty("rateBurst", String.valueOf(rateBurst));
+        prop.setProperty("findingPolicy", findingPolicy != null ? findingPolicy : "");
+        prop.setProperty("baselineProbeCount", String.valueOf(baselineProbeCount));
+        prop.setProperty("htmlStructureCompare", String.valueOf(htmlStructureCompare));
+        prop.setProperty("jsonStructureCompare", String.valueOf(jsonStructureCompare));
 
         // 布尔字段转换为字符串
         prop.setProperty("switch", String.valueOf(switchEnabled));
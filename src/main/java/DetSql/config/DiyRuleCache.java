@@ -0,0 +1,190 @@
+/*
+ * @saoshao<1224165231@qq.com>
+ */
+package DetSql.config;
+
+import DetSql.util.NewlineSkippingText;
+import DetSql.util.RegexUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.MatchResult;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+
+/**
+ * DIY payload 与响应匹配正则的编译缓存
+ *
+ * <p>diyPayloads / diyRegexs 变化时 (PropertyChangeSupport 事件) 版本号加一,
+ * 下次取用时重新编译;其余时间所有扫描线程共用同一份快照,不再对每个响应逐条编译正则。
+ * 能安全合并的规则编译成一个带捕获分组的交替式,一次匹配即可知道命中的是哪条规则。
+ */
+public final class DiyRuleCache {
+
+    private final DetSqlConfig config;
+    private final AtomicInteger version = new AtomicInteger();
+    private volatile Snapshot snapshot;
+
+    DiyRuleCache(DetSqlConfig config) {
+        this.config = config;
+        config.addPropertyChangeListener("diyPayloads", e -> version.incrementAndGet());
+        config.addPropertyChangeListener("diyRegexs", e -> version.incrementAndGet());
+    }
+
+    /**
+     * 当前配置对应的快照,配置变化后首次调用时重新编译
+     */
+    public Snapshot current() {
+        int v = version.get();
+        Snapshot s = snapshot;
+        if (s == null || s.version != v) {
+            // 编译期间配置再次变化时版本号不同,下次调用会重新编译
+            s = new Snapshot(v, config.getDiyPayloads(), config.getDiyRegexs());
+            snapshot = s;
+        }
+        return s;
+    }
+
+    /**
+     * 某一版本配置编译后的结果,不可变
+     */
+    public static final class Snapshot {
+        private final int version;
+        private final List<String> payloads;
+        private final String[] rules;
+        // 合并后的交替式,没有可合并的规则时为 null
+        private final Pattern merged;
+        // rules[i] 在合并式中的外层分组号,未合并的规则为 -1
+        private final int[] groupOf;
+        // 未合并的规则 (下标对应 rules)
+        private final Pattern[] separate;
+        // 每条规则单独编译的结果,合并式超时时逐条匹配
+        private final Pattern[] patterns;
+
+        private Snapshot(int version, Iterable<String> payloads, Iterable<String> regexs) {
+            this.version = version;
+            List<String> payloadList = new ArrayList<>();
+            payloads.forEach(payloadList::add);
+            this.payloads = List.copyOf(payloadList);
+
+            List<String> valid = new ArrayList<>();
+            List<Pattern> compiled = new ArrayList<>();
+            for (String regex : regexs) {
+                try {
+                    compiled.add(Pattern.compile(regex, Pattern.CASE_INSENSITIVE));
+                    valid.add(regex);
+                } catch (PatternSyntaxException e) {
+                    // 非法规则永远不匹配,与逐条 safeMatch 的行为一致
+                }
+            }
+            rules = valid.toArray(new String[0]);
+            patterns = compiled.toArray(new Pattern[0]);
+            groupOf = new int[rules.length];
+            separate = new Pattern[rules.length];
+
+            StringBuilder alternation = new StringBuilder();
+            int group = 1;
+            for (int i = 0; i < rules.length; i++) {
+                if (!mergeable(rules[i])) {
+                    groupOf[i] = -1;
+                    separate[i] = compiled.get(i);
+                    continue;
+                }
+                if (alternation.length() > 0) {
+                    alternation.append('|');
+                }
+                alternation.append('(').append(rules[i]).append(')');
+                groupOf[i] = group;
+                group += 1 + compiled.get(i).matcher("").groupCount();
+            }
+
+            Pattern mergedPattern = null;
+            if (alternation.length() > 0) {
+                try {
+                    mergedPattern = Pattern.compile(alternation.toString(), Pattern.CASE_INSENSITIVE);
+                } catch (PatternSyntaxException e) {
+                    // 合并失败时全部逐条匹配
+                    for (int i = 0; i < rules.length; i++) {
+                        groupOf[i] = -1;
+                        separate[i] = compiled.get(i);
+                    }
+                }
+            }
+            merged = mergedPattern;
+        }
+
+        /**
+         * 本版本的 DIY payload (遍历顺序固定)
+         */
+        public List<String> payloads() {
+            return payloads;
+        }
+
+        public boolean hasRegexs() {
+            return rules.length > 0;
+        }
+
+        /**
+         * 响应中命中的 DIY 正则 (去掉换行后匹配)
+         * @return 命中的规则原文,没有命中时返回 null
+         */
+        public String firstMatch(String text) {
+            if (rules.length == 0) {
+                return null;
+            }
+            CharSequence cleanedText = NewlineSkippingText.of(text);
+            if (merged != null) {
+                MatchResult result = RegexUtils.findPrecompiled(merged, cleanedText);
+                if (result == RegexUtils.TIMED_OUT) {
+                    // 合并式超时 (某条规则回溯爆炸) 时逐条匹配,每条规则各自计时,
+                    // 一条 ReDoS 规则不会让其余规则失效
+                    return firstSeparateMatch(cleanedText, patterns);
+                }
+                if (result != null) {
+                    for (int i = 0; i < rules.length; i++) {
+                        if (groupOf[i] > 0 && result.start(groupOf[i]) >= 0) {
+                            return rules[i];
+                        }
+                    }
+                }
+            }
+            return firstSeparateMatch(cleanedText, separate);
+        }
+
+        /**
+         * 按规则顺序逐条匹配 candidates 中非空的规则
+         */
+        private String firstSeparateMatch(CharSequence cleanedText, Pattern[] candidates) {
+            for (int i = 0; i < rules.length; i++) {
+                if (candidates[i] != null && RegexUtils.safeMatchPrecompiled(candidates[i], cleanedText)) {
+                    return rules[i];
+                }
+            }
+            return null;
+        }
+
+        /**
+         * 规则放进交替式后语义不变: 不含反向引用 (分组号会偏移)、命名分组 (可能重名) 和内联标志
+         */
+        static boolean mergeable(String regex) {
+            for (int i = 0; i + 1 < regex.length(); i++) {
+                char c = regex.charAt(i);
+                char d = regex.charAt(i + 1);
+                if (c == '\\') {
+                    if (Character.isDigit(d) || d == 'k') {
+                        return false;
+                    }
+                    i++;
+                } else if (c == '(' && d == '?' && i + 2 < regex.length()) {
+                    char e = regex.charAt(i + 2);
+                    if (Character.isLetter(e) || e == '-'
+                            || (e == '<' && i + 3 < regex.length() && Character.isLetter(regex.charAt(i + 3)))) {
+                        return false;
+                    }
+                }
+            }
+            return true;
+        }
+    }
+}
@@ -0,0 +1,39 @@
+/*
+ * @saoshao<1224165231@qq.com>
+ */
+
+package DetSql.config;
+
+import java.util.Locale;
+
+/**
+ * 发现漏洞后的提前结束策略
+ */
+public enum FindingPolicy {
+    /**
+     * 执行全部策略和 payload (默认,收集全部证据)
+     */
+    ALL,
+    /**
+     * 参数确认存在漏洞后,跳过该参数剩余的策略和 payload
+     */
+    PER_PARAMETER,
+    /**
+     * 请求中任意参数确认存在漏洞后,跳过整个请求剩余的测试
+     */
+    PER_REQUEST;
+
+    /**
+     * 解析配置值,无法识别时使用 ALL
+     */
+    public static FindingPolicy parse(String value) {
+        if (value == null || value.isBlank()) {
+            return ALL;
+        }
+        try {
+            return valueOf(value.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            return ALL;
+        }
+    }
+}
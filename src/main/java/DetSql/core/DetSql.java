@@ -30,7 +30,6 @@ import java.awt.event.ActionListener;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
-import java.util.concurrent.Future;
 
 /**
  * DetSql Burp 扩展入口类
@@ -72,6 +71,9 @@ public class DetSql implements BurpExtension, ContextMenuItemsProvider {
         Component component = ui.createMainComponent();
         api.userInterface().registerSuiteTab("DetSql", component);
 
+        // 继续上次未完成的扫描（需在配置应用之后、接收新流量之前）
+        ui.getHttpHandler().resumeScanJournal();
+
         // 注册 HTTP 处理器
         api.http().registerHttpHandler(ui.getHttpHandler());
 
@@ -116,6 +118,7 @@ public class DetSql implements BurpExtension, ContextMenuItemsProvider {
         jMenu2.add(menuItemSqlmap);
         jMenu2.addSeparator();
         jMenu2.add(menuItem2);
+        jMenu2.add(buildScanControlMenu(event));
 
         menuItem2.addActionListener(new ActionListener() {
             @Override
@@ -134,16 +137,12 @@ public class DetSql implements BurpExtension, ContextMenuItemsProvider {
 
                 // 使用 Future.cancel() 替代 Thread.getAllStackTraces() 反模式
                 // 直接取消任务,快速且可靠
-                Future<?> task = ui.getHttpHandler().getRunningTask(requestSm3Hash);
-                if (task != null) {
-                    boolean cancelled = task.cancel(true);
-                    if (cancelled) {
-                        api.logging().logToOutput("已取消任务: " + requestSm3Hash);
-                    } else {
-                        api.logging().logToOutput("任务已完成或无法取消: " + requestSm3Hash);
-                    }
-                } else {
+                if (ui.getHttpHandler().getRunningTask(requestSm3Hash) == null) {
                     api.logging().logToOutput("未找到运行中的任务: " + requestSm3Hash);
+                } else if (ui.getHttpHandler().getScanController().cancel(requestSm3Hash)) {
+                    api.logging().logToOutput("已取消任务: " + requestSm3Hash);
+                } else {
+                    api.logging().logToOutput("任务已完成或无法取消: " + requestSm3Hash);
                 }
             }
         });
@@ -309,6 +308,59 @@ public class DetSql implements BurpExtension, ContextMenuItemsProvider {
         return listMenuItems;
     }
 
+    /**
+     * 扫描控制子菜单: 按所选请求的主机/目录取消或暂停扫描,以及全局暂停
+     */
+    private JMenu buildScanControlMenu(ContextMenuEvent event) {
+        ScanController controller = ui.getHttpHandler().getScanController();
+        JMenu menu = new JMenu(Messages.getString("menu.scan_control"));
+
+        HttpRequestResponse selected = getRequestResponse(event);
+        if (selected != null && selected.request().httpService() != null) {
+            String host = selected.request().httpService().host();
+            String directory = ScanController.directoryOf(selected.request().pathWithoutQuery());
+
+            JMenuItem cancelHost = new JMenuItem(Messages.getString("menu.cancel_host") + ": " + host);
+            cancelHost.addActionListener(e -> {
+                int count = controller.cancelMatching(host, null);
+                api.logging().logToOutput("已取消主机 " + host + " 的 " + count + " 个扫描");
+            });
+            JMenuItem cancelPath = new JMenuItem(Messages.getString("menu.cancel_path") + ": " + host + directory);
+            cancelPath.addActionListener(e -> {
+                int count = controller.cancelMatching(host, directory);
+                api.logging().logToOutput("已取消 " + host + directory + " 下的 " + count + " 个扫描");
+            });
+
+            boolean hostPaused = controller.isHostPaused(host);
+            JMenuItem toggleHost = new JMenuItem(
+                    Messages.getString(hostPaused ? "menu.resume_host" : "menu.pause_host") + ": " + host);
+            toggleHost.addActionListener(e -> {
+                if (hostPaused) {
+                    controller.resumeHost(host);
+                } else {
+                    controller.pauseHost(host);
+                }
+            });
+
+            menu.add(cancelHost);
+            menu.add(cancelPath);
+            menu.addSeparator();
+            menu.add(toggleHost);
+        }
+
+        boolean allPaused = controller.isAllPaused();
+        JMenuItem toggleAll = new JMenuItem(Messages.getString(allPaused ? "menu.resume_all" : "menu.pause_all"));
+        toggleAll.addActionListener(e -> {
+            if (allPaused) {
+                controller.resumeAll();
+            } else {
+                controller.pauseAll();
+            }
+        });
+        menu.add(toggleAll);
+        return menu;
+    }
+
     /**
      * 从ContextMenuEvent获取HttpRequestResponse
      * 支持从message editor和selected requests两种来源获取
@@ -6,31 +6,44 @@ package DetSql.core;
 
 import burp.api.montoya.MontoyaApi;
 import burp.api.montoya.core.ByteArray;
+import burp.api.montoya.http.HttpService;
 import burp.api.montoya.http.handler.*;
 import burp.api.montoya.http.message.HttpRequestResponse;
+import burp.api.montoya.http.message.MimeType;
 import burp.api.montoya.http.message.params.HttpParameterType;
 import burp.api.montoya.http.message.params.ParsedHttpParameter;
 import burp.api.montoya.http.message.requests.HttpRequest;
 import burp.api.montoya.http.message.responses.HttpResponse;
 import burp.api.montoya.utilities.CryptoUtils;
 import burp.api.montoya.utilities.DigestAlgorithm;
+import java.io.IOException;
 import java.util.*;
 import java.util.concurrent.*;
 import java.util.concurrent.atomic.AtomicInteger;
-import java.util.regex.Pattern;
+import java.util.function.Predicate;
 import javax.swing.SwingUtilities;
 import burp.api.montoya.utilities.URLUtils;
 
+import DetSql.injection.AbstractInjectionStrategy;
 import DetSql.injection.InjectionStrategyManager;
+import DetSql.injection.ScanTicket;
+import DetSql.injection.ScanUnit;
+import DetSql.config.ConfigManager;
 import DetSql.config.DetSqlConfig;
 import DetSql.logging.DetSqlLogger;
 import DetSql.model.PocLogEntry;
 import DetSql.model.SourceLogEntry;
 import DetSql.ui.DetSqlUI;
 import DetSql.ui.MyFilterRequest;
+import DetSql.util.HostConcurrencyLimiter;
+import DetSql.util.OverflowSpool;
 import DetSql.util.ParameterModifiers;
-import DetSql.util.RegexUtils;
+import DetSql.util.RateGovernor;
+import DetSql.util.ScanPriorityQueue;
 import DetSql.util.Statistics;
+import DetSql.util.VirtualThreads;
+import DetSql.util.VolatileRegionMask;
+import DetSql.util.LRUCache;
 import DetSql.model.PocTableModel;
 import DetSql.model.SourceTableModel;
 import DetSql.util.ParameterModifier;
@@ -72,7 +85,6 @@ public class MyHttpHandler implements HttpHandler {
     // Timing defaults
     private static final int DEFAULT_STATIC_DELAY_MS = 100;
     private static final int DEFAULT_MAX_DELAY_MS = 1_000_000;
-    private static final int MIN_SLEEP_TIME_MS = 100;
 
     // Vulnerability type identifiers
     private static final String VULN_TYPE_ERROR = "errsql";
@@ -122,12 +134,44 @@ public class MyHttpHandler implements HttpHandler {
             },
             new ThreadPoolExecutor.CallerRunsPolicy());
 
+    // 扫描队列满时的拒绝策略
+    // P0-2 修复：避免 CallerRunsPolicy 导致 UI 冻结
+    // 队列满时溢出到磁盘，由 overflowDrainer 在队列有空位时读回；
+    // 无法溢出时取消任务（onDone 回调清理登记、结束扫描日志票据、表格标记为停止）并计入统计
+    static final RejectedExecutionHandler SCAN_REJECTION_HANDLER = new RejectedExecutionHandler() {
+        @Override
+        public void rejectedExecution(Runnable r, ThreadPoolExecutor executor) {
+            if (!executor.isShutdown() && r instanceof ScanTask task) {
+                if (spillToOverflow(task)) {
+                    return;
+                }
+                task.cancel(false);
+                if (task.getStatistics() != null) {
+                    task.getStatistics().recordOverflowDropped();
+                }
+            }
+            // 注意：此时 logger 和 statistics 尚未初始化（静态字段）
+            // 使用 System.err 记录警告
+            System.err.println("[DetSql] WARNING: 扫描队列已满，任务被拒绝。考虑增加队列容量或减少并发。");
+        }
+    };
+
+    // 磁盘溢出队列目录（~/.config/DetSql/overflow），首次溢出时创建
+    private static final String OVERFLOW_DIR_NAME = "overflow";
+    private static volatile OverflowSpool overflowSpool;
+
+    // 从磁盘读回任务时给扫描队列保留的空位，留给新到达的手动请求
+    private static final int OVERFLOW_REFILL_HEADROOM = 100;
+    private static final long OVERFLOW_DRAIN_INTERVAL_MS = 500;
+    // 扫描队列老化速率：排队每 50ms 优先级加 1，Proxy 流量最多排队约 50s 即追平新提交的手动请求（加权 1000）
+    private static final long SCAN_QUEUE_AGING_MS = 50;
+
     // 队列 2：扫描队列（慢速处理：执行 SQL 注入测试）
     private static final ThreadPoolExecutor SCAN_EXECUTOR = new ThreadPoolExecutor(
             Runtime.getRuntime().availableProcessors(),
             Runtime.getRuntime().availableProcessors() * 2,
             60L, TimeUnit.SECONDS,
-            new LinkedBlockingQueue<>(1000), // 使用 LinkedBlockingQueue 支持更大容量
+            new ScanPriorityQueue(1000, SCAN_QUEUE_AGING_MS), // 有界优先级队列：手动请求、新参数、高命中参数优先，排队越久越靠前
             new ThreadFactory() {
                 private int counter = 0;
 
@@ -138,16 +182,12 @@ public class MyHttpHandler implements HttpHandler {
                     return t;
                 }
             },
-            // P0-2 修复：避免 CallerRunsPolicy 导致 UI 冻结
-            // 队列满时记录警告并丢弃任务，而不是在调用者线程（Burp UI）中执行
-            new RejectedExecutionHandler() {
-                @Override
-                public void rejectedExecution(Runnable r, ThreadPoolExecutor executor) {
-                    // 注意：此时 logger 和 statistics 尚未初始化（静态字段）
-                    // 使用 System.err 记录警告
-                    System.err.println("[DetSql] WARNING: 扫描队列已满，任务被拒绝。考虑增加队列容量或减少并发。");
-                }
-            });
+            SCAN_REJECTION_HANDLER);
+
+    // 虚拟线程扫描队列（可选，Java 21+）：首次使用时创建
+    // 扫描任务几乎全是阻塞 I/O 和等待，虚拟线程下可以同时运行数百个任务，
+    // 对单个目标的压力由 HostConcurrencyLimiter 控制，而不是 CPU 核心数
+    private static volatile ThreadPoolExecutor virtualScanExecutor;
 
     public CryptoUtils cryptoUtils;
     public URLUtils urlUtils;
@@ -155,19 +195,32 @@ public class MyHttpHandler implements HttpHandler {
     // 策略管理器
     private final InjectionStrategyManager strategyManager;
 
+    // 扫描队列优先级计算
+    private final ScanPriorityPolicy priorityPolicy;
+
+    // 磁盘溢出队列读回线程
+    private final ScheduledExecutorService overflowDrainer;
+
+    // 扫描控制：暂停/恢复、按主机或路径取消
+    private final ScanController scanController;
+
+    // 扫描日志（~/.config/DetSql/journal），resumeScanJournal() 时打开，未启用时为 null
+    private static final String JOURNAL_DIR_NAME = "journal";
+    private volatile ScanJournal scanJournal;
+
+    // 续扫票据的已完成子任务，扫描开始时取出
+    private final ConcurrentHashMap<String, Set<String>> resumedUnits = new ConcurrentHashMap<>();
+
+    // 基线探测：端点（结构化签名）-> 学习到的易变区域，同一端点只探测一次
+    // 缓存的是 future：同一端点的并发扫描等待首个探测者的结果，不重复发送探测请求
+    private static final int MAX_VOLATILE_MASKS = 1000;
+    private static final int MAX_BASELINE_PROBES = 2;
+    private final Map<String, CompletableFuture<VolatileRegionMask>> volatileMasks =
+            Collections.synchronizedMap(new LRUCache<>(MAX_VOLATILE_MASKS));
+
     // Dashboard ID counter - thread-safe atomic increment
     private final AtomicInteger countId = new AtomicInteger(1);
 
-    /**
-     * Precompiled pattern for newline removal
-     * Used in response body cleaning before regex matching
-     */
-    private static final Pattern NEWLINE_PATTERN;
-
-    // Precompile newline removal pattern at class loading time
-    static {
-        NEWLINE_PATTERN = Pattern.compile("\\n|\\r|\\r\\n");
-    }
     // 已迁移到 DetSqlConfig - 这些静态变量已废弃
     // 所有配置现在通过 this.config 访问
     // blackParamsSet -> config.getBlackListParams()
@@ -196,6 +249,44 @@ public class MyHttpHandler implements HttpHandler {
         this.strategyManager = new InjectionStrategyManager(api, config, logger, statistics, attackMap, ui);
         logger.info("策略管理器已初始化");
 
+        this.priorityPolicy = new ScanPriorityPolicy(config);
+
+        // 定期把磁盘溢出的任务读回扫描队列
+        this.overflowDrainer = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "DetSql-Overflow");
+            t.setDaemon(true);
+            return t;
+        });
+        overflowDrainer.scheduleWithFixedDelay(this::drainOverflow,
+                OVERFLOW_DRAIN_INTERVAL_MS, OVERFLOW_DRAIN_INTERVAL_MS, TimeUnit.MILLISECONDS);
+
+        this.scanController = new ScanController(runningTasks, AbstractInjectionStrategy.getPauseGate(),
+                MyHttpHandler::purgeCancelledTasks,
+                filter -> {
+                    try {
+                        overflowDrainer.execute(() -> purgeOverflow(filter));
+                    } catch (RejectedExecutionException e) {
+                        // 插件卸载中
+                    }
+                },
+                logger);
+
+        // 按主机自适应并发限制: 同步配置并监听后续修改
+        HostConcurrencyLimiter hostLimiter = AbstractInjectionStrategy.getHostLimiter();
+        hostLimiter.setMaxLimit(config.getMaxConcurrencyPerHost());
+        hostLimiter.setInitialLimit(config.getInitialConcurrencyPerHost());
+        config.addPropertyChangeListener("maxConcurrencyPerHost",
+                evt -> hostLimiter.setMaxLimit((Integer) evt.getNewValue()));
+        config.addPropertyChangeListener("initialConcurrencyPerHost",
+                evt -> hostLimiter.setInitialLimit((Integer) evt.getNewValue()));
+        // 发送速率: 全局每秒请求数 + 单主机最小请求间隔 (statictime),监听后续修改
+        configureRateGovernor();
+        config.addPropertyChangeListener("globalRequestsPerSecond", evt -> configureRateGovernor());
+        config.addPropertyChangeListener("staticTimeMs", evt -> configureRateGovernor());
+        config.addPropertyChangeListener("rateBurst", evt -> configureRateGovernor());
+        config.addPropertyChangeListener("virtualScanConcurrency",
+                evt -> resizeVirtualScanExecutor((Integer) evt.getNewValue()));
+
         // 输出双队列配置信息
         int processors = Runtime.getRuntime().availableProcessors();
         int receiveCore = Math.max(2, processors);
@@ -207,9 +298,27 @@ public class MyHttpHandler implements HttpHandler {
         logger.always("[#]   CPU 核心数: " + processors);
         logger.always("[#]   RECEIVE_EXECUTOR: 核心=" + receiveCore + ", 最大=" + receiveMax + ", 队列=" + receiveQueue);
         logger.always("[#]   SCAN_EXECUTOR: 核心=" + processors + ", 最大=" + (processors * 2) + ", 队列=1000");
+        logger.always("[#]   单主机并发: 初始=" + config.getInitialConcurrencyPerHost()
+                + ", 上限=" + config.getMaxConcurrencyPerHost() + " (AIMD 自适应)");
+        logger.always("[#]   虚拟线程: " + (VirtualThreads.isSupported() ? "运行时支持" : "运行时不支持 (需要 Java 21+)")
+                + (config.isVirtualThreadsEnabled() ? ", 已开启" : ", 未开启"));
+        logger.always("[#]   发送速率: 全局="
+                + (config.getGlobalRequestsPerSecond() > 0 ? config.getGlobalRequestsPerSecond() + " req/s" : "不限")
+                + ", 单主机间隔=" + config.getStaticTimeMs() + "ms, 突发=" + config.getRateBurst());
         logger.always("================================================");
     }
 
+    /**
+     * 按当前配置设置发送速率
+     * statictime 为同一主机相邻请求的最小间隔 (毫秒),换算为每秒请求数;0 表示不限速
+     */
+    private void configureRateGovernor() {
+        int hostIntervalMs = config.getStaticTimeMs();
+        double hostRate = hostIntervalMs > 0 ? 1000.0 / hostIntervalMs : 0;
+        AbstractInjectionStrategy.getRateGovernor().configure(
+                config.getGlobalRequestsPerSecond(), hostRate, config.getRateBurst());
+    }
+
     @Override
     public RequestToBeSentAction handleHttpRequestToBeSent(HttpRequestToBeSent httpRequestToBeSent) {
         return RequestToBeSentAction.continueWith(httpRequestToBeSent);
@@ -305,7 +414,7 @@ public class MyHttpHandler implements HttpHandler {
     /**
      * Updates log entry with vulnerability type or empty/stopped status
      */
-    private void updateLogEntry(HttpResponseReceived response, String hash,
+    private void updateLogEntry(HttpRequestResponse httpRequestResponse, String toolName, String hash,
             int logIndex, String vulnType) {
         final int finalLogIndex = logIndex;
         final String finalVulnType = (vulnType == null) ? "" : vulnType;
@@ -338,20 +447,21 @@ public class MyHttpHandler implements HttpHandler {
         SwingUtilities.invokeLater(() -> {
             // Bug 1 修复：始终保留原始响应，不使用空响应
             // 用户需要查看完整的请求和响应来判断是否真的无漏洞
+            HttpRequest request = httpRequestResponse.request();
             HttpRequestResponse httpRR = HttpRequestResponse.httpRequestResponse(
-                    response.initiatingRequest(),
-                    HttpResponse.httpResponse(response.toByteArray()));
+                    request,
+                    HttpResponse.httpResponse(httpRequestResponse.response().toByteArray()));
 
             SourceLogEntry newEntry = new SourceLogEntry(
                     finalLogIndex,
-                    response.toolSource().toolType().toolName(),
+                    toolName,
                     hash,
                     finalVulnType,
-                    response.bodyToString().length(),
+                    httpRequestResponse.response().bodyToString().length(),
                     httpRR,
-                    response.initiatingRequest().httpService().toString(),
-                    response.initiatingRequest().method(),
-                    response.initiatingRequest().pathWithoutQuery());
+                    request.httpService().toString(),
+                    request.method(),
+                    request.pathWithoutQuery());
 
             // Bug 1 修复：移除 discardResponse() 调用，保留完整响应供用户查看
             // 现代系统内存充足，保留响应的成本可接受，便于用户调试和分析
@@ -363,54 +473,59 @@ public class MyHttpHandler implements HttpHandler {
     }
 
     /**
-     * 执行 SQL 注入测试（在扫描队列中运行）
+     * 执行 Proxy/Repeater 流量的 SQL 注入测试（在扫描队列中运行）
      * 
-     * @param response HTTP 响应
-     * @param ctx      请求上下文
-     * @param logIndex 日志索引
+     * @param httpRequestResponse 原始请求和响应
+     * @param toolName            来源工具名（表格 Tool 列）
+     * @param hash                请求哈希
+     * @param logIndex            日志索引
      */
-    private void performSqlInjectionTest(HttpResponseReceived response, RequestContext ctx, int logIndex) {
-        Thread.currentThread().setName(ctx.hash);
-        logger.info("Starting SQL injection test: " + ctx.hash + " (ID: " + logIndex + ")");
+    private void performSqlInjectionTest(HttpRequestResponse httpRequestResponse, String toolName, String hash,
+            int logIndex) {
+        Thread.currentThread().setName(hash);
+        logger.info("Starting SQL injection test: " + hash + " (ID: " + logIndex + ")");
         statistics.incrementRequestsProcessed();
 
         try {
             String vulnType = "";
             if (!Thread.currentThread().isInterrupted()) {
                 long startTime = System.currentTimeMillis();
-                vulnType = processAutoResponse(response, ctx.hash);
+                vulnType = processResponse(hash, httpRequestResponse);
                 long duration = System.currentTimeMillis() - startTime;
                 statistics.recordTestTime(duration);
+                // 扫描完成才登记参数已测试，排队中被取消的请求再次出现时仍算新参数
+                priorityPolicy.markTested(httpRequestResponse.request());
 
                 if (vulnType != null && !vulnType.isEmpty() && !vulnType.equals("手动停止")) {
-                    logger.info("✓ Vulnerability found: " + vulnType + " in " + ctx.hash);
+                    logger.info("✓ Vulnerability found: " + vulnType + " in " + hash);
                     try {
-                        java.util.List<PocLogEntry> entries = attackMap.get(ctx.hash);
+                        java.util.List<PocLogEntry> entries = attackMap.get(hash);
                         if (entries != null) {
+                            recordVulnerableParams(entries);
                             statistics.recordFromEntries(
-                                    response.initiatingRequest().url(),
-                                    response.initiatingRequest().method(),
+                                    httpRequestResponse.request().url(),
+                                    httpRequestResponse.request().method(),
                                     entries);
                         }
                     } catch (Exception ignore) {
                         // do not break flow on statistics aggregation error
                     }
                 } else {
-                    logger.debug("No vulnerability found in " + ctx.hash + " (took " + duration + "ms)");
+                    logger.debug("No vulnerability found in " + hash + " (took " + duration + "ms)");
                 }
             }
             // Ensure vulnType is never null before passing to updateLogEntry
             if (vulnType == null) {
                 vulnType = "";
             }
-            updateLogEntry(response, ctx.hash, logIndex, vulnType);
+            updateLogEntry(httpRequestResponse, toolName, hash, logIndex, vulnType);
         } catch (InterruptedException e) {
-            updateLogEntry(response, ctx.hash, logIndex, "手动停止");
-            logger.warn("SQL injection test interrupted: " + ctx.hash);
+            updateLogEntry(httpRequestResponse, toolName, hash, logIndex, "手动停止");
+            logger.warn("SQL injection test interrupted: " + hash);
         } catch (Exception e) {
-            logger.error("SQL injection test failed: " + ctx.hash, e);
+            logger.error("SQL injection test failed: " + hash, e);
             statistics.incrementDetectionErrors();
-            updateLogEntry(response, ctx.hash, logIndex, "");
+            updateLogEntry(httpRequestResponse, toolName, hash, logIndex, "");
         }
     }
 
@@ -470,20 +585,15 @@ public class MyHttpHandler implements HttpHandler {
                 logger.info("✓ Request accepted: " + url + " (ID: " + logIndex + ", create: " + createTime + "ms)");
 
                 // 提交到扫描队列（队列 2）：执行 SQL 注入测试
-                Future<?> future = SCAN_EXECUTOR.submit(() -> {
-                    try {
-                        performSqlInjectionTest(httpResponseReceived, ctx, logIndex);
-                    } catch (Exception e) {
-                        logger.error("SQL injection test failed: " + ctx.hash, e);
-                        statistics.incrementDetectionErrors();
-                        updateLogEntry(httpResponseReceived, ctx.hash, logIndex, "");
-                    } finally {
-                        // 任务完成后移除跟踪
-                        runningTasks.remove(ctx.hash);
-                    }
-                });
-                // 保存 Future 引用用于任务取消
-                runningTasks.put(ctx.hash, future);
+                // Repeater 来源视为手动请求，优先于 Proxy 被动流量
+                ScanPriorityPolicy.PriorityClass priorityClass = ctx.isFromProxy
+                        ? ScanPriorityPolicy.PriorityClass.PROXY
+                        : ScanPriorityPolicy.PriorityClass.MANUAL;
+                long priority = priorityPolicy.prioritize(priorityClass, httpResponseReceived.initiatingRequest());
+                String toolName = httpResponseReceived.toolSource().toolType().toolName();
+                submitScan(HttpRequestResponse.httpRequestResponse(
+                                httpResponseReceived.initiatingRequest(), httpResponseReceived),
+                        ctx.hash, logIndex, toolName, SpilledScan.Origin.RECEIVED, priorityClass, priority, true);
 
             } catch (Exception e) {
                 logger.error("HTTP response handling failed", e);
@@ -494,50 +604,53 @@ public class MyHttpHandler implements HttpHandler {
         return ResponseReceivedAction.continueWith(httpResponseReceived);
     }
 
-    public String processAutoResponse(HttpResponseReceived httpResponseReceived, String requestSm3Hash)
-            throws InterruptedException {
-        // 修复文件泄漏：直接使用内存中的请求对象，不创建临时文件
-        // copyToTempFile() 会创建临时文件但从不删除，导致磁盘空间被耗尽
-        HttpRequest sourceHttpRequest = httpResponseReceived.initiatingRequest();
-        String sourceBody = httpResponseReceived.body().toString();
-        boolean html_flag = httpResponseReceived.mimeType().description().equals("HTML");
-        return processRequestInternal(sourceHttpRequest, sourceBody, html_flag, requestSm3Hash);
-    }
-
     /**
-     * 统一的参数处理方法（使用策略模式）
-     * 
-     * @param sourceRequest 原始请求
-     * @param sourceBody    原始响应体
-     * @param htmlFlag      是否为 HTML 响应
-     * @param params        要测试的参数列表
-     * @param modifier      参数修改器
-     * @param requestHash   请求哈希
-     * @return 检测到的漏洞类型列表
-     * @throws InterruptedException 线程中断异常
+     * 获取端点的易变区域：未学习过时重新发送原始请求 baselineProbeCount 次，
+     * 与原始响应比对得出 token、时间戳等每次都会变化的区域，按结构化签名缓存
      */
-    private List<String> processParametersWithStrategy(
-            HttpRequest sourceRequest,
-            String sourceBody,
-            boolean htmlFlag,
-            List<ParsedHttpParameter> params,
-            ParameterModifier modifier,
-            String requestHash) throws InterruptedException {
-
-        if (params == null || params.isEmpty()) {
-            return new ArrayList<>();
+    private VolatileRegionMask volatileMask(HttpRequest sourceHttpRequest, String sourceBody)
+            throws InterruptedException {
+        int probes = Math.min(config.getBaselineProbeCount(), MAX_BASELINE_PROBES);
+        if (probes <= 0 || sourceBody == null || sourceBody.isEmpty()) {
+            return VolatileRegionMask.NONE;
         }
-
-        // 使用策略管理器测试所有参数
-        List<String> detectedVulns = new ArrayList<>();
-        for (ParsedHttpParameter param : params) {
-            List<String> vulns = strategyManager.testParameter(
-                    sourceRequest, sourceBody, htmlFlag,
-                    param, modifier, requestHash);
-            detectedVulns.addAll(vulns);
+        String endpoint = MyFilterRequest.getUnique(sourceHttpRequest);
+        CompletableFuture<VolatileRegionMask> created = new CompletableFuture<>();
+        CompletableFuture<VolatileRegionMask> pending = volatileMasks.computeIfAbsent(endpoint, k -> created);
+        if (pending != created) {
+            try {
+                return pending.get();
+            } catch (ExecutionException e) {
+                return VolatileRegionMask.NONE;
+            }
         }
 
-        return detectedVulns;
+        VolatileRegionMask mask = null;
+        try {
+            List<String> probeBodies = new ArrayList<>(probes);
+            for (int i = 0; i < probes; i++) {
+                String body = extractResponseBody(sendHttpRequest(sourceHttpRequest, DEFAULT_RETRY_COUNT));
+                // 发送失败返回空响应，不参与学习
+                if (!body.isEmpty()) {
+                    probeBodies.add(body);
+                }
+            }
+            if (!probeBodies.isEmpty()) {
+                mask = VolatileRegionMask.learn(sourceBody, probeBodies);
+                if (!mask.isEmpty()) {
+                    logger.debug("Learned " + mask.regionCount() + " volatile region(s) for " + endpoint);
+                }
+            }
+        } finally {
+            if (mask == null) {
+                // 探测失败或被取消时不缓存，下一个请求重新探测；等待者按无易变区域继续
+                volatileMasks.remove(endpoint, created);
+                created.complete(VolatileRegionMask.NONE);
+            } else {
+                created.complete(mask);
+            }
+        }
+        return mask;
     }
 
     /**
@@ -556,59 +669,53 @@ public class MyHttpHandler implements HttpHandler {
     }
 
     private String processRequestInternal(HttpRequest sourceHttpRequest, String sourceBody, boolean html_flag,
-            String requestSm3Hash) throws InterruptedException {
-        Set<String> detectedVulns = new HashSet<>();
+            boolean json_flag, String requestSm3Hash) throws InterruptedException {
+        Set<String> completedUnits = resumedUnits.remove(requestSm3Hash);
+
+        // 拆分为 (参数, 策略) 子任务
+        List<ScanUnit> units = new ArrayList<>();
 
         // 处理 URL 参数
-        List<ParsedHttpParameter> urlParams = sourceHttpRequest.parameters(HttpParameterType.URL);
-        if (!urlParams.isEmpty()) {
-            List<String> vulns = processParametersWithStrategy(
-                    sourceHttpRequest, sourceBody, html_flag,
-                    urlParams, ParameterModifiers.URL, requestSm3Hash);
-            detectedVulns.addAll(vulns);
-        }
+        strategyManager.planUnits(sourceHttpRequest.parameters(HttpParameterType.URL), ParameterModifiers.URL, units);
 
         // 处理 POST/PUT 请求的参数
         if (isPostOrPutRequest(sourceHttpRequest)) {
             // BODY 参数
-            List<ParsedHttpParameter> bodyParams = sourceHttpRequest.parameters(HttpParameterType.BODY);
-            if (!bodyParams.isEmpty()) {
-                List<String> vulns = processParametersWithStrategy(
-                        sourceHttpRequest, sourceBody, html_flag,
-                        bodyParams, ParameterModifiers.BODY, requestSm3Hash);
-                detectedVulns.addAll(vulns);
-            }
+            strategyManager.planUnits(sourceHttpRequest.parameters(HttpParameterType.BODY),
+                    ParameterModifiers.BODY, units);
 
             // JSON 参数
-            List<ParsedHttpParameter> jsonParams = sourceHttpRequest.parameters(HttpParameterType.JSON);
-            if (!jsonParams.isEmpty()) {
-                List<String> vulns = processParametersWithStrategy(
-                        sourceHttpRequest, sourceBody, html_flag,
-                        jsonParams, ParameterModifiers.JSON, requestSm3Hash);
-                detectedVulns.addAll(vulns);
-            }
+            strategyManager.planUnits(sourceHttpRequest.parameters(HttpParameterType.JSON),
+                    ParameterModifiers.JSON, units);
 
             // XML 参数
-            List<ParsedHttpParameter> xmlParams = sourceHttpRequest.parameters(HttpParameterType.XML);
-            if (!xmlParams.isEmpty()) {
-                List<String> vulns = processParametersWithStrategy(
-                        sourceHttpRequest, sourceBody, html_flag,
-                        xmlParams, ParameterModifiers.XML, requestSm3Hash);
-                detectedVulns.addAll(vulns);
-            }
+            strategyManager.planUnits(sourceHttpRequest.parameters(HttpParameterType.XML),
+                    ParameterModifiers.XML, units);
         }
 
         // 处理 COOKIE 参数
         if (ui.isCookieCheckSelected()) {
-            List<ParsedHttpParameter> cookieParams = sourceHttpRequest.parameters(HttpParameterType.COOKIE);
-            if (!cookieParams.isEmpty()) {
-                List<String> vulns = processParametersWithStrategy(
-                        sourceHttpRequest, sourceBody, html_flag,
-                        cookieParams, ParameterModifiers.COOKIE, requestSm3Hash);
-                detectedVulns.addAll(vulns);
-            }
+            strategyManager.planUnits(sourceHttpRequest.parameters(HttpParameterType.COOKIE),
+                    ParameterModifiers.COOKIE, units);
+        }
+
+        if (units.isEmpty()) {
+            return "";
+        }
+
+        // 只有还有子任务要执行时才探测基线 (续扫时已全部完成的请求不再发送探测请求)
+        boolean remaining = completedUnits == null
+                || units.stream().anyMatch(unit -> !completedUnits.contains(unit.key()));
+        VolatileRegionMask mask = remaining ? volatileMask(sourceHttpRequest, sourceBody) : VolatileRegionMask.NONE;
+        ScanTicket ticket = new ScanTicket(requestSm3Hash, sourceHttpRequest, sourceBody, html_flag, json_flag, mask);
+        ticket.setCompletedUnits(completedUnits);
+        if (scanJournal != null) {
+            ticket.setUnitListener((t, unit, found) -> journalUnitCompleted(t.requestHash(), unit.key(), found));
         }
 
+        // 并行执行子任务并合并结果
+        Set<String> detectedVulns = strategyManager.runUnits(ticket, units);
+
         // 构建结果字符串
         return buildResultFromVulnTypes(detectedVulns);
     }
@@ -659,11 +766,17 @@ public class MyHttpHandler implements HttpHandler {
     // Package-private for unit testing; retains original behavior
     public String processManualResponse(String requestSm3Hash, HttpRequestResponse httpRequestResponse)
             throws InterruptedException {
+        return processResponse(requestSm3Hash, httpRequestResponse);
+    }
+
+    private String processResponse(String requestSm3Hash, HttpRequestResponse httpRequestResponse)
+            throws InterruptedException {
         // 修复文件泄漏：直接使用内存中的请求对象，不创建临时文件
         HttpRequest sourceHttpRequest = httpRequestResponse.request();
         String sourceBody = extractResponseBody(httpRequestResponse);
         boolean html_flag = httpRequestResponse.response().mimeType().description().equals("HTML");
-        return processRequestInternal(sourceHttpRequest, sourceBody, html_flag, requestSm3Hash);
+        boolean json_flag = httpRequestResponse.response().mimeType() == MimeType.JSON;
+        return processRequestInternal(sourceHttpRequest, sourceBody, html_flag, json_flag, requestSm3Hash);
     }
 
     /**
@@ -678,46 +791,8 @@ public class MyHttpHandler implements HttpHandler {
                 && (config.getDelayTimeMs() > 0 || !config.getDiyRegexs().isEmpty());
     }
 
-    /**
-     * Checks if text matches any regex pattern from a collection
-     * Now with ReDoS protection using timeout
-     * 
-     * @param text     the text to check
-     * @param patterns collection of regex patterns to match against
-     * @return the first matching pattern, or null if no match
-     */
-    private static String checkRegexMatch(String text, Iterable<String> patterns) {
-        String cleanedText = text.replaceAll("\\n|\\r|\\r\\n", "");
-        for (String pattern : patterns) {
-            // Use safe matching with timeout to prevent ReDoS
-            if (RegexUtils.safeMatch(pattern, cleanedText)) {
-                return pattern;
-            }
-        }
-        return null;
-    }
-
-    /**
-     * Optimized regex matching using precompiled patterns
-     * Now with ReDoS protection using timeout
-     *
-     * @param text     the text to check
-     * @param patterns precompiled Pattern objects
-     * @return the first matching pattern string, or null if no match
-     */
-    private static String checkRegexMatch(String text, List<Pattern> patterns) {
-        String cleanedText = NEWLINE_PATTERN.matcher(text).replaceAll("");
-        for (Pattern pattern : patterns) {
-            // Use safe matching with timeout for precompiled patterns
-            if (RegexUtils.safeMatchPrecompiled(pattern, cleanedText)) {
-                return pattern.pattern(); // Return original regex string
-            }
-        }
-        return null;
-    }
-
     public String diyRegexCheck(String text) {
-        return checkRegexMatch(text, config.getDiyRegexs());
+        return config.getDiyRules().current().firstMatch(text);
     }
 
     public static String byteToHex(byte[] bytes) {
@@ -748,6 +823,14 @@ public class MyHttpHandler implements HttpHandler {
         return response.response().body().toString();
     }
 
+    /**
+     * 重试前随机退避 (startTime ~ endTime 毫秒),由速率控制器的调度线程计时
+     */
+    private void retryBackoff() throws InterruptedException {
+        long backoffMs = ThreadLocalRandom.current().nextInt(config.getStartTimeMs(), config.getEndTimeMs() + 1);
+        RateGovernor.await(AbstractInjectionStrategy.getRateGovernor().delay(backoffMs, TimeUnit.MILLISECONDS));
+    }
+
     public HttpRequestResponse sendHttpRequest(HttpRequest pocHttpRequest, int retryCount) throws InterruptedException {
         Exception lastException = null;
 
@@ -755,8 +838,10 @@ public class MyHttpHandler implements HttpHandler {
             try {
                 // 修复文件泄漏：直接使用内存中的响应对象，不创建临时文件
                 // 对于正常大小的响应（< 80KB），内存足够，不需要临时文件
+                AbstractInjectionStrategy.getPauseGate().awaitOpen(AbstractInjectionStrategy.hostName(pocHttpRequest));
+                RateGovernor rateGovernor = AbstractInjectionStrategy.getRateGovernor();
+                RateGovernor.await(rateGovernor.acquire(AbstractInjectionStrategy.hostKey(pocHttpRequest)));
                 HttpRequestResponse resHttpRequestResponse = api.http().sendRequest(pocHttpRequest);
-                Thread.sleep(Math.max(config.getStaticTimeMs(), MIN_SLEEP_TIME_MS));
 
                 if (resHttpRequestResponse.response().body() != null) {
                     return resHttpRequestResponse;
@@ -766,8 +851,7 @@ public class MyHttpHandler implements HttpHandler {
                 if (attempt < retryCount - 1) {
                     logger.debug(
                             "Response body is null, retrying... (attempt " + (attempt + 1) + "/" + retryCount + ")");
-                    Thread.sleep(
-                            ThreadLocalRandom.current().nextInt(config.getStartTimeMs(), config.getEndTimeMs() + 1));
+                    retryBackoff();
                 }
 
             } catch (InterruptedException e) {
@@ -781,8 +865,7 @@ public class MyHttpHandler implements HttpHandler {
                     logger.debug("Request failed, retrying... (attempt " + (attempt + 1) + "/" + retryCount + "): "
                             + e.getMessage());
                     try {
-                        Thread.sleep(ThreadLocalRandom.current().nextInt(config.getStartTimeMs(),
-                                config.getEndTimeMs() + 1));
+                        retryBackoff();
                     } catch (InterruptedException ie) {
                         Thread.currentThread().interrupt();
                         throw new InterruptedException();
@@ -821,9 +904,10 @@ public class MyHttpHandler implements HttpHandler {
      * @param httpRequestResponse HTTP 请求响应
      * @param requestSm3Hash      请求哈希
      * @param logIndex            日志索引
+     * @param toolName            来源工具名（表格 Tool 列）
      */
     private void performManualSqlInjectionTest(HttpRequestResponse httpRequestResponse, String requestSm3Hash,
-            int logIndex) {
+            int logIndex, String toolName) {
         Thread.currentThread().setName(requestSm3Hash);
         logger.info("Starting manual SQL injection test: " + requestSm3Hash + " (ID: " + logIndex + ")");
         statistics.incrementRequestsProcessed();
@@ -832,12 +916,17 @@ public class MyHttpHandler implements HttpHandler {
             String vulnType = "";
             if (!Thread.currentThread().isInterrupted()) {
                 long startTime = System.currentTimeMillis();
-                vulnType = processManualResponse(requestSm3Hash, httpRequestResponse);
+                vulnType = processResponse(requestSm3Hash, httpRequestResponse);
                 long duration = System.currentTimeMillis() - startTime;
                 statistics.recordTestTime(duration);
+                priorityPolicy.markTested(httpRequestResponse.request());
 
                 if (vulnType != null && !vulnType.isEmpty()) {
                     logger.info("✓ Vulnerability found in manual request: " + vulnType + " in " + requestSm3Hash);
+                    List<PocLogEntry> entries = attackMap.get(requestSm3Hash);
+                    if (entries != null) {
+                        recordVulnerableParams(entries);
+                    }
                 } else {
                     logger.debug("No vulnerability found in manual request: " + requestSm3Hash + " (took " + duration
                             + "ms)");
@@ -861,7 +950,7 @@ public class MyHttpHandler implements HttpHandler {
                     sourceTableModel.updateVulnState(
                             new SourceLogEntry(
                                     finalLogIndex,
-                                    "Send",
+                                    toolName,
                                     requestSm3Hash,
                                     "",
                                     httpRequestResponse.response().bodyToString().length(),
@@ -877,7 +966,7 @@ public class MyHttpHandler implements HttpHandler {
                     sourceTableModel.updateVulnState(
                             new SourceLogEntry(
                                     finalLogIndex,
-                                    "Send",
+                                    toolName,
                                     requestSm3Hash,
                                     finalVulnType,
                                     httpRequestResponse.response().bodyToString().length(),
@@ -895,7 +984,7 @@ public class MyHttpHandler implements HttpHandler {
                 sourceTableModel.updateVulnState(
                         new SourceLogEntry(
                                 finalLogIndex,
-                                "Send",
+                                toolName,
                                 requestSm3Hash,
                                 "手动停止",
                                 httpRequestResponse.response().bodyToString().length(),
@@ -984,37 +1073,11 @@ public class MyHttpHandler implements HttpHandler {
                 logger.info(
                         "Manual request accepted: " + httpRequestResponse.request().url() + " (ID: " + logIndex + ")");
 
-                // 4. Submit to Scan Queue
-                Future<?> future = SCAN_EXECUTOR.submit(() -> {
-                    try {
-                        performManualSqlInjectionTest(httpRequestResponse, requestSm3Hash, logIndex);
-                    } catch (Exception e) {
-                        logger.error("Manual SQL injection test failed: " + requestSm3Hash, e);
-                        statistics.incrementDetectionErrors();
-                        // Ensure state is updated on error
-                        // Manually update UI since updateLogEntry expects HttpResponseReceived
-                        final int errorLogIndex = logIndex;
-                        SwingUtilities.invokeLater(() -> {
-                            sourceTableModel.updateVulnState(
-                                    new SourceLogEntry(
-                                            errorLogIndex,
-                                            "Send",
-                                            requestSm3Hash,
-                                            "Error", // Indicate error state
-                                            httpRequestResponse.response().bodyToString().length(),
-                                            httpRequestResponse,
-                                            httpRequestResponse.request().httpService().toString(),
-                                            httpRequestResponse.request().method(),
-                                            httpRequestResponse.request().pathWithoutQuery()),
-                                    sourceTableModel.indexOf(
-                                            new SourceLogEntry(finalLogIndex, null, null, null, 0, null, null, null,
-                                                    null)));
-                        });
-                    } finally {
-                        runningTasks.remove(requestSm3Hash);
-                    }
-                });
-                runningTasks.put(requestSm3Hash, future);
+                // 4. Submit to Scan Queue (手动请求优先)
+                long priority = priorityPolicy.prioritize(ScanPriorityPolicy.PriorityClass.MANUAL,
+                        httpRequestResponse.request());
+                submitScan(httpRequestResponse, requestSm3Hash, logIndex, "Send", SpilledScan.Origin.MANUAL,
+                        ScanPriorityPolicy.PriorityClass.MANUAL, priority, true);
 
             } catch (Exception e) {
                 logger.error("Manual request submission failed", e);
@@ -1023,6 +1086,13 @@ public class MyHttpHandler implements HttpHandler {
         });
     }
 
+    /**
+     * 获取扫描控制（暂停/恢复、按范围取消）
+     */
+    public ScanController getScanController() {
+        return scanController;
+    }
+
     /**
      * 获取正在运行的任务
      * 用于任务取消（替代 Thread.getAllStackTraces() 反模式）
@@ -1034,6 +1104,431 @@ public class MyHttpHandler implements HttpHandler {
         return runningTasks.get(requestHash);
     }
 
+    /**
+     * 提交扫描任务（Proxy/Repeater 流量、手动发送、磁盘溢出读回、续扫）
+     *
+     * @param httpRequestResponse 原始请求和响应
+     * @param requestSm3Hash      请求哈希
+     * @param logIndex            日志索引
+     * @param toolName            来源工具名（表格 Tool 列）
+     * @param origin              任务来源，决定扫描完成后的处理（统计、PoC 证据保留、表格更新）
+     * @param priorityClass       优先级类别
+     * @param priority            优先级
+     * @param journalAccept       是否写入扫描日志 ACCEPT 记录（读回和续扫的任务已有记录）
+     */
+    private void submitScan(HttpRequestResponse httpRequestResponse, String requestSm3Hash, int logIndex,
+            String toolName, SpilledScan.Origin origin, ScanPriorityPolicy.PriorityClass priorityClass,
+            long priority, boolean journalAccept) {
+        ScanTask task = new ScanTask(requestSm3Hash, ScanController.Scope.of(httpRequestResponse.request()),
+                origin == SpilledScan.Origin.RECEIVED
+                        ? () -> runReceivedScan(httpRequestResponse, requestSm3Hash, logIndex, toolName)
+                        : () -> runManualScan(httpRequestResponse, requestSm3Hash, logIndex, toolName),
+                priority, priorityClass, statistics,
+                () -> toSpilledScan(httpRequestResponse, requestSm3Hash, toolName, origin, priorityClass, priority,
+                        logIndex),
+                this::scanTaskDone);
+        if (journalAccept) {
+            journalAccepted(task);
+        }
+        // 先登记再入队，避免任务执行完毕后才登记导致残留
+        runningTasks.put(requestSm3Hash, task);
+        scanExecutor().execute(task);
+    }
+
+    private void runReceivedScan(HttpRequestResponse httpRequestResponse, String requestSm3Hash, int logIndex,
+            String toolName) {
+        try {
+            performSqlInjectionTest(httpRequestResponse, toolName, requestSm3Hash, logIndex);
+        } catch (Exception e) {
+            logger.error("SQL injection test failed: " + requestSm3Hash, e);
+            statistics.incrementDetectionErrors();
+            updateLogEntry(httpRequestResponse, toolName, requestSm3Hash, logIndex, "");
+        } finally {
+            // 任务完成后移除跟踪
+            runningTasks.remove(requestSm3Hash);
+        }
+    }
+
+    private void runManualScan(HttpRequestResponse httpRequestResponse, String requestSm3Hash, int logIndex,
+            String toolName) {
+        try {
+            performManualSqlInjectionTest(httpRequestResponse, requestSm3Hash, logIndex, toolName);
+        } catch (Exception e) {
+            logger.error("Manual SQL injection test failed: " + requestSm3Hash, e);
+            statistics.incrementDetectionErrors();
+            // Ensure state is updated on error
+            // Manually update UI: manual scans mark errors with an explicit "Error" state
+            SwingUtilities.invokeLater(() -> {
+                sourceTableModel.updateVulnState(
+                        new SourceLogEntry(
+                                logIndex,
+                                toolName,
+                                requestSm3Hash,
+                                "Error", // Indicate error state
+                                httpRequestResponse.response().bodyToString().length(),
+                                httpRequestResponse,
+                                httpRequestResponse.request().httpService().toString(),
+                                httpRequestResponse.request().method(),
+                                httpRequestResponse.request().pathWithoutQuery()),
+                        sourceTableModel.indexOf(
+                                new SourceLogEntry(logIndex, null, null, null, 0, null, null, null, null)));
+            });
+        } finally {
+            runningTasks.remove(requestSm3Hash);
+        }
+    }
+
+    private static SpilledScan toSpilledScan(HttpRequestResponse httpRequestResponse, String requestSm3Hash,
+            String toolName, SpilledScan.Origin origin, ScanPriorityPolicy.PriorityClass priorityClass, long priority,
+            int logIndex) {
+        HttpService service = httpRequestResponse.request().httpService();
+        return new SpilledScan(requestSm3Hash, toolName, origin, priorityClass, priority, logIndex,
+                service.host(), service.port(), service.secure(),
+                httpRequestResponse.request().toByteArray().getBytes(),
+                httpRequestResponse.response().toByteArray().getBytes());
+    }
+
+    /**
+     * 扫描队列满时把任务序列化到磁盘溢出队列（拒绝策略中调用）
+     *
+     * @return true 表示已溢出，false 表示无法溢出（由调用方丢弃）
+     */
+    private static boolean spillToOverflow(ScanTask task) {
+        try {
+            SpilledScan spilled = task.toSpilled();
+            if (spilled == null) {
+                return false;
+            }
+            OverflowSpool spool = overflowSpool();
+            spool.append(spilled.encode());
+            // 读回时会重新登记，这里移除避免残留
+            runningTasks.remove(task.getRequestHash(), task);
+            if (task.getStatistics() != null) {
+                task.getStatistics().recordOverflowSpilled(spool.size());
+            }
+            return true;
+        } catch (Exception e) {
+            System.err.println("[DetSql] WARNING: 扫描任务溢出到磁盘失败: " + e.getMessage());
+            return false;
+        }
+    }
+
+    private static OverflowSpool overflowSpool() throws IOException {
+        OverflowSpool spool = overflowSpool;
+        if (spool == null) {
+            synchronized (MyHttpHandler.class) {
+                spool = overflowSpool;
+                if (spool == null) {
+                    spool = new OverflowSpool(ConfigManager.getConfigDir().resolve(OVERFLOW_DIR_NAME));
+                    overflowSpool = spool;
+                }
+            }
+        }
+        return spool;
+    }
+
+    /**
+     * 扫描队列有空位时把磁盘溢出的任务读回（overflowDrainer 定期调用）
+     */
+    private void drainOverflow() {
+        OverflowSpool spool = overflowSpool;
+        if (spool == null || spool.isEmpty()) {
+            return;
+        }
+        try {
+            ThreadPoolExecutor executor = scanExecutor();
+            while (!executor.isShutdown()
+                    && executor.getQueue().remainingCapacity() > OVERFLOW_REFILL_HEADROOM) {
+                byte[] data = spool.poll();
+                if (data == null) {
+                    break;
+                }
+                SpilledScan spilled;
+                try {
+                    spilled = SpilledScan.decode(data);
+                } catch (IOException e) {
+                    logger.warn("跳过损坏的溢出任务: " + e.getMessage());
+                    continue;
+                }
+                statistics.recordOverflowRestored(spool.size());
+                submitScan(restoreRequestResponse(spilled), spilled.requestHash(), spilled.logIndex(),
+                        spilled.toolName(), spilled.origin(), spilled.priorityClass(), spilled.priority(), false);
+            }
+        } catch (Exception e) {
+            // 不抛出，避免定时任务被取消
+            logger.error("读取磁盘溢出队列失败", e);
+        }
+    }
+
+    /**
+     * 从磁盘溢出队列中清除匹配的任务（按范围取消时调用，在 overflowDrainer 线程执行，不与读回并发）
+     * 依次取出当前全部记录，不匹配的重新追加到队尾
+     */
+    private void purgeOverflow(Predicate<ScanController.Scope> filter) {
+        OverflowSpool spool = overflowSpool;
+        if (spool == null || spool.isEmpty()) {
+            return;
+        }
+        int dropped = 0;
+        try {
+            int count = spool.size();
+            for (int i = 0; i < count; i++) {
+                byte[] data = spool.poll();
+                if (data == null) {
+                    break;
+                }
+                SpilledScan spilled;
+                try {
+                    spilled = SpilledScan.decode(data);
+                } catch (IOException e) {
+                    continue;
+                }
+                if (filter.test(ScanController.Scope.of(restoreRequestResponse(spilled).request()))) {
+                    journalTicketCompleted(spilled.requestHash());
+                    markStopped(spilled.requestHash());
+                    dropped++;
+                } else {
+                    spool.append(data);
+                }
+            }
+        } catch (Exception e) {
+            logger.error("清除磁盘溢出队列失败", e);
+        }
+        if (dropped > 0) {
+            logger.info("已从磁盘溢出队列清除 " + dropped + " 个扫描");
+        }
+    }
+
+    private static HttpRequestResponse restoreRequestResponse(SpilledScan spilled) {
+        HttpService service = HttpService.httpService(spilled.host(), spilled.port(), spilled.secure());
+        return HttpRequestResponse.httpRequestResponse(
+                HttpRequest.httpRequest(service, ByteArray.byteArray(spilled.request())),
+                HttpResponse.httpResponse(ByteArray.byteArray(spilled.response())));
+    }
+
+    /**
+     * 打开扫描日志并继续上次未完成的扫描（插件加载、配置应用之后调用）
+     *
+     * @return 续扫的请求数
+     */
+    public int resumeScanJournal() {
+        if (!config.isScanJournalEnabled()) {
+            logger.info("扫描日志未启用");
+            return 0;
+        }
+        ScanJournal journal;
+        try {
+            journal = new ScanJournal(ConfigManager.getConfigDir().resolve(JOURNAL_DIR_NAME));
+        } catch (IOException e) {
+            logger.error("打开扫描日志失败，本次不记录扫描进度", e);
+            return 0;
+        }
+        scanJournal = journal;
+
+        List<ScanJournal.PendingScan> pending = journal.recovered();
+        if (pending.isEmpty()) {
+            return 0;
+        }
+        logger.info("从扫描日志继续 " + pending.size() + " 个未完成的请求");
+        // 在接收队列中逐个提交，不阻塞插件加载；超出扫描队列容量的部分会溢出到磁盘
+        RECEIVE_EXECUTOR.execute(() -> {
+            for (ScanJournal.PendingScan scan : pending) {
+                try {
+                    resumeScan(scan);
+                } catch (Exception e) {
+                    logger.error("续扫请求失败: " + scan.scan().requestHash(), e);
+                }
+            }
+        });
+        return pending.size();
+    }
+
+    void resumeScan(ScanJournal.PendingScan pending) {
+        SpilledScan scan = pending.scan();
+        HttpRequestResponse httpRequestResponse = restoreRequestResponse(scan);
+        String requestSm3Hash = scan.requestHash();
+        // 按当前的域名/路径/参数黑白名单重新过滤: 重启前后用户可能已把目标移出范围
+        if (!MyFilterRequest.filterOneRequest(httpRequestResponse)) {
+            statistics.incrementRequestsFiltered();
+            logger.info("续扫请求已不符合过滤规则，放弃: " + httpRequestResponse.request().url());
+            journalTicketCompleted(requestSm3Hash);
+            return;
+        }
+        attackMap.putIfAbsent(requestSm3Hash, Collections.synchronizedList(new ArrayList<>()));
+        if (!pending.completedUnits().isEmpty()) {
+            resumedUnits.put(requestSm3Hash, pending.completedUnits());
+        }
+
+        // 表格行号在重启后重新分配
+        int logIndex = countId.getAndIncrement();
+        SwingUtilities.invokeLater(() -> {
+            sourceTableModel.add(new SourceLogEntry(
+                    logIndex,
+                    scan.toolName(),
+                    requestSm3Hash,
+                    "run",
+                    httpRequestResponse.response().bodyToString().length(),
+                    HttpRequestResponse.httpRequestResponse(
+                            httpRequestResponse.request(),
+                            HttpResponse.httpResponse()),
+                    httpRequestResponse.request().httpService().toString(),
+                    httpRequestResponse.request().method(),
+                    httpRequestResponse.request().pathWithoutQuery()));
+        });
+        // 按记录的来源提交：Proxy/Repeater 流量续扫后同样记录统计、保留 PoC 证据
+        submitScan(httpRequestResponse, requestSm3Hash, logIndex, scan.toolName(), scan.origin(),
+                scan.priorityClass(), scan.priority(), false);
+    }
+
+    /**
+     * 把已取消的任务移出扫描队列，立即腾出队列容量
+     */
+    private static void purgeCancelledTasks() {
+        SCAN_EXECUTOR.purge();
+        ThreadPoolExecutor virtualExecutor = virtualScanExecutor;
+        if (virtualExecutor != null) {
+            virtualExecutor.purge();
+        }
+    }
+
+    private void journalAccepted(ScanTask task) {
+        ScanJournal journal = scanJournal;
+        if (journal == null) {
+            return;
+        }
+        try {
+            SpilledScan scan = task.toSpilled();
+            if (scan != null) {
+                journal.accepted(scan);
+            }
+        } catch (Exception e) {
+            logger.warn("写入扫描日志失败: " + e.getMessage());
+        }
+    }
+
+    private void journalUnitCompleted(String requestSm3Hash, String unitKey, boolean found) {
+        ScanJournal journal = scanJournal;
+        if (journal == null) {
+            return;
+        }
+        try {
+            journal.unitCompleted(requestSm3Hash, unitKey, found);
+        } catch (IOException e) {
+            logger.warn("写入扫描日志失败: " + e.getMessage());
+        }
+    }
+
+    /**
+     * 扫描任务结束回调: 标记扫描日志票据完成;排队中被取消的任务没有执行扫描逻辑,在这里清理登记并更新表格
+     */
+    private void scanTaskDone(ScanTask task) {
+        journalTicketCompleted(task.getRequestHash());
+        if (task.isCancelled() && !task.hasStarted()) {
+            runningTasks.remove(task.getRequestHash(), task);
+            markStopped(task.getRequestHash());
+        }
+    }
+
+    /**
+     * 把表格中请求的状态更新为"手动停止"
+     */
+    private void markStopped(String requestSm3Hash) {
+        SwingUtilities.invokeLater(() -> {
+            SourceLogEntry entry = sourceTableModel.findByHash(requestSm3Hash);
+            if (entry == null) {
+                return;
+            }
+            int rowIndex = sourceTableModel.indexOf(entry);
+            if (rowIndex >= 0) {
+                entry.setVulnState("手动停止");
+                sourceTableModel.updateVulnState(entry, rowIndex);
+            }
+        });
+    }
+
+    private void journalTicketCompleted(String requestSm3Hash) {
+        ScanJournal journal = scanJournal;
+        if (journal == null) {
+            return;
+        }
+        try {
+            journal.ticketCompleted(requestSm3Hash);
+        } catch (IOException e) {
+            logger.warn("写入扫描日志失败: " + e.getMessage());
+        }
+    }
+
+    /**
+     * 把确认存在漏洞的参数名反馈给优先级策略，后续含同名参数的请求优先扫描
+     */
+    private void recordVulnerableParams(List<PocLogEntry> entries) {
+        Set<String> names = new HashSet<>();
+        synchronized (entries) {
+            for (PocLogEntry entry : entries) {
+                if (entry.getName() != null) {
+                    names.add(entry.getName());
+                }
+            }
+        }
+        names.forEach(priorityPolicy::recordHit);
+    }
+
+    /**
+     * 选择扫描任务使用的线程池
+     * 开启虚拟线程模式且运行时支持时使用虚拟线程池，否则使用平台线程池 SCAN_EXECUTOR
+     */
+    private ThreadPoolExecutor scanExecutor() {
+        if (!config.isVirtualThreadsEnabled() || !VirtualThreads.isSupported()) {
+            return SCAN_EXECUTOR;
+        }
+        ThreadPoolExecutor executor = virtualScanExecutor;
+        if (executor == null) {
+            synchronized (MyHttpHandler.class) {
+                executor = virtualScanExecutor;
+                if (executor == null) {
+                    ThreadFactory factory = VirtualThreads.newThreadFactory("DetSql-VScan-");
+                    if (factory == null) {
+                        return SCAN_EXECUTOR;
+                    }
+                    int size = Math.max(1, config.getVirtualScanConcurrency());
+                    executor = new ThreadPoolExecutor(size, size, 60L, TimeUnit.SECONDS,
+                            new ScanPriorityQueue(1000, SCAN_QUEUE_AGING_MS), factory, SCAN_REJECTION_HANDLER);
+                    executor.allowCoreThreadTimeOut(true);
+                    virtualScanExecutor = executor;
+                    logger.info("虚拟线程扫描模式已启用，并发扫描任务数: " + size);
+                }
+            }
+        }
+        return executor;
+    }
+
+    /**
+     * 调整虚拟线程扫描池大小（配置变更时调用）
+     */
+    private static void resizeVirtualScanExecutor(int size) {
+        ThreadPoolExecutor executor = virtualScanExecutor;
+        if (executor == null || size < 1) {
+            return;
+        }
+        // 先调大上限再调核心数（缩小时相反），避免 IllegalArgumentException
+        if (size > executor.getMaximumPoolSize()) {
+            executor.setMaximumPoolSize(size);
+            executor.setCorePoolSize(size);
+        } else {
+            executor.setCorePoolSize(size);
+            executor.setMaximumPoolSize(size);
+        }
+    }
+
+    /**
+     * 获取各目标主机当前的并发上限和在途请求数
+     *
+     * @return 按 host 排序的快照列表
+     */
+    public List<HostConcurrencyLimiter.HostSnapshot> getHostConcurrencySnapshot() {
+        return AbstractInjectionStrategy.getHostLimiter().snapshot();
+    }
+
     /**
      * 关闭所有资源，包括线程池
      * 应在扩展卸载时调用，防止僵尸线程和内存泄漏
@@ -1041,17 +1536,46 @@ public class MyHttpHandler implements HttpHandler {
     public void shutdown() {
         logger.info("开始关闭 DetSql 资源...");
 
+        // 先关闭扫描日志：之后被中断的任务不会被标记为完成，下次加载时继续
+        ScanJournal journal = scanJournal;
+        scanJournal = null;
+        if (journal != null) {
+            try {
+                journal.close();
+            } catch (IOException e) {
+                logger.warn("关闭扫描日志失败: " + e.getMessage());
+            }
+        }
+
         // 关闭策略管理器
         if (strategyManager != null) {
             strategyManager.shutdown();
         }
 
+        // 停止读回磁盘溢出任务，未读回的任务随段文件一起删除
+        overflowDrainer.shutdownNow();
+        OverflowSpool spool = overflowSpool;
+        overflowSpool = null;
+        if (spool != null) {
+            try {
+                spool.close();
+            } catch (IOException e) {
+                logger.warn("关闭磁盘溢出队列失败: " + e.getMessage());
+            }
+        }
+
         // 关闭接收线程池
         shutdownExecutor(RECEIVE_EXECUTOR, "RECEIVE_EXECUTOR");
 
         // 关闭扫描线程池
         shutdownExecutor(SCAN_EXECUTOR, "SCAN_EXECUTOR");
 
+        // 关闭虚拟线程扫描池（如果启用过）
+        ThreadPoolExecutor virtualExecutor = virtualScanExecutor;
+        if (virtualExecutor != null) {
+            shutdownExecutor(virtualExecutor, "VIRTUAL_SCAN_EXECUTOR");
+        }
+
         logger.info("DetSql 资源关闭完成");
     }
 
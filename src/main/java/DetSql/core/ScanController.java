@@ -0,0 +1,181 @@
+/*
+ * @saoshao<1224165231@qq.com>
+ */
+
+package DetSql.core;
+
+import burp.api.montoya.http.message.requests.HttpRequest;
+import DetSql.logging.DetSqlLogger;
+import DetSql.util.PauseGate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+
+/**
+ * 扫描控制
+ *
+ * - 暂停/恢复: 全局或单个主机,暂停期间扫描线程在下一次发送 PoC 前等待 (PauseGate)
+ * - 取消: 单个请求,或按主机/路径前缀批量取消排队中和执行中的扫描;
+ *   执行中的扫描被中断,正在发送的请求立即放弃等待并归还主机并发许可
+ * - 磁盘溢出队列中匹配的任务由 purgeSpooled 回调清除
+ *
+ * 取消后的收尾 (表格状态、扫描日志) 由 ScanTask 的结束回调统一处理
+ */
+public class ScanController {
+
+    /**
+     * 扫描任务的目标范围
+     *
+     * @param host 主机名 (小写,不含协议和端口)
+     * @param path 路径 (不含查询参数)
+     */
+    public record Scope(String host, String path) {
+
+        public static Scope of(HttpRequest request) {
+            String host = request.httpService() != null ? request.httpService().host() : "";
+            return new Scope(host.toLowerCase(Locale.ROOT), request.pathWithoutQuery());
+        }
+
+        /**
+         * 是否在指定范围内
+         *
+         * @param hostFilter 主机名,为空表示任意主机
+         * @param pathPrefix 路径前缀,为空表示任意路径;按路径段匹配 (/api 匹配 /api/x,不匹配 /apix)
+         */
+        public boolean matches(String hostFilter, String pathPrefix) {
+            if (hostFilter != null && !hostFilter.isBlank() && !host.equalsIgnoreCase(hostFilter)) {
+                return false;
+            }
+            if (pathPrefix == null || pathPrefix.isEmpty()) {
+                return true;
+            }
+            if (path == null) {
+                return false;
+            }
+            if (path.equals(pathPrefix)) {
+                return true;
+            }
+            String dir = pathPrefix.endsWith("/") ? pathPrefix : pathPrefix + "/";
+            return path.startsWith(dir);
+        }
+    }
+
+    private final Map<String, Future<?>> runningTasks;
+    private final PauseGate pauseGate;
+    private final Runnable purgeQueues;
+    private final Consumer<Predicate<Scope>> purgeSpooled;
+    private final DetSqlLogger logger;
+
+    /**
+     * @param runningTasks 请求哈希 -> 排队中或执行中的任务
+     * @param pauseGate    发送前检查的暂停闸门
+     * @param purgeQueues  把已取消的任务移出线程池队列
+     * @param purgeSpooled 清除磁盘溢出队列中匹配的任务
+     * @param logger       日志 (可为 null)
+     */
+    public ScanController(Map<String, Future<?>> runningTasks, PauseGate pauseGate,
+            Runnable purgeQueues, Consumer<Predicate<Scope>> purgeSpooled, DetSqlLogger logger) {
+        this.runningTasks = runningTasks;
+        this.pauseGate = pauseGate;
+        this.purgeQueues = purgeQueues;
+        this.purgeSpooled = purgeSpooled;
+        this.logger = logger;
+    }
+
+    public void pauseAll() {
+        pauseGate.pauseAll();
+        log("已暂停全部扫描");
+    }
+
+    public void resumeAll() {
+        pauseGate.resumeAll();
+        log("已恢复全部扫描");
+    }
+
+    public void pauseHost(String host) {
+        pauseGate.pauseHost(host);
+        log("已暂停主机扫描: " + host);
+    }
+
+    public void resumeHost(String host) {
+        pauseGate.resumeHost(host);
+        log("已恢复主机扫描: " + host);
+    }
+
+    public boolean isAllPaused() {
+        return pauseGate.isAllPaused();
+    }
+
+    public boolean isHostPaused(String host) {
+        return pauseGate.isHostPaused(host);
+    }
+
+    /**
+     * 取消单个请求的扫描
+     *
+     * @return 是否取消成功 (任务不存在或已结束时返回 false)
+     */
+    public boolean cancel(String requestHash) {
+        Future<?> task = runningTasks.get(requestHash);
+        if (task == null || !task.cancel(true)) {
+            return false;
+        }
+        purgeQueues.run();
+        return true;
+    }
+
+    /**
+     * 取消指定范围内的所有扫描 (排队中、执行中、磁盘溢出队列中)
+     *
+     * @param host       主机名,为空表示任意主机
+     * @param pathPrefix 路径前缀,为空表示任意路径
+     * @return 取消的排队中和执行中的任务数 (不含磁盘溢出队列,其清除是异步的)
+     */
+    public int cancelMatching(String host, String pathPrefix) {
+        Predicate<Scope> filter = scope -> scope != null && scope.matches(host, pathPrefix);
+        List<Future<?>> matched = new ArrayList<>();
+        for (Future<?> task : runningTasks.values()) {
+            if (task instanceof ScanTask scanTask && filter.test(scanTask.getScope())) {
+                matched.add(task);
+            }
+        }
+        int cancelled = 0;
+        for (Future<?> task : matched) {
+            if (task.cancel(true)) {
+                cancelled++;
+            }
+        }
+        if (cancelled > 0) {
+            purgeQueues.run();
+        }
+        purgeSpooled.accept(filter);
+        log("已取消 " + cancelled + " 个扫描 (主机: " + describe(host) + ", 路径: " + describe(pathPrefix) + ")");
+        return cancelled;
+    }
+
+    /**
+     * 路径所在目录 (到最后一个 / 为止),用于"取消该路径下的扫描"
+     */
+    public static String directoryOf(String path) {
+        if (path == null || path.isEmpty()) {
+            return "/";
+        }
+        int slash = path.lastIndexOf('/');
+        return slash < 0 ? "/" : path.substring(0, slash + 1);
+    }
+
+    private static String describe(String filter) {
+        return filter == null || filter.isBlank() ? "*" : filter;
+    }
+
+    private void log(String message) {
+        if (logger != null) {
+            logger.info(message);
+        }
+    }
+}
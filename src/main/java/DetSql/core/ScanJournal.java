@@ -0,0 +1,366 @@
+/*
+ * @saoshao<1224165231@qq.com>
+ */
+
+package DetSql.core;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.PosixFilePermission;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.zip.CRC32;
+
+/**
+ * 扫描日志 (write-ahead journal)
+ *
+ * 记录已接受的扫描票据及其进度,插件重载或 Burp 重启后从日志继续未完成的扫描:
+ * - ACCEPT: 请求被接受,保存请求/响应字节、元数据和基线响应摘要 (SHA-256)
+ * - UNIT_DONE: 某个 (参数, 策略) 子任务正常结束
+ * - TICKET_DONE: 整个请求扫描结束 (完成、出错或被用户停止)
+ *
+ * 记录格式: [byte 类型][int 长度][内容][int CRC32],末尾不完整或校验失败的记录视为写入中断,丢弃。
+ *
+ * 打开时重放日志得到未完成的票据,并只保留这些票据的记录重写日志;
+ * 运行中所有票据都结束时清空日志,死记录过多时压缩,文件大小与积压量相关。
+ *
+ * 发现漏洞的子任务不会被跳过: PoC 证据只在内存中,续扫时重新执行以生成证据。
+ *
+ * 日志保存原始请求/响应 (含 Cookie、Authorization 等凭据),支持 POSIX 权限时目录和文件仅所有者可访问。
+ *
+ * 线程安全: 所有方法同步
+ */
+public class ScanJournal implements Closeable {
+
+    /**
+     * 上次未完成的扫描
+     *
+     * @param scan           请求/响应和元数据
+     * @param completedUnits 已完成且未发现漏洞的子任务标识 (ScanUnit.key())
+     */
+    public record PendingScan(SpilledScan scan, Set<String> completedUnits) {
+    }
+
+    private static final byte TYPE_ACCEPT = 1;
+    private static final byte TYPE_UNIT_DONE = 2;
+    private static final byte TYPE_TICKET_DONE = 3;
+
+    private static final String JOURNAL_FILE_NAME = "scan.journal";
+    private static final int DIGEST_LENGTH = 32;
+    // 死记录超过该大小且超过存活记录时压缩
+    private static final long COMPACT_MIN_BYTES = 64L * 1024 * 1024;
+    // 仅所有者可访问 (0700 / 0600)
+    private static final Set<PosixFilePermission> OWNER_ONLY_DIR = PosixFilePermissions.fromString("rwx------");
+    private static final Set<PosixFilePermission> OWNER_ONLY_FILE = PosixFilePermissions.fromString("rw-------");
+
+    private final Path file;
+    private final List<PendingScan> recovered;
+
+    // 未结束票据 -> 其记录占用的字节数
+    private final Map<String, Long> liveBytes = new HashMap<>();
+    private long liveTotal;
+    private long fileBytes;
+
+    private FileOutputStream fileOut;
+    private DataOutputStream out;
+    private boolean closed;
+
+    /**
+     * 打开目录下的扫描日志,重放得到上次未完成的扫描
+     *
+     * @param dir 日志目录
+     * @throws IOException 读写失败
+     */
+    public ScanJournal(Path dir) throws IOException {
+        createOwnerOnlyDirectory(dir);
+        this.file = dir.resolve(JOURNAL_FILE_NAME);
+        this.recovered = Collections.unmodifiableList(replay());
+        rewrite(recovered);
+    }
+
+    /**
+     * 上次未完成的扫描 (按接受顺序)
+     */
+    public List<PendingScan> recovered() {
+        return recovered;
+    }
+
+    /**
+     * 记录请求被接受
+     */
+    public synchronized void accepted(SpilledScan scan) throws IOException {
+        byte[] encoded = scan.encode();
+        ByteArrayOutputStream payload = new ByteArrayOutputStream(DIGEST_LENGTH + encoded.length);
+        payload.write(digest(scan.response()));
+        payload.write(encoded);
+        String hash = scan.requestHash();
+        Long previous = liveBytes.remove(hash);
+        if (previous != null) {
+            liveTotal -= previous;
+        }
+        append(hash, TYPE_ACCEPT, payload.toByteArray());
+    }
+
+    /**
+     * 记录子任务正常结束
+     */
+    public synchronized void unitCompleted(String requestHash, String unitKey, boolean found) throws IOException {
+        if (!liveBytes.containsKey(requestHash)) {
+            // 票据已结束 (取消后仍在收尾的辅助线程)
+            return;
+        }
+        ByteArrayOutputStream payload = new ByteArrayOutputStream();
+        try (DataOutputStream data = new DataOutputStream(payload)) {
+            data.writeUTF(requestHash);
+            data.writeUTF(unitKey);
+            data.writeBoolean(found);
+        }
+        append(requestHash, TYPE_UNIT_DONE, payload.toByteArray());
+    }
+
+    /**
+     * 记录请求扫描结束
+     */
+    public synchronized void ticketCompleted(String requestHash) throws IOException {
+        Long bytes = liveBytes.remove(requestHash);
+        if (bytes == null || closed) {
+            return;
+        }
+        liveTotal -= bytes;
+        if (liveBytes.isEmpty()) {
+            // 没有未完成的票据,直接清空
+            rewrite(List.of());
+            return;
+        }
+        ByteArrayOutputStream payload = new ByteArrayOutputStream();
+        try (DataOutputStream data = new DataOutputStream(payload)) {
+            data.writeUTF(requestHash);
+        }
+        writeRecord(TYPE_TICKET_DONE, payload.toByteArray());
+        if (fileBytes > COMPACT_MIN_BYTES && fileBytes - liveTotal > liveTotal) {
+            out.flush();
+            rewrite(replay());
+        }
+    }
+
+    /**
+     * 未结束的票据数
+     */
+    public synchronized int openTickets() {
+        return liveBytes.size();
+    }
+
+    /**
+     * 关闭日志,未结束的票据保留到下次打开时续扫
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        closeOutput();
+    }
+
+    private void append(String requestHash, byte type, byte[] payload) throws IOException {
+        if (closed) {
+            return;
+        }
+        long size = writeRecord(type, payload);
+        liveBytes.merge(requestHash, size, Long::sum);
+        liveTotal += size;
+    }
+
+    private long writeRecord(byte type, byte[] payload) throws IOException {
+        CRC32 crc = new CRC32();
+        crc.update(type);
+        crc.update(payload);
+        out.writeByte(type);
+        out.writeInt(payload.length);
+        out.write(payload);
+        out.writeInt((int) crc.getValue());
+        // 交给操作系统即可在插件重载/进程退出后保留,不逐条 fsync
+        out.flush();
+        long size = 1 + Integer.BYTES + payload.length + Integer.BYTES;
+        fileBytes += size;
+        return size;
+    }
+
+    /**
+     * 重放日志文件,返回未结束的票据
+     */
+    private List<PendingScan> replay() throws IOException {
+        Map<String, PendingScan> pending = new LinkedHashMap<>();
+        if (!Files.exists(file)) {
+            return new ArrayList<>();
+        }
+        try (InputStream fileIn = Files.newInputStream(file);
+                DataInputStream in = new DataInputStream(new BufferedInputStream(fileIn))) {
+            while (true) {
+                byte type;
+                byte[] payload;
+                try {
+                    type = in.readByte();
+                    int length = in.readInt();
+                    if (length < 0) {
+                        break;
+                    }
+                    payload = in.readNBytes(length);
+                    if (payload.length != length) {
+                        break;
+                    }
+                    int expected = in.readInt();
+                    CRC32 crc = new CRC32();
+                    crc.update(type);
+                    crc.update(payload);
+                    if ((int) crc.getValue() != expected) {
+                        break;
+                    }
+                } catch (EOFException e) {
+                    break;
+                }
+                applyRecord(pending, type, payload);
+            }
+        }
+        return new ArrayList<>(pending.values());
+    }
+
+    private static void applyRecord(Map<String, PendingScan> pending, byte type, byte[] payload) {
+        try {
+            switch (type) {
+                case TYPE_ACCEPT -> {
+                    byte[] expectedDigest = Arrays.copyOf(payload, DIGEST_LENGTH);
+                    SpilledScan scan = SpilledScan.decode(Arrays.copyOfRange(payload, DIGEST_LENGTH, payload.length));
+                    // 基线响应摘要不符说明内容损坏,放弃该票据
+                    if (Arrays.equals(expectedDigest, digest(scan.response()))) {
+                        pending.remove(scan.requestHash());
+                        pending.put(scan.requestHash(), new PendingScan(scan, new HashSet<>()));
+                    }
+                }
+                case TYPE_UNIT_DONE -> {
+                    DataInputStream in = new DataInputStream(new ByteArrayInputStream(payload));
+                    String hash = in.readUTF();
+                    String unitKey = in.readUTF();
+                    boolean found = in.readBoolean();
+                    PendingScan scan = pending.get(hash);
+                    if (scan != null && !found) {
+                        scan.completedUnits().add(unitKey);
+                    }
+                }
+                case TYPE_TICKET_DONE -> {
+                    DataInputStream in = new DataInputStream(new ByteArrayInputStream(payload));
+                    pending.remove(in.readUTF());
+                }
+                default -> {
+                    // 未知类型 (更高版本写入),忽略
+                }
+            }
+        } catch (IOException e) {
+            // 单条记录损坏不影响其他票据
+        }
+    }
+
+    /**
+     * 只保留指定票据的记录重写日志 (先写临时文件再替换)
+     */
+    private void rewrite(List<PendingScan> pending) throws IOException {
+        closeOutput();
+        Path temp = file.resolveSibling(JOURNAL_FILE_NAME + ".tmp");
+        liveBytes.clear();
+        liveTotal = 0;
+        fileBytes = 0;
+        createOwnerOnlyFile(temp);
+        fileOut = new FileOutputStream(temp.toFile());
+        out = new DataOutputStream(new BufferedOutputStream(fileOut));
+        for (PendingScan scan : pending) {
+            accepted(scan.scan());
+            for (String unitKey : scan.completedUnits()) {
+                unitCompleted(scan.scan().requestHash(), unitKey, false);
+            }
+        }
+        out.flush();
+        fileOut.getFD().sync();
+        closeOutput();
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        fileOut = new FileOutputStream(file.toFile(), true);
+        out = new DataOutputStream(new BufferedOutputStream(fileOut));
+    }
+
+    private void closeOutput() throws IOException {
+        if (out != null) {
+            try {
+                out.flush();
+                fileOut.getFD().sync();
+            } finally {
+                out.close();
+                out = null;
+                fileOut = null;
+            }
+        }
+    }
+
+    /**
+     * 创建日志目录;支持 POSIX 权限时设为 0700 (包括旧版本创建的已有目录)
+     */
+    private static void createOwnerOnlyDirectory(Path dir) throws IOException {
+        if (!isPosix(dir)) {
+            Files.createDirectories(dir);
+            return;
+        }
+        Path parent = dir.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        if (!Files.isDirectory(dir)) {
+            Files.createDirectory(dir, PosixFilePermissions.asFileAttribute(OWNER_ONLY_DIR));
+        }
+        Files.setPosixFilePermissions(dir, OWNER_ONLY_DIR);
+    }
+
+    /**
+     * 重新创建空文件;支持 POSIX 权限时设为 0600,替换后的日志文件沿用该权限
+     */
+    private static void createOwnerOnlyFile(Path path) throws IOException {
+        Files.deleteIfExists(path);
+        if (isPosix(path)) {
+            Files.createFile(path, PosixFilePermissions.asFileAttribute(OWNER_ONLY_FILE));
+        } else {
+            Files.createFile(path);
+        }
+    }
+
+    private static boolean isPosix(Path path) {
+        return path.getFileSystem().supportedFileAttributeViews().contains("posix");
+    }
+
+    private static byte[] digest(byte[] data) {
+        try {
+            return MessageDigest.getInstance("SHA-256").digest(data);
+        } catch (NoSuchAlgorithmException e) {
+            // SHA-256 是 JDK 必备算法
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,133 @@
+/*
+ * @saoshao<1224165231@qq.com>
+ */
+
+package DetSql.core;
+
+import burp.api.montoya.http.message.params.HttpParameterType;
+import burp.api.montoya.http.message.params.ParsedHttpParameter;
+import burp.api.montoya.http.message.requests.HttpRequest;
+import DetSql.config.DetSqlConfig;
+import DetSql.util.LRUCache;
+import DetSql.util.StructuralSignature;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 扫描队列优先级计算
+ *
+ * 优先级 = 来源加权 + 新参数加权 + 高命中参数加权,依次对应:
+ * 1. 手动提交 (Send to DetSql / Repeater) 优先于 Proxy 被动流量
+ * 2. 同一接口已测试过的参数越少越优先 (同一 CDN 接口的第 900 个请求排到后面)
+ * 3. 含有高命中参数名 (id、sort、order 等,以及运行中确认过漏洞的参数名) 的请求优先
+ *
+ * 各项权重可在配置中调整,设为 0 即关闭对应规则。
+ */
+public class ScanPriorityPolicy {
+
+    /**
+     * 优先级类别 (用于统计排队等待时间)
+     */
+    public enum PriorityClass {
+        MANUAL,
+        PROXY
+    }
+
+    // 学习到的漏洞参数命中次数上限,避免单个参数名无限放大
+    private static final int MAX_LEARNED_HITS = 3;
+    // 已测试 (接口, 参数) 记录上限
+    private static final int MAX_TESTED_KEYS = 50_000;
+
+    private final DetSqlConfig config;
+    private final Map<String, Boolean> testedParams = Collections.synchronizedMap(new LRUCache<>(MAX_TESTED_KEYS));
+    private final ConcurrentHashMap<String, AtomicInteger> learnedHits = new ConcurrentHashMap<>();
+
+    public ScanPriorityPolicy(DetSqlConfig config) {
+        this.config = config;
+    }
+
+    /**
+     * 计算请求的优先级 (参数在扫描完成后由 markTested 登记为已测试)
+     *
+     * @param priorityClass 来源类别
+     * @param request       待扫描请求
+     * @return 优先级,数值越大越先扫描
+     */
+    public long prioritize(PriorityClass priorityClass, HttpRequest request) {
+        long score = priorityClass == PriorityClass.MANUAL ? config.getManualPriorityWeight() : 0;
+
+        List<ParsedHttpParameter> params = request.parameters();
+        String endpoint = endpointKey(request);
+        int total = 0;
+        int untested = 0;
+        int hottest = 0;
+        for (ParsedHttpParameter param : params) {
+            if (param.type() == HttpParameterType.COOKIE) {
+                // Cookie 多为会话信息,不参与优先级计算
+                continue;
+            }
+            total++;
+            if (!testedParams.containsKey(paramKey(endpoint, param))) {
+                untested++;
+            }
+            hottest = Math.max(hottest, hotness(param.name()));
+        }
+
+        if (total > 0) {
+            score += (long) config.getFreshParamWeight() * untested / total;
+        }
+        score += (long) config.getHotParamWeight() * hottest;
+        return score;
+    }
+
+    /**
+     * 扫描完成后把请求的参数登记为已测试,之后同一接口的同名参数不再算作新参数
+     * 排队中被取消或溢出丢弃的请求不会登记,再次出现时仍按新参数排序
+     */
+    public void markTested(HttpRequest request) {
+        String endpoint = endpointKey(request);
+        for (ParsedHttpParameter param : request.parameters()) {
+            if (param.type() != HttpParameterType.COOKIE) {
+                testedParams.put(paramKey(endpoint, param), Boolean.TRUE);
+            }
+        }
+    }
+
+    /**
+     * 记录确认存在漏洞的参数名,之后含有该参数名的请求优先扫描
+     */
+    public void recordHit(String paramName) {
+        if (paramName == null || paramName.isEmpty()) {
+            return;
+        }
+        learnedHits.computeIfAbsent(paramName.toLowerCase(Locale.ROOT), k -> new AtomicInteger())
+                .incrementAndGet();
+    }
+
+    /**
+     * 参数名热度: 配置中的高命中参数名记 1,每次学习到的命中再加 1 (封顶)
+     */
+    int hotness(String paramName) {
+        String name = paramName.toLowerCase(Locale.ROOT);
+        int score = config.getHotParamNames().contains(name) ? 1 : 0;
+        AtomicInteger hits = learnedHits.get(name);
+        if (hits != null) {
+            score += Math.min(hits.get(), MAX_LEARNED_HITS);
+        }
+        return score;
+    }
+
+    private static String paramKey(String endpoint, ParsedHttpParameter param) {
+        return endpoint + "|" + param.type() + "|" + param.name();
+    }
+
+    private static String endpointKey(HttpRequest request) {
+        String service = request.httpService() != null ? request.httpService().toString() : "";
+        return request.method() + " " + service + StructuralSignature.normalizePath(request.pathWithoutQuery());
+    }
+}
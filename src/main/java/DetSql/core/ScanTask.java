@@ -0,0 +1,126 @@
+/*
+ * @saoshao<1224165231@qq.com>
+ */
+
+package DetSql.core;
+
+import DetSql.util.ScanPriorityQueue;
+import DetSql.util.Statistics;
+
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * 带优先级的扫描任务
+ *
+ * 通过 execute() 提交到扫描线程池,由 ScanPriorityQueue 按优先级出队;
+ * 同时作为 Future 保存在 runningTasks 中用于取消。
+ * 开始执行时记录排队等待时间到统计 (按优先级类别)。
+ * 队列满被拒绝时,通过 spillSource 序列化后溢出到磁盘。
+ * 结束 (执行完毕或排队中被取消) 时调用 onDone,用于在扫描日志中标记票据完成;
+ * 排队中被取消的任务不会执行扫描逻辑,由 onDone 通过 hasStarted() 区分并更新表格状态。
+ */
+public class ScanTask extends FutureTask<Void> implements ScanPriorityQueue.Prioritized {
+
+    private final String requestHash;
+    private final ScanController.Scope scope;
+    private final long priority;
+    private final ScanPriorityPolicy.PriorityClass priorityClass;
+    private final Statistics statistics;
+    private final Supplier<SpilledScan> spillSource;
+    private final Consumer<ScanTask> onDone;
+    private final AtomicBoolean started;
+    private final long enqueuedNanos = System.nanoTime();
+
+    /**
+     * @param requestHash   请求哈希 (runningTasks 的键)
+     * @param scope         目标主机和路径 (按范围取消时匹配)
+     * @param body          扫描逻辑
+     * @param priority      优先级
+     * @param priorityClass 优先级类别
+     * @param statistics    统计 (可为 null)
+     * @param spillSource   溢出时生成序列化内容,为 null 表示不可溢出
+     * @param onDone        结束回调,可为 null
+     */
+    public ScanTask(String requestHash, ScanController.Scope scope, Runnable body, long priority,
+            ScanPriorityPolicy.PriorityClass priorityClass, Statistics statistics,
+            Supplier<SpilledScan> spillSource, Consumer<ScanTask> onDone) {
+        this(requestHash, scope, body, priority, priorityClass, statistics, spillSource, onDone, new AtomicBoolean());
+    }
+
+    private ScanTask(String requestHash, ScanController.Scope scope, Runnable body, long priority,
+            ScanPriorityPolicy.PriorityClass priorityClass, Statistics statistics,
+            Supplier<SpilledScan> spillSource, Consumer<ScanTask> onDone, AtomicBoolean started) {
+        super(() -> {
+            started.set(true);
+            body.run();
+        }, null);
+        this.started = started;
+        this.requestHash = requestHash;
+        this.scope = scope;
+        this.priority = priority;
+        this.priorityClass = priorityClass;
+        this.statistics = statistics;
+        this.spillSource = spillSource;
+        this.onDone = onDone;
+    }
+
+    @Override
+    public long priority() {
+        return priority;
+    }
+
+    public ScanPriorityPolicy.PriorityClass getPriorityClass() {
+        return priorityClass;
+    }
+
+    public String getRequestHash() {
+        return requestHash;
+    }
+
+    public ScanController.Scope getScope() {
+        return scope;
+    }
+
+    /**
+     * 扫描逻辑是否已开始执行 (false 表示在排队中被取消)
+     */
+    public boolean hasStarted() {
+        return started.get();
+    }
+
+    public Statistics getStatistics() {
+        return statistics;
+    }
+
+    /**
+     * 生成溢出到磁盘的内容
+     *
+     * @return 序列化前的任务描述,不可溢出或已取消时返回 null
+     */
+    public SpilledScan toSpilled() {
+        if (spillSource == null || isDone()) {
+            return null;
+        }
+        return spillSource.get();
+    }
+
+    @Override
+    public void run() {
+        if (!isDone() && statistics != null) {
+            long waitMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - enqueuedNanos);
+            statistics.recordQueueWait(priorityClass.name(), waitMs);
+        }
+        super.run();
+    }
+
+    @Override
+    protected void done() {
+        if (onDone != null) {
+            onDone.accept(this);
+        }
+    }
+}
@@ -0,0 +1,101 @@
+/*
+ * @saoshao<1224165231@qq.com>
+ */
+
+package DetSql.core;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+
+/**
+ * 溢出到磁盘的扫描任务
+ *
+ * 只保存重建任务所需的原始字节和元数据 (请求/响应字节、目标服务、表格行号、来源、优先级),
+ * 读回后由 MyHttpHandler 重新构造 HttpRequestResponse 并按来源提交扫描。
+ */
+public record SpilledScan(
+        String requestHash,
+        String toolName,
+        Origin origin,
+        ScanPriorityPolicy.PriorityClass priorityClass,
+        long priority,
+        int logIndex,
+        String host,
+        int port,
+        boolean secure,
+        byte[] request,
+        byte[] response) {
+
+    /**
+     * 任务来源,决定扫描完成后的处理
+     */
+    public enum Origin {
+        /** Proxy/Repeater 流量 (记录统计、保留 PoC 证据) */
+        RECEIVED,
+        /** 右键 Send to DetSql */
+        MANUAL
+    }
+
+    private static final int FORMAT_VERSION = 2;
+
+    /**
+     * 序列化为字节
+     */
+    public byte[] encode() {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(request.length + response.length + 256);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeByte(FORMAT_VERSION);
+            out.writeUTF(requestHash);
+            out.writeUTF(toolName);
+            out.writeUTF(origin.name());
+            out.writeUTF(priorityClass.name());
+            out.writeLong(priority);
+            out.writeInt(logIndex);
+            out.writeUTF(host);
+            out.writeInt(port);
+            out.writeBoolean(secure);
+            out.writeInt(request.length);
+            out.write(request);
+            out.writeInt(response.length);
+            out.write(response);
+        } catch (IOException e) {
+            // ByteArrayOutputStream 不会抛出 IOException
+            throw new IllegalStateException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * 从字节反序列化
+     *
+     * @throws IOException 格式版本不符或内容截断
+     */
+    public static SpilledScan decode(byte[] data) throws IOException {
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(data))) {
+            int version = in.readByte();
+            if (version != FORMAT_VERSION) {
+                throw new IOException("Unsupported spilled scan format: " + version);
+            }
+            String requestHash = in.readUTF();
+            String toolName = in.readUTF();
+            Origin origin = Origin.valueOf(in.readUTF());
+            ScanPriorityPolicy.PriorityClass priorityClass = ScanPriorityPolicy.PriorityClass.valueOf(in.readUTF());
+            long priority = in.readLong();
+            int logIndex = in.readInt();
+            String host = in.readUTF();
+            int port = in.readInt();
+            boolean secure = in.readBoolean();
+            byte[] request = new byte[in.readInt()];
+            in.readFully(request);
+            byte[] response = new byte[in.readInt()];
+            in.readFully(response);
+            return new SpilledScan(requestHash, toolName, origin, priorityClass, priority, logIndex,
+                    host, port, secure, request, response);
+        } catch (IllegalArgumentException e) {
+            throw new IOException("Corrupted spilled scan", e);
+        }
+    }
+}
@@ -9,20 +9,38 @@ import burp.api.montoya.http.message.HttpRequestResponse;
 import burp.api.montoya.http.message.requests.HttpRequest;
 import burp.api.montoya.http.message.responses.HttpResponse;
 import DetSql.config.DetSqlConfig;
+import DetSql.config.FindingPolicy;
 import DetSql.logging.DetSqlLogger;
 import DetSql.model.PocLogEntry;
+import DetSql.util.ByteText;
+import DetSql.util.HostConcurrencyLimiter;
+import DetSql.util.PauseGate;
+import DetSql.util.PayloadEcho;
+import DetSql.util.RateGovernor;
+import DetSql.util.ResponseSketch;
+import DetSql.util.SimilarityCascade;
 import DetSql.util.Statistics;
+import DetSql.util.VirtualThreads;
 
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.ArrayList;
+import java.util.HexFormat;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.CancellationException;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.TimeoutException;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
 
 /**
  * 注入策略抽象基类
@@ -30,17 +48,43 @@ import java.util.concurrent.ScheduledExecutorService;
  */
 public abstract class AbstractInjectionStrategy implements InjectionStrategy {
     
-    // P0-2 修复：全局共享的超时控制线程池 (所有 Strategy 实例共用)
+    // P0-2 修复：全局共享的发送线程池 (所有 Strategy 实例共用)
     // 避免每次重试都创建新线程池,防止线程爆炸问题
-    private static final ScheduledExecutorService SHARED_TIMEOUT_EXECUTOR = 
-        Executors.newScheduledThreadPool(
-            Runtime.getRuntime().availableProcessors(),
-            r -> {
-                Thread t = new Thread(r, "DetSql-Timeout-Thread");
-                t.setDaemon(true);
-                return t;
-            }
-        );
+    // 使用可伸缩线程池: 并发度由 HOST_LIMITER 按主机控制,线程数不再以 CPU 核心数为上限,
+    // 否则自适应上限 (maxConcurrencyPerHost) 永远达不到,排队时间还会被误判为响应变慢
+    private static final AtomicInteger SEND_THREAD_ID = new AtomicInteger();
+    private static final ExecutorService SEND_EXECUTOR = Executors.newCachedThreadPool(r -> {
+        Thread t = new Thread(r, "DetSql-Send-" + SEND_THREAD_ID.incrementAndGet());
+        t.setDaemon(true);
+        return t;
+    });
+
+    // 虚拟线程模式下的发送执行器 (每个请求一个虚拟线程),首次使用时创建
+    // 并发度同样由 HOST_LIMITER 控制
+    private static volatile ExecutorService virtualSendExecutor;
+
+    // 按目标主机的自适应并发限制 (所有 Strategy 实例共用)
+    // 初始值/上限由 MyHttpHandler 根据配置设置
+    private static final HostConcurrencyLimiter HOST_LIMITER = new HostConcurrencyLimiter(
+            4, Runtime.getRuntime().availableProcessors() * 2);
+
+    // 速率控制专用的调度线程: 只负责到点放行和重试退避,
+    // 不与发送共用线程池,发送线程全部阻塞在 sendRequest 时放行仍能按时触发
+    private static final ScheduledExecutorService RATE_SCHEDULER =
+        Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "DetSql-Rate-Scheduler");
+            t.setDaemon(true);
+            return t;
+        });
+
+    // 全局 + 按主机的发送速率控制,到点放行由 RATE_SCHEDULER 调度
+    // 速率由 MyHttpHandler 根据配置设置
+    // 注意: 策略按步骤同步执行 (下一个 payload 取决于上一个响应),
+    // 扫描线程在 RateGovernor.await 中等待放行,等待期间不占用主机并发许可,但仍占用扫描线程
+    private static final RateGovernor RATE_GOVERNOR = new RateGovernor(RATE_SCHEDULER);
+
+    // 全局/按主机暂停,每次发送前检查 (由 ScanController 控制)
+    private static final PauseGate PAUSE_GATE = new PauseGate();
     
     protected final MontoyaApi api;
     protected final DetSqlConfig config;
@@ -49,7 +93,6 @@ public abstract class AbstractInjectionStrategy implements InjectionStrategy {
     protected final Map<String, List<PocLogEntry>> attackMap;
     
     private static final int DEFAULT_RETRY_COUNT = 2;
-    private static final int MIN_SLEEP_TIME_MS = 100;
     
     public AbstractInjectionStrategy(
         MontoyaApi api,
@@ -65,28 +108,91 @@ public abstract class AbstractInjectionStrategy implements InjectionStrategy {
         this.attackMap = attackMap;
     }
     
+    /**
+     * 发送 PoC 请求,同一票据内字节相同的请求只发送一次
+     * 例如 ErrorBasedInjection 和 StringInjection 第 1 步都会对同一参数发送 ',
+     * 并发的相同请求等待首个发送者的结果;首个发送者被取消时由等待方自行发送
+     */
+    protected HttpRequestResponse sendHttpRequest(ScanTicket ticket, HttpRequest pocHttpRequest, int retryCount)
+            throws InterruptedException {
+        if (ticket == null) {
+            return sendHttpRequest(pocHttpRequest, retryCount);
+        }
+        String key = pocKey(pocHttpRequest);
+        CompletableFuture<HttpRequestResponse> pending = new CompletableFuture<>();
+        CompletableFuture<HttpRequestResponse> existing = ticket.reservePocResponse(key, pending);
+        if (existing != null) {
+            try {
+                HttpRequestResponse cached = existing.get();
+                if (statistics != null) {
+                    statistics.recordPocCacheHit();
+                }
+                return cached;
+            } catch (ExecutionException | CancellationException e) {
+                return sendHttpRequest(pocHttpRequest, retryCount);
+            }
+        }
+        try {
+            HttpRequestResponse response = sendHttpRequest(pocHttpRequest, retryCount);
+            pending.complete(response);
+            return response;
+        } catch (InterruptedException | RuntimeException e) {
+            ticket.forgetPocResponse(key, pending);
+            pending.cancel(false);
+            throw e;
+        }
+    }
+
+    /**
+     * PoC 缓存键: 目标服务 + 请求字节的 SHA-256
+     */
+    static String pocKey(HttpRequest request) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update(hostKey(request).getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) 0);
+            digest.update(request.toByteArray().getBytes());
+            return HexFormat.of().formatHex(digest.digest());
+        } catch (NoSuchAlgorithmException e) {
+            // SHA-256 是 JDK 必备算法
+            throw new IllegalStateException(e);
+        }
+    }
+
     /**
      * 发送 HTTP 请求（带重试机制和超时控制）
      * P0-2 修复：使用共享线程池 + CompletableFuture,避免线程爆炸问题
      */
     protected HttpRequestResponse sendHttpRequest(HttpRequest pocHttpRequest, int retryCount) throws InterruptedException {
         Exception lastException = null;
+        if (statistics != null) {
+            statistics.recordPocSent();
+        }
         // 超时阈值设为 20 秒
         final int REQUEST_TIMEOUT_SECONDS = 20;
 
         for (int attempt = 0; attempt < retryCount; attempt++) {
             try {
+                // 每个 PoC 步骤都经过这里: 先响应取消,再等待暂停结束
+                checkInterrupted();
+                PAUSE_GATE.awaitOpen(hostName(pocHttpRequest));
+
+                // 按速率配置等待放行 (令牌不足时由调度线程到点放行)
+                // 等待期间不占用主机并发许可,但当前扫描线程会阻塞到放行为止
+                RateGovernor.await(RATE_GOVERNOR.acquire(hostKey(pocHttpRequest)));
+
                 // P0-2: 使用共享线程池 + supplyAsync + orTimeout
                 // 替代原来每次重试都创建新线程池的方式
-                CompletableFuture<HttpRequestResponse> future = 
-                    CompletableFuture.supplyAsync(
-                        () -> api.http().sendRequest(pocHttpRequest),
-                        SHARED_TIMEOUT_EXECUTOR
-                    ).orTimeout(REQUEST_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+                InFlightSend inFlight = sendWithHostLimit(pocHttpRequest, REQUEST_TIMEOUT_SECONDS);
                 
-                // 等待响应
-                HttpRequestResponse resHttpRequestResponse = future.get();
-                Thread.sleep(Math.max(config.getStaticTimeMs(), MIN_SLEEP_TIME_MS));
+                // 等待响应,被取消时放弃发送并立即归还主机许可
+                HttpRequestResponse resHttpRequestResponse;
+                try {
+                    resHttpRequestResponse = inFlight.response.get();
+                } catch (InterruptedException e) {
+                    inFlight.abort();
+                    throw e;
+                }
 
                 if (resHttpRequestResponse.response().body() != null) {
                     return resHttpRequestResponse;
@@ -94,7 +200,7 @@ public abstract class AbstractInjectionStrategy implements InjectionStrategy {
 
                 if (attempt < retryCount - 1) {
                     logger.debug("响应体为空,重试中... (尝试 " + (attempt + 1) + "/" + retryCount + ")");
-                    Thread.sleep(ThreadLocalRandom.current().nextInt(config.getStartTimeMs(), config.getEndTimeMs() + 1));
+                    retryBackoff();
                 }
 
             } catch (ExecutionException e) {
@@ -112,7 +218,7 @@ public abstract class AbstractInjectionStrategy implements InjectionStrategy {
                 }
                 
                 if (attempt < retryCount - 1) {
-                    Thread.sleep(ThreadLocalRandom.current().nextInt(config.getStartTimeMs(), config.getEndTimeMs() + 1));
+                    retryBackoff();
                 }
                 
             } catch (InterruptedException e) {
@@ -132,12 +238,267 @@ public abstract class AbstractInjectionStrategy implements InjectionStrategy {
         return defaultResponse;
     }
     
+    /**
+     * 重试前随机退避 (startTime ~ endTime 毫秒),由调度线程计时
+     */
+    private void retryBackoff() throws InterruptedException {
+        long backoffMs = ThreadLocalRandom.current().nextInt(config.getStartTimeMs(), config.getEndTimeMs() + 1);
+        RateGovernor.await(RATE_GOVERNOR.delay(backoffMs, TimeUnit.MILLISECONDS));
+    }
+
+    /**
+     * 在目标主机的并发许可内异步发送请求
+     * 许可在底层请求真正结束时归还 (超时后 Burp 仍可能在发送),
+     * 结果 (耗时/超时/5xx/异常) 反馈给自适应限流器;
+     * 扫描被取消时由等待方调用 abort() 提前归还
+     */
+    private InFlightSend sendWithHostLimit(HttpRequest request, int timeoutSeconds)
+            throws InterruptedException {
+        String host = hostKey(request);
+        HOST_LIMITER.acquire(host);
+
+        InFlightSend inFlight = new InFlightSend(host);
+        CompletableFuture<HttpRequestResponse> send;
+        try {
+            send = CompletableFuture.supplyAsync(() -> inFlight.run(() -> api.http().sendRequest(request)),
+                    sendExecutor());
+        } catch (RuntimeException e) {
+            inFlight.release(0, HostConcurrencyLimiter.Outcome.FAILURE);
+            throw e;
+        }
+        send.whenComplete((response, error) -> {
+            long latencyMs = inFlight.latencyMs();
+            inFlight.release(latencyMs, classifyOutcome(response, error, latencyMs, timeoutSeconds));
+        });
+
+        // copy() 使超时只作用于等待方,不影响上面的许可归还
+        inFlight.response = send.copy().orTimeout(timeoutSeconds, TimeUnit.SECONDS);
+        return inFlight;
+    }
+
+    /**
+     * 一次正在发送的请求: 记录发送线程,保证主机许可只归还一次
+     */
+    private static final class InFlightSend {
+        private final String host;
+        private final AtomicBoolean released = new AtomicBoolean();
+        private CompletableFuture<HttpRequestResponse> response;
+
+        // 以下字段由 this 保护
+        private Thread sender;
+        private boolean aborted;
+        // 发送线程真正开始发送的时间 (不含执行器排队时间),未开始时为 0
+        private long startNanos;
+
+        private InFlightSend(String host) {
+            this.host = host;
+        }
+
+        private HttpRequestResponse run(Supplier<HttpRequestResponse> call) {
+            synchronized (this) {
+                if (aborted) {
+                    throw new CancellationException("扫描已取消");
+                }
+                sender = Thread.currentThread();
+                startNanos = System.nanoTime();
+            }
+            try {
+                return call.get();
+            } finally {
+                synchronized (this) {
+                    sender = null;
+                    if (aborted) {
+                        // 清除 abort() 留下的中断标记,避免影响执行器中的下一个任务
+                        Thread.interrupted();
+                    }
+                }
+            }
+        }
+
+        /**
+         * 实际发送耗时 (毫秒),未开始发送时为 0
+         */
+        private synchronized long latencyMs() {
+            return startNanos == 0 ? 0 : TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos);
+        }
+
+        /**
+         * 放弃发送: 中断发送线程 (Burp 是否中止请求取决于其实现),并立即归还许可
+         */
+        private void abort() {
+            synchronized (this) {
+                aborted = true;
+                if (sender != null) {
+                    sender.interrupt();
+                }
+            }
+            release(0, HostConcurrencyLimiter.Outcome.CANCELLED);
+        }
+
+        private void release(long latencyMs, HostConcurrencyLimiter.Outcome outcome) {
+            if (released.compareAndSet(false, true)) {
+                HOST_LIMITER.release(host, latencyMs, outcome);
+            }
+        }
+    }
+
+    /**
+     * 选择发送请求使用的执行器
+     * 开启虚拟线程模式且运行时支持时每个请求使用一个虚拟线程,否则使用共享平台线程池
+     */
+    private ExecutorService sendExecutor() {
+        if (!config.isVirtualThreadsEnabled() || !VirtualThreads.isSupported()) {
+            return SEND_EXECUTOR;
+        }
+        ExecutorService executor = virtualSendExecutor;
+        if (executor == null) {
+            synchronized (AbstractInjectionStrategy.class) {
+                executor = virtualSendExecutor;
+                if (executor == null) {
+                    executor = VirtualThreads.newPerTaskExecutor("DetSql-VSend-");
+                    if (executor == null) {
+                        return SEND_EXECUTOR;
+                    }
+                    virtualSendExecutor = executor;
+                }
+            }
+        }
+        return executor;
+    }
+
+    /**
+     * 关闭速率控制调度线程 (扩展卸载时由 InjectionStrategyManager.shutdown 调用)
+     * 关闭后 RateGovernor 直接放行,不再等待
+     */
+    static void shutdownRateScheduler() {
+        RATE_SCHEDULER.shutdownNow();
+    }
+
+    /**
+     * 关闭发送执行器 (扩展卸载时由 InjectionStrategyManager.shutdown 调用)
+     */
+    static void shutdownSendExecutor() {
+        SEND_EXECUTOR.shutdownNow();
+        synchronized (AbstractInjectionStrategy.class) {
+            ExecutorService executor = virtualSendExecutor;
+            virtualSendExecutor = null;
+            if (executor != null) {
+                executor.shutdownNow();
+            }
+        }
+    }
+
+    private static HostConcurrencyLimiter.Outcome classifyOutcome(
+            HttpRequestResponse response, Throwable error, long latencyMs, int timeoutSeconds) {
+        if (latencyMs >= TimeUnit.SECONDS.toMillis(timeoutSeconds)) {
+            return HostConcurrencyLimiter.Outcome.TIMEOUT;
+        }
+        if (error != null || response == null || response.response() == null) {
+            return HostConcurrencyLimiter.Outcome.FAILURE;
+        }
+        if (response.response().statusCode() >= 500) {
+            return HostConcurrencyLimiter.Outcome.SERVER_ERROR;
+        }
+        return HostConcurrencyLimiter.Outcome.SUCCESS;
+    }
+
+    /**
+     * 限流使用的主机标识 (协议 + host + 端口)
+     */
+    public static String hostKey(HttpRequest request) {
+        return request.httpService() != null ? request.httpService().toString() : "";
+    }
+
+    /**
+     * 暂停使用的主机名 (不含协议和端口)
+     */
+    public static String hostName(HttpRequest request) {
+        return request.httpService() != null ? request.httpService().host() : "";
+    }
+
+    /**
+     * 获取全局共享的主机并发限制器
+     */
+    public static HostConcurrencyLimiter getHostLimiter() {
+        return HOST_LIMITER;
+    }
+
+    /**
+     * 获取全局共享的发送速率控制器
+     */
+    public static RateGovernor getRateGovernor() {
+        return RATE_GOVERNOR;
+    }
+
+    /**
+     * 获取全局共享的暂停闸门
+     */
+    public static PauseGate getPauseGate() {
+        return PAUSE_GATE;
+    }
+
+    /**
+     * 参数已确认存在漏洞时,是否跳过剩余的 payload (提前结束策略不为 ALL)
+     *
+     * @param remaining 剩余未发送的 payload 数,跳过时计入统计
+     */
+    protected boolean stopAfterFinding(int remaining) {
+        if (config.getFindingPolicy() == FindingPolicy.ALL) {
+            return false;
+        }
+        if (remaining > 0 && statistics != null) {
+            statistics.recordEarlyStopPayloads(remaining);
+        }
+        return true;
+    }
+
+    /**
+     * 按配置的相似度阈值比较原始响应与 PoC 响应 (Levenshtein),并记录由哪一级作出判定
+     *
+     * @return 判定结果;低于阈值时相似度可能是上界 (见 Verdict.isUpperBound),与阈值比较的结论不变
+     */
+    protected SimilarityCascade.Verdict baselineSimilarity(ScanTicket ticket, CharSequence body, PayloadEcho echo1, PayloadEcho echo2) {
+        return levenshteinSimilarity(ticket, ticket.sourceSketch(), ticket.sketch(body), echo1, echo2);
+    }
+
+    /**
+     * 按配置的相似度阈值比较两个 PoC 响应 (Levenshtein)
+     */
+    protected SimilarityCascade.Verdict levenshteinSimilarity(ScanTicket ticket, CharSequence left, CharSequence right,
+                                           PayloadEcho echo1, PayloadEcho echo2) {
+        return levenshteinSimilarity(ticket, ticket.sketch(left), ticket.sketch(right), echo1, echo2);
+    }
+
+    private SimilarityCascade.Verdict levenshteinSimilarity(ScanTicket ticket, ResponseSketch left, ResponseSketch right,
+                                         PayloadEcho echo1, PayloadEcho echo2) {
+        double threshold = config.getSimilarityThreshold();
+        SimilarityCascade.Verdict verdict;
+        if (ticket.jsonFlag() && config.isJsonStructureCompare()) {
+            verdict = SimilarityCascade.json(left, right, echo1, echo2, threshold);
+        } else if (ticket.htmlFlag() && config.isHtmlStructureCompare()) {
+            verdict = SimilarityCascade.htmlStructure(left, right, echo1, echo2, threshold);
+        } else {
+            verdict = SimilarityCascade.levenshtein(left, right, echo1, echo2, ticket.htmlFlag(), threshold);
+        }
+        if (statistics != null) {
+            statistics.recordSimilarityStage(verdict.stage());
+        }
+        return verdict;
+    }
+
     /**
      * 提取响应体
      */
     protected String extractResponseBody(HttpRequestResponse response) {
         return response.response().body().toString();
     }
+
+    /**
+     * 以字节视图提取响应体,仅用于相似度比较 (不解码为 String)
+     */
+    protected CharSequence extractResponseText(HttpRequestResponse response) {
+        return ByteText.of(response.response().body().getBytes());
+    }
     
     /**
      * 检查参数是否应该被跳过（黑名单检查）
@@ -13,12 +13,13 @@ import DetSql.logging.DetSqlLogger;
 import DetSql.model.PocLogEntry;
 import DetSql.ui.DetSqlUI;
 import DetSql.util.MyCompare;
+import DetSql.util.PayloadEcho;
+import DetSql.util.SimilarityCascade;
 import DetSql.util.ParameterModifiers;
 import DetSql.util.RegexUtils;
 import DetSql.util.Statistics;
 
 import java.util.ArrayList;
-import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import DetSql.util.ParameterModifier;
@@ -36,6 +37,12 @@ import DetSql.util.ParameterModifier;
 public class BooleanInjection extends AbstractInjectionStrategy {
     
     private static final String VULN_TYPE = "boolsql";
+
+    // HTML 模式下差异部分只是这些回显的 PoC 时视为没有差异
+    // (单独的引号也算,与原先按正则 '||1/0||' 删除时的效果一致)
+    private static final PayloadEcho ECHO_DIV_ZERO = PayloadEcho.of("'||1/0||'", "'");
+    private static final PayloadEcho ECHO_EXP = PayloadEcho.of("EXP(290)");
+    private static final PayloadEcho ECHO_DIV_ONE = PayloadEcho.of("1/1");
     private final DetSqlUI ui;
     
     public BooleanInjection(
@@ -67,15 +74,15 @@ public class BooleanInjection extends AbstractInjectionStrategy {
     
     @Override
     public boolean testParameter(
-        HttpRequest sourceRequest,
-        String sourceBody,
-        boolean htmlFlag,
+        ScanTicket ticket,
         ParsedHttpParameter param,
-        ParameterModifier modifier,
-        String requestHash
+        ParameterModifier modifier
     ) throws InterruptedException {
         
         checkInterrupted();
+
+        HttpRequest sourceRequest = ticket.sourceRequest();
+        String requestHash = ticket.requestHash();
         
         String paramName = param.name();
         if (shouldSkipParameter(paramName)) {
@@ -83,38 +90,37 @@ public class BooleanInjection extends AbstractInjectionStrategy {
         }
         
         List<PocLogEntry> pocEntries = new ArrayList<>();
-        String referenceBody;  // 用于最后一步比较的参考响应
+        CharSequence referenceBody;  // 用于最后一步比较的参考响应
         
         // 步骤 1: '||EXP(710)||' - 触发溢出
         HttpRequest req1 = modifier.modifyParameter(sourceRequest, param, "'||EXP(710)||'", 0);
-        HttpRequestResponse resp1 = sendHttpRequest(req1, 2);
-        String body1 = extractResponseBody(resp1);
+        HttpRequestResponse resp1 = sendHttpRequest(ticket, req1, 2);
+        CharSequence body1 = extractResponseText(resp1);
         
-        List<Double> sim1 = MyCompare.averageLevenshtein(sourceBody, body1, "", "", htmlFlag);
-        double minSim1 = Collections.min(sim1);
+        SimilarityCascade.Verdict minSim1 = baselineSimilarity(ticket, body1, PayloadEcho.NONE, PayloadEcho.NONE);
         
-        if (minSim1 > config.getSimilarityThreshold()) {
+        if (minSim1.similarity() > config.getSimilarityThreshold()) {
             // 失败：EXP(710) 没有改变响应 → 不可能是注入点
             return false;
         }
         
         pocEntries.add(PocLogEntry.fromResponse(
-            paramName, "'||EXP(710)||'", MyCompare.formatPercent(minSim1),
+            paramName, "'||EXP(710)||'", MyCompare.formatSimilarity(minSim1),
             VULN_TYPE, resp1, requestHash
         ));
         
         // 步骤 2a: '||EXP(290)||' - 正常值（主要路径）
         HttpRequest req2 = modifier.modifyParameter(sourceRequest, param, "'||EXP(290)||'", 0);
-        HttpRequestResponse resp2 = sendHttpRequest(req2, 2);
-        String body2 = extractResponseBody(resp2);
+        HttpRequestResponse resp2 = sendHttpRequest(ticket, req2, 2);
+        CharSequence body2 = extractResponseText(resp2);
         
-        List<Double> sim2 = MyCompare.averageLevenshtein(body1, body2, "", "", htmlFlag);
-        double minSim2 = Collections.min(sim2);
+        SimilarityCascade.Verdict minSim2 = levenshteinSimilarity(
+                ticket, body1, body2, PayloadEcho.NONE, PayloadEcho.NONE);
         
-        if (minSim2 <= config.getSimilarityThreshold()) {
+        if (minSim2.similarity() <= config.getSimilarityThreshold()) {
             // 成功：EXP(290) 与 EXP(710) 响应不同
             pocEntries.add(PocLogEntry.fromResponse(
-                paramName, "'||EXP(290)||'", MyCompare.formatPercent(minSim2),
+                paramName, "'||EXP(290)||'", MyCompare.formatSimilarity(minSim2),
                 VULN_TYPE, resp2, requestHash
             ));
             referenceBody = body2;
@@ -123,19 +129,18 @@ public class BooleanInjection extends AbstractInjectionStrategy {
             String divZeroPayload = modifier.needsUrlEncoding() ? "'||1%2F0||'" : "'||1/0||'";
             
             HttpRequest req2b = modifier.modifyParameter(sourceRequest, param, divZeroPayload, 0);
-            HttpRequestResponse resp2b = sendHttpRequest(req2b, 2);
-            String body2b = extractResponseBody(resp2b);
+            HttpRequestResponse resp2b = sendHttpRequest(ticket, req2b, 2);
+            CharSequence body2b = extractResponseText(resp2b);
             
-            List<Double> sim2b = MyCompare.averageLevenshtein(sourceBody, body2b, "", "'||1/0||'", htmlFlag);
-            double maxSim2b = Collections.max(sim2b);
+            SimilarityCascade.Verdict maxSim2b = baselineSimilarity(ticket, body2b, PayloadEcho.NONE, ECHO_DIV_ZERO);
             
-            if (maxSim2b <= config.getSimilarityThreshold()) {
+            if (maxSim2b.similarity() <= config.getSimilarityThreshold()) {
                 // 失败：备选路径也失败
                 return false;
             }
             
             pocEntries.add(PocLogEntry.fromResponse(
-                paramName, divZeroPayload, MyCompare.formatPercent(maxSim2b),
+                paramName, divZeroPayload, MyCompare.formatSimilarity(maxSim2b),
                 VULN_TYPE, resp2b, requestHash
             ));
             referenceBody = body2b;
@@ -145,16 +150,15 @@ public class BooleanInjection extends AbstractInjectionStrategy {
         String divOnePayload = modifier.needsUrlEncoding() ? "'||1%2F1||'" : "'||1/1||'";
         
         HttpRequest req3 = modifier.modifyParameter(sourceRequest, param, divOnePayload, 0);
-        HttpRequestResponse resp3 = sendHttpRequest(req3, 2);
-        String body3 = extractResponseBody(resp3);
+        HttpRequestResponse resp3 = sendHttpRequest(ticket, req3, 2);
+        CharSequence body3 = extractResponseText(resp3);
         
-        List<Double> sim3 = MyCompare.averageLevenshtein(referenceBody, body3, "EXP\\(290\\)", "1/1", htmlFlag);
-        double maxSim3 = Collections.max(sim3);
+        SimilarityCascade.Verdict maxSim3 = levenshteinSimilarity(ticket, referenceBody, body3, ECHO_EXP, ECHO_DIV_ONE);
         
-        if (maxSim3 > config.getSimilarityThreshold()) {
+        if (maxSim3.similarity() > config.getSimilarityThreshold()) {
             // 成功：1/1 与参考响应相似 → 确认 Boolean 注入
             pocEntries.add(PocLogEntry.fromResponse(
-                paramName, divOnePayload, MyCompare.formatPercent(maxSim3),
+                paramName, divOnePayload, MyCompare.formatSimilarity(maxSim3),
                 VULN_TYPE, resp3, requestHash
             ));
             getAttackList(requestHash).addAll(pocEntries);
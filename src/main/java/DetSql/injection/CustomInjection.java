@@ -9,12 +9,12 @@ import burp.api.montoya.http.message.HttpRequestResponse;
 import burp.api.montoya.http.message.params.ParsedHttpParameter;
 import burp.api.montoya.http.message.requests.HttpRequest;
 import DetSql.config.DetSqlConfig;
+import DetSql.config.DiyRuleCache;
 import DetSql.logging.DetSqlLogger;
 import DetSql.model.PocLogEntry;
 import DetSql.ui.DetSqlUI;
 import DetSql.util.MyCompare;
 import DetSql.util.ParameterModifiers;
-import DetSql.util.RegexUtils;
 import DetSql.util.Statistics;
 
 import java.util.List;
@@ -62,15 +62,15 @@ public class CustomInjection extends AbstractInjectionStrategy {
     
     @Override
     public boolean testParameter(
-        HttpRequest sourceRequest,
-        String sourceBody,
-        boolean htmlFlag,
+        ScanTicket ticket,
         ParsedHttpParameter param,
-        ParameterModifier modifier,
-        String requestHash
+        ParameterModifier modifier
     ) throws InterruptedException {
         
         checkInterrupted();
+
+        HttpRequest sourceRequest = ticket.sourceRequest();
+        String requestHash = ticket.requestHash();
         
         String paramName = param.name();
         if (shouldSkipParameter(paramName)) {
@@ -78,16 +78,20 @@ public class CustomInjection extends AbstractInjectionStrategy {
         }
         
         boolean foundVuln = false;
+        DiyRuleCache.Snapshot diyRules = config.getDiyRules().current();
+        List<String> payloads = diyRules.payloads();
+        int sent = 0;
         
         // 测试所有 DIY Payload
-        for (String payload : config.getDiyPayloads()) {
+        for (String payload : payloads) {
             HttpRequest pocRequest = modifier.modifyParameter(sourceRequest, param, payload, 0);
-            HttpRequestResponse pocResponse = sendHttpRequest(pocRequest, 2);
+            HttpRequestResponse pocResponse = sendHttpRequest(ticket, pocRequest, 2);
+            sent++;
             String responseBody = extractResponseBody(pocResponse);
             
             // 检测方式 1: Regex 匹配
-            if (!config.getDiyRegexs().isEmpty()) {
-                String matchedRegex = checkRegexMatch(responseBody);
+            if (diyRules.hasRegexs()) {
+                String matchedRegex = diyRules.firstMatch(responseBody);
                 if (matchedRegex != null) {
                     addPocEntry(requestHash, PocLogEntry.fromResponse(
                         paramName, payload, null,
@@ -112,21 +116,12 @@ public class CustomInjection extends AbstractInjectionStrategy {
                     foundVuln = true;
                 }
             }
+
+            if (foundVuln && stopAfterFinding(payloads.size() - sent)) {
+                break;
+            }
         }
         
         return foundVuln;
     }
-    
-    /**
-     * 检查响应中是否匹配自定义正则表达式
-     */
-    private String checkRegexMatch(String text) {
-        String cleanedText = text.replaceAll("\\n|\\r|\\r\\n", "");
-        for (String pattern : config.getDiyRegexs()) {
-            if (RegexUtils.safeMatch(pattern, cleanedText)) {
-                return pattern;
-            }
-        }
-        return null;
-    }
 }
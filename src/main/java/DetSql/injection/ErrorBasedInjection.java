@@ -12,16 +12,14 @@ import DetSql.config.DetSqlConfig;
 import DetSql.logging.DetSqlLogger;
 import DetSql.model.PocLogEntry;
 import DetSql.ui.DetSqlUI;
+import DetSql.util.ErrorSignatures;
 import DetSql.util.MyCompare;
+import DetSql.util.NewlineSkippingText;
 import DetSql.util.ParameterModifiers;
-import DetSql.util.RegexUtils;
 import DetSql.util.Statistics;
 
 import java.util.List;
 import java.util.Map;
-import java.util.regex.Pattern;
-import java.util.stream.Collectors;
-import java.util.Arrays;
 import DetSql.util.ParameterModifier;
 
 /**
@@ -33,8 +31,7 @@ public class ErrorBasedInjection extends AbstractInjectionStrategy {
     private static final String VULN_TYPE = "errsql";
     private final DetSqlUI ui;
 
-    private final List<Pattern> compiledErrorPatterns;
-    private static final Pattern NEWLINE_PATTERN = Pattern.compile("\\n|\\r|\\r\\n");
+    private final ErrorSignatures errorSignatures;
 
     public ErrorBasedInjection(
             MontoyaApi api,
@@ -46,11 +43,8 @@ public class ErrorBasedInjection extends AbstractInjectionStrategy {
         super(api, config, logger, statistics, attackMap);
         this.ui = ui;
 
-        // 从配置读取错误检测规则并编译为正则模式
-        String[] rules = config.getErrorDetectionRules();
-        this.compiledErrorPatterns = Arrays.stream(rules)
-                .map(rule -> Pattern.compile(rule, Pattern.CASE_INSENSITIVE))
-                .collect(Collectors.toList());
+        // 从配置读取错误检测规则,编译为字面量预筛选 + 正则确认的规则集
+        this.errorSignatures = ErrorSignatures.compile(config.getErrorDetectionRules());
     }
 
     @Override
@@ -70,15 +64,15 @@ public class ErrorBasedInjection extends AbstractInjectionStrategy {
 
     @Override
     public boolean testParameter(
-            HttpRequest sourceRequest,
-            String sourceBody,
-            boolean htmlFlag,
+            ScanTicket ticket,
             ParsedHttpParameter param,
-            ParameterModifier modifier,
-            String requestHash) throws InterruptedException {
+            ParameterModifier modifier) throws InterruptedException {
 
         checkInterrupted();
 
+        HttpRequest sourceRequest = ticket.sourceRequest();
+        String requestHash = ticket.requestHash();
+
         String paramName = param.name();
         if (shouldSkipParameter(paramName)) {
             return false;
@@ -87,12 +81,13 @@ public class ErrorBasedInjection extends AbstractInjectionStrategy {
         boolean foundVuln = false;
         String[] payloads = config.getErrorPayloads();
 
-        for (String payload : payloads) {
+        for (int i = 0; i < payloads.length; i++) {
+            String payload = payloads[i];
             HttpRequest pocRequest = modifier.modifyParameter(sourceRequest, param, payload, 0);
-            HttpRequestResponse pocResponse = sendHttpRequest(pocRequest, 2);
+            HttpRequestResponse pocResponse = sendHttpRequest(ticket, pocRequest, 2);
             String responseBody = extractResponseBody(pocResponse);
 
-            String matchedRule = checkErrorPattern(responseBody);
+            String matchedRule = checkErrorPattern(ticket, responseBody);
             if (matchedRule != null) {
                 PocLogEntry logEntry = PocLogEntry.fromResponse(
                         paramName, payload, null,
@@ -100,6 +95,9 @@ public class ErrorBasedInjection extends AbstractInjectionStrategy {
                         pocResponse, requestHash);
                 addPocEntry(requestHash, logEntry);
                 foundVuln = true;
+                if (stopAfterFinding(payloads.length - i - 1)) {
+                    break;
+                }
             }
         }
 
@@ -107,15 +105,10 @@ public class ErrorBasedInjection extends AbstractInjectionStrategy {
     }
 
     /**
-     * 检查响应中是否包含 SQL 错误信息
+     * 检查响应中是否包含 SQL 错误信息 (原始响应上已经匹配的规则不计)
      */
-    private String checkErrorPattern(String text) {
-        String cleanedText = NEWLINE_PATTERN.matcher(text).replaceAll("");
-        for (Pattern pattern : compiledErrorPatterns) {
-            if (RegexUtils.safeMatchPrecompiled(pattern, cleanedText)) {
-                return pattern.pattern();
-            }
-        }
-        return null;
+    private String checkErrorPattern(ScanTicket ticket, String text) {
+        return errorSignatures.firstMatch(NewlineSkippingText.of(text),
+                ticket.baselineErrorRules(errorSignatures));
     }
 }
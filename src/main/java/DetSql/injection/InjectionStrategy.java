@@ -4,13 +4,9 @@
 
 package DetSql.injection;
 
-import burp.api.montoya.http.message.HttpRequestResponse;
 import burp.api.montoya.http.message.params.ParsedHttpParameter;
-import burp.api.montoya.http.message.requests.HttpRequest;
 import DetSql.util.ParameterModifier;
 
-import java.util.List;
-
 /**
  * 注入策略接口
  * 定义了 SQL 注入测试的通用流程
@@ -35,22 +31,16 @@ public interface InjectionStrategy {
     /**
      * 测试单个参数是否存在注入漏洞
      * 
-     * @param sourceRequest 原始请求
-     * @param sourceBody 原始响应体
-     * @param htmlFlag 是否为 HTML 响应
+     * @param ticket 扫描票据（原始请求、原始响应体、响应类型、请求哈希）
      * @param param 要测试的参数
      * @param modifier 参数修改器
-     * @param requestHash 请求哈希
      * @return 是否发现漏洞
      * @throws InterruptedException 线程中断异常
      */
     boolean testParameter(
-        HttpRequest sourceRequest,
-        String sourceBody,
-        boolean htmlFlag,
+        ScanTicket ticket,
         ParsedHttpParameter param,
-        ParameterModifier modifier,
-        String requestHash
+        ParameterModifier modifier
     ) throws InterruptedException;
     
     /**
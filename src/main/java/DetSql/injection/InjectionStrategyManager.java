@@ -6,16 +6,18 @@ package DetSql.injection;
 
 import burp.api.montoya.MontoyaApi;
 import burp.api.montoya.http.message.params.ParsedHttpParameter;
-import burp.api.montoya.http.message.requests.HttpRequest;
 import DetSql.config.DetSqlConfig;
 import DetSql.logging.DetSqlLogger;
 import DetSql.model.PocLogEntry;
 import DetSql.util.Statistics;
+import DetSql.util.VirtualThreads;
 import DetSql.ui.DetSqlUI;
 
 import java.util.ArrayList;
+import java.util.Deque;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.*;
 import DetSql.util.ParameterModifier;
 
@@ -25,9 +27,25 @@ import DetSql.util.ParameterModifier;
  * 统一管理所有注入策略，提供统一的测试接口
  */
 public class InjectionStrategyManager {
-    
-    
+
+    // 子任务工作窃取线程池（所有请求共用）
+    // 每个扫描线程按需提交辅助任务，空闲工作线程从其他请求的子任务队列中窃取任务
+    private static final ForkJoinPool UNIT_POOL = new ForkJoinPool(
+            Runtime.getRuntime().availableProcessors() * 2,
+            pool -> {
+                ForkJoinWorkerThread t = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+                t.setName("DetSql-Unit-" + t.getPoolIndex());
+                t.setDaemon(true);
+                return t;
+            },
+            null,
+            true);
+
+    // 虚拟线程模式下的辅助任务执行器，首次使用时创建
+    private static volatile ExecutorService virtualUnitExecutor;
+
     private final List<InjectionStrategy> strategies;
+    private final DetSqlConfig config;
     private final DetSqlLogger logger;
     private final Statistics statistics;
     
@@ -39,6 +57,7 @@ public class InjectionStrategyManager {
         Map<String, List<PocLogEntry>> attackMap,
         DetSqlUI ui
     ) {
+        this.config = config;
         this.logger = logger;
         this.statistics = statistics;
         this.strategies = new ArrayList<>();
@@ -66,24 +85,18 @@ public class InjectionStrategyManager {
     }
     
     /**
-     * 测试单个参数的所有启用策略
+     * 测试单个参数的所有启用策略（在当前线程中顺序执行）
      * 
-     * @param sourceRequest 原始请求
-     * @param sourceBody 原始响应体
-     * @param htmlFlag 是否为 HTML 响应
+     * @param ticket 扫描票据
      * @param param 要测试的参数
      * @param modifier 参数修改器
-     * @param requestHash 请求哈希
      * @return 检测到的漏洞类型列表
      * @throws InterruptedException 线程中断异常
      */
     public List<String> testParameter(
-        HttpRequest sourceRequest,
-        String sourceBody,
-        boolean htmlFlag,
+        ScanTicket ticket,
         ParsedHttpParameter param,
-        ParameterModifier modifier,
-        String requestHash
+        ParameterModifier modifier
     ) throws InterruptedException {
         
         List<String> detectedVulns = new ArrayList<>();
@@ -93,24 +106,8 @@ public class InjectionStrategyManager {
             if (!strategy.isEnabled()) {
                 continue;
             }
-            
-            try {
-                // 直接调用策略,移除 Future 包装以避免单线程瓶颈
-                // 策略已在 SCAN_EXECUTOR 线程池中执行,无需额外包装
-                boolean found = strategy.testParameter(
-                    sourceRequest, sourceBody, htmlFlag,
-                    param, modifier, requestHash
-                );
-
-                if (found) {
-                    detectedVulns.add(strategy.getVulnType());
-                    logger.debug("策略 [" + strategy.getName() + "] 在参数 [" + param.name() + "] 中检测到漏洞");
-                }
-            } catch (InterruptedException e) {
-                // 重新抛出中断异常
-                throw e;
-            } catch (Exception e) {
-                logger.error("策略 [" + strategy.getName() + "] 执行失败: " + e.getMessage(), e);
+            if (runUnit(ticket, new ScanUnit(param, modifier, strategy))) {
+                detectedVulns.add(strategy.getVulnType());
             }
         }
         
@@ -120,31 +117,22 @@ public class InjectionStrategyManager {
     /**
      * 测试参数列表的所有启用策略
      * 
-     * @param sourceRequest 原始请求
-     * @param sourceBody 原始响应体
-     * @param htmlFlag 是否为 HTML 响应
+     * @param ticket 扫描票据
      * @param params 要测试的参数列表
      * @param modifier 参数修改器
-     * @param requestHash 请求哈希
      * @return 是否检测到任何漏洞
      * @throws InterruptedException 线程中断异常
      */
     public boolean testParameters(
-        HttpRequest sourceRequest,
-        String sourceBody,
-        boolean htmlFlag,
+        ScanTicket ticket,
         List<ParsedHttpParameter> params,
-        ParameterModifier modifier,
-        String requestHash
+        ParameterModifier modifier
     ) throws InterruptedException {
         
         boolean foundAny = false;
         
         for (ParsedHttpParameter param : params) {
-            List<String> vulns = testParameter(
-                sourceRequest, sourceBody, htmlFlag,
-                param, modifier, requestHash
-            );
+            List<String> vulns = testParameter(ticket, param, modifier);
             
             if (!vulns.isEmpty()) {
                 foundAny = true;
@@ -153,6 +141,187 @@ public class InjectionStrategyManager {
         
         return foundAny;
     }
+
+    /**
+     * 把一组参数拆分为 (参数, 策略) 子任务，追加到 units
+     * 顺序为参数优先、策略其次，与原顺序执行时一致
+     *
+     * @param params 要测试的参数列表
+     * @param modifier 参数修改器
+     * @param units 子任务输出列表
+     */
+    public void planUnits(List<ParsedHttpParameter> params, ParameterModifier modifier, List<ScanUnit> units) {
+        if (params == null) {
+            return;
+        }
+        for (ParsedHttpParameter param : params) {
+            for (InjectionStrategy strategy : strategies) {
+                if (strategy.isEnabled() && !strategy.shouldSkipParameter(param.name())) {
+                    units.add(new ScanUnit(param, modifier, strategy));
+                }
+            }
+        }
+    }
+
+    /**
+     * 并行执行一个请求的全部子任务，全部完成后返回合并的漏洞类型
+     *
+     * 当前线程从队头取任务执行，同时向工作窃取线程池提交若干辅助任务从队尾取任务，
+     * 大请求（几十个参数）不再独占一个扫描线程跑完所有策略。
+     * 线程池繁忙时辅助任务可能来不及启动，当前线程会独自执行完所有子任务。
+     *
+     * @param ticket 扫描票据
+     * @param units 子任务列表
+     * @return 合并后的漏洞类型集合
+     * @throws InterruptedException 扫描被取消
+     */
+    public Set<String> runUnits(ScanTicket ticket, List<ScanUnit> units) throws InterruptedException {
+        Deque<ScanUnit> pending = new ConcurrentLinkedDeque<>();
+        for (ScanUnit unit : units) {
+            // 断点续扫: 跳过上次已完成的子任务
+            if (!ticket.isUnitCompleted(unit)) {
+                pending.add(unit);
+            }
+        }
+        if (pending.isEmpty()) {
+            return ticket.findings();
+        }
+
+        // 调用线程占一方;辅助任务开始执行时登记,结束时注销
+        // 不能靠 Future.cancel(false) 判断是否已启动: 任务运行中 cancel 同样返回 true
+        Phaser running = new Phaser(1);
+        List<Future<?>> helpers = new ArrayList<>();
+        int helperCount = Math.min(config.getUnitParallelism(), pending.size() - 1);
+        for (int i = 0; i < helperCount; i++) {
+            try {
+                helpers.add(unitExecutor().submit(() -> drainAsHelper(ticket, pending, running)));
+            } catch (RejectedExecutionException e) {
+                // 线程池已关闭（插件卸载中），由当前线程执行剩余子任务
+                break;
+            }
+        }
+
+        try {
+            ScanUnit unit;
+            while (!ticket.isCancelled() && (unit = pending.pollFirst()) != null) {
+                runUnit(ticket, unit);
+            }
+            // 未启动的辅助任务直接取消，已启动的等待其完成当前子任务
+            for (Future<?> helper : helpers) {
+                helper.cancel(false);
+            }
+            running.awaitAdvanceInterruptibly(running.arrive());
+        } catch (InterruptedException e) {
+            ticket.cancel();
+            for (Future<?> helper : helpers) {
+                helper.cancel(true);
+            }
+            throw e;
+        }
+
+        if (ticket.isCancelled()) {
+            throw new InterruptedException("扫描已取消");
+        }
+        return ticket.findings();
+    }
+
+    /**
+     * 辅助线程: 从队尾窃取子任务执行，直到队列为空或票据被取消
+     * 先在 running 上登记再取任务，runUnits 返回前一定会等到取走的子任务执行完；
+     * 调用线程已不再等待时才登记的辅助线程只会看到空队列（或已取消的票据）
+     */
+    private void drainAsHelper(ScanTicket ticket, Deque<ScanUnit> pending, Phaser running) {
+        running.register();
+        Thread current = Thread.currentThread();
+        try {
+            if (!ticket.registerWorker(current)) {
+                return;
+            }
+            try {
+                ScanUnit unit;
+                while (!ticket.isCancelled() && (unit = pending.pollLast()) != null) {
+                    runUnit(ticket, unit);
+                }
+            } catch (InterruptedException e) {
+                logger.debug("子任务被取消: " + ticket.requestHash());
+            } finally {
+                ticket.unregisterWorker(current);
+            }
+        } finally {
+            running.arriveAndDeregister();
+        }
+    }
+
+    /**
+     * 执行单个子任务，发现漏洞时记录到票据
+     *
+     * @return 是否发现漏洞
+     */
+    private boolean runUnit(ScanTicket ticket, ScanUnit unit) throws InterruptedException {
+        InjectionStrategy strategy = unit.strategy();
+        String paramName = unit.param().name();
+        if (skipAfterFinding(ticket, unit)) {
+            return false;
+        }
+        try {
+            // 直接调用策略,移除 Future 包装以避免单线程瓶颈
+            boolean found = strategy.testParameter(ticket, unit.param(), unit.modifier());
+            if (found) {
+                ticket.addFinding(strategy.getVulnType());
+                ticket.confirmParameter(unit);
+                logger.debug("策略 [" + strategy.getName() + "] 在参数 [" + paramName + "] 中检测到漏洞");
+            }
+            if (!ticket.isCancelled() && !Thread.currentThread().isInterrupted()) {
+                ticket.unitCompleted(unit, found);
+            }
+            return found;
+        } catch (InterruptedException e) {
+            // 重新抛出中断异常
+            throw e;
+        } catch (Exception e) {
+            logger.error("策略 [" + strategy.getName() + "] 执行失败: " + e.getMessage(), e);
+            return false;
+        }
+    }
+
+    /**
+     * 按提前结束策略判断是否跳过子任务 (参数或请求已确认存在漏洞)
+     * 跳过的子任务不标记为完成,续扫时重新判断
+     */
+    private boolean skipAfterFinding(ScanTicket ticket, ScanUnit unit) {
+        boolean skip = switch (config.getFindingPolicy()) {
+            case ALL -> false;
+            case PER_PARAMETER -> ticket.isParameterConfirmed(unit);
+            case PER_REQUEST -> ticket.hasFindings();
+        };
+        if (skip && statistics != null) {
+            statistics.recordEarlyStopUnits(1);
+        }
+        return skip;
+    }
+
+    /**
+     * 选择执行辅助任务的线程池
+     * 虚拟线程模式下每个辅助任务一个虚拟线程，否则使用共享的工作窃取线程池
+     */
+    private ExecutorService unitExecutor() {
+        if (config.isVirtualThreadsEnabled() && VirtualThreads.isSupported()) {
+            ExecutorService executor = virtualUnitExecutor;
+            if (executor == null) {
+                synchronized (InjectionStrategyManager.class) {
+                    executor = virtualUnitExecutor;
+                    if (executor == null) {
+                        executor = VirtualThreads.newPerTaskExecutor("DetSql-VUnit-");
+                        virtualUnitExecutor = executor;
+                    }
+                }
+            }
+            if (executor != null) {
+                return executor;
+            }
+        }
+        return UNIT_POOL;
+    }
     
     /**
      * 获取所有启用的策略数量
@@ -171,11 +340,16 @@ public class InjectionStrategyManager {
     }
     
     /**
-     * 关闭策略管理器，释放资源
-     * 注：移除了 executor 后此方法保留为空实现，以保持 API 兼容性
+     * 关闭策略管理器，释放子任务线程池
      */
     public void shutdown() {
-        // 不再需要关闭 executor（已移除）
+        UNIT_POOL.shutdownNow();
+        ExecutorService virtualExecutor = virtualUnitExecutor;
+        if (virtualExecutor != null) {
+            virtualExecutor.shutdownNow();
+        }
+        AbstractInjectionStrategy.shutdownSendExecutor();
+        AbstractInjectionStrategy.shutdownRateScheduler();
         logger.debug("策略管理器关闭");
     }
 }
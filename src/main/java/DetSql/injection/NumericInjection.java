@@ -13,12 +13,13 @@ import DetSql.logging.DetSqlLogger;
 import DetSql.model.PocLogEntry;
 import DetSql.ui.DetSqlUI;
 import DetSql.util.MyCompare;
+import DetSql.util.PayloadEcho;
+import DetSql.util.SimilarityCascade;
 import DetSql.util.ParameterModifiers;
 import DetSql.util.RegexUtils;
 import DetSql.util.Statistics;
 
 import java.util.ArrayList;
-import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import DetSql.util.ParameterModifier;
@@ -34,6 +35,12 @@ import DetSql.util.ParameterModifier;
 public class NumericInjection extends AbstractInjectionStrategy {
     
     private static final String VULN_TYPE = "numsql";
+
+    // HTML 模式下差异部分只是这些回显的 PoC 时视为没有差异
+    private static final PayloadEcho ECHO_ZERO = PayloadEcho.of("-0-0-0");
+    private static final PayloadEcho ECHO_ZERO_TAIL = PayloadEcho.of("0-0-0");
+    private static final PayloadEcho ECHO_ABC = PayloadEcho.of("-abc");
+    private static final PayloadEcho ECHO_ABC_TAIL = PayloadEcho.of("abc");
     private final DetSqlUI ui;
     
     public NumericInjection(
@@ -65,15 +72,15 @@ public class NumericInjection extends AbstractInjectionStrategy {
     
     @Override
     public boolean testParameter(
-        HttpRequest sourceRequest,
-        String sourceBody,
-        boolean htmlFlag,
+        ScanTicket ticket,
         ParsedHttpParameter param,
-        ParameterModifier modifier,
-        String requestHash
+        ParameterModifier modifier
     ) throws InterruptedException {
         
         checkInterrupted();
+
+        HttpRequest sourceRequest = ticket.sourceRequest();
+        String requestHash = ticket.requestHash();
         
         String paramName = param.name();
         String paramValue = param.value();
@@ -92,45 +99,43 @@ public class NumericInjection extends AbstractInjectionStrategy {
         // 测试 1: value-0-0-0 - 期望与原始响应相似
         String payload1 = "-0-0-0";
         HttpRequest req1 = modifier.modifyParameter(sourceRequest, param, payload1, 0);
-        HttpRequestResponse resp1 = sendHttpRequest(req1, 2);
-        String body1 = extractResponseBody(resp1);
+        HttpRequestResponse resp1 = sendHttpRequest(ticket, req1, 2);
+        CharSequence body1 = extractResponseText(resp1);
         
-        List<Double> sim1 = MyCompare.averageLevenshtein(sourceBody, body1, "", payload1, htmlFlag);
-        double maxSim1 = Collections.max(sim1);
+        SimilarityCascade.Verdict maxSim1 = baselineSimilarity(ticket, body1, PayloadEcho.NONE, ECHO_ZERO);
         
-        if (maxSim1 <= config.getSimilarityThreshold()) {
+        if (maxSim1.similarity() <= config.getSimilarityThreshold()) {
             return false; // 测试失败，跳过此参数
         }
         
         pocEntries.add(PocLogEntry.fromResponse(
-            paramName, payload1, MyCompare.formatPercent(maxSim1),
+            paramName, payload1, MyCompare.formatSimilarity(maxSim1),
             VULN_TYPE, resp1, requestHash
         ));
         
         // 测试 2: value-abc - 期望与原始响应和测试 1 响应都不相似
         String payload2 = "-abc";
         HttpRequest req2 = modifier.modifyParameter(sourceRequest, param, payload2, 0);
-        HttpRequestResponse resp2 = sendHttpRequest(req2, 2);
-        String body2 = extractResponseBody(resp2);
+        HttpRequestResponse resp2 = sendHttpRequest(ticket, req2, 2);
+        CharSequence body2 = extractResponseText(resp2);
         
         // 检查与原始响应的相似度
-        List<Double> sim2Source = MyCompare.averageLevenshtein(sourceBody, body2, "", "-abc", htmlFlag);
-        double minSim2Source = Collections.min(sim2Source);
+        SimilarityCascade.Verdict minSim2Source = baselineSimilarity(ticket, body2, PayloadEcho.NONE, ECHO_ABC);
         
-        if (minSim2Source > config.getSimilarityThreshold()) {
+        if (minSim2Source.similarity() > config.getSimilarityThreshold()) {
             return false; // 测试失败，跳过此参数
         }
         
         pocEntries.add(PocLogEntry.fromResponse(
-            paramName, payload2, MyCompare.formatPercent(minSim2Source),
+            paramName, payload2, MyCompare.formatSimilarity(minSim2Source),
             VULN_TYPE, resp2, requestHash
         ));
         
         // 检查与测试 1 响应的相似度
-        List<Double> sim2First = MyCompare.averageLevenshtein(body1, body2, "0-0-0", "abc", htmlFlag);
-        double minSim2First = Collections.min(sim2First);
+        SimilarityCascade.Verdict minSim2First = levenshteinSimilarity(
+                ticket, body1, body2, ECHO_ZERO_TAIL, ECHO_ABC_TAIL);
         
-        if (minSim2First <= config.getSimilarityThreshold()) {
+        if (minSim2First.similarity() <= config.getSimilarityThreshold()) {
             getAttackList(requestHash).addAll(pocEntries);
             return true;
         }
@@ -67,15 +67,18 @@ public class OrderByInjection extends AbstractInjectionStrategy {
     
     @Override
     public boolean testParameter(
-        HttpRequest sourceRequest,
-        String sourceBody,
-        boolean htmlFlag,
+        ScanTicket ticket,
         ParsedHttpParameter param,
-        ParameterModifier modifier,
-        String requestHash
+        ParameterModifier modifier
     ) throws InterruptedException {
         
         checkInterrupted();
+
+        HttpRequest sourceRequest = ticket.sourceRequest();
+        // 相似度比较使用删除了易变区域的响应体
+        String sourceBody = ticket.comparable(ticket.sourceBody());
+        boolean htmlFlag = ticket.htmlFlag();
+        String requestHash = ticket.requestHash();
         
         String paramName = param.name();
         String paramValue = param.value();
@@ -93,8 +96,8 @@ public class OrderByInjection extends AbstractInjectionStrategy {
         
         // 测试 1: value,0 - 期望与原始响应不相似（无效列索引）
         HttpRequest req1 = modifier.modifyParameter(sourceRequest, param, ",0", 0);
-        HttpRequestResponse resp1 = sendHttpRequest(req1, 2);
-        String body1 = extractResponseBody(resp1);
+        HttpRequestResponse resp1 = sendHttpRequest(ticket, req1, 2);
+        String body1 = ticket.comparable(extractResponseBody(resp1));
         
         List<Double> sim1 = MyCompare.averageJaccard(sourceBody, body1, "", "", htmlFlag);
         double minSim1 = Collections.min(sim1);
@@ -110,8 +113,8 @@ public class OrderByInjection extends AbstractInjectionStrategy {
         
         // 测试 2: value,xxxxxx - 期望与原始响应不相似（无效列名）
         HttpRequest req2 = modifier.modifyParameter(sourceRequest, param, ",XXXXXX", 0);
-        HttpRequestResponse resp2 = sendHttpRequest(req2, 2);
-        String body2 = extractResponseBody(resp2);
+        HttpRequestResponse resp2 = sendHttpRequest(ticket, req2, 2);
+        String body2 = ticket.comparable(extractResponseBody(resp2));
         
         List<Double> sim2 = MyCompare.averageJaccard(sourceBody, body2, "", "", htmlFlag);
         double minSim2 = Collections.min(sim2);
@@ -135,8 +138,8 @@ public class OrderByInjection extends AbstractInjectionStrategy {
         
         // 测试 4a: value,1 - 期望与原始响应相似（有效列索引）
         HttpRequest req4a = modifier.modifyParameter(sourceRequest, param, ",1", 0);
-        HttpRequestResponse resp4a = sendHttpRequest(req4a, 2);
-        String body4a = extractResponseBody(resp4a);
+        HttpRequestResponse resp4a = sendHttpRequest(ticket, req4a, 2);
+        String body4a = ticket.comparable(extractResponseBody(resp4a));
         
         List<Double> sim4a = MyCompare.averageJaccard(sourceBody, body4a, "", "", htmlFlag);
         double maxSim4a = Collections.max(sim4a);
@@ -157,8 +160,8 @@ public class OrderByInjection extends AbstractInjectionStrategy {
         
         // 测试 4b: value,2 - 备选测试（另一个有效列索引）
         HttpRequest req4b = modifier.modifyParameter(sourceRequest, param, ",2", 0);
-        HttpRequestResponse resp4b = sendHttpRequest(req4b, 2);
-        String body4b = extractResponseBody(resp4b);
+        HttpRequestResponse resp4b = sendHttpRequest(ticket, req4b, 2);
+        String body4b = ticket.comparable(extractResponseBody(resp4b));
         
         List<Double> sim4b = MyCompare.averageJaccard(sourceBody, body4b, "", "", htmlFlag);
         double maxSim4b = Collections.max(sim4b);
@@ -0,0 +1,298 @@
+/*
+ * @saoshao<1224165231@qq.com>
+ */
+
+package DetSql.injection;
+
+import burp.api.montoya.http.message.HttpRequestResponse;
+import burp.api.montoya.http.message.requests.HttpRequest;
+import DetSql.util.ByteText;
+import DetSql.util.ErrorSignatures;
+import DetSql.util.LRUCache;
+import DetSql.util.NewlineSkippingText;
+import DetSql.util.ResponseSketch;
+import DetSql.util.VolatileRegionMask;
+
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 扫描票据 - 一次请求扫描的共享上下文
+ *
+ * 一个被接受的请求对应一个 ScanTicket,拆分出的所有 (参数, 策略) 子任务共用它:
+ * - 原始请求、原始响应体、响应类型等只读基线 (原始响应体的相似度摘要只计算一次)
+ * - PoC 响应的相似度摘要 (按内容摘要缓存,多步比较共用)
+ * - 端点的易变区域 (token、时间戳等),相似度比较前从两侧响应中删除
+ * - 各子任务发现的漏洞类型 (合并为请求的最终结果)
+ * - 取消标记和正在执行子任务的线程 (取消时统一中断)
+ * - 断点续扫: 上次已完成的子任务标识,以及子任务完成时的回调 (写入扫描日志)
+ * - 已发送 PoC 的响应: 不同策略构造出字节相同的请求时直接复用
+ * - 原始响应体上已经匹配的报错规则 (只计算一次,报错注入检测时排除)
+ */
+public class ScanTicket {
+
+    /**
+     * 子任务完成回调
+     */
+    public interface UnitListener {
+        /**
+         * @param ticket 所属票据
+         * @param unit   完成的子任务
+         * @param found  是否发现漏洞
+         */
+        void unitCompleted(ScanTicket ticket, ScanUnit unit, boolean found);
+    }
+
+    // 单个票据缓存的 PoC 响应上限 (超过后淘汰最久未使用的)
+    private static final int MAX_POC_RESPONSES = 256;
+    // 单个票据缓存的响应摘要上限
+    private static final int MAX_SKETCHES = 32;
+
+    private final String requestHash;
+    private final HttpRequest sourceRequest;
+    private final String sourceBody;
+    private final ResponseSketch sourceSketch;
+    private final VolatileRegionMask volatileMask;
+    private final boolean htmlFlag;
+    private final boolean jsonFlag;
+
+    // 各子任务发现的漏洞类型 (线程安全)
+    private final Set<String> findings = ConcurrentHashMap.newKeySet();
+
+    // 已确认存在漏洞的参数 (ScanUnit.paramKey()),用于提前结束
+    private final Set<String> confirmedParams = ConcurrentHashMap.newKeySet();
+
+    // 正在执行本票据子任务的辅助线程,取消时中断
+    private final Set<Thread> workers = new HashSet<>();
+    private volatile boolean cancelled;
+
+    // 变异后请求摘要 -> 响应 (发送中的请求也在这里,相同请求等待首个发送者的结果)
+    private final Map<String, CompletableFuture<HttpRequestResponse>> pocResponses =
+            Collections.synchronizedMap(new LRUCache<>(MAX_POC_RESPONSES));
+
+    // 响应内容摘要 -> 相似度摘要 (同一响应在多步比较中只统计一次直方图和 token 序列)
+    private final Map<Long, ResponseSketch> sketches =
+            Collections.synchronizedMap(new LRUCache<>(MAX_SKETCHES));
+
+    // 原始响应体上已匹配的报错规则,及计算它所用的规则集
+    private ErrorSignatures baselineSignatures;
+    private BitSet baselineErrorRules;
+
+    // 断点续扫: 已完成的子任务标识 (ScanUnit.key()) 和完成回调
+    private Set<String> completedUnits = Collections.emptySet();
+    private UnitListener unitListener;
+
+    public ScanTicket(String requestHash, HttpRequest sourceRequest, String sourceBody, boolean htmlFlag) {
+        this(requestHash, sourceRequest, sourceBody, htmlFlag, VolatileRegionMask.NONE);
+    }
+
+    public ScanTicket(String requestHash, HttpRequest sourceRequest, String sourceBody, boolean htmlFlag,
+                      VolatileRegionMask volatileMask) {
+        this(requestHash, sourceRequest, sourceBody, htmlFlag, false, volatileMask);
+    }
+
+    public ScanTicket(String requestHash, HttpRequest sourceRequest, String sourceBody, boolean htmlFlag,
+                      boolean jsonFlag, VolatileRegionMask volatileMask) {
+        this.requestHash = requestHash;
+        this.sourceRequest = sourceRequest;
+        this.sourceBody = sourceBody;
+        this.volatileMask = volatileMask;
+        // 基线转为字节视图,与同样是字节视图的 PoC 响应比较时可以按块比较
+        this.sourceSketch = ResponseSketch.of(
+                sourceBody == null ? "" : ByteText.latin1(volatileMask.apply(sourceBody)));
+        this.htmlFlag = htmlFlag;
+        this.jsonFlag = jsonFlag;
+    }
+
+    public String requestHash() {
+        return requestHash;
+    }
+
+    public HttpRequest sourceRequest() {
+        return sourceRequest;
+    }
+
+    public String sourceBody() {
+        return sourceBody;
+    }
+
+    /**
+     * 原始响应体 (已删除易变区域) 的相似度摘要,所有策略共用
+     */
+    public ResponseSketch sourceSketch() {
+        return sourceSketch;
+    }
+
+    /**
+     * 删除响应体中的易变区域,用于相似度比较
+     */
+    public String comparable(String body) {
+        return volatileMask.apply(body);
+    }
+
+    public CharSequence comparable(CharSequence body) {
+        return volatileMask.apply(body);
+    }
+
+    /**
+     * 删除易变区域后的相似度摘要,相同内容的响应体复用同一个摘要
+     */
+    public ResponseSketch sketch(CharSequence body) {
+        CharSequence text = comparable(body);
+        long key = ResponseSketch.digest(text);
+        ResponseSketch cached = sketches.get(key);
+        if (cached != null && ByteText.contentEquals(cached.text(), text)) {
+            return cached;
+        }
+        ResponseSketch sketch = ResponseSketch.of(text);
+        sketches.put(key, sketch);
+        return sketch;
+    }
+
+    /**
+     * 原始响应体 (去掉换行) 上已经匹配的报错规则,同一规则集只计算一次
+     */
+    public synchronized BitSet baselineErrorRules(ErrorSignatures signatures) {
+        if (baselineSignatures != signatures) {
+            baselineErrorRules = sourceBody == null || sourceBody.isEmpty()
+                    ? new BitSet()
+                    : signatures.matches(NewlineSkippingText.of(sourceBody));
+            baselineSignatures = signatures;
+        }
+        return baselineErrorRules;
+    }
+
+    public boolean htmlFlag() {
+        return htmlFlag;
+    }
+
+    /**
+     * 原始响应的 MIME 类型是否为 JSON
+     */
+    public boolean jsonFlag() {
+        return jsonFlag;
+    }
+
+    /**
+     * 设置上次已完成的子任务,这些子任务不再执行
+     */
+    public void setCompletedUnits(Set<String> completedUnits) {
+        this.completedUnits = completedUnits == null ? Collections.emptySet() : completedUnits;
+    }
+
+    public boolean isUnitCompleted(ScanUnit unit) {
+        return !completedUnits.isEmpty() && completedUnits.contains(unit.key());
+    }
+
+    public void setUnitListener(UnitListener unitListener) {
+        this.unitListener = unitListener;
+    }
+
+    /**
+     * 子任务正常结束 (未被中断) 时调用
+     */
+    void unitCompleted(ScanUnit unit, boolean found) {
+        UnitListener listener = unitListener;
+        if (listener != null) {
+            listener.unitCompleted(this, unit, found);
+        }
+    }
+
+    /**
+     * 登记将要发送的 PoC
+     *
+     * @param key     变异后请求的摘要
+     * @param pending 本次发送的结果
+     * @return 已有的结果 (相同请求已发送或正在发送),没有时返回 null 并登记 pending
+     */
+    CompletableFuture<HttpRequestResponse> reservePocResponse(String key,
+            CompletableFuture<HttpRequestResponse> pending) {
+        return pocResponses.putIfAbsent(key, pending);
+    }
+
+    /**
+     * 发送被取消或失败,撤销登记
+     */
+    void forgetPocResponse(String key, CompletableFuture<HttpRequestResponse> pending) {
+        pocResponses.remove(key, pending);
+    }
+
+    /**
+     * 记录一个子任务发现的漏洞类型
+     */
+    public void addFinding(String vulnType) {
+        findings.add(vulnType);
+    }
+
+    /**
+     * 记录参数已确认存在漏洞
+     */
+    void confirmParameter(ScanUnit unit) {
+        confirmedParams.add(unit.paramKey());
+    }
+
+    /**
+     * 参数是否已由某个策略确认存在漏洞
+     */
+    public boolean isParameterConfirmed(ScanUnit unit) {
+        return confirmedParams.contains(unit.paramKey());
+    }
+
+    public boolean hasFindings() {
+        return !findings.isEmpty();
+    }
+
+    /**
+     * 当前已合并的漏洞类型 (按发现顺序无关的快照)
+     */
+    public Set<String> findings() {
+        return Collections.unmodifiableSet(new LinkedHashSet<>(findings));
+    }
+
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    /**
+     * 取消票据: 后续子任务不再执行,正在执行的辅助线程被中断
+     */
+    public void cancel() {
+        synchronized (workers) {
+            cancelled = true;
+            for (Thread worker : workers) {
+                worker.interrupt();
+            }
+        }
+    }
+
+    /**
+     * 辅助线程开始执行本票据的子任务
+     *
+     * @return false 表示票据已取消,不应继续
+     */
+    boolean registerWorker(Thread worker) {
+        synchronized (workers) {
+            if (cancelled) {
+                return false;
+            }
+            workers.add(worker);
+            return true;
+        }
+    }
+
+    /**
+     * 辅助线程结束执行,清除可能残留的中断标记,避免影响线程池中的下一个任务
+     */
+    void unregisterWorker(Thread worker) {
+        synchronized (workers) {
+            workers.remove(worker);
+            Thread.interrupted();
+        }
+    }
+}
@@ -0,0 +1,34 @@
+/*
+ * @saoshao<1224165231@qq.com>
+ */
+
+package DetSql.injection;
+
+import burp.api.montoya.core.Range;
+import burp.api.montoya.http.message.params.ParsedHttpParameter;
+import DetSql.util.ParameterModifier;
+
+/**
+ * 扫描子任务 - 一个参数 × 一个策略
+ *
+ * 同一请求的子任务相互独立,可以由不同线程并行执行,结果合并到 ScanTicket
+ */
+public record ScanUnit(ParsedHttpParameter param, ParameterModifier modifier, InjectionStrategy strategy) {
+
+    /**
+     * 子任务标识: 参数类型 + 参数在请求中的位置 + 参数名 + 策略名
+     * 同一请求字节重新解析后保持不变 (同名参数按位置区分),用于扫描日志断点续扫
+     */
+    public String key() {
+        return paramKey() + ":" + strategy.getName();
+    }
+
+    /**
+     * 参数标识: 参数类型 + 位置 + 参数名 (同一参数的各策略子任务相同)
+     */
+    public String paramKey() {
+        Range offsets = param.nameOffsets();
+        int start = offsets != null ? offsets.startIndexInclusive() : -1;
+        return param.type() + ":" + start + ":" + param.name();
+    }
+}
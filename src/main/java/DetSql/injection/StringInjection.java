@@ -13,12 +13,13 @@ import DetSql.logging.DetSqlLogger;
 import DetSql.model.PocLogEntry;
 import DetSql.ui.DetSqlUI;
 import DetSql.util.MyCompare;
+import DetSql.util.PayloadEcho;
+import DetSql.util.SimilarityCascade;
 import DetSql.util.ParameterModifiers;
 import DetSql.util.RegexUtils;
 import DetSql.util.Statistics;
 
 import java.util.ArrayList;
-import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import DetSql.util.ParameterModifier;
@@ -36,6 +37,11 @@ import DetSql.util.ParameterModifier;
 public class StringInjection extends AbstractInjectionStrategy {
     
     private static final String VULN_TYPE = "stringsql";
+
+    // HTML 模式下差异部分只是这些回显的 PoC 时视为没有差异
+    private static final PayloadEcho ECHO_QUOTES = PayloadEcho.of("''");
+    private static final PayloadEcho ECHO_PLUS = PayloadEcho.of("'", "+");
+    private static final PayloadEcho ECHO_PIPE = PayloadEcho.of("'", "|");
     private final DetSqlUI ui;
     
     public StringInjection(
@@ -67,15 +73,15 @@ public class StringInjection extends AbstractInjectionStrategy {
     
     @Override
     public boolean testParameter(
-        HttpRequest sourceRequest,
-        String sourceBody,
-        boolean htmlFlag,
+        ScanTicket ticket,
         ParsedHttpParameter param,
-        ParameterModifier modifier,
-        String requestHash
+        ParameterModifier modifier
     ) throws InterruptedException {
         
         checkInterrupted();
+
+        HttpRequest sourceRequest = ticket.sourceRequest();
+        String requestHash = ticket.requestHash();
         
         String paramName = param.name();
         if (shouldSkipParameter(paramName)) {
@@ -86,53 +92,50 @@ public class StringInjection extends AbstractInjectionStrategy {
         
         // 步骤 1: 单引号测试 - 期望不相似（破坏 SQL 语法）
         HttpRequest req1 = modifier.modifyParameter(sourceRequest, param, "'", 0);
-        HttpRequestResponse resp1 = sendHttpRequest(req1, 2);
-        String body1 = extractResponseBody(resp1);
+        HttpRequestResponse resp1 = sendHttpRequest(ticket, req1, 2);
+        CharSequence body1 = extractResponseText(resp1);
         
-        List<Double> sim1 = MyCompare.averageLevenshtein(sourceBody, body1, "", "", htmlFlag);
-        double minSim1 = Collections.min(sim1);
+        SimilarityCascade.Verdict minSim1 = baselineSimilarity(ticket, body1, PayloadEcho.NONE, PayloadEcho.NONE);
         
-        if (minSim1 > config.getSimilarityThreshold()) {
+        if (minSim1.similarity() > config.getSimilarityThreshold()) {
             // 失败：单引号没有改变响应 → 不是注入点
             return false;
         }
         
         pocEntries.add(PocLogEntry.fromResponse(
-            paramName, "'", MyCompare.formatPercent(minSim1),
+            paramName, "'", MyCompare.formatSimilarity(minSim1),
             VULN_TYPE, resp1, requestHash
         ));
         
         // 步骤 2: 双引号测试 - 期望与步骤 1 不相似
         HttpRequest req2 = modifier.modifyParameter(sourceRequest, param, "''", 0);
-        HttpRequestResponse resp2 = sendHttpRequest(req2, 2);
-        String body2 = extractResponseBody(resp2);
+        HttpRequestResponse resp2 = sendHttpRequest(ticket, req2, 2);
+        CharSequence body2 = extractResponseText(resp2);
         
-        List<Double> sim2 = MyCompare.averageLevenshtein(body1, body2, "", "''", htmlFlag);
-        double minSim2 = Collections.min(sim2);
+        SimilarityCascade.Verdict minSim2 = levenshteinSimilarity(ticket, body1, body2, PayloadEcho.NONE, ECHO_QUOTES);
         
-        if (minSim2 > config.getSimilarityThreshold()) {
+        if (minSim2.similarity() > config.getSimilarityThreshold()) {
             // 失败：双引号与单引号相同 → 不是 SQL 注入
             return false;
         }
         
         pocEntries.add(PocLogEntry.fromResponse(
-            paramName, "''", MyCompare.formatPercent(minSim2),
+            paramName, "''", MyCompare.formatSimilarity(minSim2),
             VULN_TYPE, resp2, requestHash
         ));
         
         // 步骤 3: '+' 测试 - 期望与原始响应相似
         String plusPayload = modifier.needsUrlEncoding() ? "'%2B'" : "'+'";
         HttpRequest req3 = modifier.modifyParameter(sourceRequest, param, plusPayload, 0);
-        HttpRequestResponse resp3 = sendHttpRequest(req3, 2);
-        String body3 = extractResponseBody(resp3);
+        HttpRequestResponse resp3 = sendHttpRequest(ticket, req3, 2);
+        CharSequence body3 = extractResponseText(resp3);
         
-        List<Double> sim3 = MyCompare.averageLevenshtein(sourceBody, body3, "", "['+]", htmlFlag);
-        double maxSim3 = Collections.max(sim3);
+        SimilarityCascade.Verdict maxSim3 = baselineSimilarity(ticket, body3, PayloadEcho.NONE, ECHO_PLUS);
         
-        if (maxSim3 > config.getSimilarityThreshold()) {
+        if (maxSim3.similarity() > config.getSimilarityThreshold()) {
             // 成功：'+' 连接与原始相同 → 确认 SQL 注入
             pocEntries.add(PocLogEntry.fromResponse(
-                paramName, "'+'", MyCompare.formatPercent(maxSim3),
+                paramName, "'+'", MyCompare.formatSimilarity(maxSim3),
                 VULN_TYPE, resp3, requestHash
             ));
             getAttackList(requestHash).addAll(pocEntries);
@@ -141,16 +144,15 @@ public class StringInjection extends AbstractInjectionStrategy {
         
         // 步骤 4: '||' 测试 - 备选连接（Oracle/PostgreSQL）
         HttpRequest req4 = modifier.modifyParameter(sourceRequest, param, "'||'", 0);
-        HttpRequestResponse resp4 = sendHttpRequest(req4, 2);
-        String body4 = extractResponseBody(resp4);
+        HttpRequestResponse resp4 = sendHttpRequest(ticket, req4, 2);
+        CharSequence body4 = extractResponseText(resp4);
         
-        List<Double> sim4 = MyCompare.averageLevenshtein(sourceBody, body4, "", "['|]", htmlFlag);
-        double maxSim4 = Collections.max(sim4);
+        SimilarityCascade.Verdict maxSim4 = baselineSimilarity(ticket, body4, PayloadEcho.NONE, ECHO_PIPE);
         
-        if (maxSim4 > config.getSimilarityThreshold()) {
+        if (maxSim4.similarity() > config.getSimilarityThreshold()) {
             // 成功：'||' 连接与原始相同 → 确认 SQL 注入
             pocEntries.add(PocLogEntry.fromResponse(
-                paramName, "'||'", MyCompare.formatPercent(maxSim4),
+                paramName, "'||'", MyCompare.formatSimilarity(maxSim4),
                 VULN_TYPE, resp4, requestHash
             ));
             getAttackList(requestHash).addAll(pocEntries);
@@ -4,6 +4,7 @@ import DetSql.config.ConfigManager;
 import DetSql.config.DefaultConfig;
 import DetSql.config.DetSqlConfig;
 import DetSql.config.DetSqlYamlConfig;
+import DetSql.config.FindingPolicy;
 import DetSql.config.SqlmapConfig;
 import DetSql.logging.DetSqlLogger;
 import DetSql.logging.LogLevel;
@@ -37,8 +38,14 @@ public class ConfigPanel extends JPanel {
     public JTextField staticTimeTextField;
     public JTextField startTimeTextField;
     public JTextField endTimeTextField;
+    public JTextField globalRateTextField;
+    public JTextField rateBurstTextField;
+    public JComboBox<FindingPolicy> findingPolicyComboBox;
     public JTextField sqlmapCommandLineTextField;  // 统一的SQLMap命令行文本框
     public JButton sqlmapMoreButton;  // "更多"按钮
+    private JLabel globalRateLabel;
+    private JLabel rateBurstLabel;
+    private JLabel findingPolicyLabel;
 
     // SQLMap配置弹窗中的临时值
     private String pythonName = "python";
@@ -365,12 +372,21 @@ public class ConfigPanel extends JPanel {
         // 创建时间设置文本框
         timeTextField = new JTextField(TEXTAREA_ROWS_MEDIUM);
         staticTimeTextField = new JTextField(TEXTAREA_ROWS_MEDIUM);
-        staticTimeTextField.setText("100");
+        staticTimeTextField.setText(String.valueOf(DefaultConfig.DEFAULT_STATIC_TIME_MS));
         startTimeTextField = new JTextField(TEXTAREA_ROWS_MEDIUM);
         startTimeTextField.setText("0");
         JLabel endTimeLabel = new JLabel("-");
         endTimeTextField = new JTextField(TEXTAREA_ROWS_MEDIUM);
         endTimeTextField.setText("0");
+        globalRateLabel = new JLabel();
+        globalRateTextField = new JTextField(TEXTAREA_ROWS_MEDIUM);
+        globalRateTextField.setText(String.valueOf(DefaultConfig.DEFAULT_GLOBAL_REQUESTS_PER_SECOND));
+        rateBurstLabel = new JLabel();
+        rateBurstTextField = new JTextField(TEXTAREA_ROWS_MEDIUM);
+        rateBurstTextField.setText(String.valueOf(DefaultConfig.DEFAULT_RATE_BURST));
+        findingPolicyLabel = new JLabel();
+        findingPolicyComboBox = new JComboBox<>(FindingPolicy.values());
+        findingPolicyComboBox.setSelectedItem(config.getFindingPolicy());
 
         // 布局左列（DIY payloads）
         container.add(diyLabel);
@@ -427,6 +443,32 @@ public class ConfigPanel extends JPanel {
         layout.putConstraint(SpringLayout.WEST, endTimeTextField, st, SpringLayout.EAST, endTimeLabel);
         layout.putConstraint(SpringLayout.NORTH, endTimeTextField, 0, SpringLayout.NORTH, startTimeLabel);
 
+        // 发送速率
+        container.add(globalRateLabel);
+        layout.putConstraint(SpringLayout.WEST, globalRateLabel, 0, SpringLayout.WEST, resRegexLabel);
+        layout.putConstraint(SpringLayout.NORTH, globalRateLabel, st, SpringLayout.SOUTH, startTimeLabel);
+
+        container.add(globalRateTextField);
+        layout.putConstraint(SpringLayout.WEST, globalRateTextField, 0, SpringLayout.WEST, regexScrollPane);
+        layout.putConstraint(SpringLayout.NORTH, globalRateTextField, 0, SpringLayout.NORTH, globalRateLabel);
+
+        container.add(rateBurstLabel);
+        layout.putConstraint(SpringLayout.WEST, rateBurstLabel, 0, SpringLayout.WEST, resRegexLabel);
+        layout.putConstraint(SpringLayout.NORTH, rateBurstLabel, st, SpringLayout.SOUTH, globalRateLabel);
+
+        container.add(rateBurstTextField);
+        layout.putConstraint(SpringLayout.WEST, rateBurstTextField, 0, SpringLayout.WEST, regexScrollPane);
+        layout.putConstraint(SpringLayout.NORTH, rateBurstTextField, 0, SpringLayout.NORTH, rateBurstLabel);
+
+        // 发现漏洞后的提前结束策略
+        container.add(findingPolicyLabel);
+        layout.putConstraint(SpringLayout.WEST, findingPolicyLabel, 0, SpringLayout.WEST, resRegexLabel);
+        layout.putConstraint(SpringLayout.NORTH, findingPolicyLabel, st, SpringLayout.SOUTH, rateBurstLabel);
+
+        container.add(findingPolicyComboBox);
+        layout.putConstraint(SpringLayout.WEST, findingPolicyComboBox, 0, SpringLayout.WEST, regexScrollPane);
+        layout.putConstraint(SpringLayout.NORTH, findingPolicyComboBox, 0, SpringLayout.NORTH, findingPolicyLabel);
+
         return diyScrollPane;
     }
 
@@ -629,6 +671,9 @@ public class ConfigPanel extends JPanel {
         timeLabel.setText(messages.getString("ResponsetoDelaytimeing"));
         staticTimeLabel.setText(messages.getString("Fixedintervalbetweenrequestsing"));
         startTimeLabel.setText(messages.getString("Requestsintervalrangeing"));
+        globalRateLabel.setText(messages.getString("Globalrequestsperseconding"));
+        rateBurstLabel.setText(messages.getString("Ratebursting"));
+        findingPolicyLabel.setText(messages.getString("Findingpolicying"));
         blackPathLabel.setText(messages.getString("Pathblacklisting"));
         conBt.setText(messages.getString("button.confirm"));
         loadBt.setText(messages.getString("button.load"));
@@ -723,6 +768,10 @@ public class ConfigPanel extends JPanel {
                 parseIntWithDefault(staticTimeTextField.getText(), DefaultConfig.DEFAULT_STATIC_TIME_MS));
         config.setStartTimeMs(parseIntWithDefault(startTimeTextField.getText(), DefaultConfig.DEFAULT_START_TIME_MS));
         config.setEndTimeMs(parseIntWithDefault(endTimeTextField.getText(), DefaultConfig.DEFAULT_END_TIME_MS));
+        config.setGlobalRequestsPerSecond(parseIntWithDefault(globalRateTextField.getText(),
+                DefaultConfig.DEFAULT_GLOBAL_REQUESTS_PER_SECOND));
+        config.setRateBurst(parseIntWithDefault(rateBurstTextField.getText(), DefaultConfig.DEFAULT_RATE_BURST));
+        config.setFindingPolicy((FindingPolicy) findingPolicyComboBox.getSelectedItem());
 
         String blackPathStr = blackPathTextArea.getText();
         if (!blackPathStr.isBlank()) {
@@ -1077,11 +1126,20 @@ public class ConfigPanel extends JPanel {
             if (timeTextField != null)
                 timeTextField.setText(prop.getProperty("delaytime", ""));
             if (staticTimeTextField != null)
-                staticTimeTextField.setText(prop.getProperty("statictime", "100"));
+                staticTimeTextField.setText(prop.getProperty("statictime",
+                        String.valueOf(DefaultConfig.DEFAULT_STATIC_TIME_MS)));
             if (startTimeTextField != null)
                 startTimeTextField.setText(prop.getProperty("starttime", "0"));
             if (endTimeTextField != null)
                 endTimeTextField.setText(prop.getProperty("endtime", "0"));
+            if (globalRateTextField != null)
+                globalRateTextField.setText(prop.getProperty("globalRequestsPerSecond",
+                        String.valueOf(DefaultConfig.DEFAULT_GLOBAL_REQUESTS_PER_SECOND)));
+            if (rateBurstTextField != null)
+                rateBurstTextField.setText(prop.getProperty("rateBurst",
+                        String.valueOf(DefaultConfig.DEFAULT_RATE_BURST)));
+            if (findingPolicyComboBox != null)
+                findingPolicyComboBox.setSelectedItem(FindingPolicy.parse(prop.getProperty("findingPolicy")));
             if (diyTextArea != null)
                 diyTextArea.setText(prop.getProperty("diypayloads", ""));
             if (regexTextArea != null)
@@ -1098,6 +1156,10 @@ public class ConfigPanel extends JPanel {
         config.setStartTimeMs(
                 parseIntWithDefault(prop.getProperty("starttime", ""), DefaultConfig.DEFAULT_START_TIME_MS));
         config.setEndTimeMs(parseIntWithDefault(prop.getProperty("endtime", ""), DefaultConfig.DEFAULT_END_TIME_MS));
+        config.setGlobalRequestsPerSecond(parseIntWithDefault(prop.getProperty("globalRequestsPerSecond", ""),
+                DefaultConfig.DEFAULT_GLOBAL_REQUESTS_PER_SECOND));
+        config.setRateBurst(parseIntWithDefault(prop.getProperty("rateBurst", ""), DefaultConfig.DEFAULT_RATE_BURST));
+        config.setFindingPolicy(FindingPolicy.parse(prop.getProperty("findingPolicy")));
 
         // 应用复选框配置
         javax.swing.SwingUtilities.invokeLater(() -> {
@@ -29,6 +29,7 @@ import static burp.api.montoya.ui.editor.EditorOptions.READ_ONLY;
 import DetSql.config.DefaultConfig;
 import DetSql.config.DetSqlConfig;
 import DetSql.config.DetSqlYamlConfig;
+import DetSql.config.FindingPolicy;
 import DetSql.config.SqlmapConfig;
 import DetSql.core.MyHttpHandler;
 import DetSql.logging.DetSqlLogger;
@@ -36,6 +37,7 @@ import DetSql.model.PocLogEntry;
 import DetSql.model.PocTableModel;
 import DetSql.model.SourceLogEntry;
 import DetSql.model.SourceTableModel;
+import DetSql.util.HostConcurrencyLimiter;
 import DetSql.util.SqlmapScanHelper;
 import DetSql.util.Statistics;
 
@@ -62,6 +64,8 @@ public class DetSqlUI implements LanguageChangeListener {
     private JTable table2;
     private JLabel statsTestedLabel;
     private JLabel statsVulnLabel;
+    private JLabel statsInFlightLabel;
+    private JLabel statsPocLabel;
     private javax.swing.Timer statsTimer;
 
     // 子面板（公开访问以支持测试）
@@ -194,6 +198,22 @@ public class DetSqlUI implements LanguageChangeListener {
         yamlConfig.setStatictime((int) config.getStaticTimeMs());
         yamlConfig.setStarttime((int) config.getStartTimeMs());
         yamlConfig.setEndtime((int) config.getEndTimeMs());
+        yamlConfig.setInitialConcurrencyPerHost(config.getInitialConcurrencyPerHost());
+        yamlConfig.setMaxConcurrencyPerHost(config.getMaxConcurrencyPerHost());
+        yamlConfig.setVirtualThreadsEnabled(config.isVirtualThreadsEnabled());
+        yamlConfig.setVirtualScanConcurrency(config.getVirtualScanConcurrency());
+        yamlConfig.setUnitParallelism(config.getUnitParallelism());
+        yamlConfig.setManualPriorityWeight(config.getManualPriorityWeight());
+        yamlConfig.setFreshParamWeight(config.getFreshParamWeight());
+        yamlConfig.setHotParamWeight(config.getHotParamWeight());
+        yamlConfig.setHotParamNames(new ArrayList<>(config.getHotParamNames()));
+        yamlConfig.setScanJournalEnabled(config.isScanJournalEnabled());
+        yamlConfig.setGlobalRequestsPerSecond(config.getGlobalRequestsPerSecond());
+        yamlConfig.setRateBurst(config.getRateBurst());
+        yamlConfig.setFindingPolicy(config.getFindingPolicy().name());
+        yamlConfig.setBaselineProbeCount(config.getBaselineProbeCount());
+        yamlConfig.setHtmlStructureCompare(config.isHtmlStructureCompare());
+        yamlConfig.setJsonStructureCompare(config.isJsonStructureCompare());
 
         // 检测开关配置
         yamlConfig.setSwitchEnabled(isSwitchCheckSelected());
@@ -470,8 +490,12 @@ public class DetSqlUI implements LanguageChangeListener {
         JPanel statsRow = new JPanel(new FlowLayout(FlowLayout.RIGHT, 12, 0));
         statsTestedLabel = new JLabel(Messages.getString("label.tested") + ": 0");
         statsVulnLabel = new JLabel(Messages.getString("label.vulns") + ": 0");
+        statsInFlightLabel = new JLabel(Messages.getString("label.in_flight") + ": 0");
+        statsPocLabel = new JLabel(Messages.getString("label.poc_cache") + ": 0/0");
         statsRow.add(statsTestedLabel);
         statsRow.add(statsVulnLabel);
+        statsRow.add(statsInFlightLabel);
+        statsRow.add(statsPocLabel);
 
         topBar.add(leftPanel, BorderLayout.WEST);
         topBar.add(tabbedPane1, BorderLayout.CENTER);
@@ -966,9 +990,29 @@ public class DetSqlUI implements LanguageChangeListener {
             int vulns = (statistics != null) ? statistics.getVulnerabilitiesFound() : 0;
             final int fTested = tested;
             final int fVulns = vulns;
+            List<HostConcurrencyLimiter.HostSnapshot> hosts = (myHttpHandler != null)
+                    ? myHttpHandler.getHostConcurrencySnapshot() : List.of();
+            int inFlight = 0;
+            StringBuilder hostTip = new StringBuilder("<html>");
+            for (HostConcurrencyLimiter.HostSnapshot host : hosts) {
+                inFlight += host.inFlight();
+                hostTip.append(host.host()).append(": ").append(host.inFlight()).append('/').append(host.limit())
+                        .append(", ").append(host.avgLatencyMs()).append(" ms<br>");
+            }
+            final int fInFlight = inFlight;
+            final String fHostTip = hosts.isEmpty() ? null : hostTip.append("</html>").toString();
+            // PoC 缓存命中/发送数,悬停显示提前结束、相似度各阶段、排队等待等完整统计
+            final String fPoc = (statistics != null)
+                    ? statistics.getPocCacheHits() + "/" + statistics.getPocRequestsSent() : "0/0";
+            final String fSummaryTip = (statistics != null)
+                    ? "<html><pre>" + statistics.getSummary() + "</pre></html>" : null;
             SwingUtilities.invokeLater(() -> {
                 statsTestedLabel.setText(Messages.getString("label.tested") + ": " + fTested);
                 statsVulnLabel.setText(Messages.getString("label.vulns") + ": " + fVulns);
+                statsInFlightLabel.setText(Messages.getString("label.in_flight") + ": " + fInFlight);
+                statsInFlightLabel.setToolTipText(fHostTip);
+                statsPocLabel.setText(Messages.getString("label.poc_cache") + ": " + fPoc);
+                statsPocLabel.setToolTipText(fSummaryTip);
             });
         } catch (Exception ignore) {
         }
@@ -1042,6 +1086,12 @@ public class DetSqlUI implements LanguageChangeListener {
                 configPanel.startTimeTextField.setText(String.valueOf(yamlConfig.getStarttime()));
             if (configPanel.endTimeTextField != null)
                 configPanel.endTimeTextField.setText(String.valueOf(yamlConfig.getEndtime()));
+            if (configPanel.globalRateTextField != null)
+                configPanel.globalRateTextField.setText(String.valueOf(yamlConfig.getGlobalRequestsPerSecond()));
+            if (configPanel.rateBurstTextField != null)
+                configPanel.rateBurstTextField.setText(String.valueOf(yamlConfig.getRateBurst()));
+            if (configPanel.findingPolicyComboBox != null)
+                configPanel.findingPolicyComboBox.setSelectedItem(FindingPolicy.parse(yamlConfig.getFindingPolicy()));
             if (configPanel.diyTextArea != null)
                 configPanel.diyTextArea.setText(yamlConfig.getDiypayloads());
             if (configPanel.regexTextArea != null)
@@ -1125,6 +1175,26 @@ public class DetSqlUI implements LanguageChangeListener {
         config.setStaticTimeMs(yamlConfig.getStatictime());
         config.setStartTimeMs(yamlConfig.getStarttime());
         config.setEndTimeMs(yamlConfig.getEndtime());
+        config.setInitialConcurrencyPerHost(yamlConfig.getInitialConcurrencyPerHost());
+        config.setMaxConcurrencyPerHost(yamlConfig.getMaxConcurrencyPerHost());
+        config.setVirtualThreadsEnabled(yamlConfig.isVirtualThreadsEnabled());
+        config.setVirtualScanConcurrency(yamlConfig.getVirtualScanConcurrency());
+        config.setUnitParallelism(yamlConfig.getUnitParallelism());
+        config.setManualPriorityWeight(yamlConfig.getManualPriorityWeight());
+        config.setFreshParamWeight(yamlConfig.getFreshParamWeight());
+        config.setHotParamWeight(yamlConfig.getHotParamWeight());
+        if (yamlConfig.getHotParamNames() == null || yamlConfig.getHotParamNames().isEmpty()) {
+            config.setHotParamNames(new HashSet<>(DefaultConfig.DEFAULT_HOT_PARAM_SET));
+        } else {
+            config.setHotParamNames(new HashSet<>(yamlConfig.getHotParamNames()));
+        }
+        config.setScanJournalEnabled(yamlConfig.isScanJournalEnabled());
+        config.setGlobalRequestsPerSecond(yamlConfig.getGlobalRequestsPerSecond());
+        config.setRateBurst(yamlConfig.getRateBurst());
+        config.setFindingPolicy(FindingPolicy.parse(yamlConfig.getFindingPolicy()));
+        config.setBaselineProbeCount(yamlConfig.getBaselineProbeCount());
+        config.setHtmlStructureCompare(yamlConfig.isHtmlStructureCompare());
+        config.setJsonStructureCompare(yamlConfig.isJsonStructureCompare());
 
         // 输出配置加载诊断日志
         logConfigurationStatus();
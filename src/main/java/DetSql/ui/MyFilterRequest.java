@@ -9,6 +9,7 @@ import burp.api.montoya.http.handler.HttpResponseReceived;
 import burp.api.montoya.http.message.HttpRequestResponse;
 import burp.api.montoya.http.message.params.HttpParameterType;
 import burp.api.montoya.http.message.params.ParsedHttpParameter;
+import burp.api.montoya.http.message.requests.HttpRequest;
 
 import java.util.ArrayList;
 import java.util.Arrays;
@@ -359,25 +360,22 @@ public class MyFilterRequest {
     }
 
     public static String getUnique(HttpResponseReceived httpResponseReceived) {
+        return getUnique(httpResponseReceived.initiatingRequest());
+    }
+
+    public static String getUnique(HttpRequest request) {
         return getUniqueInternal(
-                httpResponseReceived.initiatingRequest().method(),
-                httpResponseReceived.initiatingRequest().httpService().toString(),
-                httpResponseReceived.initiatingRequest().pathWithoutQuery(),
-                httpResponseReceived.initiatingRequest().parameters(HttpParameterType.URL),
-                httpResponseReceived.initiatingRequest().parameters(HttpParameterType.BODY),
-                httpResponseReceived.initiatingRequest().parameters(HttpParameterType.JSON),
-                httpResponseReceived.initiatingRequest().parameters(HttpParameterType.XML));
+                request.method(),
+                request.httpService().toString(),
+                request.pathWithoutQuery(),
+                request.parameters(HttpParameterType.URL),
+                request.parameters(HttpParameterType.BODY),
+                request.parameters(HttpParameterType.JSON),
+                request.parameters(HttpParameterType.XML));
     }
 
     public static String getUnique(HttpRequestResponse selectHttpRequestRespons) {
-        return getUniqueInternal(
-                selectHttpRequestRespons.request().method(),
-                selectHttpRequestRespons.request().httpService().toString(),
-                selectHttpRequestRespons.request().pathWithoutQuery(),
-                selectHttpRequestRespons.request().parameters(HttpParameterType.URL),
-                selectHttpRequestRespons.request().parameters(HttpParameterType.BODY),
-                selectHttpRequestRespons.request().parameters(HttpParameterType.JSON),
-                selectHttpRequestRespons.request().parameters(HttpParameterType.XML));
+        return getUnique(selectHttpRequestRespons.request());
     }
 
     // **************************
@@ -0,0 +1,229 @@
+/*
+ * @saoshao<1224165231@qq.com>
+ */
+package DetSql.util;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 大响应的分块对齐编辑距离
+ *
+ * <p>PoC 响应通常只在一两处与基线不同。先把文本切成块 (换行处,或块足够长后的 '>' 处,
+ * 插入删除之后切分点会重新同步),按块哈希用 patience diff 对齐两个块序列,
+ * 只在未对齐的区域内逐字符计算编辑距离。
+ *
+ * <p>对齐结果本身就是一种编辑方案,因此得到的是真实编辑距离的上界;
+ * 变化集中在少数区域时两者相同,代价与变化区域的大小成正比而不是与整个响应成正比。
+ */
+public final class BlockDiff {
+
+    // 块的最短长度 (之后遇到 '>' 才切分) 和最长长度 (没有切分字符时强制切分)
+    static final int MIN_BLOCK = 64;
+    static final int MAX_BLOCK = 1024;
+    // 递归对齐的最大深度,超过后剩余部分整体视为变化区域
+    private static final int MAX_DEPTH = 32;
+
+    private BlockDiff() {
+    }
+
+    /**
+     * 计算分块对齐后的编辑距离
+     * @param left 文本1
+     * @param right 文本2
+     * @param max 距离上界,小于 0 表示不限制
+     * @return 对齐后的编辑距离 (不小于真实距离);超过上界时返回 -1
+     */
+    public static int distance(CharSequence left, CharSequence right, int max) {
+        int limit = max < 0 ? Integer.MAX_VALUE : max;
+
+        int start = ByteText.commonPrefix(left, right);
+        int suffix = ByteText.commonSuffix(left, right, Math.min(left.length(), right.length()) - start);
+        int leftEnd = left.length() - suffix;
+        int rightEnd = right.length() - suffix;
+        if (Math.abs((leftEnd - start) - (rightEnd - start)) > limit) {
+            return -1;
+        }
+
+        Blocks a = Blocks.cut(left, start, leftEnd);
+        Blocks b = Blocks.cut(right, start, rightEnd);
+        List<int[]> changed = new ArrayList<>();
+        align(a, 0, a.count(), b, 0, b.count(), 0, changed);
+
+        int total = 0;
+        for (int[] region : changed) {
+            int aFrom = a.start(region[0]);
+            int aTo = a.start(region[1]);
+            int bFrom = b.start(region[2]);
+            int bTo = b.start(region[3]);
+            int d = BoundedLevenshtein.distance(left.subSequence(aFrom, aTo), right.subSequence(bFrom, bTo),
+                    limit == Integer.MAX_VALUE ? -1 : limit - total);
+            if (d < 0) {
+                return -1;
+            }
+            total += d;
+        }
+        return total;
+    }
+
+    /**
+     * 对齐 a[aLo, aHi) 与 b[bLo, bHi),未对齐的块区间 {aLo, aHi, bLo, bHi} 追加到 changed
+     */
+    private static void align(Blocks a, int aLo, int aHi, Blocks b, int bLo, int bHi, int depth,
+                              List<int[]> changed) {
+        while (aLo < aHi && bLo < bHi && a.sameBlock(aLo, b, bLo)) {
+            aLo++;
+            bLo++;
+        }
+        while (aHi > aLo && bHi > bLo && a.sameBlock(aHi - 1, b, bHi - 1)) {
+            aHi--;
+            bHi--;
+        }
+        if (aLo == aHi && bLo == bHi) {
+            return;
+        }
+        int[][] anchors = aLo == aHi || bLo == bHi || depth >= MAX_DEPTH
+                ? new int[0][]
+                : uniqueAnchors(a, aLo, aHi, b, bLo, bHi);
+        if (anchors.length == 0) {
+            changed.add(new int[]{aLo, aHi, bLo, bHi});
+            return;
+        }
+        int aPrev = aLo;
+        int bPrev = bLo;
+        for (int[] anchor : anchors) {
+            align(a, aPrev, anchor[0], b, bPrev, anchor[1], depth + 1, changed);
+            aPrev = anchor[0] + 1;
+            bPrev = anchor[1] + 1;
+        }
+        align(a, aPrev, aHi, b, bPrev, bHi, depth + 1, changed);
+    }
+
+    /**
+     * 两侧都只出现一次的相同块,取 b 中位置递增的最长子序列作为锚点 (patience diff)
+     */
+    private static int[][] uniqueAnchors(Blocks a, int aLo, int aHi, Blocks b, int bLo, int bHi) {
+        // 哈希 -> {a 中次数, b 中次数, a 中位置, b 中位置}
+        Map<Long, int[]> occurrences = new HashMap<>();
+        for (int i = aLo; i < aHi; i++) {
+            int[] o = occurrences.computeIfAbsent(a.hash(i), k -> new int[4]);
+            o[0]++;
+            o[2] = i;
+        }
+        for (int j = bLo; j < bHi; j++) {
+            int[] o = occurrences.get(b.hash(j));
+            if (o != null) {
+                o[1]++;
+                o[3] = j;
+            }
+        }
+        List<int[]> candidates = new ArrayList<>();
+        for (int i = aLo; i < aHi; i++) {
+            int[] o = occurrences.get(a.hash(i));
+            if (o[0] == 1 && o[1] == 1 && a.sameBlock(i, b, o[3])) {
+                candidates.add(new int[]{i, o[3]});
+            }
+        }
+        if (candidates.isEmpty()) {
+            return new int[0][];
+        }
+
+        // 耐心排序求 b 位置的最长递增子序列
+        int n = candidates.size();
+        int[] tails = new int[n];
+        int[] previous = new int[n];
+        int length = 0;
+        for (int k = 0; k < n; k++) {
+            int bPos = candidates.get(k)[1];
+            int lo = 0;
+            int hi = length;
+            while (lo < hi) {
+                int mid = (lo + hi) >>> 1;
+                if (candidates.get(tails[mid])[1] < bPos) {
+                    lo = mid + 1;
+                } else {
+                    hi = mid;
+                }
+            }
+            previous[k] = lo > 0 ? tails[lo - 1] : -1;
+            tails[lo] = k;
+            if (lo == length) {
+                length++;
+            }
+        }
+        int[][] anchors = new int[length][];
+        for (int k = tails[length - 1], i = length - 1; k >= 0; k = previous[k], i--) {
+            anchors[i] = candidates.get(k);
+        }
+        return anchors;
+    }
+
+    /**
+     * 文本的一段切成的块,块 i 为 [starts[i], starts[i + 1])
+     */
+    private static final class Blocks {
+        private final CharSequence text;
+        private final int[] starts;
+        private final long[] hashes;
+        private final int count;
+
+        private Blocks(CharSequence text, int[] starts, long[] hashes, int count) {
+            this.text = text;
+            this.starts = starts;
+            this.hashes = hashes;
+            this.count = count;
+        }
+
+        static Blocks cut(CharSequence text, int from, int to) {
+            int[] starts = new int[Math.max(2, (to - from) / MIN_BLOCK + 2)];
+            long[] hashes = new long[starts.length];
+            int count = 0;
+            int blockStart = from;
+            long h = 0xcbf29ce484222325L;
+            for (int i = from; i < to; i++) {
+                char c = text.charAt(i);
+                h ^= c;
+                h *= 0x100000001b3L;
+                int length = i + 1 - blockStart;
+                if (c == '\n' || (c == '>' && length >= MIN_BLOCK) || length >= MAX_BLOCK || i + 1 == to) {
+                    if (count + 1 >= starts.length) {
+                        starts = Arrays.copyOf(starts, starts.length * 2);
+                        hashes = Arrays.copyOf(hashes, hashes.length * 2);
+                    }
+                    starts[count] = blockStart;
+                    hashes[count] = h;
+                    count++;
+                    blockStart = i + 1;
+                    h = 0xcbf29ce484222325L;
+                }
+            }
+            starts[count] = to;
+            return new Blocks(text, starts, hashes, count);
+        }
+
+        int count() {
+            return count;
+        }
+
+        /**
+         * 块 i 的起始位置,i == count 时为末尾
+         */
+        int start(int i) {
+            return starts[i];
+        }
+
+        long hash(int i) {
+            return hashes[i];
+        }
+
+        boolean sameBlock(int i, Blocks other, int j) {
+            int length = starts[i + 1] - starts[i];
+            return hashes[i] == other.hashes[j]
+                    && length == other.starts[j + 1] - other.starts[j]
+                    && ByteText.regionMatches(text, starts[i], other.text, other.starts[j], length);
+        }
+    }
+}
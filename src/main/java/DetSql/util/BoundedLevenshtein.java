@@ -0,0 +1,258 @@
+/*
+ * @saoshao<1224165231@qq.com>
+ */
+package DetSql.util;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+
+/**
+ * 带上界的 Levenshtein 编辑距离(Myers/Hyyrö 位并行算法,按 64 位分块)
+ *
+ * <p>较短的字符串作为模式串编码到位向量中,逐列扫描较长的字符串,每列只需
+ * O(m/64) 次字运算;同时维护最后一行的距离值,一旦剩余列数不足以把距离拉回
+ * 上界以内就提前返回 -1。
+ *
+ * <p>工作数组放在一个小池子里复用:扫描单元可能跑在用完即弃的虚拟线程上,
+ * ThreadLocal 在那里起不到复用作用。
+ */
+public final class BoundedLevenshtein {
+
+    private static final ArrayBlockingQueue<Buffers> POOL = new ArrayBlockingQueue<>(16);
+    // 超过此大小(约 8MB)的位图用完不归还,避免池子长期占住大数组
+    private static final int MAX_POOLED_WORDS = 1 << 20;
+
+    private BoundedLevenshtein() {
+    }
+
+    /**
+     * 计算编辑距离,与 commons-text LevenshteinDistance 结果一致
+     * @param left 字符串1
+     * @param right 字符串2
+     * @param max 距离上界,小于 0 表示不限制
+     * @return 编辑距离;超过上界时返回 -1
+     */
+    public static int distance(CharSequence left, CharSequence right, int max) {
+        if (left == null || right == null) {
+            throw new IllegalArgumentException("Strings must not be null");
+        }
+        int limit = max < 0 ? Integer.MAX_VALUE : max;
+
+        // 公共前后缀不影响编辑距离,先剥离
+        int start = ByteText.commonPrefix(left, right);
+        int suffix = ByteText.commonSuffix(left, right, Math.min(left.length(), right.length()) - start);
+        int leftEnd = left.length() - suffix;
+        int rightEnd = right.length() - suffix;
+
+        CharSequence pattern = left;
+        CharSequence text = right;
+        int m = leftEnd - start;
+        int n = rightEnd - start;
+        if (m > n) {
+            pattern = right;
+            text = left;
+            int t = m;
+            m = n;
+            n = t;
+        }
+        // 长度差是距离的下界
+        if (n - m > limit) {
+            return -1;
+        }
+        if (m == 0) {
+            return n;
+        }
+        Buffers buf = POOL.poll();
+        if (buf == null) {
+            buf = new Buffers();
+        }
+        try {
+            return myers(pattern, start, m, text, start, n, limit, buf);
+        } finally {
+            if (buf.peq.length <= MAX_POOLED_WORDS) {
+                POOL.offer(buf);
+            }
+        }
+    }
+
+    /**
+     * 计算两个符号序列 (如 HTML token 的哈希) 之间的编辑距离
+     * @param left 序列1
+     * @param right 序列2
+     * @param max 距离上界,小于 0 表示不限制
+     * @return 编辑距离;超过上界时返回 -1
+     */
+    public static int distance(int[] left, int[] right, int max) {
+        if (left == null || right == null) {
+            throw new IllegalArgumentException("Sequences must not be null");
+        }
+        int limit = max < 0 ? Integer.MAX_VALUE : max;
+
+        int start = Arrays.mismatch(left, right);
+        if (start < 0) {
+            return 0;
+        }
+        int leftEnd = left.length;
+        int rightEnd = right.length;
+        while (leftEnd > start && rightEnd > start && left[leftEnd - 1] == right[rightEnd - 1]) {
+            leftEnd--;
+            rightEnd--;
+        }
+
+        int[] pattern = left;
+        int[] text = right;
+        int m = leftEnd - start;
+        int n = rightEnd - start;
+        if (m > n) {
+            pattern = right;
+            text = left;
+            int t = m;
+            m = n;
+            n = t;
+        }
+        if (n - m > limit) {
+            return -1;
+        }
+        if (m == 0) {
+            return n;
+        }
+
+        // 符号取值范围不定,槽位用哈希表分配
+        Map<Integer, Integer> slotOf = new HashMap<>();
+        for (int i = 0; i < m; i++) {
+            slotOf.putIfAbsent(pattern[start + i], slotOf.size());
+        }
+        int blocks = (m + 63) >>> 6;
+        long lastBit = 1L << ((m - 1) & 63);
+        Buffers buf = POOL.poll();
+        if (buf == null) {
+            buf = new Buffers();
+        }
+        try {
+            buf.reset(blocks, slotOf.size());
+            for (int i = 0; i < m; i++) {
+                buf.peq[slotOf.get(pattern[start + i]) * blocks + (i >>> 6)] |= 1L << (i & 63);
+            }
+            int score = m;
+            for (int j = 0; j < n; j++) {
+                score += advance(slotOf.getOrDefault(text[start + j], -1), blocks, lastBit, buf);
+                if (score - (n - j - 1) > limit) {
+                    return -1;
+                }
+            }
+            return score <= limit ? score : -1;
+        } finally {
+            if (buf.peq.length <= MAX_POOLED_WORDS) {
+                POOL.offer(buf);
+            }
+        }
+    }
+
+    private static int myers(CharSequence pattern, int patternStart, int m,
+                             CharSequence text, int textStart, int n,
+                             int limit, Buffers buf) {
+        int blocks = (m + 63) >>> 6;
+        long lastBit = 1L << ((m - 1) & 63);
+        int[] slotOf = buf.slotOf;
+
+        // 模式串中每个不同字符分配一个槽位,位图按 peq[slot * blocks + block] 存放
+        int slots = 0;
+        for (int i = 0; i < m; i++) {
+            char c = pattern.charAt(patternStart + i);
+            if (slotOf[c] == 0) {
+                slotOf[c] = ++slots;
+            }
+        }
+        int score = m;
+        int result;
+        try {
+            buf.reset(blocks, slots);
+            for (int i = 0; i < m; i++) {
+                int slot = slotOf[pattern.charAt(patternStart + i)] - 1;
+                buf.peq[slot * blocks + (i >>> 6)] |= 1L << (i & 63);
+            }
+
+            for (int j = 0; j < n; j++) {
+                score += advance(slotOf[text.charAt(textStart + j)] - 1, blocks, lastBit, buf);
+                // 每列最多让最终距离减少 1,剩余列数不够时已不可能回到上界内
+                if (score - (n - j - 1) > limit) {
+                    return -1;
+                }
+            }
+            result = score;
+        } finally {
+            for (int i = 0; i < m; i++) {
+                slotOf[pattern.charAt(patternStart + i)] = 0;
+            }
+        }
+        return result <= limit ? result : -1;
+    }
+
+    /**
+     * 处理文本的一列,返回最后一行距离值的变化 (-1/0/+1)
+     * @param slot 该列字符在模式串中的槽位,不在模式串中时为 -1
+     */
+    private static int advance(int slot, int blocks, long lastBit, Buffers buf) {
+        long[] pv = buf.pv;
+        long[] mv = buf.mv;
+        long[] peq = buf.peq;
+        int base = slot * blocks;
+        // 第 0 行 D[0][j] = j,顶部水平差恒为 +1
+        int hin = 1;
+        for (int b = 0; b < blocks; b++) {
+            long eq = slot < 0 ? 0L : peq[base + b];
+            long p = pv[b];
+            long mm = mv[b];
+            long xv = eq | mm;
+            if (hin < 0) {
+                eq |= 1L;
+            }
+            long xh = (((eq & p) + p) ^ p) | eq;
+            long ph = mm | ~(xh | p);
+            long mh = p & xh;
+            long high = b == blocks - 1 ? lastBit : Long.MIN_VALUE;
+            int hout = (ph & high) != 0 ? 1 : ((mh & high) != 0 ? -1 : 0);
+            ph <<= 1;
+            mh <<= 1;
+            if (hin < 0) {
+                mh |= 1L;
+            } else if (hin > 0) {
+                ph |= 1L;
+            }
+            pv[b] = mh | ~(xv | ph);
+            mv[b] = ph & xv;
+            hin = hout;
+        }
+        return hin;
+    }
+
+    /**
+     * 可复用的工作数组,slotOf 在每次计算结束后清零
+     */
+    private static final class Buffers {
+        final int[] slotOf = new int[Character.MAX_VALUE + 1];
+        long[] pv = new long[0];
+        long[] mv = new long[0];
+        long[] peq = new long[0];
+
+        void ensure(int blocks, int slots) {
+            if (pv.length < blocks) {
+                pv = new long[blocks];
+                mv = new long[blocks];
+            }
+            int need = Math.multiplyExact(slots, blocks);
+            if (peq.length < need) {
+                peq = new long[need];
+            }
+        }
+
+        void reset(int blocks, int slots) {
+            ensure(blocks, slots);
+            Arrays.fill(peq, 0, slots * blocks, 0L);
+            Arrays.fill(pv, 0, blocks, -1L);
+            Arrays.fill(mv, 0, blocks, 0L);
+        }
+    }
+}
@@ -0,0 +1,175 @@
+/*
+ * @saoshao<1224165231@qq.com>
+ */
+package DetSql.util;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * 以字节数组为底层的只读文本视图 (每个字节对应一个 0-255 的字符)
+ *
+ * <p>与 Burp ByteArray.toString() 的字节到字符映射相同,但不解码、不复制:
+ * 相似度比较只需要逐字符访问和截取片段,subSequence 返回共享同一数组的视图。
+ * 只有正则匹配或界面展示需要 String 时才调用 toString()。
+ *
+ * <p>两侧都是 ByteText 时,相等、公共前缀/后缀都交给 Arrays.equals/mismatch 按块比较,
+ * 由 JIT 的向量化内建实现完成。
+ */
+public final class ByteText implements CharSequence {
+
+    private static final ByteText EMPTY = new ByteText(new byte[0], 0, 0);
+    // 从尾部比较公共后缀时每次比较的字节数
+    private static final int SUFFIX_CHUNK = 256;
+
+    private final byte[] bytes;
+    private final int offset;
+    private final int length;
+
+    private ByteText(byte[] bytes, int offset, int length) {
+        this.bytes = bytes;
+        this.offset = offset;
+        this.length = length;
+    }
+
+    /**
+     * 包装字节数组,调用方之后不应再修改该数组
+     */
+    public static ByteText of(byte[] bytes) {
+        if (bytes == null || bytes.length == 0) {
+            return EMPTY;
+        }
+        return new ByteText(bytes, 0, bytes.length);
+    }
+
+    /**
+     * 字符全部在 0-255 内时转为 ByteText (与响应字节的映射一致,可以和 PoC 响应按字节比较),
+     * 否则原样返回
+     */
+    public static CharSequence latin1(String text) {
+        if (text == null || text.isEmpty()) {
+            return text;
+        }
+        for (int i = 0; i < text.length(); i++) {
+            if (text.charAt(i) > 0xFF) {
+                return text;
+            }
+        }
+        return of(text.getBytes(StandardCharsets.ISO_8859_1));
+    }
+
+    @Override
+    public int length() {
+        return length;
+    }
+
+    @Override
+    public char charAt(int index) {
+        if (index < 0 || index >= length) {
+            throw new IndexOutOfBoundsException("index " + index + ", length " + length);
+        }
+        return (char) (bytes[offset + index] & 0xFF);
+    }
+
+    @Override
+    public ByteText subSequence(int start, int end) {
+        if (start < 0 || end > length || start > end) {
+            throw new IndexOutOfBoundsException("start " + start + ", end " + end + ", length " + length);
+        }
+        if (start == 0 && end == length) {
+            return this;
+        }
+        return new ByteText(bytes, offset + start, end - start);
+    }
+
+    @Override
+    public String toString() {
+        return new String(bytes, offset, length, StandardCharsets.ISO_8859_1);
+    }
+
+    /**
+     * 两段文本内容是否相同,均为 ByteText 时按字节区间比较
+     */
+    public static boolean contentEquals(CharSequence a, CharSequence b) {
+        if (a.length() != b.length()) {
+            return false;
+        }
+        return regionMatches(a, 0, b, 0, a.length());
+    }
+
+    public static boolean startsWith(CharSequence text, CharSequence prefix) {
+        return prefix.length() <= text.length() && regionMatches(text, 0, prefix, 0, prefix.length());
+    }
+
+    public static boolean endsWith(CharSequence text, CharSequence suffix) {
+        int start = text.length() - suffix.length();
+        return start >= 0 && regionMatches(text, start, suffix, 0, suffix.length());
+    }
+
+    /**
+     * 公共前缀的长度,均为 ByteText 时用 Arrays.mismatch 批量比较
+     */
+    public static int commonPrefix(CharSequence a, CharSequence b) {
+        int max = Math.min(a.length(), b.length());
+        if (a instanceof ByteText x && b instanceof ByteText y) {
+            int i = Arrays.mismatch(x.bytes, x.offset, x.offset + max, y.bytes, y.offset, y.offset + max);
+            return i < 0 ? max : i;
+        }
+        int i = 0;
+        while (i < max && a.charAt(i) == b.charAt(i)) {
+            i++;
+        }
+        return i;
+    }
+
+    /**
+     * 公共后缀的长度,最多 max;均为 ByteText 时按块批量比较,只在不一致的块内逐字节查找
+     */
+    public static int commonSuffix(CharSequence a, CharSequence b, int max) {
+        max = Math.min(max, Math.min(a.length(), b.length()));
+        int n = 0;
+        if (a instanceof ByteText x && b instanceof ByteText y) {
+            int xEnd = x.offset + x.length;
+            int yEnd = y.offset + y.length;
+            while (n < max) {
+                int chunk = Math.min(SUFFIX_CHUNK, max - n);
+                if (Arrays.equals(x.bytes, xEnd - n - chunk, xEnd - n, y.bytes, yEnd - n - chunk, yEnd - n)) {
+                    n += chunk;
+                    continue;
+                }
+                // 这一块内必有不一致,从尾部逐字节找到它
+                while (x.bytes[xEnd - n - 1] == y.bytes[yEnd - n - 1]) {
+                    n++;
+                }
+                return n;
+            }
+            return n;
+        }
+        int aLast = a.length() - 1;
+        int bLast = b.length() - 1;
+        while (n < max && a.charAt(aLast - n) == b.charAt(bLast - n)) {
+            n++;
+        }
+        return n;
+    }
+
+    /**
+     * a[aStart, aStart+len) 与 b[bStart, bStart+len) 是否相同
+     */
+    public static boolean regionMatches(CharSequence a, int aStart, CharSequence b, int bStart, int len) {
+        if (a instanceof ByteText x && b instanceof ByteText y) {
+            int xFrom = x.offset + aStart;
+            int yFrom = y.offset + bStart;
+            return Arrays.equals(x.bytes, xFrom, xFrom + len, y.bytes, yFrom, yFrom + len);
+        }
+        if (a instanceof String x && b instanceof String y) {
+            return x.regionMatches(aStart, y, bStart, len);
+        }
+        for (int i = 0; i < len; i++) {
+            if (a.charAt(aStart + i) != b.charAt(bStart + i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
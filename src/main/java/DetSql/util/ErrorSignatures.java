@@ -0,0 +1,260 @@
+/*
+ * @saoshao<1224165231@qq.com>
+ */
+package DetSql.util;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.regex.Pattern;
+
+/**
+ * 报错注入的错误特征规则集
+ *
+ * <p>每条规则取出匹配时必然出现的最长字面量片段 (如 "sql syntax"、"sqlexception"),
+ * 所有片段构建成一个忽略大小写的 Aho-Corasick 自动机。检查响应时先扫描一遍标记命中的片段,
+ * 只对片段命中的规则 (以及取不出片段的规则) 按原顺序做完整的正则确认,
+ * 报告的仍是第一条匹配的规则,与逐条匹配的结果相同。
+ *
+ * <p>原始页面本身就含有错误特征时 (如讲解 SQL 语法的文档页),对应规则由 matches 在基线上算出,
+ * 检查 PoC 响应时排除,避免每个 payload 都误报。
+ */
+public final class ErrorSignatures {
+
+    // 短于此长度的片段筛选作用不大,规则视为没有片段
+    static final int MIN_LITERAL = 3;
+
+    private final Pattern[] patterns;
+    // 每条规则对应的片段编号,-1 表示没有片段,总要做正则确认
+    private final int[] literalOf;
+    private final LiteralAutomaton automaton;
+    private final int literalCount;
+
+    private ErrorSignatures(Pattern[] patterns, int[] literalOf, List<String> literals) {
+        this.patterns = patterns;
+        this.literalOf = literalOf;
+        this.automaton = new LiteralAutomaton(literals, true);
+        this.literalCount = literals.size();
+    }
+
+    /**
+     * 编译规则集,规则按 Pattern.CASE_INSENSITIVE 编译
+     * @throws java.util.regex.PatternSyntaxException 规则不是合法的正则
+     */
+    public static ErrorSignatures compile(String[] rules) {
+        Pattern[] patterns = new Pattern[rules.length];
+        int[] literalOf = new int[rules.length];
+        List<String> literals = new ArrayList<>();
+        for (int i = 0; i < rules.length; i++) {
+            patterns[i] = Pattern.compile(rules[i], Pattern.CASE_INSENSITIVE);
+            String literal = requiredLiteral(rules[i]);
+            if (literal == null) {
+                literalOf[i] = -1;
+            } else {
+                literalOf[i] = literals.size();
+                literals.add(literal);
+            }
+        }
+        return new ErrorSignatures(patterns, literalOf, literals);
+    }
+
+    /**
+     * 第一条匹配的规则
+     * @param text 响应文本
+     * @return 规则的正则表达式,没有匹配时返回 null
+     */
+    public String firstMatch(CharSequence text) {
+        return firstMatch(text, new BitSet());
+    }
+
+    /**
+     * 排除部分规则后第一条匹配的规则
+     * @param text 响应文本
+     * @param excluded 不参与匹配的规则下标 (如基线响应上已经匹配的规则,见 matches)
+     * @return 规则的正则表达式,没有匹配时返回 null
+     */
+    public String firstMatch(CharSequence text, BitSet excluded) {
+        boolean[] hit = literalHits(text);
+        for (int i = 0; i < patterns.length; i++) {
+            if (excluded.get(i) || (literalOf[i] >= 0 && !hit[literalOf[i]])) {
+                continue;
+            }
+            if (RegexUtils.safeMatchPrecompiled(patterns[i], text)) {
+                return patterns[i].pattern();
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 文本上匹配的全部规则
+     * @return 匹配的规则下标
+     */
+    public BitSet matches(CharSequence text) {
+        boolean[] hit = literalHits(text);
+        BitSet matched = new BitSet(patterns.length);
+        for (int i = 0; i < patterns.length; i++) {
+            if (literalOf[i] >= 0 && !hit[literalOf[i]]) {
+                continue;
+            }
+            if (RegexUtils.safeMatchPrecompiled(patterns[i], text)) {
+                matched.set(i);
+            }
+        }
+        return matched;
+    }
+
+    /**
+     * 扫描一遍文本,标记出现过的字面量片段
+     */
+    private boolean[] literalHits(CharSequence text) {
+        boolean[] hit = new boolean[literalCount];
+        int remaining = literalCount;
+        int state = 0;
+        for (int i = 0, n = text.length(); i < n && remaining > 0; i++) {
+            state = automaton.next(state, text.charAt(i));
+            for (int literal : automaton.outputs(state)) {
+                if (!hit[literal]) {
+                    hit[literal] = true;
+                    remaining--;
+                }
+            }
+        }
+        return hit;
+    }
+
+    /**
+     * 正则匹配时必然出现的最长字面量片段 (ASCII 转小写)
+     *
+     * <p>只分析顶层的串接: 顶层有 '|' 时没有片段;字符类、分组、'.'、锚点和 \s 这类转义会截断片段;
+     * 后跟 '*'、'?' 或 {0,..} 的字符不计入,后跟 '+' 或 {n,..} 的字符计入后截断。
+     * 遇到不便分析的写法 (内联标志、\Q、\x 这类转义) 时保守地返回 null。
+     * @return 片段,没有长度不小于 MIN_LITERAL 的片段时返回 null
+     */
+    static String requiredLiteral(String regex) {
+        String best = "";
+        StringBuilder run = new StringBuilder();
+        int depth = 0;
+        int n = regex.length();
+        int i = 0;
+        while (i < n) {
+            char c = regex.charAt(i);
+            // 当前原子对应的字面量字符,-1 表示不是字面量
+            int literal = -1;
+            if (c == '\\') {
+                if (i + 1 >= n) {
+                    return null;
+                }
+                char e = regex.charAt(i + 1);
+                if (!Character.isLetterOrDigit(e)) {
+                    literal = e;
+                } else if ("sSdDwWbBAzZG".indexOf(e) < 0) {
+                    return null;
+                }
+                i += 2;
+            } else if (c == '[') {
+                i = skipClass(regex, i);
+                if (i < 0) {
+                    return null;
+                }
+            } else if (c == '(') {
+                if (i + 2 < n && regex.charAt(i + 1) == '?'
+                        && (Character.isLetter(regex.charAt(i + 2)) || regex.charAt(i + 2) == '-')) {
+                    return null;
+                }
+                depth++;
+                i++;
+            } else if (c == ')') {
+                depth--;
+                i++;
+            } else if (c == '|') {
+                if (depth == 0) {
+                    return null;
+                }
+                i++;
+            } else {
+                if (".^$".indexOf(c) < 0) {
+                    literal = c;
+                }
+                i++;
+            }
+
+            // 量词
+            boolean optional = false;
+            boolean repeated = false;
+            if (i < n) {
+                char q = regex.charAt(i);
+                if (q == '*' || q == '?') {
+                    optional = true;
+                    i++;
+                } else if (q == '+') {
+                    repeated = true;
+                    i++;
+                } else if (q == '{') {
+                    int close = regex.indexOf('}', i);
+                    if (close < 0) {
+                        return null;
+                    }
+                    optional = i + 1 < close && regex.charAt(i + 1) == '0'
+                            && (i + 2 == close || regex.charAt(i + 2) == ',');
+                    repeated = !optional;
+                    i = close + 1;
+                }
+                // 懒惰或占有型量词的后缀
+                if ((optional || repeated) && i < n && (regex.charAt(i) == '?' || regex.charAt(i) == '+')) {
+                    i++;
+                }
+            }
+
+            if (depth == 0 && literal >= 0 && !optional) {
+                run.append(lower((char) literal));
+            }
+            if (depth != 0 || literal < 0 || optional || repeated) {
+                if (run.length() > best.length()) {
+                    best = run.toString();
+                }
+                run.setLength(0);
+            }
+        }
+        if (run.length() > best.length()) {
+            best = run.toString();
+        }
+        return best.length() >= MIN_LITERAL ? best : null;
+    }
+
+    /**
+     * 跳过从 start 开始的字符类 (含嵌套),返回其后的位置;不完整时返回 -1
+     */
+    private static int skipClass(String regex, int start) {
+        int depth = 0;
+        int i = start;
+        while (i < regex.length()) {
+            char c = regex.charAt(i);
+            if (c == '\\') {
+                i += 2;
+                continue;
+            }
+            if (c == '[') {
+                depth++;
+                i++;
+                // 紧跟 '[' 或 "[^" 的 ']' 是普通字符
+                if (i < regex.length() && regex.charAt(i) == '^') {
+                    i++;
+                }
+                if (i < regex.length() && regex.charAt(i) == ']') {
+                    i++;
+                }
+                continue;
+            }
+            if (c == ']' && --depth == 0) {
+                return i + 1;
+            }
+            i++;
+        }
+        return -1;
+    }
+
+    private static char lower(char c) {
+        return c >= 'A' && c <= 'Z' ? (char) (c + ('a' - 'A')) : c;
+    }
+}
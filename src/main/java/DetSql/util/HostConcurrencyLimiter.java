@@ -0,0 +1,264 @@
+/*
+ * @saoshao<1224165231@qq.com>
+ */
+
+package DetSql.util;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 按目标主机的自适应并发限制器 (AIMD)
+ *
+ * 每个 host 维护一个并发上限:
+ * - 延迟平稳且并发已用满时,上限加性增长 (每轮约 +1)
+ * - 超时、5xx、发送失败或延迟突增时,上限乘性减半 (每个延迟窗口最多一次)
+ *
+ * 快速的内网 API 可以逐步放开并发,脆弱的老系统会被自动压回低并发,
+ * 不再由扫描线程数决定对单个目标的压力。
+ *
+ * 线程安全: 每个 host 独立加锁,不同 host 之间互不阻塞
+ */
+public class HostConcurrencyLimiter {
+
+    /**
+     * 单次请求的结果分类,决定上限如何调整
+     */
+    public enum Outcome {
+        SUCCESS,
+        TIMEOUT,
+        SERVER_ERROR,
+        FAILURE,
+        // 扫描被取消,放弃等待响应: 只归还许可,不调整上限
+        CANCELLED
+    }
+
+    /**
+     * 某个 host 当前状态的快照 (供 UI / 统计展示)
+     */
+    public record HostSnapshot(String host, int limit, int inFlight, long avgLatencyMs) {
+    }
+
+    // 乘性减小系数
+    private static final double BACKOFF_RATIO = 0.5;
+    // 短期延迟超过长期延迟的倍数视为延迟突增
+    private static final double LATENCY_SPIKE_FACTOR = 2.0;
+    // 延迟基线至少需要的样本数,样本不足时不做突增判断
+    private static final int MIN_LATENCY_SAMPLES = 5;
+    // EWMA 平滑系数 (短期反应快,长期作为基线)
+    private static final double SHORT_EWMA_ALPHA = 0.3;
+    private static final double LONG_EWMA_ALPHA = 0.05;
+    // 两次减小之间的最小间隔,避免同一批失败把上限连续砍到底
+    private static final long MIN_DECREASE_INTERVAL_MS = 100;
+
+    private static final int MIN_LIMIT = 1;
+
+    private final ConcurrentHashMap<String, HostState> hosts = new ConcurrentHashMap<>();
+
+    private volatile int initialLimit;
+    private volatile int maxLimit;
+
+    public HostConcurrencyLimiter(int initialLimit, int maxLimit) {
+        this.maxLimit = Math.max(MIN_LIMIT, maxLimit);
+        this.initialLimit = clamp(initialLimit);
+    }
+
+    /**
+     * 获取目标 host 的一个并发许可,超过当前上限时阻塞等待
+     *
+     * @param host 目标主机标识 (HttpService 字符串)
+     * @throws InterruptedException 等待期间线程被中断 (任务取消)
+     */
+    public void acquire(String host) throws InterruptedException {
+        HostState state = stateOf(host);
+        state.lock.lockInterruptibly();
+        try {
+            while (state.inFlight >= (int) state.limit) {
+                state.permitAvailable.await();
+            }
+            state.inFlight++;
+        } finally {
+            state.lock.unlock();
+        }
+    }
+
+    /**
+     * 归还许可并根据请求结果调整上限
+     *
+     * @param host      目标主机标识
+     * @param latencyMs 本次请求耗时 (毫秒)
+     * @param outcome   请求结果
+     */
+    public void release(String host, long latencyMs, Outcome outcome) {
+        HostState state = hosts.get(host);
+        if (state == null) {
+            return;
+        }
+        state.lock.lock();
+        try {
+            // 归还前的并发数: 判断本次请求是否在上限用满时发出
+            boolean saturated = state.inFlight >= (int) state.limit;
+            state.inFlight = Math.max(0, state.inFlight - 1);
+
+            if (outcome == Outcome.SUCCESS) {
+                state.recordLatency(latencyMs);
+                if (state.isLatencySpiking()) {
+                    state.decrease();
+                } else if (saturated) {
+                    // 加性增长: 每个完整窗口 (limit 个成功请求) 约 +1
+                    state.limit = Math.min(maxLimit, state.limit + 1.0 / state.limit);
+                }
+            } else if (outcome != Outcome.CANCELLED) {
+                state.decrease();
+            }
+            state.permitAvailable.signalAll();
+        } finally {
+            state.lock.unlock();
+        }
+    }
+
+    /**
+     * 获取 host 当前并发上限
+     */
+    public int getLimit(String host) {
+        HostState state = hosts.get(host);
+        return state == null ? initialLimit : (int) state.limit;
+    }
+
+    /**
+     * 获取 host 当前在途请求数
+     */
+    public int getInFlight(String host) {
+        HostState state = hosts.get(host);
+        if (state == null) {
+            return 0;
+        }
+        state.lock.lock();
+        try {
+            return state.inFlight;
+        } finally {
+            state.lock.unlock();
+        }
+    }
+
+    /**
+     * 所有已知 host 的状态快照,按 host 排序
+     */
+    public List<HostSnapshot> snapshot() {
+        List<HostSnapshot> result = new ArrayList<>();
+        hosts.forEach((host, state) -> {
+            state.lock.lock();
+            try {
+                result.add(new HostSnapshot(host, (int) state.limit, state.inFlight,
+                        Math.round(state.longLatencyMs)));
+            } finally {
+                state.lock.unlock();
+            }
+        });
+        result.sort(Comparator.comparing(HostSnapshot::host));
+        return result;
+    }
+
+    /**
+     * 修改单 host 并发上限的最大值,已超出的 host 立即收紧
+     */
+    public void setMaxLimit(int maxLimit) {
+        this.maxLimit = Math.max(MIN_LIMIT, maxLimit);
+        this.initialLimit = clamp(initialLimit);
+        hosts.values().forEach(state -> {
+            state.lock.lock();
+            try {
+                state.limit = Math.min(state.limit, this.maxLimit);
+                state.permitAvailable.signalAll();
+            } finally {
+                state.lock.unlock();
+            }
+        });
+    }
+
+    /**
+     * 修改新 host 的初始并发上限 (已有 host 不受影响)
+     */
+    public void setInitialLimit(int initialLimit) {
+        this.initialLimit = clamp(initialLimit);
+    }
+
+    public int getMaxLimit() {
+        return maxLimit;
+    }
+
+    public int getInitialLimit() {
+        return initialLimit;
+    }
+
+    /**
+     * 清空所有 host 状态 (仅用于没有在途请求时,例如插件卸载)
+     */
+    public void reset() {
+        hosts.clear();
+    }
+
+    private int clamp(int value) {
+        return Math.max(MIN_LIMIT, Math.min(maxLimit, value));
+    }
+
+    private HostState stateOf(String host) {
+        return hosts.computeIfAbsent(host, h -> new HostState(initialLimit));
+    }
+
+    /**
+     * 单个 host 的限流状态,所有字段都在 lock 保护下读写
+     */
+    private static final class HostState {
+        private final ReentrantLock lock = new ReentrantLock();
+        private final Condition permitAvailable = lock.newCondition();
+
+        private double limit;
+        private int inFlight;
+        private double shortLatencyMs;
+        private double longLatencyMs;
+        private int samples;
+        private long lastDecreaseNanos;
+        private boolean decreasedBefore;
+
+        private HostState(int initialLimit) {
+            this.limit = initialLimit;
+        }
+
+        private void recordLatency(long latencyMs) {
+            if (samples == 0) {
+                shortLatencyMs = latencyMs;
+                longLatencyMs = latencyMs;
+            } else {
+                shortLatencyMs += SHORT_EWMA_ALPHA * (latencyMs - shortLatencyMs);
+                longLatencyMs += LONG_EWMA_ALPHA * (latencyMs - longLatencyMs);
+            }
+            samples++;
+        }
+
+        private boolean isLatencySpiking() {
+            return samples >= MIN_LATENCY_SAMPLES
+                    && longLatencyMs > 0
+                    && shortLatencyMs > longLatencyMs * LATENCY_SPIKE_FACTOR;
+        }
+
+        private void decrease() {
+            long now = System.nanoTime();
+            // 同一延迟窗口内的多次失败只减一次
+            long windowMs = Math.max(MIN_DECREASE_INTERVAL_MS, (long) longLatencyMs);
+            if (decreasedBefore && now - lastDecreaseNanos < TimeUnit.MILLISECONDS.toNanos(windowMs)) {
+                return;
+            }
+            limit = Math.max(MIN_LIMIT, limit * BACKOFF_RATIO);
+            lastDecreaseNanos = now;
+            decreasedBefore = true;
+            // 减小后重置短期延迟,避免下一次成功立刻再次判定为突增
+            shortLatencyMs = longLatencyMs;
+        }
+    }
+}
@@ -0,0 +1,174 @@
+/*
+ * @saoshao<1224165231@qq.com>
+ */
+package DetSql.util;
+
+import java.util.Arrays;
+
+/**
+ * HTML 响应的 token 序列 (每个标签、每个文本单词一个 token,以哈希值表示)
+ *
+ * <p>script/style 块和注释整体丢弃,空白只起分隔作用,标签名不区分大小写。
+ * 两个响应按 token 序列比较时,内联脚本里的随机值、缩进和换行的差异不再计入编辑距离,
+ * 序列也比字符短得多。
+ */
+public final class HtmlTokens {
+
+    private static final int[] EMPTY = new int[0];
+
+    /**
+     * token 哈希序列及每个 token 在原文中的区间 [starts[i], ends[i])
+     */
+    public record Sequence(int[] hashes, int[] starts, int[] ends) {
+
+        /**
+         * 第 from 到 to (不含) 个 token 覆盖的原文区间,from == to 时为空串
+         */
+        public CharSequence text(CharSequence html, int from, int to) {
+            return from >= to ? "" : html.subSequence(starts[from], ends[to - 1]);
+        }
+    }
+
+    private HtmlTokens() {
+    }
+
+    /**
+     * 切分为 token 哈希序列
+     */
+    public static int[] tokenize(CharSequence html) {
+        return scan(html).hashes();
+    }
+
+    /**
+     * 切分为 token 哈希序列,同时记录每个 token 的原文区间
+     */
+    public static Sequence scan(CharSequence html) {
+        int n = html.length();
+        int[] tokens = EMPTY;
+        int[] starts = EMPTY;
+        int[] ends = EMPTY;
+        int count = 0;
+        int i = 0;
+        while (i < n) {
+            char c = html.charAt(i);
+            if (Character.isWhitespace(c)) {
+                i++;
+                continue;
+            }
+            int hash;
+            int start = i;
+            if (c == '<' && startsWithIgnoreCase(html, i, "<!--")) {
+                int end = indexOf(html, "-->", i + 4);
+                i = end < 0 ? n : end + 3;
+                continue;
+            }
+            int tagEnd = c == '<' ? indexOf(html, ">", i + 1) : -1;
+            if (tagEnd >= 0) {
+                String block = rawTextElement(html, i + 1);
+                if (block != null && html.charAt(tagEnd - 1) != '/') {
+                    // 丢弃整个 script/style 块,包括起止标签
+                    int close = indexOfIgnoreCase(html, "</" + block, tagEnd + 1);
+                    int closeEnd = close < 0 ? -1 : indexOf(html, ">", close);
+                    i = closeEnd < 0 ? n : closeEnd + 1;
+                    continue;
+                }
+                hash = tagHash(html, i, tagEnd + 1);
+                i = tagEnd + 1;
+            } else {
+                i++;
+                while (i < n && !Character.isWhitespace(html.charAt(i)) && html.charAt(i) != '<') {
+                    i++;
+                }
+                hash = hash(html, start, i);
+            }
+            if (count == tokens.length) {
+                int capacity = Math.max(64, count * 2);
+                tokens = Arrays.copyOf(tokens, capacity);
+                starts = Arrays.copyOf(starts, capacity);
+                ends = Arrays.copyOf(ends, capacity);
+            }
+            tokens[count] = hash;
+            starts[count] = start;
+            ends[count] = i;
+            count++;
+        }
+        return new Sequence(Arrays.copyOf(tokens, count), Arrays.copyOf(starts, count), Arrays.copyOf(ends, count));
+    }
+
+    /**
+     * 标签的哈希: 标签名转小写,属性部分的连续空白视为一个空格
+     */
+    private static int tagHash(CharSequence html, int start, int end) {
+        int h = 0;
+        boolean inName = true;
+        boolean space = false;
+        for (int i = start; i < end; i++) {
+            char c = html.charAt(i);
+            if (Character.isWhitespace(c)) {
+                inName = false;
+                space = true;
+                continue;
+            }
+            if (space) {
+                h = 31 * h + ' ';
+                space = false;
+            }
+            h = 31 * h + (inName ? Character.toLowerCase(c) : c);
+        }
+        return h;
+    }
+
+    private static int hash(CharSequence text, int start, int end) {
+        int h = 0;
+        for (int i = start; i < end; i++) {
+            h = 31 * h + text.charAt(i);
+        }
+        return h;
+    }
+
+    /**
+     * 标签名为 script 或 style 时返回该名称
+     */
+    private static String rawTextElement(CharSequence html, int nameStart) {
+        for (String name : new String[]{"script", "style"}) {
+            int after = nameStart + name.length();
+            if (startsWithIgnoreCase(html, nameStart, name)
+                    && after < html.length()
+                    && (Character.isWhitespace(html.charAt(after)) || html.charAt(after) == '>'
+                        || html.charAt(after) == '/')) {
+                return name;
+            }
+        }
+        return null;
+    }
+
+    private static boolean startsWithIgnoreCase(CharSequence text, int offset, String prefix) {
+        if (offset + prefix.length() > text.length()) {
+            return false;
+        }
+        for (int i = 0; i < prefix.length(); i++) {
+            if (Character.toLowerCase(text.charAt(offset + i)) != prefix.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int indexOf(CharSequence text, String target, int from) {
+        for (int i = from, last = text.length() - target.length(); i <= last; i++) {
+            if (text.charAt(i) == target.charAt(0) && ByteText.regionMatches(text, i, target, 0, target.length())) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static int indexOfIgnoreCase(CharSequence text, String target, int from) {
+        for (int i = from, last = text.length() - target.length(); i <= last; i++) {
+            if (text.charAt(i) == '<' && startsWithIgnoreCase(text, i, target)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,140 @@
+/*
+ * @saoshao<1224165231@qq.com>
+ */
+package DetSql.util;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParseException;
+import com.google.gson.JsonParser;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * JSON 响应展开后的 路径 -> 叶子值 表
+ *
+ * <p>对象字段顺序、缩进不影响比较;相似度由两侧路径的并集上逐个路径的一致程度得出,
+ * 只需一次哈希表遍历。解析失败 (不是 JSON 对象或数组) 时为 NOT_JSON,由调用方退回按文本比较。
+ */
+public final class JsonFields {
+
+    /**
+     * 不是 JSON 对象或数组
+     */
+    public static final JsonFields NOT_JSON = new JsonFields(Collections.emptyMap());
+
+    // 超过此深度的子树整体作为一个叶子
+    private static final int MAX_DEPTH = 64;
+
+    private final Map<String, JsonElement> leaves;
+
+    private JsonFields(Map<String, JsonElement> leaves) {
+        this.leaves = leaves;
+    }
+
+    /**
+     * 解析并展开,失败时返回 NOT_JSON
+     */
+    public static JsonFields parse(CharSequence text) {
+        JsonElement root;
+        try {
+            root = JsonParser.parseString(text.toString());
+        } catch (JsonParseException e) {
+            return NOT_JSON;
+        }
+        if (!root.isJsonObject() && !root.isJsonArray()) {
+            return NOT_JSON;
+        }
+        Map<String, JsonElement> leaves = new HashMap<>();
+        flatten("$", root, 0, leaves);
+        return new JsonFields(leaves);
+    }
+
+    public boolean isJson() {
+        return this != NOT_JSON;
+    }
+
+    public int size() {
+        return leaves.size();
+    }
+
+    private static void flatten(String path, JsonElement element, int depth, Map<String, JsonElement> leaves) {
+        if (element.isJsonObject() && depth < MAX_DEPTH) {
+            JsonObject object = element.getAsJsonObject();
+            if (object.isEmpty()) {
+                leaves.put(path, element);
+            }
+            for (Map.Entry<String, JsonElement> entry : object.entrySet()) {
+                flatten(path + "." + entry.getKey(), entry.getValue(), depth + 1, leaves);
+            }
+        } else if (element.isJsonArray() && depth < MAX_DEPTH) {
+            JsonArray array = element.getAsJsonArray();
+            if (array.isEmpty()) {
+                leaves.put(path, element);
+            }
+            for (int i = 0; i < array.size(); i++) {
+                flatten(path + "[" + i + "]", array.get(i), depth + 1, leaves);
+            }
+        } else {
+            leaves.put(path, element);
+        }
+    }
+
+    /**
+     * 两个 JSON 响应的相似度
+     *
+     * <p>每个路径: 值相同记 1;两侧都是字符串且差异部分只是各自回显的 PoC 也记 1;
+     * 同类型的不同值 (如数字噪声) 记 0.5;只有一侧存在或类型不同记 0。结果为总分除以路径并集大小。
+     * @param echo1 响应1 中回显的 PoC
+     * @param echo2 响应2 中回显的 PoC
+     */
+    public static double similarity(JsonFields left, JsonFields right, PayloadEcho echo1, PayloadEcho echo2) {
+        int union = left.leaves.size();
+        double score = 0;
+        for (Map.Entry<String, JsonElement> entry : right.leaves.entrySet()) {
+            JsonElement mine = left.leaves.get(entry.getKey());
+            if (mine == null) {
+                union++;
+            } else {
+                score += agreement(mine, entry.getValue(), echo1, echo2);
+            }
+        }
+        return union == 0 ? 1.0 : score / union;
+    }
+
+    private static double agreement(JsonElement left, JsonElement right, PayloadEcho echo1, PayloadEcho echo2) {
+        if (left.equals(right)) {
+            return 1.0;
+        }
+        if (!left.isJsonPrimitive() || !right.isJsonPrimitive()) {
+            return left.getClass() == right.getClass() ? 0.5 : 0.0;
+        }
+        var l = left.getAsJsonPrimitive();
+        var r = right.getAsJsonPrimitive();
+        if (l.isString() && r.isString()) {
+            return onlyEchoDiffers(l.getAsString(), r.getAsString(), echo1, echo2) ? 1.0 : 0.5;
+        }
+        return l.isNumber() == r.isNumber() && l.isBoolean() == r.isBoolean() ? 0.5 : 0.0;
+    }
+
+    /**
+     * 去掉公共前后缀后,两侧剩余部分是否都只是各自回显的 PoC
+     */
+    private static boolean onlyEchoDiffers(String left, String right, PayloadEcho echo1, PayloadEcho echo2) {
+        int max = Math.min(left.length(), right.length());
+        int prefix = 0;
+        while (prefix < max && left.charAt(prefix) == right.charAt(prefix)) {
+            prefix++;
+        }
+        int suffix = 0;
+        while (suffix < max - prefix
+                && left.charAt(left.length() - 1 - suffix) == right.charAt(right.length() - 1 - suffix)) {
+            suffix++;
+        }
+        return echo1.isOnlyEcho(left.subSequence(prefix, left.length() - suffix))
+                && echo2.isOnlyEcho(right.subSequence(prefix, right.length() - suffix));
+    }
+}
@@ -0,0 +1,149 @@
+/*
+ * @saoshao<1224165231@qq.com>
+ */
+package DetSql.util;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.List;
+import java.util.TreeSet;
+
+/**
+ * 多字面量匹配的 Aho-Corasick 自动机 (确定化的转移表)
+ *
+ * <p>逐字符调用 next 推进状态,outputs 给出在当前位置结束的字面量编号 (含失败链上的)。
+ * 忽略大小写时只折叠 ASCII 字母,与 Pattern.CASE_INSENSITIVE 的默认行为一致。
+ */
+final class LiteralAutomaton {
+
+    private final boolean ignoreCase;
+    // 出现过的字符 (升序),其下标为转移表的列
+    private final char[] alphabet;
+    // next[state * alphabet.length + column]
+    private final int[] next;
+    // 每个状态上结束的字面量编号
+    private final int[][] outputs;
+    private final int[] lengths;
+    private final int maxLength;
+
+    LiteralAutomaton(List<String> literals, boolean ignoreCase) {
+        this.ignoreCase = ignoreCase;
+        TreeSet<Character> chars = new TreeSet<>();
+        lengths = new int[literals.size()];
+        int maxLen = 0;
+        for (int id = 0; id < literals.size(); id++) {
+            String literal = literals.get(id);
+            for (int i = 0; i < literal.length(); i++) {
+                chars.add(fold(literal.charAt(i)));
+            }
+            lengths[id] = literal.length();
+            maxLen = Math.max(maxLen, literal.length());
+        }
+        alphabet = new char[chars.size()];
+        int k = 0;
+        for (char c : chars) {
+            alphabet[k++] = c;
+        }
+        maxLength = maxLen;
+        int width = alphabet.length;
+
+        // 构建字典树
+        List<int[]> children = new ArrayList<>();
+        List<int[]> ends = new ArrayList<>();
+        children.add(newRow(width));
+        ends.add(new int[0]);
+        for (int id = 0; id < literals.size(); id++) {
+            String literal = literals.get(id);
+            int state = 0;
+            for (int i = 0; i < literal.length(); i++) {
+                int column = Arrays.binarySearch(alphabet, fold(literal.charAt(i)));
+                if (children.get(state)[column] < 0) {
+                    children.get(state)[column] = children.size();
+                    children.add(newRow(width));
+                    ends.add(new int[0]);
+                }
+                state = children.get(state)[column];
+            }
+            ends.set(state, append(ends.get(state), id));
+        }
+
+        // 按层计算失败链,补全为确定的转移表
+        int states = children.size();
+        next = new int[states * width];
+        outputs = new int[states][];
+        int[] fail = new int[states];
+        outputs[0] = ends.get(0);
+        Deque<Integer> queue = new ArrayDeque<>();
+        for (int column = 0; column < width; column++) {
+            int child = children.get(0)[column];
+            if (child >= 0) {
+                next[column] = child;
+                queue.add(child);
+            }
+        }
+        while (!queue.isEmpty()) {
+            int state = queue.poll();
+            outputs[state] = concat(ends.get(state), outputs[fail[state]]);
+            for (int column = 0; column < width; column++) {
+                int child = children.get(state)[column];
+                if (child < 0) {
+                    next[state * width + column] = next[fail[state] * width + column];
+                } else {
+                    next[state * width + column] = child;
+                    fail[child] = next[fail[state] * width + column];
+                    queue.add(child);
+                }
+            }
+        }
+    }
+
+    /**
+     * 读入字符 c 后的状态,初始状态为 0
+     */
+    int next(int state, char c) {
+        int column = Arrays.binarySearch(alphabet, fold(c));
+        return column < 0 ? 0 : next[state * alphabet.length + column];
+    }
+
+    /**
+     * 在当前位置结束的字面量编号,返回的数组不应修改
+     */
+    int[] outputs(int state) {
+        return outputs[state];
+    }
+
+    int length(int literal) {
+        return lengths[literal];
+    }
+
+    int maxLength() {
+        return maxLength;
+    }
+
+    private char fold(char c) {
+        return ignoreCase && c >= 'A' && c <= 'Z' ? (char) (c + ('a' - 'A')) : c;
+    }
+
+    private static int[] newRow(int width) {
+        int[] row = new int[width];
+        Arrays.fill(row, -1);
+        return row;
+    }
+
+    private static int[] append(int[] array, int value) {
+        int[] result = Arrays.copyOf(array, array.length + 1);
+        result[array.length] = value;
+        return result;
+    }
+
+    private static int[] concat(int[] a, int[] b) {
+        if (b.length == 0) {
+            return a;
+        }
+        int[] result = Arrays.copyOf(a, a.length + b.length);
+        System.arraycopy(b, 0, result, a.length, b.length);
+        return result;
+    }
+}
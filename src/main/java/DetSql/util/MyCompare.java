@@ -2,13 +2,15 @@
  * @saoshao<1224165231@qq.com>
  */
 package DetSql.util;
-import org.apache.commons.text.similarity.JaccardSimilarity;
-import org.apache.commons.text.similarity.LevenshteinDistance;
 import java.text.NumberFormat;
 import java.util.*;
-import java.util.function.BiFunction;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.function.ToDoubleBiFunction;
 
 public class MyCompare {
+    // Jaccard 字符集位图的复用池,poll/offer 不产生分配
+    private static final ArrayBlockingQueue<CharSetScratch> JACCARD_SCRATCH = new ArrayBlockingQueue<>(16);
+
     public static String formatNumber(double number) {
         return String.format("%.3f", number);
     }
@@ -19,6 +21,14 @@ public class MyCompare {
         return percentFormat.format(number);
     }
 
+    /**
+     * 格式化分级判定的相似度,只算出上界时加 "≤" 前缀 (如 "≤85.0%")
+     */
+    public static String formatSimilarity(SimilarityCascade.Verdict verdict) {
+        String percent = formatPercent(verdict.similarity());
+        return verdict.isUpperBound() ? "≤" + percent : percent;
+    }
+
     /**
      * 计算两个字符串的 Levenshtein 相似度（带快速失败机制）
      * @param str1 字符串1
@@ -33,7 +43,7 @@ public class MyCompare {
      * 计算两个字符串的 Levenshtein 相似度（带阈值快速失败）
      * @param str1 字符串1
      * @param str2 字符串2
-     * @param threshold 相似度阈值（0.0-1.0），低于此值可提前返回
+     * @param threshold 相似度阈值（0.0-1.0），确定低于此值时提前返回 0.0
      * @return 相似度值 (0.0-1.0)
      */
     public static double levenshteinWithThreshold(String str1, String str2, double threshold) {
@@ -55,18 +65,18 @@ public class MyCompare {
         
         // 快速检查3：前 100 字符差异过大
         if (str1.length() > 100 && str2.length() > 100) {
-            String prefix1 = str1.substring(0, 100);
-            String prefix2 = str2.substring(0, 100);
-            if (!prefix1.equals(prefix2)) {
-                int prefixDist = LevenshteinDistance.getDefaultInstance().apply(prefix1, prefix2);
-                if (prefixDist > 50) {
-                    return 0.0; // 前缀差异太大
-                }
+            if (!str1.regionMatches(0, str2, 0, 100)
+                    && BoundedLevenshtein.distance(str1.substring(0, 100), str2.substring(0, 100), 50) < 0) {
+                return 0.0; // 前缀差异太大
             }
         }
         
-        // 执行完整计算
-        int distance = LevenshteinDistance.getDefaultInstance().apply(str1, str2);
+        // 执行完整计算:threshold > 0 时距离超过上界即可判定低于阈值
+        int maxDistance = threshold > 0 ? (int) Math.ceil(maxLen * (1 - threshold)) : -1;
+        int distance = BoundedLevenshtein.distance(str1, str2, maxDistance);
+        if (distance < 0) {
+            return 0.0;
+        }
         return 1 - (double) distance / maxLen;
     }
     /**
@@ -82,7 +92,56 @@ public class MyCompare {
         if (str1.equals(str2)) {
             return 1.0;
         }
-        return new JaccardSimilarity().apply(str1, str2);
+        if (str1.isEmpty() || str2.isEmpty()) {
+            return 0.0;
+        }
+        CharSetScratch scratch = JACCARD_SCRATCH.poll();
+        if (scratch == null) {
+            scratch = new CharSetScratch();
+        }
+        try {
+            return scratch.jaccard(str1, str2);
+        } finally {
+            JACCARD_SCRATCH.offer(scratch);
+        }
+    }
+
+    /**
+     * 两个字符串的字符集位图(每个 char 一位,共 65536 位)
+     * 只记录并清理被写过的 64 位字,结果与 commons-text JaccardSimilarity 一致
+     */
+    private static final class CharSetScratch {
+        private static final int WORDS = (Character.MAX_VALUE + 1) >>> 6;
+        private final long[] left = new long[WORDS];
+        private final long[] right = new long[WORDS];
+        private final int[] touched = new int[WORDS];
+
+        double jaccard(String str1, String str2) {
+            int touchedCount = mark(str1, left, 0);
+            touchedCount = mark(str2, right, touchedCount);
+            int intersection = 0;
+            int union = 0;
+            for (int i = 0; i < touchedCount; i++) {
+                int w = touched[i];
+                intersection += Long.bitCount(left[w] & right[w]);
+                union += Long.bitCount(left[w] | right[w]);
+                left[w] = 0L;
+                right[w] = 0L;
+            }
+            return 1.0 * intersection / union;
+        }
+
+        private int mark(String s, long[] bits, int touchedCount) {
+            for (int i = 0, len = s.length(); i < len; i++) {
+                char c = s.charAt(i);
+                int w = c >>> 6;
+                if (left[w] == 0L && right[w] == 0L) {
+                    touched[touchedCount++] = w;
+                }
+                bits[w] |= 1L << c;
+            }
+            return touchedCount;
+        }
     }
 
     // 提取相似度计算公共逻辑
@@ -90,7 +149,7 @@ public class MyCompare {
             String s1, String s2,
             String poc1, String poc2,
             boolean html_flag,
-            BiFunction<String, String, Double> similarityFunc) {
+            ToDoubleBiFunction<String, String> similarityFunc) {
         List<Double> list = new ArrayList<>();
         int lengthDiff = Math.abs(s1.length() - s2.length());
 
@@ -120,29 +179,31 @@ public class MyCompare {
             String[] newStrList;
             if (s1.length() < s2.length()) {
                 newStrList = upgradeStr(s1, s2);
-                if ((newStrList[0].replaceAll(poc1, "").isEmpty() && !newStrList[1].replaceAll(poc2, "").isEmpty()) ||
-                    (!newStrList[0].replaceAll(poc1, "").isEmpty() && newStrList[1].replaceAll(poc2, "").isEmpty())) {
+                boolean shorterEmpty = newStrList[0].replaceAll(poc1, "").isEmpty();
+                boolean longerEmpty = newStrList[1].replaceAll(poc2, "").isEmpty();
+                if (shorterEmpty != longerEmpty) {
                     list.add(0.0);
-                } else if (newStrList[0].replaceAll(poc1, "").isEmpty() && newStrList[1].replaceAll(poc2, "").isEmpty()) {
+                } else if (shorterEmpty) {
                     list.add(1.0);
                 } else {
-                    double similarity = similarityFunc.apply(newStrList[0], newStrList[1]);
+                    double similarity = similarityFunc.applyAsDouble(newStrList[0], newStrList[1]);
                     list.add(similarity);
                 }
             } else {
                 newStrList = upgradeStr(s2, s1);
-                if ((newStrList[0].replaceAll(poc2, "").isEmpty() && !newStrList[1].replaceAll(poc1, "").isEmpty()) ||
-                    (!newStrList[0].replaceAll(poc2, "").isEmpty() && newStrList[1].replaceAll(poc1, "").isEmpty())) {
+                boolean shorterEmpty = newStrList[0].replaceAll(poc2, "").isEmpty();
+                boolean longerEmpty = newStrList[1].replaceAll(poc1, "").isEmpty();
+                if (shorterEmpty != longerEmpty) {
                     list.add(0.0);
-                } else if (newStrList[0].replaceAll(poc2, "").isEmpty() && newStrList[1].replaceAll(poc1, "").isEmpty()) {
+                } else if (shorterEmpty) {
                     list.add(1.0);
                 } else {
-                    double similarity = similarityFunc.apply(newStrList[0], newStrList[1]);
+                    double similarity = similarityFunc.applyAsDouble(newStrList[0], newStrList[1]);
                     list.add(similarity);
                 }
             }
         } else {
-            double similarity = similarityFunc.apply(s1, s2);
+            double similarity = similarityFunc.applyAsDouble(s1, s2);
             list.add(similarity);
         }
 
@@ -214,32 +275,11 @@ public class MyCompare {
         int shorterLength = shorter.length();
         int longerLength = longer.length();
 
-        // 初始化：假设整个字符串都是差异部分
-        int commonPrefixLength = 0;
-        int shorterEndIndex = shorterLength;
-        int longerEndIndex = longerLength;
-
-        // 第一步：从头开始查找公共前缀
-        for (int i = 1; i <= shorterLength; i++) {
-            if (shorter.charAt(i - 1) != longer.charAt(i - 1)) {
-                commonPrefixLength = i - 1;
-                break;
-            }
-            // 如果循环结束都没有 break，说明 shorter 是 longer 的完整前缀
-            commonPrefixLength = shorterLength;
-        }
-
-        // 第二步：从尾部开始查找公共后缀（仅在去除公共前缀后的部分中查找）
-        for (int j = 1; j <= shorterLength - commonPrefixLength; j++) {
-            if (shorter.charAt(shorterLength - j) != longer.charAt(longerLength - j)) {
-                shorterEndIndex = shorterLength - j + 1;
-                longerEndIndex = longerLength - j + 1;
-                break;
-            }
-            // 如果循环结束都没有 break，说明去除前缀后的 shorter 部分完全匹配 longer 的相应后缀
-            shorterEndIndex = commonPrefixLength;
-            longerEndIndex = longerLength - shorterLength + commonPrefixLength;
-        }
+        // 公共前缀,以及去除公共前缀后剩余部分中的公共后缀
+        int commonPrefixLength = ByteText.commonPrefix(shorter, longer);
+        int commonSuffixLength = ByteText.commonSuffix(shorter, longer, shorterLength - commonPrefixLength);
+        int shorterEndIndex = shorterLength - commonSuffixLength;
+        int longerEndIndex = longerLength - commonSuffixLength;
 
         // 返回两个字符串去除公共前后缀后的差异部分
         return new String[]{
@@ -0,0 +1,124 @@
+/*
+ * @saoshao<1224165231@qq.com>
+ */
+package DetSql.util;
+
+import java.util.Arrays;
+
+/**
+ * 跳过 '\r' / '\n' 的文本视图
+ *
+ * <p>与 replaceAll("\\n|\\r|\\r\\n", "") 的结果逐字符相同,但不复制响应体:
+ * 只记录不含换行的各段在视图和原文中的起点,charAt 按段换算下标。
+ * 正则引擎的访问基本是局部的,因此缓存最近访问的段,通常不需要二分查找。
+ * 实例带有访问游标,不能在线程间共享。
+ */
+public final class NewlineSkippingText implements CharSequence {
+
+    private final CharSequence text;
+    // 第 k 段在视图中的起点,logicalStarts[count] 为视图长度
+    private final int[] logicalStarts;
+    // 第 k 段在原文中的起点
+    private final int[] physicalStarts;
+    private final int count;
+    // 最近访问的段
+    private int segment;
+
+    private NewlineSkippingText(CharSequence text, int[] logicalStarts, int[] physicalStarts, int count) {
+        this.text = text;
+        this.logicalStarts = logicalStarts;
+        this.physicalStarts = physicalStarts;
+        this.count = count;
+    }
+
+    /**
+     * 去掉换行后的文本;原文不含换行时直接返回原文
+     */
+    public static CharSequence of(CharSequence text) {
+        int n = text.length();
+        if (n == 0) {
+            return text;
+        }
+        int[] logical = new int[8];
+        int[] physical = new int[8];
+        int count = 0;
+        int length = 0;
+        int i = 0;
+        while (i < n) {
+            while (i < n && isNewline(text.charAt(i))) {
+                i++;
+            }
+            if (i == n) {
+                break;
+            }
+            int start = i;
+            while (i < n && !isNewline(text.charAt(i))) {
+                i++;
+            }
+            if (start == 0 && i == n) {
+                return text;
+            }
+            if (count + 1 >= logical.length) {
+                logical = Arrays.copyOf(logical, logical.length * 2);
+                physical = Arrays.copyOf(physical, physical.length * 2);
+            }
+            logical[count] = length;
+            physical[count] = start;
+            count++;
+            length += i - start;
+        }
+        logical[count] = length;
+        return new NewlineSkippingText(text, logical, physical, count);
+    }
+
+    private static boolean isNewline(char c) {
+        return c == '\n' || c == '\r';
+    }
+
+    @Override
+    public int length() {
+        return logicalStarts[count];
+    }
+
+    @Override
+    public char charAt(int index) {
+        if (index < 0 || index >= length()) {
+            throw new IndexOutOfBoundsException("index " + index + ", length " + length());
+        }
+        int k = segment;
+        if (index < logicalStarts[k] || index >= logicalStarts[k + 1]) {
+            k = locate(index);
+            segment = k;
+        }
+        return text.charAt(physicalStarts[k] + index - logicalStarts[k]);
+    }
+
+    /**
+     * 包含视图下标 index 的段: 先看相邻的段,否则二分查找
+     */
+    private int locate(int index) {
+        int k = segment;
+        if (k + 1 < count && index >= logicalStarts[k + 1] && index < logicalStarts[k + 2]) {
+            return k + 1;
+        }
+        int found = Arrays.binarySearch(logicalStarts, 0, count, index);
+        return found >= 0 ? found : -found - 2;
+    }
+
+    @Override
+    public CharSequence subSequence(int start, int end) {
+        if (start < 0 || end > length() || start > end) {
+            throw new IndexOutOfBoundsException("start " + start + ", end " + end + ", length " + length());
+        }
+        StringBuilder sb = new StringBuilder(end - start);
+        for (int i = start; i < end; i++) {
+            sb.append(charAt(i));
+        }
+        return sb.toString();
+    }
+
+    @Override
+    public String toString() {
+        return subSequence(0, length()).toString();
+    }
+}
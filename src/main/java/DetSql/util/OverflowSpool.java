@@ -0,0 +1,170 @@
+/*
+ * @saoshao<1224165231@qq.com>
+ */
+
+package DetSql.util;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+
+/**
+ * 磁盘溢出队列 (仅追加的分段文件)
+ *
+ * 扫描队列满时,被拒绝的任务序列化后追加到当前段文件末尾,
+ * 队列有空位时再按写入顺序逐条读回。
+ *
+ * 文件格式: 每条记录为 [int 长度][字节内容],段文件写满 segmentMaxBytes 后切换到新段;
+ * 读完的旧段立即删除,全部读完时清空目录,磁盘占用只与积压量相关。
+ *
+ * 溢出内容只在本次运行内有效 (表格行号等运行时状态无法跨进程恢复),
+ * 打开时会删除上次遗留的段文件。
+ *
+ * 线程安全: 所有方法同步
+ */
+public class OverflowSpool implements Closeable {
+
+    private static final String SEGMENT_PREFIX = "overflow-";
+    private static final String SEGMENT_SUFFIX = ".seg";
+    // 默认段大小 64MB
+    public static final long DEFAULT_SEGMENT_MAX_BYTES = 64L * 1024 * 1024;
+
+    private final Path dir;
+    private final long segmentMaxBytes;
+    private final ArrayDeque<Path> segments = new ArrayDeque<>();
+
+    private RandomAccessFile writer;
+    private RandomAccessFile reader;
+    private long readOffset;
+    private long nextSegment;
+    private int depth;
+    private boolean closed;
+
+    public OverflowSpool(Path dir) throws IOException {
+        this(dir, DEFAULT_SEGMENT_MAX_BYTES);
+    }
+
+    public OverflowSpool(Path dir, long segmentMaxBytes) throws IOException {
+        this.dir = dir;
+        this.segmentMaxBytes = Math.max(1, segmentMaxBytes);
+        Files.createDirectories(dir);
+        deleteSegmentFiles();
+    }
+
+    /**
+     * 追加一条记录
+     *
+     * @param record 序列化后的内容
+     * @throws IOException 写盘失败或已关闭
+     */
+    public synchronized void append(byte[] record) throws IOException {
+        if (closed) {
+            throw new IOException("Overflow spool closed");
+        }
+        if (writer == null || writer.length() >= segmentMaxBytes) {
+            openNewSegment();
+        }
+        writer.seek(writer.length());
+        writer.writeInt(record.length);
+        writer.write(record);
+        depth++;
+    }
+
+    /**
+     * 按写入顺序取出一条记录
+     *
+     * @return 记录内容,没有积压时返回 null
+     * @throws IOException 读盘失败
+     */
+    public synchronized byte[] poll() throws IOException {
+        while (depth > 0 && !closed) {
+            if (reader == null) {
+                reader = new RandomAccessFile(segments.peekFirst().toFile(), "r");
+                readOffset = 0;
+            }
+            if (readOffset < reader.length()) {
+                reader.seek(readOffset);
+                int length = reader.readInt();
+                byte[] record = new byte[length];
+                reader.readFully(record);
+                readOffset += Integer.BYTES + length;
+                depth--;
+                if (depth == 0) {
+                    // 全部读完: 删除所有段,下次溢出从新段开始
+                    releaseFiles();
+                }
+                return record;
+            }
+            // 当前段已读完且后面还有段 (有积压说明写入已切到新段)
+            reader.close();
+            reader = null;
+            Files.deleteIfExists(segments.pollFirst());
+        }
+        return null;
+    }
+
+    /**
+     * 当前积压的记录数
+     */
+    public synchronized int size() {
+        return depth;
+    }
+
+    public synchronized boolean isEmpty() {
+        return depth == 0;
+    }
+
+    /**
+     * 关闭并删除所有段文件 (未读回的记录丢弃)
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        releaseFiles();
+    }
+
+    private void openNewSegment() throws IOException {
+        if (writer != null) {
+            writer.close();
+        }
+        Path segment = dir.resolve(String.format("%s%08d%s", SEGMENT_PREFIX, nextSegment++, SEGMENT_SUFFIX));
+        Files.deleteIfExists(segment);
+        segments.addLast(segment);
+        writer = new RandomAccessFile(segment.toFile(), "rw");
+    }
+
+    private void releaseFiles() throws IOException {
+        try {
+            if (reader != null) {
+                reader.close();
+            }
+            if (writer != null) {
+                writer.close();
+            }
+        } finally {
+            reader = null;
+            writer = null;
+            readOffset = 0;
+            depth = 0;
+            for (Path segment : segments) {
+                Files.deleteIfExists(segment);
+            }
+            segments.clear();
+        }
+    }
+
+    private void deleteSegmentFiles() throws IOException {
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(dir, SEGMENT_PREFIX + "*" + SEGMENT_SUFFIX)) {
+            for (Path stale : stream) {
+                Files.deleteIfExists(stale);
+            }
+        }
+    }
+}
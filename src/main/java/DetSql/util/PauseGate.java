@@ -0,0 +1,123 @@
+/*
+ * @saoshao<1224165231@qq.com>
+ */
+
+package DetSql.util;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 扫描暂停闸门 (全局 + 按主机)
+ *
+ * 每次发送 PoC 前调用 awaitOpen(host): 全局或该主机处于暂停状态时阻塞,恢复后继续。
+ * 没有任何暂停时只读一个 volatile 字段,不加锁。
+ *
+ * 主机按主机名匹配 (不区分大小写,不含协议和端口)。
+ *
+ * 线程安全: 状态修改和等待使用同一把锁
+ */
+public class PauseGate {
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition stateChanged = lock.newCondition();
+
+    private boolean allPaused;
+    private final Set<String> pausedHosts = new HashSet<>();
+
+    // 是否存在任何暂停 (快速路径)
+    private volatile boolean anyPaused;
+
+    /**
+     * 等待直到全局和该主机都未暂停
+     *
+     * @param host 目标主机名
+     * @throws InterruptedException 等待期间线程被中断 (任务取消)
+     */
+    public void awaitOpen(String host) throws InterruptedException {
+        if (!anyPaused) {
+            return;
+        }
+        String key = normalize(host);
+        lock.lockInterruptibly();
+        try {
+            while (allPaused || pausedHosts.contains(key)) {
+                stateChanged.await();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void pauseAll() {
+        update(() -> allPaused = true);
+    }
+
+    public void resumeAll() {
+        update(() -> allPaused = false);
+    }
+
+    public void pauseHost(String host) {
+        String key = normalize(host);
+        update(() -> pausedHosts.add(key));
+    }
+
+    public void resumeHost(String host) {
+        String key = normalize(host);
+        update(() -> pausedHosts.remove(key));
+    }
+
+    public boolean isAllPaused() {
+        lock.lock();
+        try {
+            return allPaused;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 该主机是否被单独暂停 (不含全局暂停)
+     */
+    public boolean isHostPaused(String host) {
+        String key = normalize(host);
+        lock.lock();
+        try {
+            return pausedHosts.contains(key);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 被单独暂停的主机 (按名称排序的快照)
+     */
+    public Set<String> getPausedHosts() {
+        lock.lock();
+        try {
+            return Collections.unmodifiableSet(new TreeSet<>(pausedHosts));
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void update(Runnable change) {
+        lock.lock();
+        try {
+            change.run();
+            anyPaused = allPaused || !pausedHosts.isEmpty();
+            stateChanged.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private static String normalize(String host) {
+        return host == null ? "" : host.toLowerCase(Locale.ROOT);
+    }
+}
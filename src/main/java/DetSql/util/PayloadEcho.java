@@ -0,0 +1,108 @@
+/*
+ * @saoshao<1224165231@qq.com>
+ */
+package DetSql.util;
+
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+/**
+ * 响应中回显的 PoC 片段识别 (多模式 Aho-Corasick 自动机)
+ *
+ * <p>HTML 模式下两个响应去掉公共前后缀后,若差异部分只是被回显的 payload,则视为没有差异。
+ * 自动机由 payload 及其 URL/HTML 编码形式构建,每个策略只构建一次;判断时对差异部分
+ * 只扫描一遍,检查它能否完整地由这些片段拼接而成,回显次数再多也不会退化。
+ */
+public final class PayloadEcho {
+
+    /**
+     * 不识别任何回显,只有空串视为回显
+     */
+    public static final PayloadEcho NONE = new PayloadEcho(Set.of());
+
+    private final LiteralAutomaton automaton;
+
+    private PayloadEcho(Set<String> literals) {
+        automaton = new LiteralAutomaton(new ArrayList<>(literals), false);
+    }
+
+    /**
+     * 由 payload 构建,同时识别其 URL 编码和常见的 HTML 实体编码形式
+     * @param payloads 原样回显的片段 (字面量,不是正则)
+     */
+    public static PayloadEcho of(String... payloads) {
+        Set<String> literals = new LinkedHashSet<>();
+        for (String payload : payloads) {
+            if (payload == null || payload.isEmpty()) {
+                continue;
+            }
+            literals.add(payload);
+            String urlEncoded = URLEncoder.encode(payload, StandardCharsets.UTF_8);
+            literals.add(urlEncoded);
+            literals.add(urlEncoded.replace("+", "%20"));
+            literals.add(htmlEscape(payload, "&#39;"));
+            literals.add(htmlEscape(payload, "&#x27;"));
+            literals.add(htmlEscape(payload, "&apos;"));
+        }
+        return literals.isEmpty() ? NONE : new PayloadEcho(literals);
+    }
+
+    /**
+     * 文本是否完全由回显片段拼接而成 (空串视为是)
+     */
+    public boolean isOnlyEcho(CharSequence part) {
+        int n = part.length();
+        if (n == 0) {
+            return true;
+        }
+        int maxLength = automaton.maxLength();
+        if (maxLength == 0) {
+            return false;
+        }
+        // covered[i % ring]: 前 i 个字符能否由片段拼接而成,只需保留最近 maxLength 个位置
+        int ring = maxLength + 1;
+        boolean[] covered = new boolean[ring];
+        covered[0] = true;
+        int lastCovered = 0;
+        int state = 0;
+        for (int i = 0; i < n; i++) {
+            state = automaton.next(state, part.charAt(i));
+            int end = i + 1;
+            boolean ok = false;
+            for (int literal : automaton.outputs(state)) {
+                int length = automaton.length(literal);
+                if (length <= end && covered[(end - length) % ring]) {
+                    ok = true;
+                    break;
+                }
+            }
+            covered[end % ring] = ok;
+            if (ok) {
+                lastCovered = end;
+            } else if (end - lastCovered >= maxLength) {
+                // 最近 maxLength 个位置都无法拼接,之后也不可能
+                return false;
+            }
+        }
+        return covered[n % ring];
+    }
+
+    private static String htmlEscape(String payload, String apostrophe) {
+        StringBuilder sb = new StringBuilder(payload.length() + 16);
+        for (int i = 0; i < payload.length(); i++) {
+            char c = payload.charAt(i);
+            switch (c) {
+                case '\'' -> sb.append(apostrophe);
+                case '"' -> sb.append("&quot;");
+                case '<' -> sb.append("&lt;");
+                case '>' -> sb.append("&gt;");
+                case '&' -> sb.append("&amp;");
+                default -> sb.append(c);
+            }
+        }
+        return sb.toString();
+    }
+}
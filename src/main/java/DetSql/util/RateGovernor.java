@@ -0,0 +1,186 @@
+/*
+ * @saoshao<1224165231@qq.com>
+ */
+
+package DetSql.util;
+
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 请求速率控制 (全局 + 按主机的令牌桶)
+ *
+ * 替代每次发送后固定 Thread.sleep 的做法:
+ * - 令牌充足时立即放行,突发量由 burst 决定
+ * - 令牌不足时按预约顺序计算放行时间,由调度线程到点完成 Future,
+ *   等待期间不占用主机并发许可,也没有固定的每请求下限
+ *
+ * 限制: 调用方通过 await 阻塞等待放行,被限速的请求仍占用调用它的扫描线程
+ * (策略按步骤同步执行,下一个 payload 依赖上一个响应)。虚拟线程模式下该等待开销很小。
+ * 调度线程只应用于放行计时,不要与发送请求共用,否则发送阻塞时放行无法按时触发。
+ *
+ * 速率 <= 0 表示不限速。
+ *
+ * 线程安全: 每个令牌桶独立加锁
+ */
+public class RateGovernor {
+
+    private final ScheduledExecutorService scheduler;
+    private final Bucket global = new Bucket();
+    private final ConcurrentHashMap<String, Bucket> hosts = new ConcurrentHashMap<>();
+
+    private volatile double globalRate;
+    private volatile double hostRate;
+    private volatile int burst = 1;
+
+    // 被延迟的请求数和累计延迟 (统计用)
+    private final AtomicLong delayedCount = new AtomicLong();
+    private final AtomicLong delayedNanos = new AtomicLong();
+
+    /**
+     * @param scheduler 到点放行使用的调度线程池
+     */
+    public RateGovernor(ScheduledExecutorService scheduler) {
+        this.scheduler = scheduler;
+    }
+
+    /**
+     * 修改速率配置,已有令牌桶在下次预约时按新速率计算
+     *
+     * @param globalRatePerSecond 全局每秒请求数,<= 0 不限速
+     * @param hostRatePerSecond   单个主机每秒请求数,<= 0 不限速
+     * @param burst               允许的突发请求数 (令牌桶容量),至少为 1
+     */
+    public void configure(double globalRatePerSecond, double hostRatePerSecond, int burst) {
+        this.globalRate = globalRatePerSecond;
+        this.hostRate = hostRatePerSecond;
+        this.burst = Math.max(1, burst);
+    }
+
+    /**
+     * 预约一次发送许可
+     *
+     * @param host 目标主机标识
+     * @return 需要等待的纳秒数,0 表示立即放行
+     */
+    public long reserve(String host) {
+        long now = System.nanoTime();
+        int currentBurst = burst;
+        long globalDelay = global.reserve(now, globalRate, currentBurst);
+        long hostDelay = hosts.computeIfAbsent(host, h -> new Bucket()).reserve(now, hostRate, currentBurst);
+        long delay = Math.max(globalDelay, hostDelay);
+        if (delay > 0) {
+            delayedCount.incrementAndGet();
+            delayedNanos.addAndGet(delay);
+        }
+        return delay;
+    }
+
+    /**
+     * 获取发送许可
+     *
+     * @param host 目标主机标识
+     * @return 放行时完成的 Future (立即放行时已完成)
+     */
+    public CompletableFuture<Void> acquire(String host) {
+        return delay(reserve(host), TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * 在调度线程上延迟完成的 Future,用于替代重试退避等场景的 Thread.sleep
+     */
+    public CompletableFuture<Void> delay(long duration, TimeUnit unit) {
+        if (duration <= 0) {
+            return CompletableFuture.completedFuture(null);
+        }
+        CompletableFuture<Void> ready = new CompletableFuture<>();
+        ScheduledFuture<?> scheduled;
+        try {
+            scheduled = scheduler.schedule(() -> ready.complete(null), duration, unit);
+        } catch (RejectedExecutionException e) {
+            // 插件卸载中,调度线程池已关闭
+            return CompletableFuture.completedFuture(null);
+        }
+        // 等待方取消时撤销调度
+        ready.whenComplete((v, e) -> {
+            if (ready.isCancelled()) {
+                scheduled.cancel(false);
+            }
+        });
+        return ready;
+    }
+
+    /**
+     * 等待放行,被中断时取消 Future (撤销调度) 并抛出 InterruptedException
+     */
+    public static void await(CompletableFuture<Void> ready) throws InterruptedException {
+        if (ready.isDone()) {
+            return;
+        }
+        try {
+            ready.get();
+        } catch (InterruptedException e) {
+            ready.cancel(false);
+            throw e;
+        } catch (ExecutionException | CancellationException e) {
+            // 仅在调度线程池关闭时出现,直接放行
+        }
+    }
+
+    public long getDelayedCount() {
+        return delayedCount.get();
+    }
+
+    public long getTotalDelayMs() {
+        return TimeUnit.NANOSECONDS.toMillis(delayedNanos.get());
+    }
+
+    /**
+     * 清空所有主机的令牌桶 (仅用于插件卸载或测试)
+     */
+    public void reset() {
+        hosts.clear();
+        global.clear();
+        delayedCount.set(0);
+        delayedNanos.set(0);
+    }
+
+    /**
+     * 预约式令牌桶: 令牌可以透支,透支量决定后来者的等待时间,
+     * 保证并发预约时按到达顺序均匀放行
+     */
+    private static final class Bucket {
+        private double tokens = Double.NaN;
+        private long lastNanos;
+
+        private synchronized long reserve(long now, double rate, int burst) {
+            if (rate <= 0) {
+                tokens = Double.NaN;
+                return 0;
+            }
+            if (Double.isNaN(tokens)) {
+                // 首次使用或刚从不限速切换: 桶是满的
+                tokens = burst;
+            } else {
+                tokens = Math.min(burst, tokens + (now - lastNanos) * rate / TimeUnit.SECONDS.toNanos(1));
+            }
+            lastNanos = now;
+            tokens -= 1;
+            if (tokens >= 0) {
+                return 0;
+            }
+            return (long) Math.ceil(-tokens / rate * TimeUnit.SECONDS.toNanos(1));
+        }
+
+        private synchronized void clear() {
+            tokens = Double.NaN;
+        }
+    }
+}
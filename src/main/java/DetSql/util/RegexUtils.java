@@ -1,53 +1,27 @@
 package DetSql.util;
 
-import java.util.concurrent.*;
 import java.util.regex.*;
 
 /**
  * 安全的正则表达式工具类，防止ReDoS攻击
- * 使用Future超时机制限制正则匹配时间
+ * 匹配在调用线程上直接进行，被匹配的文本包装为带截止时间的CharSequence，
+ * 正则引擎每读取一定数量的字符检查一次时钟，超时后抛出异常中止匹配
  *
  * @author DetSql Security Team
  * @since v3.3.1
  */
 public class RegexUtils {
-    private static final int THREAD_POOL_SIZE = Runtime.getRuntime().availableProcessors();
-    private static volatile ExecutorService REGEX_EXECUTOR = createExecutor();
 
     // 默认超时1000ms，降低在CI负载下的不必要超时，同时仍提供ReDoS防护
     private static final long DEFAULT_TIMEOUT_MS = 1000;
 
-    /**
-     * 创建正则匹配线程池
-     */
-    private static ExecutorService createExecutor() {
-        return Executors.newCachedThreadPool(new ThreadFactory() {
-            private int counter = 0;
-            @Override
-            public Thread newThread(Runnable r) {
-                Thread t = new Thread(r, "DetSql-Regex-" + counter++);
-                t.setDaemon(true);
-                return t;
-            }
-        });
-    }
+    // 每读取多少个字符检查一次时钟（nanoTime 的开销远大于一次 charAt）
+    private static final int CHECK_INTERVAL = 1024;
 
     /**
-     * 获取或重建线程池（如果已终止）
+     * findPrecompiled 超时时返回的标记结果（按引用比较，不可读取分组）
      */
-    private static ExecutorService getOrCreateExecutor() {
-        ExecutorService executor = REGEX_EXECUTOR;
-        if (executor.isShutdown() || executor.isTerminated()) {
-            synchronized (RegexUtils.class) {
-                executor = REGEX_EXECUTOR;
-                if (executor.isShutdown() || executor.isTerminated()) {
-                    REGEX_EXECUTOR = createExecutor();
-                    executor = REGEX_EXECUTOR;
-                }
-            }
-        }
-        return executor;
-    }
+    public static final MatchResult TIMED_OUT = Pattern.compile("").matcher("").toMatchResult();
 
     /**
      * 安全的正则匹配，带超时保护
@@ -56,30 +30,18 @@ public class RegexUtils {
      * @param timeoutMs 超时时间（毫秒）
      * @return 是否匹配成功
      */
-    public static boolean safeMatch(String pattern, String text, long timeoutMs) {
+    public static boolean safeMatch(String pattern, CharSequence text, long timeoutMs) {
         if (pattern == null || text == null) {
             return false;
         }
 
-        Future<Boolean> future = getOrCreateExecutor().submit(() -> {
-            try {
-                Pattern p = Pattern.compile(pattern, Pattern.CASE_INSENSITIVE);
-                return p.matcher(text).find();
-            } catch (PatternSyntaxException e) {
-                return false;
-            }
-        });
-
+        Pattern p;
         try {
-            return future.get(timeoutMs, TimeUnit.MILLISECONDS);
-        } catch (TimeoutException e) {
-            future.cancel(true);
-            // 记录超时的正则，可能是ReDoS
-            logRegexTimeout(pattern, text.length());
-            return false;
-        } catch (Exception e) {
+            p = Pattern.compile(pattern, Pattern.CASE_INSENSITIVE);
+        } catch (PatternSyntaxException e) {
             return false;
         }
+        return find(p, text, timeoutMs) != null;
     }
 
     /**
@@ -88,7 +50,7 @@ public class RegexUtils {
      * @param text 待匹配的文本
      * @return 是否匹配成功
      */
-    public static boolean safeMatch(String pattern, String text) {
+    public static boolean safeMatch(String pattern, CharSequence text) {
         return safeMatch(pattern, text, DEFAULT_TIMEOUT_MS);
     }
 
@@ -99,24 +61,11 @@ public class RegexUtils {
      * @param timeoutMs 超时时间（毫秒）
      * @return 是否匹配成功
      */
-    public static boolean safeMatchPrecompiled(Pattern pattern, String text, long timeoutMs) {
+    public static boolean safeMatchPrecompiled(Pattern pattern, CharSequence text, long timeoutMs) {
         if (pattern == null || text == null) {
             return false;
         }
-
-        Future<Boolean> future = getOrCreateExecutor().submit(() ->
-            pattern.matcher(text).find()
-        );
-
-        try {
-            return future.get(timeoutMs, TimeUnit.MILLISECONDS);
-        } catch (TimeoutException e) {
-            future.cancel(true);
-            logRegexTimeout(pattern.pattern(), text.length());
-            return false;
-        } catch (Exception e) {
-            return false;
-        }
+        return find(pattern, text, timeoutMs) != null;
     }
 
     /**
@@ -125,10 +74,47 @@ public class RegexUtils {
      * @param text 待匹配的文本
      * @return 是否匹配成功
      */
-    public static boolean safeMatchPrecompiled(Pattern pattern, String text) {
+    public static boolean safeMatchPrecompiled(Pattern pattern, CharSequence text) {
         return safeMatchPrecompiled(pattern, text, DEFAULT_TIMEOUT_MS);
     }
 
+    /**
+     * 预编译的Pattern安全查找，调用方需要区分"没有匹配"和"超时"时使用
+     * @param pattern 预编译的Pattern对象
+     * @param text 待匹配的文本
+     * @return 匹配结果；超时时返回 TIMED_OUT；没有匹配、线程被中断或出错时返回null
+     */
+    public static MatchResult findPrecompiled(Pattern pattern, CharSequence text) {
+        if (pattern == null || text == null) {
+            return null;
+        }
+        return findOrTimeout(pattern, text, DEFAULT_TIMEOUT_MS);
+    }
+
+    /**
+     * 在调用线程上执行匹配，超时或线程被中断时返回null
+     */
+    private static MatchResult find(Pattern pattern, CharSequence text, long timeoutMs) {
+        MatchResult result = findOrTimeout(pattern, text, timeoutMs);
+        return result == TIMED_OUT ? null : result;
+    }
+
+    private static MatchResult findOrTimeout(Pattern pattern, CharSequence text, long timeoutMs) {
+        DeadlineText guarded = new DeadlineText(text, System.nanoTime() + timeoutMs * 1_000_000L);
+        try {
+            Matcher matcher = pattern.matcher(guarded);
+            return matcher.find() ? matcher : null;
+        } catch (MatchAbortedException e) {
+            if (e.interrupted) {
+                return null;
+            }
+            logRegexTimeout(pattern.pattern(), text.length());
+            return TIMED_OUT;
+        } catch (RuntimeException | StackOverflowError e) {
+            return null;
+        }
+    }
+
     /**
      * 记录正则超时日志
      * @param pattern 超时的正则表达式
@@ -142,17 +128,60 @@ public class RegexUtils {
     }
 
     /**
-     * 关闭线程池
+     * 带截止时间的文本视图，每 CHECK_INTERVAL 次 charAt 检查一次时钟和中断标志
+     * 回溯爆炸时正则引擎会反复读取字符，因此总能在超时后不久中止
      */
-    public static void shutdown() {
-        REGEX_EXECUTOR.shutdown();
-        try {
-            if (!REGEX_EXECUTOR.awaitTermination(5, TimeUnit.SECONDS)) {
-                REGEX_EXECUTOR.shutdownNow();
+    private static final class DeadlineText implements CharSequence {
+        private final CharSequence text;
+        private final long deadline;
+        private int reads;
+
+        DeadlineText(CharSequence text, long deadline) {
+            this.text = text;
+            this.deadline = deadline;
+        }
+
+        @Override
+        public char charAt(int index) {
+            if (++reads >= CHECK_INTERVAL) {
+                reads = 0;
+                if (Thread.currentThread().isInterrupted()) {
+                    throw new MatchAbortedException(true);
+                }
+                if (System.nanoTime() - deadline > 0) {
+                    throw new MatchAbortedException(false);
+                }
             }
-        } catch (InterruptedException e) {
-            REGEX_EXECUTOR.shutdownNow();
-            Thread.currentThread().interrupt();
+            return text.charAt(index);
+        }
+
+        @Override
+        public int length() {
+            return text.length();
+        }
+
+        @Override
+        public CharSequence subSequence(int start, int end) {
+            return new DeadlineText(text.subSequence(start, end), deadline);
+        }
+
+        @Override
+        public String toString() {
+            return text.toString();
+        }
+    }
+
+    /**
+     * 匹配超时或线程被中断，不收集调用栈
+     */
+    private static final class MatchAbortedException extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        final boolean interrupted;
+
+        MatchAbortedException(boolean interrupted) {
+            super(null, null, false, false);
+            this.interrupted = interrupted;
         }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,176 @@
+/*
+ * @saoshao<1224165231@qq.com>
+ */
+package DetSql.util;
+
+import java.util.Arrays;
+import java.util.concurrent.ArrayBlockingQueue;
+
+/**
+ * 响应体的字符直方图摘要
+ *
+ * <p>每次插入/删除改变一个字符的计数,替换最多让两个字符的计数各差 1,
+ * 因此两个直方图的差给出编辑距离的下界: d >= max(多出的字符数, 缺少的字符数)。
+ * 该下界只需 O(不同字符数) 即可算出,基线响应的摘要在票据内只计算一次。
+ *
+ * <p>按 HTML 结构比较时使用的 token 序列、按 JSON 结构比较时的字段表也缓存在摘要中。
+ */
+public final class ResponseSketch {
+
+    // 统计用的计数数组复用池
+    private static final ArrayBlockingQueue<int[]> COUNT_SCRATCH = new ArrayBlockingQueue<>(16);
+
+    private final CharSequence text;
+    // 直方图和 HTML token 序列在首次比较时计算,之后复用 (并发下可能重复计算,结果相同)
+    private volatile Histogram histogram;
+    private volatile HtmlTokens.Sequence htmlTokens;
+    private volatile JsonFields jsonFields;
+
+    private ResponseSketch(CharSequence text) {
+        this.text = text;
+    }
+
+    /**
+     * 包装文本 (String 或 ByteText),直方图延迟到需要时才计算
+     */
+    public static ResponseSketch of(CharSequence text) {
+        if (text == null) {
+            throw new IllegalArgumentException("Text must not be null");
+        }
+        return new ResponseSketch(text);
+    }
+
+    public CharSequence text() {
+        return text;
+    }
+
+    public int length() {
+        return text.length();
+    }
+
+    /**
+     * 文本内容的 64 位摘要 (FNV-1a),用于缓存查找,命中后仍需比较内容
+     */
+    public static long digest(CharSequence text) {
+        long h = 0xcbf29ce484222325L;
+        for (int i = 0, len = text.length(); i < len; i++) {
+            h ^= text.charAt(i);
+            h *= 0x100000001b3L;
+        }
+        return h;
+    }
+
+    /**
+     * 与另一个摘要对应字符串之间编辑距离的下界
+     */
+    public int editDistanceLowerBound(ResponseSketch other) {
+        Histogram mine = histogram();
+        Histogram theirs = other.histogram();
+        char[] chars = mine.chars;
+        int[] counts = mine.counts;
+        char[] otherChars = theirs.chars;
+        int[] otherCounts = theirs.counts;
+        int surplus = 0;
+        int deficit = 0;
+        int i = 0;
+        int j = 0;
+        while (i < chars.length || j < otherChars.length) {
+            if (j == otherChars.length || (i < chars.length && chars[i] < otherChars[j])) {
+                surplus += counts[i++];
+            } else if (i == chars.length || otherChars[j] < chars[i]) {
+                deficit += otherCounts[j++];
+            } else {
+                int diff = counts[i++] - otherCounts[j++];
+                if (diff > 0) {
+                    surplus += diff;
+                } else {
+                    deficit -= diff;
+                }
+            }
+        }
+        return Math.max(surplus, deficit);
+    }
+
+    /**
+     * HTML token 哈希序列,见 HtmlTokens;返回的数组不应修改
+     */
+    public int[] htmlTokens() {
+        return htmlTokenSequence().hashes();
+    }
+
+    /**
+     * HTML token 序列及各 token 的原文区间
+     */
+    public HtmlTokens.Sequence htmlTokenSequence() {
+        HtmlTokens.Sequence tokens = htmlTokens;
+        if (tokens == null) {
+            tokens = HtmlTokens.scan(text);
+            htmlTokens = tokens;
+        }
+        return tokens;
+    }
+
+    /**
+     * JSON 展开后的字段表,不是 JSON 时为 JsonFields.NOT_JSON
+     */
+    public JsonFields jsonFields() {
+        JsonFields fields = jsonFields;
+        if (fields == null) {
+            fields = JsonFields.parse(text);
+            jsonFields = fields;
+        }
+        return fields;
+    }
+
+    private Histogram histogram() {
+        Histogram h = histogram;
+        if (h == null) {
+            h = Histogram.count(text);
+            histogram = h;
+        }
+        return h;
+    }
+
+    /**
+     * 出现过的字符 (升序) 及其出现次数
+     */
+    private static final class Histogram {
+        final char[] chars;
+        final int[] counts;
+
+        private Histogram(char[] chars, int[] counts) {
+            this.chars = chars;
+            this.counts = counts;
+        }
+
+        static Histogram count(CharSequence text) {
+            int[] scratch = COUNT_SCRATCH.poll();
+            if (scratch == null) {
+                scratch = new int[Character.MAX_VALUE + 1];
+            }
+            try {
+                int distinct = 0;
+                char[] seen = new char[Math.min(text.length(), 128)];
+                for (int i = 0, len = text.length(); i < len; i++) {
+                    char c = text.charAt(i);
+                    if (scratch[c]++ == 0) {
+                        if (distinct == seen.length) {
+                            seen = Arrays.copyOf(seen, Math.min(text.length(), distinct * 2));
+                        }
+                        seen[distinct++] = c;
+                    }
+                }
+                char[] chars = Arrays.copyOf(seen, distinct);
+                Arrays.sort(chars);
+                int[] counts = new int[distinct];
+                for (int i = 0; i < distinct; i++) {
+                    counts[i] = scratch[chars[i]];
+                    scratch[chars[i]] = 0;
+                }
+                return new Histogram(chars, counts);
+            } finally {
+                COUNT_SCRATCH.offer(scratch);
+            }
+        }
+    }
+}
@@ -0,0 +1,291 @@
+/*
+ * @saoshao<1224165231@qq.com>
+ */
+
+package DetSql.util;
+
+import java.util.AbstractQueue;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongSupplier;
+
+/**
+ * 有界优先级任务队列 (供 ThreadPoolExecutor 使用)
+ *
+ * - 实现 {@link Prioritized} 的任务按 priority 从高到低出队
+ * - 普通 Runnable 使用默认优先级 0
+ * - 同优先级按入队顺序 (FIFO) 出队
+ * - 可选老化: 排队每满 agingMillis 毫秒优先级加 1,低优先级任务不会被持续涌入的高优先级任务饿死
+ * - 容量有界,满时 offer 返回 false,由线程池的拒绝策略处理
+ *
+ * 所有任务按同一速率老化,任意两个任务的先后只取决于 priority × agingNanos - 入队时刻,
+ * 入队时算出这个排序键即可,堆不需要随时间调整。
+ *
+ * JDK 的 PriorityBlockingQueue 是无界的,无法保留原 LinkedBlockingQueue(1000) 的背压语义,
+ * 因此这里用一把锁 + PriorityQueue 自行实现。
+ */
+public class ScanPriorityQueue extends AbstractQueue<Runnable> implements BlockingQueue<Runnable> {
+
+    /**
+     * 带优先级的任务
+     */
+    public interface Prioritized {
+        /**
+         * @return 优先级,数值越大越先执行
+         */
+        long priority();
+    }
+
+    private record Entry(Runnable task, long rank, long sequence) {
+    }
+
+    private final int capacity;
+    // 优先级加 1 所需的排队时长,0 表示不老化
+    private final long agingNanos;
+    private final LongSupplier clock;
+    private final long origin;
+    private final PriorityQueue<Entry> heap = new PriorityQueue<>((a, b) -> {
+        int byRank = Long.compare(b.rank, a.rank);
+        return byRank != 0 ? byRank : Long.compare(a.sequence, b.sequence);
+    });
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition notEmpty = lock.newCondition();
+    private long nextSequence;
+
+    public ScanPriorityQueue(int capacity) {
+        this(capacity, 0);
+    }
+
+    /**
+     * @param capacity    容量
+     * @param agingMillis 排队多少毫秒优先级加 1,0 表示不老化
+     */
+    public ScanPriorityQueue(int capacity, long agingMillis) {
+        this(capacity, agingMillis, System::nanoTime);
+    }
+
+    ScanPriorityQueue(int capacity, long agingMillis, LongSupplier clock) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("capacity must be positive");
+        }
+        if (agingMillis < 0) {
+            throw new IllegalArgumentException("agingMillis must not be negative");
+        }
+        this.capacity = capacity;
+        this.agingNanos = TimeUnit.MILLISECONDS.toNanos(agingMillis);
+        this.clock = clock;
+        this.origin = clock.getAsLong();
+    }
+
+    private static long priorityOf(Runnable task) {
+        return task instanceof Prioritized p ? p.priority() : 0L;
+    }
+
+    /**
+     * 排序键: 数值越大越先出队
+     */
+    private long rankOf(Runnable task) {
+        long priority = priorityOf(task);
+        if (agingNanos == 0) {
+            return priority;
+        }
+        // 优先级来自 int 配置权重之和,乘以纳秒级的老化间隔不会溢出
+        return priority * agingNanos - (clock.getAsLong() - origin);
+    }
+
+    @Override
+    public boolean offer(Runnable task) {
+        if (task == null) {
+            throw new NullPointerException();
+        }
+        lock.lock();
+        try {
+            if (heap.size() >= capacity) {
+                return false;
+            }
+            heap.add(new Entry(task, rankOf(task), nextSequence++));
+            notEmpty.signal();
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void put(Runnable task) throws InterruptedException {
+        // 扫描队列只通过 offer 入队 (满时走拒绝策略),put 不阻塞等待空间
+        if (!offer(task)) {
+            throw new IllegalStateException("Queue full");
+        }
+    }
+
+    @Override
+    public boolean offer(Runnable task, long timeout, TimeUnit unit) {
+        return offer(task);
+    }
+
+    @Override
+    public Runnable poll() {
+        lock.lock();
+        try {
+            Entry entry = heap.poll();
+            return entry == null ? null : entry.task;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public Runnable take() throws InterruptedException {
+        lock.lockInterruptibly();
+        try {
+            while (heap.isEmpty()) {
+                notEmpty.await();
+            }
+            return heap.poll().task;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public Runnable poll(long timeout, TimeUnit unit) throws InterruptedException {
+        long nanos = unit.toNanos(timeout);
+        lock.lockInterruptibly();
+        try {
+            while (heap.isEmpty()) {
+                if (nanos <= 0L) {
+                    return null;
+                }
+                nanos = notEmpty.awaitNanos(nanos);
+            }
+            return heap.poll().task;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public Runnable peek() {
+        lock.lock();
+        try {
+            Entry entry = heap.peek();
+            return entry == null ? null : entry.task;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public int size() {
+        lock.lock();
+        try {
+            return heap.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public int remainingCapacity() {
+        lock.lock();
+        try {
+            return capacity - heap.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public boolean remove(Object o) {
+        if (o == null) {
+            return false;
+        }
+        lock.lock();
+        try {
+            Iterator<Entry> it = heap.iterator();
+            while (it.hasNext()) {
+                if (it.next().task.equals(o)) {
+                    it.remove();
+                    return true;
+                }
+            }
+            return false;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public int drainTo(Collection<? super Runnable> c) {
+        return drainTo(c, Integer.MAX_VALUE);
+    }
+
+    @Override
+    public int drainTo(Collection<? super Runnable> c, int maxElements) {
+        if (c == this) {
+            throw new IllegalArgumentException();
+        }
+        lock.lock();
+        try {
+            int n = 0;
+            while (n < maxElements && !heap.isEmpty()) {
+                c.add(heap.poll().task);
+                n++;
+            }
+            return n;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 返回按出队顺序排列的快照迭代器,remove 作用于原队列
+     */
+    @Override
+    public Iterator<Runnable> iterator() {
+        List<Runnable> tasks;
+        lock.lock();
+        try {
+            List<Entry> entries = new ArrayList<>(heap);
+            entries.sort(heap.comparator());
+            tasks = new ArrayList<>(entries.size());
+            for (Entry entry : entries) {
+                tasks.add(entry.task);
+            }
+        } finally {
+            lock.unlock();
+        }
+        Iterator<Runnable> snapshot = tasks.iterator();
+        return new Iterator<>() {
+            private Runnable last;
+
+            @Override
+            public boolean hasNext() {
+                return snapshot.hasNext();
+            }
+
+            @Override
+            public Runnable next() {
+                last = snapshot.next();
+                return last;
+            }
+
+            @Override
+            public void remove() {
+                if (last == null) {
+                    throw new IllegalStateException();
+                }
+                ScanPriorityQueue.this.remove(last);
+                last = null;
+            }
+        };
+    }
+}
@@ -0,0 +1,266 @@
+/*
+ * @saoshao<1224165231@qq.com>
+ */
+package DetSql.util;
+
+import java.util.Arrays;
+
+/**
+ * 分级的 Levenshtein 相似度判定
+ *
+ * <p>策略只关心相似度是否高于阈值,按代价从低到高依次尝试:
+ * <ol>
+ *   <li>GATE: 长度差、空串、前后缀包含、HTML 差异部分只是回显的 PoC 等规则 (与 MyCompare.averageLevenshtein 相同)</li>
+ *   <li>SKETCH: 字符直方图给出的编辑距离下界已足以判定不相似</li>
+ *   <li>EDIT_DISTANCE: 带上界的编辑距离,算出精确值</li>
+ *   <li>BAND_EXIT: 编辑距离超过阈值对应的上界,提前退出</li>
+ *   <li>BLOCK_DIFF: 较长的文本 (不短于 BLOCK_DIFF_MIN) 不做完整计算,改用分块对齐后的编辑距离</li>
+ *   <li>JSON: 两侧都是 JSON 时按字段表比较 (见 JsonFields),不经过上面的文本规则</li>
+ * </ol>
+ * 前四级的判定结果与完整计算后再和阈值比较完全一致;由 SKETCH/BAND_EXIT 判定时
+ * 返回的是相似度上界 (不超过阈值),不是精确值。BLOCK_DIFF 的距离是真实距离的上界
+ * (见 BlockDiff),变化集中在少数区域时与真实值相同。
+ *
+ * <p>输入可以是 String 或 ByteText:PoC 响应直接包装响应字节,截取差异部分、前缀等都是视图,
+ * 整个比较过程不解码响应体。
+ */
+public final class SimilarityCascade {
+
+    /**
+     * 作出判定的阶段
+     */
+    public enum Stage {
+        GATE,
+        SKETCH,
+        EDIT_DISTANCE,
+        BAND_EXIT,
+        BLOCK_DIFF,
+        JSON
+    }
+
+    /**
+     * 判定结果
+     * @param similarity 相似度;SKETCH/BAND_EXIT 阶段为上界
+     * @param stage 作出判定的阶段
+     */
+    public record Verdict(double similarity, Stage stage) {
+
+        /**
+         * similarity 是否只是上界 (SKETCH/BAND_EXIT 提前判定为不相似时未算出精确值)
+         */
+        public boolean isUpperBound() {
+            return stage == Stage.SKETCH || stage == Stage.BAND_EXIT;
+        }
+    }
+
+    // 文本不短于此长度时用分块对齐代替完整的编辑距离计算
+    static final int BLOCK_DIFF_MIN = 16 * 1024;
+
+    private SimilarityCascade() {
+    }
+
+    /**
+     * 按阈值判定两个响应的相似度,规则与 MyCompare.averageLevenshtein 一致
+     * @param left 响应1 (基线响应传入票据缓存的摘要,直方图只计算一次)
+     * @param right 响应2
+     * @param echo1 响应1 中回显的 PoC,仅 htmlFlag 时使用
+     * @param echo2 响应2 中回显的 PoC,仅 htmlFlag 时使用
+     * @param htmlFlag 是否只比较去除公共前后缀后的差异部分
+     * @param threshold 相似度阈值,调用方以 similarity > threshold 视为相似
+     */
+    public static Verdict levenshtein(ResponseSketch left, ResponseSketch right,
+                                      PayloadEcho echo1, PayloadEcho echo2, boolean htmlFlag, double threshold) {
+        return cascade(left, right, echo1, echo2, htmlFlag, false, threshold);
+    }
+
+    /**
+     * HTML 响应按结构判定: 门控规则与 levenshtein(htmlFlag = true) 相同,
+     * 最后一步改为比较两个响应的 token 序列 (见 HtmlTokens),相似度按变化区间的 token 数归一
+     */
+    public static Verdict htmlStructure(ResponseSketch left, ResponseSketch right,
+                                        PayloadEcho echo1, PayloadEcho echo2, double threshold) {
+        return cascade(left, right, echo1, echo2, true, true, threshold);
+    }
+
+    /**
+     * JSON 响应按字段比较;任一侧不是 JSON 时按文本判定 (同 levenshtein(htmlFlag = false))
+     */
+    public static Verdict json(ResponseSketch left, ResponseSketch right,
+                               PayloadEcho echo1, PayloadEcho echo2, double threshold) {
+        if (ByteText.contentEquals(left.text(), right.text())) {
+            return new Verdict(1.0, Stage.GATE);
+        }
+        JsonFields leftFields = left.jsonFields();
+        JsonFields rightFields = right.jsonFields();
+        if (!leftFields.isJson() || !rightFields.isJson()) {
+            return levenshtein(left, right, echo1, echo2, false, threshold);
+        }
+        return new Verdict(JsonFields.similarity(leftFields, rightFields, echo1, echo2), Stage.JSON);
+    }
+
+    private static Verdict cascade(ResponseSketch left, ResponseSketch right, PayloadEcho echo1, PayloadEcho echo2,
+                                   boolean htmlFlag, boolean structure, double threshold) {
+        CharSequence s1 = left.text();
+        CharSequence s2 = right.text();
+        int lengthDiff = Math.abs(s1.length() - s2.length());
+
+        if (lengthDiff <= 1) {
+            return new Verdict(1.0, Stage.GATE);
+        }
+        if (s1.length() == 0 || s2.length() == 0 || lengthDiff >= 100) {
+            return new Verdict(0.0, Stage.GATE);
+        }
+        if (s1.length() < s2.length() && (ByteText.startsWith(s2, s1) || ByteText.endsWith(s2, s1))) {
+            return new Verdict(0.0, Stage.GATE);
+        }
+        if (s2.length() < s1.length() && (ByteText.startsWith(s1, s2) || ByteText.endsWith(s1, s2))) {
+            return new Verdict(0.0, Stage.GATE);
+        }
+
+        if (!htmlFlag) {
+            return compare(left, right, threshold);
+        }
+
+        // 只比较差异部分
+        CharSequence[] parts = s1.length() < s2.length() ? trimCommon(s1, s2) : trimCommon(s2, s1);
+        Verdict echo = s1.length() < s2.length()
+                ? echoVerdict(parts[0], echo1, parts[1], echo2)
+                : echoVerdict(parts[0], echo2, parts[1], echo1);
+        if (echo != null) {
+            return echo;
+        }
+        if (structure) {
+            return compareTokens(left, right, echo1, echo2, threshold);
+        }
+        return compare(ResponseSketch.of(parts[0]), ResponseSketch.of(parts[1]), threshold);
+    }
+
+    /**
+     * 差异部分一方只是回显的 PoC 而另一方不是即视为不同,双方都是回显 (或为空) 视为相同;
+     * 其余情况返回 null,由后续阶段判定
+     */
+    private static Verdict echoVerdict(CharSequence shorterPart, PayloadEcho shorterEcho,
+                                       CharSequence longerPart, PayloadEcho longerEcho) {
+        boolean shorterEmpty = shorterEcho.isOnlyEcho(shorterPart);
+        boolean longerEmpty = longerEcho.isOnlyEcho(longerPart);
+        if (shorterEmpty != longerEmpty) {
+            return new Verdict(0.0, Stage.GATE);
+        }
+        return shorterEmpty ? new Verdict(1.0, Stage.GATE) : null;
+    }
+
+    /**
+     * 两段文本去掉公共前后缀后按回显规则判定,shorter 不长于 longer
+     */
+    private static Verdict echoVerdictOf(CharSequence shorter, PayloadEcho shorterEcho,
+                                         CharSequence longer, PayloadEcho longerEcho) {
+        CharSequence[] parts = trimCommon(shorter, longer);
+        return echoVerdict(parts[0], shorterEcho, parts[1], longerEcho);
+    }
+
+    /**
+     * 去掉公共前后缀后的差异部分,结果与 MyCompare.upgradeStr 相同,但返回的是视图而非新字符串
+     * @param shorter 较短的文本
+     * @param longer 较长的文本
+     */
+    static CharSequence[] trimCommon(CharSequence shorter, CharSequence longer) {
+        int shorterLength = shorter.length();
+        int longerLength = longer.length();
+        int prefix = ByteText.commonPrefix(shorter, longer);
+        int suffix = ByteText.commonSuffix(shorter, longer, shorterLength - prefix);
+        return new CharSequence[]{
+            shorter.subSequence(prefix, shorterLength - suffix),
+            longer.subSequence(prefix, longerLength - suffix)
+        };
+    }
+
+    /**
+     * 对应 MyCompare.levenshtein,在完整计算之前先尝试下界判定
+     */
+    private static Verdict compare(ResponseSketch left, ResponseSketch right, double threshold) {
+        CharSequence s1 = left.text();
+        CharSequence s2 = right.text();
+        if (ByteText.contentEquals(s1, s2)) {
+            return new Verdict(1.0, Stage.GATE);
+        }
+        int maxLen = Math.max(s1.length(), s2.length());
+
+        // 与 MyCompare.levenshtein 相同的前缀快速失败
+        if (s1.length() > 100 && s2.length() > 100) {
+            CharSequence prefix1 = s1.subSequence(0, 100);
+            CharSequence prefix2 = s2.subSequence(0, 100);
+            if (!ByteText.contentEquals(prefix1, prefix2) && BoundedLevenshtein.distance(prefix1, prefix2, 50) < 0) {
+                return new Verdict(0.0, Stage.GATE);
+            }
+        }
+
+        int lowerBound = left.editDistanceLowerBound(right);
+        double upper = 1 - (double) lowerBound / maxLen;
+        if (upper <= threshold) {
+            return new Verdict(upper, Stage.SKETCH);
+        }
+
+        int maxDistance = threshold > 0 ? (int) Math.ceil(maxLen * (1 - threshold)) : -1;
+        if (maxLen >= BLOCK_DIFF_MIN) {
+            int aligned = BlockDiff.distance(s1, s2, maxDistance);
+            double similarity = aligned < 0
+                    ? Math.min(threshold, 1 - (double) (maxDistance + 1) / maxLen)
+                    : 1 - (double) aligned / maxLen;
+            return new Verdict(similarity, Stage.BLOCK_DIFF);
+        }
+        int distance = BoundedLevenshtein.distance(s1, s2, maxDistance);
+        if (distance < 0) {
+            return new Verdict(Math.min(threshold, 1 - (double) (maxDistance + 1) / maxLen), Stage.BAND_EXIT);
+        }
+        return new Verdict(1 - (double) distance / maxLen, Stage.EDIT_DISTANCE);
+    }
+
+    /**
+     * token 序列的带上界编辑距离,判定规则与 compare 相同
+     *
+     * <p>与文本模式一样只比较去掉公共前后缀 token 后的变化区间,相似度按区间长度归一:
+     * 大页面中插入一小段报错信息时,整页的 token 数不会把差异稀释到阈值以上。
+     * 变化区间的原文再去掉公共前后缀后只是回显的 PoC 时按回显规则判定。
+     */
+    private static Verdict compareTokens(ResponseSketch leftSketch, ResponseSketch rightSketch,
+                                         PayloadEcho echo1, PayloadEcho echo2, double threshold) {
+        HtmlTokens.Sequence leftTokens = leftSketch.htmlTokenSequence();
+        HtmlTokens.Sequence rightTokens = rightSketch.htmlTokenSequence();
+        int[] left = leftTokens.hashes();
+        int[] right = rightTokens.hashes();
+        if (Arrays.equals(left, right)) {
+            return new Verdict(1.0, Stage.GATE);
+        }
+        int prefix = 0;
+        int shorter = Math.min(left.length, right.length);
+        while (prefix < shorter && left[prefix] == right[prefix]) {
+            prefix++;
+        }
+        int suffix = 0;
+        while (suffix < shorter - prefix
+                && left[left.length - 1 - suffix] == right[right.length - 1 - suffix]) {
+            suffix++;
+        }
+        int leftEnd = left.length - suffix;
+        int rightEnd = right.length - suffix;
+
+        CharSequence leftText = leftTokens.text(leftSketch.text(), prefix, leftEnd);
+        CharSequence rightText = rightTokens.text(rightSketch.text(), prefix, rightEnd);
+        Verdict echo = leftText.length() < rightText.length()
+                ? echoVerdictOf(leftText, echo1, rightText, echo2)
+                : echoVerdictOf(rightText, echo2, leftText, echo1);
+        if (echo != null) {
+            return echo;
+        }
+
+        left = Arrays.copyOfRange(left, prefix, leftEnd);
+        right = Arrays.copyOfRange(right, prefix, rightEnd);
+        int maxLen = Math.max(left.length, right.length);
+        int maxDistance = threshold > 0 ? (int) Math.ceil(maxLen * (1 - threshold)) : -1;
+        int distance = BoundedLevenshtein.distance(left, right, maxDistance);
+        if (distance < 0) {
+            return new Verdict(Math.min(threshold, 1 - (double) (maxDistance + 1) / maxLen), Stage.BAND_EXIT);
+        }
+        return new Verdict(1 - (double) distance / maxLen, Stage.EDIT_DISTANCE);
+    }
+}
@@ -6,6 +6,7 @@ package DetSql.util;
 
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
 import DetSql.model.PocLogEntry;
 
 
@@ -72,6 +73,44 @@ public class Statistics {
     private final long startTime = System.currentTimeMillis();
     private final AtomicLong totalTestTime = new AtomicLong(0);
 
+    // 扫描队列等待时间 (按优先级类别)
+    private final ConcurrentHashMap<String, QueueWait> queueWaits = new ConcurrentHashMap<>();
+
+    // 磁盘溢出队列: 当前积压、累计溢出、累计读回、无法溢出而丢弃
+    private final AtomicInteger overflowDepth = new AtomicInteger(0);
+    private final AtomicLong overflowSpilled = new AtomicLong(0);
+    private final AtomicLong overflowRestored = new AtomicLong(0);
+    private final AtomicLong overflowDropped = new AtomicLong(0);
+
+    // PoC 请求: 实际发送数和从票据缓存复用的次数
+    private final AtomicLong pocRequestsSent = new AtomicLong(0);
+    private final AtomicLong pocCacheHits = new AtomicLong(0);
+
+    // 提前结束 (FindingPolicy) 跳过的策略子任务数和 payload 数
+    private final AtomicLong earlyStopUnits = new AtomicLong(0);
+    private final AtomicLong earlyStopPayloads = new AtomicLong(0);
+
+    // 相似度比较: 各判定阶段 (SimilarityCascade.Stage) 处理的次数
+    private final AtomicLongArray similarityStages = new AtomicLongArray(SimilarityCascade.Stage.values().length);
+
+    /**
+     * 某个优先级类别的排队等待统计快照
+     */
+    public record QueueWaitSnapshot(String priorityClass, long count, long averageMs, long maxMs) {
+    }
+
+    private static final class QueueWait {
+        private final AtomicLong count = new AtomicLong();
+        private final AtomicLong totalMs = new AtomicLong();
+        private final AtomicLong maxMs = new AtomicLong();
+
+        private void record(long waitMs) {
+            count.incrementAndGet();
+            totalMs.addAndGet(waitMs);
+            maxMs.accumulateAndGet(waitMs, Math::max);
+        }
+    }
+
     /**
      * Increments the count of processed requests
      */
@@ -125,6 +164,126 @@ public class Statistics {
         totalTestTime.addAndGet(milliseconds);
     }
 
+    /**
+     * 记录扫描任务在队列中的等待时间
+     * @param priorityClass 优先级类别 (MANUAL / PROXY)
+     * @param waitMs 等待毫秒数
+     */
+    public void recordQueueWait(String priorityClass, long waitMs) {
+        queueWaits.computeIfAbsent(priorityClass, k -> new QueueWait()).record(waitMs);
+    }
+
+    /**
+     * 获取各优先级类别的排队等待统计
+     * @return 按类别名排序的快照
+     */
+    public java.util.List<QueueWaitSnapshot> getQueueWaitStats() {
+        java.util.List<QueueWaitSnapshot> result = new java.util.ArrayList<>();
+        queueWaits.forEach((cls, wait) -> {
+            long count = wait.count.get();
+            result.add(new QueueWaitSnapshot(cls, count,
+                    count == 0 ? 0 : wait.totalMs.get() / count, wait.maxMs.get()));
+        });
+        result.sort(java.util.Comparator.comparing(QueueWaitSnapshot::priorityClass));
+        return result;
+    }
+
+    /**
+     * 记录一个扫描任务溢出到磁盘
+     * @param depth 溢出后的磁盘积压数
+     */
+    public void recordOverflowSpilled(int depth) {
+        overflowSpilled.incrementAndGet();
+        overflowDepth.set(depth);
+    }
+
+    /**
+     * 记录一个扫描任务从磁盘读回扫描队列
+     * @param depth 读回后的磁盘积压数
+     */
+    public void recordOverflowRestored(int depth) {
+        overflowRestored.incrementAndGet();
+        overflowDepth.set(depth);
+    }
+
+    /**
+     * 记录一个扫描队列已满且无法溢出到磁盘而被丢弃的任务
+     */
+    public void recordOverflowDropped() {
+        overflowDropped.incrementAndGet();
+    }
+
+    public int getOverflowDepth() {
+        return overflowDepth.get();
+    }
+
+    public long getOverflowSpilled() {
+        return overflowSpilled.get();
+    }
+
+    public long getOverflowRestored() {
+        return overflowRestored.get();
+    }
+
+    public long getOverflowDropped() {
+        return overflowDropped.get();
+    }
+
+    /**
+     * 记录一个实际发送的 PoC 请求 (不含重试)
+     */
+    public void recordPocSent() {
+        pocRequestsSent.incrementAndGet();
+    }
+
+    /**
+     * 记录一个由缓存提供响应、未实际发送的 PoC 请求
+     */
+    public void recordPocCacheHit() {
+        pocCacheHits.incrementAndGet();
+    }
+
+    public long getPocRequestsSent() {
+        return pocRequestsSent.get();
+    }
+
+    public long getPocCacheHits() {
+        return pocCacheHits.get();
+    }
+
+    /**
+     * 记录因提前结束而跳过的 (参数, 策略) 子任务
+     */
+    public void recordEarlyStopUnits(int units) {
+        earlyStopUnits.addAndGet(units);
+    }
+
+    /**
+     * 记录策略内因提前结束而未发送的 payload
+     */
+    public void recordEarlyStopPayloads(int payloads) {
+        earlyStopPayloads.addAndGet(payloads);
+    }
+
+    public long getEarlyStopUnits() {
+        return earlyStopUnits.get();
+    }
+
+    public long getEarlyStopPayloads() {
+        return earlyStopPayloads.get();
+    }
+
+    /**
+     * 记录一次由指定阶段作出判定的相似度比较
+     */
+    public void recordSimilarityStage(SimilarityCascade.Stage stage) {
+        similarityStages.incrementAndGet(stage.ordinal());
+    }
+
+    public long getSimilarityStageCount(SimilarityCascade.Stage stage) {
+        return similarityStages.get(stage.ordinal());
+    }
+
     /**
      * Gets the count of processed requests
      * @return number of requests processed
@@ -273,6 +432,12 @@ public class Statistics {
         long minutes = (uptimeSeconds % 3600) / 60;
         long seconds = uptimeSeconds % 60;
 
+        StringBuilder queueWait = new StringBuilder();
+        for (QueueWaitSnapshot wait : getQueueWaitStats()) {
+            queueWait.append(String.format("Queue Wait %-11s%d tasks, avg %d ms, max %d ms\n",
+                    wait.priorityClass() + ":", wait.count(), wait.averageMs(), wait.maxMs()));
+        }
+
         return String.format(
             "═══════════════════════════════════════════════════\n" +
             "DetSql Statistics\n" +
@@ -285,6 +450,11 @@ public class Statistics {
             "Average Test Time:     %d ms\n" +
             "Memory Used:           %d MB / %d MB\n" +
             "Uptime:                %02d:%02d:%02d\n" +
+            "Overflow Queue:        %d (spilled %d, restored %d, dropped %d)\n" +
+            "PoC Requests:          %d sent, %d served from cache\n" +
+            "Early Stop Skipped:    %d strategy runs, %d payloads\n" +
+            "Similarity Resolved:   gate %d, sketch %d, edit distance %d, band exit %d, block diff %d, json %d\n" +
+            "%s" +
             "═══════════════════════════════════════════════════",
             getRequestsProcessed(),
             getVulnerabilitiesFound(),
@@ -294,7 +464,17 @@ public class Statistics {
             getAverageTestTime(),
             getMemoryUsedMB(),
             getMaxMemoryMB(),
-            hours, minutes, seconds
+            hours, minutes, seconds,
+            getOverflowDepth(), getOverflowSpilled(), getOverflowRestored(), getOverflowDropped(),
+            getPocRequestsSent(), getPocCacheHits(),
+            getEarlyStopUnits(), getEarlyStopPayloads(),
+            getSimilarityStageCount(SimilarityCascade.Stage.GATE),
+            getSimilarityStageCount(SimilarityCascade.Stage.SKETCH),
+            getSimilarityStageCount(SimilarityCascade.Stage.EDIT_DISTANCE),
+            getSimilarityStageCount(SimilarityCascade.Stage.BAND_EXIT),
+            getSimilarityStageCount(SimilarityCascade.Stage.BLOCK_DIFF),
+            getSimilarityStageCount(SimilarityCascade.Stage.JSON),
+            queueWait
         );
     }
 
@@ -324,5 +504,16 @@ public class Statistics {
         strategyTimeouts.set(0);
         totalTestTime.set(0);
         vulnerableParams.clear();
+        queueWaits.clear();
+        overflowSpilled.set(0);
+        overflowRestored.set(0);
+        overflowDropped.set(0);
+        pocRequestsSent.set(0);
+        pocCacheHits.set(0);
+        earlyStopUnits.set(0);
+        earlyStopPayloads.set(0);
+        for (int i = 0; i < similarityStages.length(); i++) {
+            similarityStages.set(i, 0);
+        }
     }
 }
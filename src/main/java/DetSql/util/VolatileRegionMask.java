@@ -0,0 +1,214 @@
+/*
+ * @saoshao<1224165231@qq.com>
+ */
+package DetSql.util;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * 响应体中的易变区域 (CSRF token、时间戳、请求 ID 等)
+ *
+ * <p>对同一请求重复获取的响应逐段比对,每个不一致的区域用其前后各一小段不变文本
+ * (锚点) 记录下来。屏蔽时在新的响应体中按顺序查找锚点,删除两锚点之间的内容。
+ * 用锚点而不是绝对偏移,是因为 PoC 响应的长度和偏移通常与基线不同。
+ */
+public final class VolatileRegionMask {
+
+    /**
+     * 没有易变区域
+     */
+    public static final VolatileRegionMask NONE = new VolatileRegionMask(Collections.emptyList());
+
+    // 锚点长度
+    static final int ANCHOR = 12;
+    // 单个易变区域的最大长度,超出时不再尝试重新对齐
+    static final int MAX_GAP = 512;
+    // 两份响应中同一易变区域的长度差上限
+    private static final int MAX_SKEW = 16;
+    // 区域数上限,响应大面积变化时不适合屏蔽
+    private static final int MAX_REGIONS = 32;
+
+    /**
+     * 一个易变区域: 左锚点之后、右锚点之前的内容会被删除
+     * @param offset 区域在基线中的起始位置,只用于排序
+     * @param left 左锚点,空串表示从开头起
+     * @param right 右锚点,空串表示直到结尾
+     */
+    record Region(int offset, String left, String right) {
+    }
+
+    private final List<Region> regions;
+
+    private VolatileRegionMask(List<Region> regions) {
+        this.regions = regions;
+    }
+
+    public boolean isEmpty() {
+        return regions.isEmpty();
+    }
+
+    public int regionCount() {
+        return regions.size();
+    }
+
+    /**
+     * 从基线和若干次重新获取的响应中学习易变区域
+     * @param baseline 基线响应体
+     * @param refetched 相同请求再次获取的响应体
+     * @return 易变区域;无法可靠对齐时返回 NONE
+     */
+    public static VolatileRegionMask learn(String baseline, List<String> refetched) {
+        Set<Region> learned = new LinkedHashSet<>();
+        for (String other : refetched) {
+            if (other == null || other.equals(baseline)) {
+                continue;
+            }
+            List<Region> diff = diff(baseline, other);
+            if (diff == null) {
+                return NONE;
+            }
+            learned.addAll(diff);
+        }
+        if (learned.isEmpty() || learned.size() > MAX_REGIONS) {
+            return NONE;
+        }
+        List<Region> ordered = new ArrayList<>(learned);
+        ordered.sort(Comparator.comparingInt(Region::offset));
+        return new VolatileRegionMask(List.copyOf(ordered));
+    }
+
+    /**
+     * 找出 a 与 b 的不一致区域,返回其锚点;区域过多或无法对齐时返回 null
+     */
+    private static List<Region> diff(String a, String b) {
+        List<Region> result = new ArrayList<>();
+        int suffix = commonSuffix(a, b);
+        int aEnd = a.length() - suffix;
+        int bEnd = b.length() - suffix;
+        int i = 0;
+        int j = 0;
+        int lastEnd = 0;
+        while (true) {
+            while (i < aEnd && j < bEnd && a.charAt(i) == b.charAt(j)) {
+                i++;
+                j++;
+            }
+            if (i >= aEnd && j >= bEnd) {
+                return result;
+            }
+            // 两个值可能恰好有相同的开头 (如同一分钟内的时间戳),区域扩展到值的边界,锚点才不会带上值的一部分
+            while (i > lastEnd && isValueChar(a.charAt(i - 1))) {
+                i--;
+                j--;
+            }
+            int offset = i;
+            String left = a.substring(Math.max(0, i - ANCHOR), i);
+            int[] sync = resync(a, i, aEnd, b, j, bEnd);
+            if (sync == null) {
+                // 无法重新对齐,说明不是局部的易变值,放弃屏蔽
+                return null;
+            }
+            i = sync[0];
+            j = sync[1];
+            while (i < aEnd && j < bEnd && isValueChar(a.charAt(i)) && a.charAt(i) == b.charAt(j)) {
+                i++;
+                j++;
+            }
+            lastEnd = i;
+            result.add(new Region(offset, left, a.substring(i, Math.min(a.length(), i + ANCHOR))));
+            if (result.size() > MAX_REGIONS) {
+                return null;
+            }
+        }
+    }
+
+    /**
+     * 从不一致处开始,寻找两边再次出现 ANCHOR 长度公共文本的位置
+     */
+    private static int[] resync(String a, int i, int aEnd, String b, int j, int bEnd) {
+        for (int gap = 1; gap <= MAX_GAP; gap++) {
+            int ai = i + gap;
+            if (ai > aEnd) {
+                break;
+            }
+            for (int skew = -Math.min(MAX_SKEW, gap - 1); skew <= MAX_SKEW; skew++) {
+                int bj = j + gap + skew;
+                if (bj < j || bj > bEnd) {
+                    continue;
+                }
+                int len = Math.min(ANCHOR, Math.min(aEnd - ai, bEnd - bj));
+                // 到达公共后缀边界也算对齐
+                if (len < ANCHOR && !(ai == aEnd && bj == bEnd)) {
+                    continue;
+                }
+                if (a.regionMatches(ai, b, bj, len)) {
+                    return new int[]{ai, bj};
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 是否属于 token/时间戳等值的一部分 (空白、引号、标签和常见分隔符之外的字符)
+     */
+    private static boolean isValueChar(char c) {
+        return !Character.isWhitespace(c) && "\"'<>&,;()[]{}".indexOf(c) < 0;
+    }
+
+    private static int commonSuffix(String a, String b) {
+        int max = Math.min(a.length(), b.length());
+        int n = 0;
+        while (n < max && a.charAt(a.length() - 1 - n) == b.charAt(b.length() - 1 - n)) {
+            n++;
+        }
+        return n;
+    }
+
+    /**
+     * 同 apply(String),没有易变区域时原样返回,不会把 ByteText 转成 String
+     */
+    public CharSequence apply(CharSequence body) {
+        if (regions.isEmpty() || body == null) {
+            return body;
+        }
+        return apply(body.toString());
+    }
+
+    /**
+     * 删除响应体中的易变区域,找不到锚点的区域跳过
+     */
+    public String apply(String body) {
+        if (regions.isEmpty() || body == null || body.isEmpty()) {
+            return body;
+        }
+        StringBuilder sb = null;
+        int pos = 0;
+        for (Region region : regions) {
+            int leftAt = region.left().isEmpty() ? pos : body.indexOf(region.left(), pos);
+            if (leftAt < 0) {
+                continue;
+            }
+            int start = leftAt + region.left().length();
+            int end = region.right().isEmpty() ? body.length() : body.indexOf(region.right(), start);
+            if (end < 0 || end - start > MAX_GAP + MAX_SKEW) {
+                continue;
+            }
+            if (sb == null) {
+                sb = new StringBuilder(body.length());
+            }
+            sb.append(body, pos, start);
+            pos = end;
+        }
+        if (sb == null) {
+            return body;
+        }
+        sb.append(body, pos, body.length());
+        return sb.toString();
+    }
+}
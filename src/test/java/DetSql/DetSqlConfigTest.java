@@ -52,7 +52,7 @@ public class DetSqlConfigTest {
         assertEquals(4, mConfig.getThreadPoolSize(), "Default thread pool size");
         assertEquals(1, mConfig.getThreadPoolSize2(), "Default thread pool size 2");
         assertEquals(0, mConfig.getDelayTimeMs(), "Default delay time");
-        assertEquals(100, mConfig.getStaticTimeMs(), "Default static time");
+        assertEquals(0, mConfig.getStaticTimeMs(), "Default static time");
     }
 
     @Test
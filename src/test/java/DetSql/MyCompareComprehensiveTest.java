@@ -1,5 +1,7 @@
 package DetSql;
 import DetSql.util.MyCompare;
+import DetSql.util.SimilarityCascade;
+import org.apache.commons.text.similarity.JaccardSimilarity;
 
 
 import org.junit.jupiter.api.Test;
@@ -8,6 +10,7 @@ import org.junit.jupiter.params.provider.CsvSource;
 import org.junit.jupiter.params.provider.ValueSource;
 
 import java.util.List;
+import java.util.Random;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -349,6 +352,17 @@ public class MyCompareComprehensiveTest {
         assertTrue(result2.contains("50"), "Should format as percentage");
     }
 
+    @Test
+    void should_MarkUpperBound_when_FormattingBoundedVerdict() {
+        SimilarityCascade.Verdict exact = new SimilarityCascade.Verdict(0.85, SimilarityCascade.Stage.EDIT_DISTANCE);
+        SimilarityCascade.Verdict sketch = new SimilarityCascade.Verdict(0.85, SimilarityCascade.Stage.SKETCH);
+        SimilarityCascade.Verdict band = new SimilarityCascade.Verdict(0.85, SimilarityCascade.Stage.BAND_EXIT);
+
+        assertEquals(MyCompare.formatPercent(0.85), MyCompare.formatSimilarity(exact));
+        assertEquals("≤" + MyCompare.formatPercent(0.85), MyCompare.formatSimilarity(sketch));
+        assertEquals("≤" + MyCompare.formatPercent(0.85), MyCompare.formatSimilarity(band));
+    }
+
     // ━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━
     // 参数化测试: 多种相似度场景
     // ━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━
@@ -412,4 +426,29 @@ public class MyCompareComprehensiveTest {
         // 由于长度相同,不会触发前缀/后缀包含, 会计算实际相似度
         assertTrue(levSims.get(0) > 0.7, "Similar SQL payloads should have moderate similarity");
     }
+
+    @Test
+    void should_MatchCommonsTextJaccard_when_RandomUnicodeInput() {
+        // Arrange: 覆盖 ASCII、中文和代理对字符
+        Random random = new Random(2024);
+        String alphabet = "abcXYZ<>/=\"' \n0123456789中文响应错误\uD83D\uDE00";
+        JaccardSimilarity reference = new JaccardSimilarity();
+
+        for (int round = 0; round < 300; round++) {
+            StringBuilder a = new StringBuilder();
+            StringBuilder b = new StringBuilder();
+            int lenA = random.nextInt(200);
+            int lenB = random.nextInt(200);
+            for (int i = 0; i < lenA; i++) {
+                a.append(alphabet.charAt(random.nextInt(alphabet.length())));
+            }
+            for (int i = 0; i < lenB; i++) {
+                b.append(alphabet.charAt(random.nextInt(alphabet.length() / 2 + 1)));
+            }
+
+            // Act & Assert: 结果逐位一致
+            assertEquals(reference.apply(a, b), MyCompare.jaccard(a.toString(), b.toString()), 0.0,
+                    "a=" + a + ", b=" + b);
+        }
+    }
 }
@@ -197,6 +197,31 @@ class RegexUtilsTest {
             assertNotNull(result);
         }
 
+        @Test
+        @DisplayName("超时在调用线程上中止匹配，不留下后台线程")
+        @Timeout(value = 2, unit = TimeUnit.SECONDS)
+        void testTimeoutAbortsInline() {
+            boolean result = RegexUtils.safeMatch("(a+)+$", "a".repeat(40) + "!", 200);
+            assertFalse(result, "应该因超时返回false");
+            boolean leaked = Thread.getAllStackTraces().keySet().stream()
+                .anyMatch(t -> t.getName().startsWith("DetSql-Regex-"));
+            assertFalse(leaked, "匹配不应再提交到线程池");
+        }
+
+        @Test
+        @DisplayName("线程被中断时立即中止匹配并保留中断标志")
+        @Timeout(value = 2, unit = TimeUnit.SECONDS)
+        void testInterruptAbortsMatch() {
+            Thread.currentThread().interrupt();
+            try {
+                boolean result = RegexUtils.safeMatch("(a+)+$", "a".repeat(40) + "!", 60_000);
+                assertFalse(result, "中断后应该返回false");
+                assertTrue(Thread.currentThread().isInterrupted(), "中断标志应该保留");
+            } finally {
+                Thread.interrupted();
+            }
+        }
+
         @Test
         @DisplayName("足够长的超时应该完成匹配")
         void testSufficientTimeout() {
@@ -0,0 +1,82 @@
+package DetSql.benchmark;
+
+import DetSql.util.ByteText;
+import org.openjdk.jmh.annotations.*;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 公共前缀/后缀扫描性能对比
+ *
+ * 对比逐字符比较 (String.charAt) 与 ByteText 的 Arrays.mismatch 批量比较,
+ * 输入为 10KB / 80KB 的类 HTML 响应对,只在中间一处插入了回显的 PoC,
+ * 与 PoC 响应和基线的典型差异相同。
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Thread)
+@Fork(value = 1, jvmArgs = {"-Xms256m", "-Xmx256m"})
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class PrefixScanBenchmark {
+
+    @Param({"10240", "81920"})
+    private int size;
+
+    private String string1;
+    private String string2;
+    private ByteText bytes1;
+    private ByteText bytes2;
+
+    @Setup
+    public void setup() {
+        string1 = htmlBody(size);
+        int middle = size / 2;
+        string2 = string1.substring(0, middle) + "1'" + string1.substring(middle);
+        bytes1 = ByteText.of(string1.getBytes(StandardCharsets.ISO_8859_1));
+        bytes2 = ByteText.of(string2.getBytes(StandardCharsets.ISO_8859_1));
+    }
+
+    private static String htmlBody(int size) {
+        Random random = new Random(7);
+        String[] parts = {"<div class=\"row\">", "</div>", "<td>", "</td>", "id=", "\n", " "};
+        StringBuilder sb = new StringBuilder(size + 32);
+        while (sb.length() < size) {
+            if (random.nextInt(4) == 0) {
+                sb.append(parts[random.nextInt(parts.length)]);
+            } else {
+                sb.append((char) ('a' + random.nextInt(26)));
+            }
+        }
+        return sb.substring(0, size);
+    }
+
+    /**
+     * 基准测试1: 逐字符比较 (原 upgradeStr 的做法)
+     */
+    @Benchmark
+    public int benchmarkCharLoop() {
+        int max = Math.min(string1.length(), string2.length());
+        int prefix = 0;
+        while (prefix < max && string1.charAt(prefix) == string2.charAt(prefix)) {
+            prefix++;
+        }
+        int suffix = 0;
+        while (suffix < max - prefix
+                && string1.charAt(string1.length() - 1 - suffix) == string2.charAt(string2.length() - 1 - suffix)) {
+            suffix++;
+        }
+        return prefix + suffix;
+    }
+
+    /**
+     * 基准测试2: ByteText 批量比较
+     */
+    @Benchmark
+    public int benchmarkByteMismatch() {
+        int prefix = ByteText.commonPrefix(bytes1, bytes2);
+        return prefix + ByteText.commonSuffix(bytes1, bytes2, Math.min(bytes1.length(), bytes2.length()) - prefix);
+    }
+}
@@ -0,0 +1,99 @@
+/*
+ * @saoshao<1224165231@qq.com>
+ */
+package DetSql.config;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * DiyRuleCache 单元测试
+ * 验证合并后的匹配结果与逐条匹配一致,以及配置变化后的失效
+ */
+class DiyRuleCacheTest {
+
+    private static Set<String> setOf(String... values) {
+        return new LinkedHashSet<>(List.of(values));
+    }
+
+    @Test
+    void testSnapshotReusedUntilConfigChanges() {
+        DetSqlConfig config = new DetSqlConfig();
+        config.setDiyRegexs(setOf("secret_\\d+"));
+        DiyRuleCache.Snapshot first = config.getDiyRules().current();
+        assertSame(first, config.getDiyRules().current());
+        assertEquals("secret_\\d+", first.firstMatch("leak: SECRET_42"));
+
+        config.setDiyRegexs(setOf("token=\\w+"));
+        DiyRuleCache.Snapshot second = config.getDiyRules().current();
+        assertNotSame(first, second);
+        assertNull(second.firstMatch("leak: SECRET_42"));
+        assertEquals("token=\\w+", second.firstMatch("token=abc"));
+
+        config.setDiyPayloads(setOf("'", "\""));
+        assertEquals(List.of("'", "\""), config.getDiyRules().current().payloads());
+    }
+
+    @Test
+    void testMergedRulesReportTheMatchingRule() {
+        DetSqlConfig config = new DetSqlConfig();
+        config.setDiyRegexs(setOf("(a)(b)c", "x(y)z", "error:\\s+\\d+"));
+        DiyRuleCache.Snapshot rules = config.getDiyRules().current();
+        assertEquals("x(y)z", rules.firstMatch("..XYZ.."));
+        assertEquals("error:\\s+\\d+", rules.firstMatch("error:\r\n 17"));
+        assertEquals("(a)(b)c", rules.firstMatch("abc"));
+        assertNull(rules.firstMatch("nothing here"));
+    }
+
+    @Test
+    void testUnmergeableAndInvalidRules() {
+        assertFalse(DiyRuleCache.Snapshot.mergeable("(a)\\1"));
+        assertFalse(DiyRuleCache.Snapshot.mergeable("(?<n>a)\\k<n>"));
+        assertFalse(DiyRuleCache.Snapshot.mergeable("(?-i)CaseSensitive"));
+        assertTrue(DiyRuleCache.Snapshot.mergeable("(?:a|b)(?=c)(?<=d)\\d+"));
+
+        DetSqlConfig config = new DetSqlConfig();
+        config.setDiyRegexs(setOf("[unclosed", "(a)\\1", "(?-i)Exact", "plain"));
+        DiyRuleCache.Snapshot rules = config.getDiyRules().current();
+        assertTrue(rules.hasRegexs());
+        assertEquals("(a)\\1", rules.firstMatch("aa"));
+        assertNull(rules.firstMatch("exact"));
+        assertEquals("(?-i)Exact", rules.firstMatch("Exact"));
+        assertEquals("plain", rules.firstMatch("PLAIN"));
+    }
+
+    @Test
+    @Timeout(value = 10, unit = TimeUnit.SECONDS)
+    void testMergedTimeoutFallsBackToPerRuleMatching() {
+        DetSqlConfig config = new DetSqlConfig();
+        config.setDiyRegexs(setOf("(.*a){30}", "sql syntax"));
+        DiyRuleCache.Snapshot rules = config.getDiyRules().current();
+
+        // 回溯爆炸的规则让合并式超时,另一条规则仍应命中
+        String text = "a".repeat(40) + "! You have an error in your SQL syntax";
+        assertEquals("sql syntax", rules.firstMatch(text));
+    }
+
+    @Test
+    void testLoadInvalidatesSnapshot() throws Exception {
+        DetSqlConfig config = new DetSqlConfig();
+        assertFalse(config.getDiyRules().current().hasRegexs());
+        Path file = Files.createTempFile("detsql", ".txt");
+        try {
+            Files.writeString(file, "diyregex=loaded_rule\n");
+            config.load(file.toString());
+            assertEquals("loaded_rule", config.getDiyRules().current().firstMatch("a loaded_rule b"));
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+}
@@ -0,0 +1,198 @@
+package DetSql.core;
+
+import burp.api.montoya.MontoyaApi;
+import burp.api.montoya.core.ByteArray;
+import burp.api.montoya.http.Http;
+import burp.api.montoya.http.HttpService;
+import burp.api.montoya.http.message.HttpRequestResponse;
+import burp.api.montoya.http.message.MimeType;
+import burp.api.montoya.http.message.params.HttpParameterType;
+import burp.api.montoya.http.message.params.ParsedHttpParameter;
+import burp.api.montoya.http.message.requests.HttpRequest;
+import burp.api.montoya.http.message.responses.HttpResponse;
+import burp.api.montoya.internal.MontoyaObjectFactory;
+import burp.api.montoya.internal.ObjectFactoryLocator;
+import burp.api.montoya.logging.Logging;
+import burp.api.montoya.utilities.Utilities;
+import DetSql.config.DetSqlConfig;
+import DetSql.logging.DetSqlLogger;
+import DetSql.model.PocLogEntry;
+import DetSql.model.PocTableModel;
+import DetSql.model.SourceTableModel;
+import DetSql.ui.DetSqlUI;
+import DetSql.ui.MyFilterRequest;
+import DetSql.util.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+/**
+ * 续扫按扫描日志中记录的来源提交: Proxy 流量续扫后与新扫描一样记录统计并保留 PoC 证据
+ */
+public class MyHttpHandlerResumeTest {
+
+    private static final String SOURCE_BODY = "<html><body>item list</body></html>";
+    private static final String ERROR_BODY = "You have an error in your SQL syntax; check the manual";
+
+    private MontoyaObjectFactory previousFactory;
+    private Statistics statistics;
+    private Map<String, List<PocLogEntry>> attackMap;
+    private MyHttpHandler handler;
+
+    @BeforeEach
+    void setUp() {
+        HttpService service = mock(HttpService.class);
+        when(service.host()).thenReturn("resume.example.com");
+        when(service.port()).thenReturn(80);
+        when(service.toString()).thenReturn("http://resume.example.com:80");
+
+        ParsedHttpParameter param = mock(ParsedHttpParameter.class);
+        when(param.name()).thenReturn("id");
+        when(param.value()).thenReturn("1");
+        when(param.type()).thenReturn(HttpParameterType.URL);
+
+        // 改写参数后的 PoC 请求仍返回同一个请求对象
+        HttpRequest request = mock(HttpRequest.class, withSettings().defaultAnswer(invocation ->
+                invocation.getMethod().getReturnType() == HttpRequest.class
+                        ? invocation.getMock()
+                        : RETURNS_DEFAULTS.answer(invocation)));
+        ByteArray requestBytes = bytes("GET /item?id=1 HTTP/1.1\r\nHost: resume.example.com\r\n\r\n");
+        doReturn(requestBytes).when(request).toByteArray();
+        doReturn(service).when(request).httpService();
+        doReturn("GET").when(request).method();
+        doReturn("http://resume.example.com/item?id=1").when(request).url();
+        doReturn("/item").when(request).pathWithoutQuery();
+        doReturn("").when(request).fileExtension();
+        doReturn(List.of(param)).when(request).parameters();
+        doReturn(List.of(param)).when(request).parameters(HttpParameterType.URL);
+
+        HttpResponse sourceResponse = response(SOURCE_BODY, 200);
+        HttpRequestResponse source = mock(HttpRequestResponse.class);
+        when(source.request()).thenReturn(request);
+        when(source.response()).thenReturn(sourceResponse);
+
+        // 从磁盘记录重建请求/响应时使用的 Burp 工厂
+        previousFactory = ObjectFactoryLocator.FACTORY;
+        ObjectFactoryLocator.FACTORY = mock(MontoyaObjectFactory.class, invocation -> {
+            Class<?> type = invocation.getMethod().getReturnType();
+            if (type == HttpService.class) {
+                return service;
+            } else if (type == HttpRequest.class) {
+                return request;
+            } else if (type == HttpResponse.class) {
+                return sourceResponse;
+            } else if (type == HttpRequestResponse.class) {
+                return source;
+            } else if (type == ByteArray.class) {
+                return requestBytes;
+            }
+            return RETURNS_DEFAULTS.answer(invocation);
+        });
+
+        HttpRequestResponse poc = mock(HttpRequestResponse.class);
+        HttpResponse errorResponse = response(ERROR_BODY, 500);
+        when(poc.request()).thenReturn(request);
+        when(poc.response()).thenReturn(errorResponse);
+
+        MontoyaApi api = mock(MontoyaApi.class);
+        when(api.logging()).thenReturn(mock(Logging.class));
+        when(api.utilities()).thenReturn(mock(Utilities.class));
+        Http http = mock(Http.class);
+        when(http.sendRequest(any(HttpRequest.class))).thenReturn(poc);
+        when(api.http()).thenReturn(http);
+
+        DetSqlUI ui = mock(DetSqlUI.class);
+        when(ui.isErrorCheckSelected()).thenReturn(true);
+
+        DetSqlConfig config = new DetSqlConfig();
+        config.setStaticTimeMs(0);
+        config.setUnitParallelism(0);
+        statistics = new Statistics();
+        attackMap = new ConcurrentHashMap<>();
+        handler = new MyHttpHandler(api, new SourceTableModel(), new PocTableModel(), attackMap, config,
+                new DetSqlLogger(api), statistics, ui);
+    }
+
+    @AfterEach
+    void tearDown() {
+        ObjectFactoryLocator.FACTORY = previousFactory;
+        MyFilterRequest.blackListSet = new HashSet<>();
+    }
+
+    @Test
+    @Timeout(value = 20, unit = TimeUnit.SECONDS)
+    void testResumedProxyScanRecordsStatisticsAndKeepsEvidence() throws Exception {
+        resume("resume-proxy", SpilledScan.Origin.RECEIVED, ScanPriorityPolicy.PriorityClass.PROXY);
+
+        assertEquals(1, statistics.getVulnerabilitiesFound(), "续扫的 Proxy 请求应与新扫描一样记录漏洞参数");
+        assertEquals("id", statistics.getVulnerableParams().iterator().next().paramName());
+        List<PocLogEntry> entries = attackMap.get("resume-proxy");
+        assertNotNull(entries);
+        assertFalse(entries.isEmpty());
+    }
+
+    @Test
+    @Timeout(value = 20, unit = TimeUnit.SECONDS)
+    void testResumedManualScanKeepsManualHandling() throws Exception {
+        resume("resume-manual", SpilledScan.Origin.MANUAL, ScanPriorityPolicy.PriorityClass.MANUAL);
+
+        // 手动发送的请求不计入 Proxy 漏洞参数统计
+        assertEquals(0, statistics.getVulnerabilitiesFound());
+        assertFalse(attackMap.get("resume-manual").isEmpty());
+    }
+
+    @Test
+    @Timeout(value = 20, unit = TimeUnit.SECONDS)
+    void testResumeSkipsTargetsRemovedFromScope() throws Exception {
+        // 重启前加入黑名单的主机不再续扫
+        MyFilterRequest.blackListSet = new HashSet<>(Set.of("resume.example.com"));
+        resume("resume-blocked", SpilledScan.Origin.RECEIVED, ScanPriorityPolicy.PriorityClass.PROXY);
+
+        assertNull(attackMap.get("resume-blocked"));
+        assertEquals(0, statistics.getVulnerabilitiesFound());
+        assertEquals(1, statistics.getRequestsFiltered());
+    }
+
+    private void resume(String hash, SpilledScan.Origin origin, ScanPriorityPolicy.PriorityClass priorityClass)
+            throws InterruptedException {
+        SpilledScan scan = new SpilledScan(hash, "Proxy", origin, priorityClass, 0, 1,
+                "resume.example.com", 80, false, new byte[0], new byte[0]);
+        handler.resumeScan(new ScanJournal.PendingScan(scan, Set.of()));
+        while (handler.getRunningTask(hash) != null) {
+            Thread.sleep(20);
+        }
+    }
+
+    private static HttpResponse response(String body, int status) {
+        ByteArray bodyBytes = bytes(body);
+        HttpResponse response = mock(HttpResponse.class);
+        when(response.body()).thenReturn(bodyBytes);
+        when(response.bodyToString()).thenReturn(body);
+        when(response.statusCode()).thenReturn((short) status);
+        when(response.mimeType()).thenReturn(MimeType.HTML);
+        when(response.toByteArray()).thenReturn(bodyBytes);
+        return response;
+    }
+
+    private static ByteArray bytes(String text) {
+        byte[] raw = text.getBytes(StandardCharsets.UTF_8);
+        ByteArray bytes = mock(ByteArray.class);
+        when(bytes.getBytes()).thenReturn(raw);
+        when(bytes.length()).thenReturn(raw.length);
+        when(bytes.toString()).thenReturn(text);
+        return bytes;
+    }
+}
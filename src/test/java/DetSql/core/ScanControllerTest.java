@@ -0,0 +1,115 @@
+package DetSql.core;
+
+import DetSql.util.PauseGate;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ScanControllerTest {
+
+    private final ConcurrentHashMap<String, Future<?>> runningTasks = new ConcurrentHashMap<>();
+    private final ThreadPoolExecutor executor = new ThreadPoolExecutor(
+            1, 1, 0L, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>());
+    private final List<Predicate<ScanController.Scope>> spoolFilters = new ArrayList<>();
+    private final List<ScanTask> finished = new ArrayList<>();
+
+    private final ScanController controller = new ScanController(
+            runningTasks, new PauseGate(), executor::purge, spoolFilters::add, null);
+
+    @AfterEach
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+
+    private ScanTask submit(String hash, String host, String path, Runnable body) {
+        ScanTask task = new ScanTask(hash, new ScanController.Scope(host, path), body, 0,
+                ScanPriorityPolicy.PriorityClass.PROXY, null, null, t -> {
+                    synchronized (finished) {
+                        finished.add(t);
+                    }
+                });
+        runningTasks.put(hash, task);
+        executor.execute(task);
+        return task;
+    }
+
+    @Test
+    public void testScopeMatchesByHostAndPathSegment() {
+        ScanController.Scope scope = new ScanController.Scope("a.example.com", "/api/v1/users");
+
+        assertTrue(scope.matches(null, null));
+        assertTrue(scope.matches("A.example.com", ""));
+        assertFalse(scope.matches("b.example.com", null));
+        assertTrue(scope.matches("a.example.com", "/api/v1"));
+        assertTrue(scope.matches("a.example.com", "/api/v1/"));
+        assertTrue(scope.matches(null, "/api/v1/users"));
+        assertFalse(scope.matches(null, "/api/v"), "路径前缀按段匹配");
+
+        assertEquals("/api/v1/", ScanController.directoryOf("/api/v1/users"));
+        assertEquals("/", ScanController.directoryOf(""));
+    }
+
+    @Test
+    public void testCancelMatchingCancelsRunningAndQueuedTasksOfHost() throws Exception {
+        CountDownLatch running = new CountDownLatch(1);
+        CountDownLatch interrupted = new CountDownLatch(1);
+        ScanTask active = submit("h1", "a.example.com", "/x", () -> {
+            running.countDown();
+            try {
+                Thread.sleep(TimeUnit.SECONDS.toMillis(30));
+            } catch (InterruptedException e) {
+                interrupted.countDown();
+            }
+        });
+        assertTrue(running.await(5, TimeUnit.SECONDS));
+        ScanTask queuedSameHost = submit("h2", "a.example.com", "/y", () -> { });
+        ScanTask queuedOtherHost = submit("h3", "b.example.com", "/x", () -> { });
+
+        assertEquals(2, controller.cancelMatching("a.example.com", null));
+
+        assertTrue(interrupted.await(5, TimeUnit.SECONDS), "执行中的任务应被中断");
+        assertTrue(active.isCancelled());
+        assertTrue(queuedSameHost.isCancelled());
+        assertFalse(queuedSameHost.hasStarted(), "排队中被取消的任务不应执行");
+        assertFalse(executor.getQueue().contains(queuedSameHost), "已取消的任务应移出队列");
+        assertFalse(queuedOtherHost.isCancelled());
+        assertEquals(1, spoolFilters.size(), "磁盘溢出队列也应按同一范围清除");
+        assertTrue(spoolFilters.get(0).test(new ScanController.Scope("a.example.com", "/z")));
+
+        queuedOtherHost.get(5, TimeUnit.SECONDS);
+        assertTrue(queuedOtherHost.hasStarted());
+        synchronized (finished) {
+            assertTrue(finished.contains(queuedSameHost), "排队中取消也应触发结束回调");
+        }
+    }
+
+    @Test
+    public void testCancelSingleTask() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        submit("h1", "a.example.com", "/", () -> {
+            try {
+                release.await();
+            } catch (InterruptedException ignored) {
+                // 被取消
+            }
+        });
+        ScanTask queued = submit("h2", "a.example.com", "/", () -> { });
+
+        assertTrue(controller.cancel("h2"));
+        assertFalse(controller.cancel("missing"));
+        assertTrue(queued.isCancelled());
+        assertEquals(0, executor.getQueue().size());
+        release.countDown();
+    }
+}
@@ -0,0 +1,119 @@
+package DetSql.core;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+public class ScanJournalTest {
+
+    @TempDir
+    Path dir;
+
+    private static SpilledScan scan(String hash) {
+        return new SpilledScan(hash, "Proxy", SpilledScan.Origin.RECEIVED, ScanPriorityPolicy.PriorityClass.PROXY, 10, 1,
+                "example.com", 443, true,
+                ("GET /?id=1 HTTP/1.1\r\nHost: example.com\r\n\r\n").getBytes(StandardCharsets.ISO_8859_1),
+                ("HTTP/1.1 200 OK\r\n\r\nbody-" + hash).getBytes(StandardCharsets.ISO_8859_1));
+    }
+
+    private Path journalFile() {
+        return dir.resolve("scan.journal");
+    }
+
+    @Test
+    public void testUnfinishedTicketsRecoveredWithCleanUnits() throws IOException {
+        try (ScanJournal journal = new ScanJournal(dir)) {
+            assertTrue(journal.recovered().isEmpty());
+            journal.accepted(scan("a"));
+            journal.accepted(scan("b"));
+            journal.accepted(scan("c"));
+            journal.unitCompleted("a", "URL:5:id:errsql", false);
+            journal.unitCompleted("a", "URL:5:id:numsql", true);
+            journal.ticketCompleted("b");
+            assertEquals(2, journal.openTickets());
+        }
+
+        try (ScanJournal journal = new ScanJournal(dir)) {
+            List<ScanJournal.PendingScan> pending = journal.recovered();
+            assertEquals(2, pending.size());
+            assertEquals("a", pending.get(0).scan().requestHash());
+            assertEquals("c", pending.get(1).scan().requestHash());
+            // 发现漏洞的子任务需要重新执行以生成 PoC 证据
+            assertEquals(Set.of("URL:5:id:errsql"), pending.get(0).completedUnits());
+            assertTrue(pending.get(1).completedUnits().isEmpty());
+            assertArrayEquals(scan("a").response(), pending.get(0).scan().response());
+            assertEquals(2, journal.openTickets(), "重写后的日志应保留未完成的票据");
+        }
+    }
+
+    @Test
+    public void testJournalTruncatedWhenAllTicketsDone() throws IOException {
+        try (ScanJournal journal = new ScanJournal(dir)) {
+            journal.accepted(scan("a"));
+            journal.unitCompleted("a", "k", false);
+            assertTrue(Files.size(journalFile()) > 0);
+            journal.ticketCompleted("a");
+            assertEquals(0, Files.size(journalFile()));
+            // 结束后到达的子任务记录被忽略
+            journal.unitCompleted("a", "late", false);
+            assertEquals(0, Files.size(journalFile()));
+        }
+        try (ScanJournal journal = new ScanJournal(dir)) {
+            assertTrue(journal.recovered().isEmpty());
+        }
+    }
+
+    @Test
+    public void testTornTailIgnored() throws IOException {
+        try (ScanJournal journal = new ScanJournal(dir)) {
+            journal.accepted(scan("a"));
+            journal.accepted(scan("b"));
+        }
+        // 模拟写入中途进程退出: 截掉最后一条记录的末尾
+        byte[] data = Files.readAllBytes(journalFile());
+        Files.write(journalFile(), java.util.Arrays.copyOf(data, data.length - 3));
+
+        try (ScanJournal journal = new ScanJournal(dir)) {
+            assertEquals(1, journal.recovered().size());
+            assertEquals("a", journal.recovered().get(0).scan().requestHash());
+        }
+    }
+
+    @Test
+    public void testJournalIsOwnerOnly() throws IOException {
+        assumeTrue(dir.getFileSystem().supportedFileAttributeViews().contains("posix"));
+        Path journalDir = dir.resolve("journal");
+        Files.createDirectory(journalDir, PosixFilePermissions.asFileAttribute(
+                PosixFilePermissions.fromString("rwxr-xr-x")));
+        try (ScanJournal journal = new ScanJournal(journalDir)) {
+            journal.accepted(scan("a"));
+        }
+        // 日志含原始请求 (Cookie/Authorization),已有目录的权限也应收紧
+        assertEquals("rwx------", PosixFilePermissions.toString(Files.getPosixFilePermissions(journalDir)));
+        assertEquals("rw-------", PosixFilePermissions.toString(
+                Files.getPosixFilePermissions(journalDir.resolve("scan.journal"))));
+    }
+
+    @Test
+    public void testWritesAfterCloseIgnored() throws IOException {
+        ScanJournal journal = new ScanJournal(dir);
+        journal.accepted(scan("a"));
+        journal.close();
+        journal.ticketCompleted("a");
+        journal.accepted(scan("b"));
+
+        try (ScanJournal reopened = new ScanJournal(dir)) {
+            assertEquals(1, reopened.recovered().size(), "关闭后被中断的任务下次仍应继续");
+        }
+    }
+}
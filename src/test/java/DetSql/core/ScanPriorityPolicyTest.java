@@ -0,0 +1,83 @@
+package DetSql.core;
+
+import burp.api.montoya.http.HttpService;
+import burp.api.montoya.http.message.params.HttpParameterType;
+import burp.api.montoya.http.message.params.ParsedHttpParameter;
+import burp.api.montoya.http.message.requests.HttpRequest;
+import DetSql.config.DetSqlConfig;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+public class ScanPriorityPolicyTest {
+
+    private static HttpRequest request(String path, String... paramNames) {
+        HttpRequest request = mock(HttpRequest.class);
+        HttpService service = mock(HttpService.class);
+        when(service.toString()).thenReturn("https://cdn.example.com:443");
+        when(request.httpService()).thenReturn(service);
+        when(request.method()).thenReturn("GET");
+        when(request.pathWithoutQuery()).thenReturn(path);
+        List<ParsedHttpParameter> params = new ArrayList<>();
+        for (String name : paramNames) {
+            ParsedHttpParameter param = mock(ParsedHttpParameter.class);
+            when(param.name()).thenReturn(name);
+            when(param.type()).thenReturn(HttpParameterType.URL);
+            params.add(param);
+        }
+        when(request.parameters()).thenReturn(params);
+        return request;
+    }
+
+    @Test
+    public void testManualOutranksProxy() {
+        ScanPriorityPolicy policy = new ScanPriorityPolicy(new DetSqlConfig());
+        long proxy = policy.prioritize(ScanPriorityPolicy.PriorityClass.PROXY, request("/a", "x"));
+        long manual = policy.prioritize(ScanPriorityPolicy.PriorityClass.MANUAL, request("/b", "x"));
+        assertTrue(manual > proxy);
+    }
+
+    @Test
+    public void testRepeatedEndpointLosesFreshness() {
+        ScanPriorityPolicy policy = new ScanPriorityPolicy(new DetSqlConfig());
+        HttpRequest firstRequest = request("/item/1001", "w");
+        long first = policy.prioritize(ScanPriorityPolicy.PriorityClass.PROXY, firstRequest);
+        assertEquals(first, policy.prioritize(ScanPriorityPolicy.PriorityClass.PROXY, request("/item/1002", "w")),
+                "参数在扫描完成前不算已测试");
+        policy.markTested(firstRequest);
+        long again = policy.prioritize(ScanPriorityPolicy.PriorityClass.PROXY, request("/item/1002", "w"));
+        long fresh = policy.prioritize(ScanPriorityPolicy.PriorityClass.PROXY, request("/api/list", "w"));
+        assertTrue(first > again, "同一接口 (数字路径段归一) 的重复参数应降低优先级");
+        assertEquals(first, fresh);
+    }
+
+    @Test
+    public void testHotAndLearnedParamNames() {
+        DetSqlConfig config = new DetSqlConfig();
+        ScanPriorityPolicy policy = new ScanPriorityPolicy(config);
+        long plain = policy.prioritize(ScanPriorityPolicy.PriorityClass.PROXY, request("/p1", "foo"));
+        long hot = policy.prioritize(ScanPriorityPolicy.PriorityClass.PROXY, request("/p2", "ID"));
+        assertEquals(plain + config.getHotParamWeight(), hot);
+
+        policy.recordHit("foo");
+        long learned = policy.prioritize(ScanPriorityPolicy.PriorityClass.PROXY, request("/p3", "foo"));
+        assertEquals(plain + config.getHotParamWeight(), learned);
+    }
+
+    @Test
+    public void testConfiguredHotNamesMatchIgnoringCase() {
+        DetSqlConfig config = new DetSqlConfig();
+        config.setHotParamNames(Set.of("userId", "ID"));
+        ScanPriorityPolicy policy = new ScanPriorityPolicy(config);
+        long plain = policy.prioritize(ScanPriorityPolicy.PriorityClass.PROXY, request("/p1", "foo"));
+        assertEquals(plain + config.getHotParamWeight(),
+                policy.prioritize(ScanPriorityPolicy.PriorityClass.PROXY, request("/p2", "USERID")));
+        assertEquals(plain + config.getHotParamWeight(),
+                policy.prioritize(ScanPriorityPolicy.PriorityClass.PROXY, request("/p3", "id")));
+    }
+}
@@ -0,0 +1,49 @@
+package DetSql.core;
+
+import DetSql.util.Statistics;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * 扫描队列已满且无法溢出到磁盘时,任务被取消并计入统计
+ */
+public class ScanTaskRejectionTest {
+
+    @Test
+    public void testUnspillableTaskCancelledAndCounted() {
+        Statistics statistics = new Statistics();
+        AtomicInteger done = new AtomicInteger();
+        // spillSource 为 null: 不可溢出
+        ScanTask task = new ScanTask("h", new ScanController.Scope("example.com", "/"), () -> fail("不应执行"),
+                0, ScanPriorityPolicy.PriorityClass.PROXY, statistics, null, t -> done.incrementAndGet());
+
+        MyHttpHandler.SCAN_REJECTION_HANDLER.rejectedExecution(task, mock(ThreadPoolExecutor.class));
+
+        assertTrue(task.isCancelled());
+        assertFalse(task.hasStarted());
+        assertEquals(1, done.get(), "onDone 应清理登记并把表格行标记为停止");
+        assertEquals(1, statistics.getOverflowDropped());
+    }
+
+    @Test
+    public void testRejectionDuringShutdownKeepsTask() {
+        Statistics statistics = new Statistics();
+        AtomicInteger done = new AtomicInteger();
+        ScanTask task = new ScanTask("h", new ScanController.Scope("example.com", "/"), () -> { },
+                0, ScanPriorityPolicy.PriorityClass.PROXY, statistics, null, t -> done.incrementAndGet());
+        ThreadPoolExecutor executor = mock(ThreadPoolExecutor.class);
+        when(executor.isShutdown()).thenReturn(true);
+
+        MyHttpHandler.SCAN_REJECTION_HANDLER.rejectedExecution(task, executor);
+
+        // 插件卸载中: 不结束扫描日志票据,下次加载时续扫
+        assertFalse(task.isCancelled());
+        assertEquals(0, done.get());
+        assertEquals(0, statistics.getOverflowDropped());
+    }
+}
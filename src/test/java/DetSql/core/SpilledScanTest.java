@@ -0,0 +1,51 @@
+package DetSql.core;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SpilledScanTest {
+
+    @Test
+    public void testEncodeDecodeRoundTrip() throws IOException {
+        byte[] request = "GET /a?id=1 HTTP/1.1\r\nHost: example.com\r\n\r\n".getBytes(StandardCharsets.ISO_8859_1);
+        byte[] response = new byte[] {0, 1, 2, (byte) 0xff};
+        SpilledScan original = new SpilledScan("abc123", "Proxy", SpilledScan.Origin.RECEIVED, ScanPriorityPolicy.PriorityClass.PROXY,
+                150, 42, "example.com", 8443, true, request, response);
+
+        SpilledScan decoded = SpilledScan.decode(original.encode());
+
+        assertEquals("abc123", decoded.requestHash());
+        assertEquals("Proxy", decoded.toolName());
+        assertEquals(SpilledScan.Origin.RECEIVED, decoded.origin());
+        assertEquals(ScanPriorityPolicy.PriorityClass.PROXY, decoded.priorityClass());
+        assertEquals(150, decoded.priority());
+        assertEquals(42, decoded.logIndex());
+        assertEquals("example.com", decoded.host());
+        assertEquals(8443, decoded.port());
+        assertTrue(decoded.secure());
+        assertArrayEquals(request, decoded.request());
+        assertArrayEquals(response, decoded.response());
+    }
+
+    @Test
+    public void testDecodeRejectsOtherVersions() {
+        SpilledScan original = new SpilledScan("h", "Repeater", SpilledScan.Origin.RECEIVED,
+                ScanPriorityPolicy.PriorityClass.MANUAL, 1, 1, "h", 80, false, new byte[0], new byte[0]);
+        byte[] data = original.encode();
+        data[0] = 1;
+        assertThrows(IOException.class, () -> SpilledScan.decode(data));
+    }
+
+    @Test
+    public void testDecodeRejectsTruncatedData() {
+        SpilledScan original = new SpilledScan("h", "Send", SpilledScan.Origin.MANUAL, ScanPriorityPolicy.PriorityClass.MANUAL,
+                1, 1, "h", 80, false, new byte[10], new byte[10]);
+        byte[] data = original.encode();
+        byte[] truncated = java.util.Arrays.copyOf(data, data.length - 5);
+        assertThrows(IOException.class, () -> SpilledScan.decode(truncated));
+    }
+}
@@ -0,0 +1,119 @@
+package DetSql.injection;
+
+import burp.api.montoya.MontoyaApi;
+import burp.api.montoya.core.ByteArray;
+import burp.api.montoya.http.HttpService;
+import burp.api.montoya.http.Http;
+import burp.api.montoya.http.message.HttpRequestResponse;
+import burp.api.montoya.http.message.params.ParsedHttpParameter;
+import burp.api.montoya.http.message.requests.HttpRequest;
+import burp.api.montoya.http.message.responses.HttpResponse;
+import burp.api.montoya.logging.Logging;
+import DetSql.config.DetSqlConfig;
+import DetSql.logging.DetSqlLogger;
+import DetSql.util.ParameterModifier;
+import DetSql.util.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+/**
+ * AbstractInjectionStrategy 票据内 PoC 响应复用测试
+ */
+public class AbstractInjectionStrategyTest {
+
+    private Http http;
+    private Statistics statistics;
+    private TestStrategy strategy;
+    private HttpService service;
+
+    @BeforeEach
+    void setUp() {
+        MontoyaApi api = mock(MontoyaApi.class);
+        when(api.logging()).thenReturn(mock(Logging.class));
+        http = mock(Http.class);
+        when(api.http()).thenReturn(http);
+        HttpResponse response = mock(HttpResponse.class);
+        when(response.body()).thenReturn(mock(ByteArray.class));
+        HttpRequestResponse requestResponse = mock(HttpRequestResponse.class);
+        when(requestResponse.response()).thenReturn(response);
+        when(http.sendRequest(any(HttpRequest.class))).thenReturn(requestResponse);
+
+        statistics = new Statistics();
+        service = mock(HttpService.class);
+        strategy = new TestStrategy(api, new DetSqlConfig(), new DetSqlLogger(api), statistics);
+    }
+
+    private HttpRequest request(String raw) {
+        ByteArray bytes = mock(ByteArray.class);
+        when(bytes.getBytes()).thenReturn(raw.getBytes(StandardCharsets.UTF_8));
+        HttpRequest request = mock(HttpRequest.class);
+        when(request.toByteArray()).thenReturn(bytes);
+        when(request.httpService()).thenReturn(service);
+        return request;
+    }
+
+    @Test
+    @Timeout(value = 10, unit = TimeUnit.SECONDS)
+    void testIdenticalPocSentOncePerTicket() throws Exception {
+        ScanTicket ticket = new ScanTicket("h1", null, "", false);
+
+        HttpRequestResponse first = strategy.send(ticket, request("GET /?id=1' HTTP/1.1"));
+        HttpRequestResponse second = strategy.send(ticket, request("GET /?id=1' HTTP/1.1"));
+        strategy.send(ticket, request("GET /?id=1'' HTTP/1.1"));
+
+        assertSame(first, second);
+        verify(http, times(2)).sendRequest(any(HttpRequest.class));
+        assertEquals(2, statistics.getPocRequestsSent());
+        assertEquals(1, statistics.getPocCacheHits());
+    }
+
+    @Test
+    @Timeout(value = 10, unit = TimeUnit.SECONDS)
+    void testCacheIsScopedToTicket() throws Exception {
+        strategy.send(new ScanTicket("h1", null, "", false), request("GET /?id=1' HTTP/1.1"));
+        strategy.send(new ScanTicket("h2", null, "", false), request("GET /?id=1' HTTP/1.1"));
+
+        verify(http, times(2)).sendRequest(any(HttpRequest.class));
+        assertEquals(0, statistics.getPocCacheHits());
+    }
+
+    private static class TestStrategy extends AbstractInjectionStrategy {
+
+        TestStrategy(MontoyaApi api, DetSqlConfig config, DetSqlLogger logger, Statistics statistics) {
+            super(api, config, logger, statistics, new HashMap<>());
+        }
+
+        HttpRequestResponse send(ScanTicket ticket, HttpRequest request) throws InterruptedException {
+            return sendHttpRequest(ticket, request, 2);
+        }
+
+        @Override
+        public String getName() {
+            return "test";
+        }
+
+        @Override
+        public String getVulnType() {
+            return "test";
+        }
+
+        @Override
+        public boolean isEnabled() {
+            return true;
+        }
+
+        @Override
+        public boolean testParameter(ScanTicket ticket, ParsedHttpParameter param, ParameterModifier modifier) {
+            return false;
+        }
+    }
+}
@@ -0,0 +1,273 @@
+package DetSql.injection;
+
+import burp.api.montoya.MontoyaApi;
+import burp.api.montoya.http.message.params.ParsedHttpParameter;
+import burp.api.montoya.logging.Logging;
+import DetSql.config.DetSqlConfig;
+import DetSql.config.FindingPolicy;
+import DetSql.logging.DetSqlLogger;
+import DetSql.ui.DetSqlUI;
+import DetSql.util.ParameterModifier;
+import DetSql.util.ParameterModifiers;
+import DetSql.util.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * InjectionStrategyManager 子任务拆分与并行执行测试
+ */
+public class InjectionStrategyManagerTest {
+
+    private DetSqlConfig config;
+    private Statistics statistics;
+    private InjectionStrategyManager manager;
+
+    @BeforeEach
+    void setUp() {
+        MontoyaApi api = mock(MontoyaApi.class);
+        when(api.logging()).thenReturn(mock(Logging.class));
+        config = new DetSqlConfig();
+        statistics = new Statistics();
+        manager = new InjectionStrategyManager(api, config, new DetSqlLogger(api), statistics,
+                new HashMap<>(), mock(DetSqlUI.class));
+    }
+
+    @Test
+    @Timeout(value = 10, unit = TimeUnit.SECONDS)
+    void testRunUnitsExecutesEveryUnitOnceAndMergesFindings() throws Exception {
+        config.setUnitParallelism(4);
+        Set<String> threads = ConcurrentHashMap.newKeySet();
+        AtomicInteger calls = new AtomicInteger();
+        FakeStrategy errsql = new FakeStrategy("errsql", "id", calls, threads, 20);
+        FakeStrategy numsql = new FakeStrategy("numsql", "page", calls, threads, 20);
+
+        List<ScanUnit> units = new ArrayList<>();
+        for (String name : new String[]{"id", "page", "q", "sort", "a", "b", "c", "d"}) {
+            ParsedHttpParameter param = param(name);
+            units.add(new ScanUnit(param, ParameterModifiers.URL, errsql));
+            units.add(new ScanUnit(param, ParameterModifiers.URL, numsql));
+        }
+
+        Set<String> result = manager.runUnits(new ScanTicket("h1", null, "", false), units);
+
+        assertEquals(units.size(), calls.get(), "每个子任务只执行一次");
+        assertEquals(Set.of("errsql", "numsql"), result);
+        assertTrue(threads.size() > 1, "子任务应由多个线程并行执行");
+    }
+
+    @Test
+    @Timeout(value = 10, unit = TimeUnit.SECONDS)
+    void testWaitsForHelperRunningTailUnit() throws Exception {
+        config.setUnitParallelism(1);
+        Set<String> threads = ConcurrentHashMap.newKeySet();
+        AtomicInteger calls = new AtomicInteger();
+        // 调用线程执行队头的子任务,辅助线程从队尾取到唯一的漏洞子任务,且比调用线程结束得晚
+        List<ScanUnit> units = List.of(
+                new ScanUnit(param("a"), ParameterModifiers.URL, new FakeStrategy("boolsql", "none", calls, threads, 100)),
+                new ScanUnit(param("id"), ParameterModifiers.URL, new FakeStrategy("errsql", "id", calls, threads, 400)));
+
+        ScanTicket ticket = new ScanTicket("h7", null, "", false);
+        List<String> reported = new CopyOnWriteArrayList<>();
+        ticket.setUnitListener((t, unit, found) -> reported.add(unit.param().name() + "=" + found));
+
+        Set<String> result = manager.runUnits(ticket, units);
+
+        assertEquals(Set.of("errsql"), result);
+        assertEquals(2, calls.get());
+        assertTrue(reported.contains("id=true"), "返回前辅助线程的子任务应已完成并上报");
+        assertTrue(ticket.isParameterConfirmed(units.get(1)));
+    }
+
+    @Test
+    @Timeout(value = 10, unit = TimeUnit.SECONDS)
+    void testSequentialWhenParallelismZero() throws Exception {
+        config.setUnitParallelism(0);
+        Set<String> threads = ConcurrentHashMap.newKeySet();
+        AtomicInteger calls = new AtomicInteger();
+        FakeStrategy strategy = new FakeStrategy("stringsql", "none", calls, threads, 0);
+
+        List<ScanUnit> units = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            units.add(new ScanUnit(param("p" + i), ParameterModifiers.URL, strategy));
+        }
+
+        Set<String> result = manager.runUnits(new ScanTicket("h2", null, "", false), units);
+
+        assertTrue(result.isEmpty());
+        assertEquals(5, calls.get());
+        assertEquals(Set.of(Thread.currentThread().getName()), threads);
+    }
+
+    @Test
+    @Timeout(value = 10, unit = TimeUnit.SECONDS)
+    void testInterruptCancelsRemainingUnits() throws Exception {
+        config.setUnitParallelism(2);
+        Set<String> threads = ConcurrentHashMap.newKeySet();
+        AtomicInteger calls = new AtomicInteger();
+        FakeStrategy slow = new FakeStrategy("boolsql", "none", calls, threads, 200);
+
+        List<ScanUnit> units = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            units.add(new ScanUnit(param("p" + i), ParameterModifiers.URL, slow));
+        }
+
+        ScanTicket ticket = new ScanTicket("h3", null, "", false);
+        AtomicReference<Throwable> thrown = new AtomicReference<>();
+        CountDownLatch finished = new CountDownLatch(1);
+        Thread coordinator = new Thread(() -> {
+            try {
+                manager.runUnits(ticket, units);
+            } catch (Throwable t) {
+                thrown.set(t);
+            } finally {
+                finished.countDown();
+            }
+        });
+        coordinator.start();
+        Thread.sleep(300);
+        coordinator.interrupt();
+
+        assertTrue(finished.await(5, TimeUnit.SECONDS));
+        assertInstanceOf(InterruptedException.class, thrown.get());
+        assertTrue(ticket.isCancelled());
+        assertTrue(calls.get() < units.size(), "取消后剩余子任务不应继续执行");
+    }
+
+    @Test
+    @Timeout(value = 10, unit = TimeUnit.SECONDS)
+    void testCompletedUnitsSkippedAndCompletionReported() throws Exception {
+        config.setUnitParallelism(0);
+        Set<String> threads = ConcurrentHashMap.newKeySet();
+        AtomicInteger calls = new AtomicInteger();
+        FakeStrategy strategy = new FakeStrategy("errsql", "id", calls, threads, 0);
+
+        List<ScanUnit> units = new ArrayList<>();
+        for (String name : new String[]{"a", "b", "id"}) {
+            units.add(new ScanUnit(param(name), ParameterModifiers.URL, strategy));
+        }
+
+        ScanTicket ticket = new ScanTicket("h4", null, "", false);
+        ticket.setCompletedUnits(Set.of(units.get(0).key()));
+        List<String> reported = new ArrayList<>();
+        ticket.setUnitListener((t, unit, found) -> reported.add(unit.param().name() + "=" + found));
+
+        Set<String> result = manager.runUnits(ticket, units);
+
+        assertEquals(2, calls.get(), "已完成的子任务不应重复执行");
+        assertEquals(List.of("b=false", "id=true"), reported);
+        assertEquals(Set.of("errsql"), result);
+    }
+
+    @Test
+    @Timeout(value = 10, unit = TimeUnit.SECONDS)
+    void testPerParameterPolicySkipsRemainingStrategiesOfConfirmedParameter() throws Exception {
+        config.setUnitParallelism(0);
+        config.setFindingPolicy(FindingPolicy.PER_PARAMETER);
+        AtomicInteger calls = new AtomicInteger();
+
+        Set<String> result = manager.runUnits(new ScanTicket("h5", null, "", false), policyUnits(calls));
+
+        assertEquals(4, calls.get(), "id 确认后其余策略应跳过,page 仍全部执行");
+        assertEquals(Set.of("errsql"), result);
+        assertEquals(2, statistics.getEarlyStopUnits());
+    }
+
+    @Test
+    @Timeout(value = 10, unit = TimeUnit.SECONDS)
+    void testPerRequestPolicyStopsAfterFirstFinding() throws Exception {
+        config.setUnitParallelism(0);
+        config.setFindingPolicy(FindingPolicy.PER_REQUEST);
+        AtomicInteger calls = new AtomicInteger();
+
+        Set<String> result = manager.runUnits(new ScanTicket("h6", null, "", false), policyUnits(calls));
+
+        assertEquals(1, calls.get());
+        assertEquals(Set.of("errsql"), result);
+        assertEquals(5, statistics.getEarlyStopUnits());
+    }
+
+    /**
+     * 两个参数 × 三个策略: errsql/numsql 判定 id 存在漏洞,boolsql 不判定
+     */
+    private static List<ScanUnit> policyUnits(AtomicInteger calls) {
+        Set<String> threads = ConcurrentHashMap.newKeySet();
+        List<InjectionStrategy> strategies = List.of(
+                new FakeStrategy("errsql", "id", calls, threads, 0),
+                new FakeStrategy("numsql", "id", calls, threads, 0),
+                new FakeStrategy("boolsql", "none", calls, threads, 0));
+        List<ScanUnit> units = new ArrayList<>();
+        for (String name : new String[]{"id", "page"}) {
+            ParsedHttpParameter param = param(name);
+            for (InjectionStrategy strategy : strategies) {
+                units.add(new ScanUnit(param, ParameterModifiers.URL, strategy));
+            }
+        }
+        return units;
+    }
+
+    private static ParsedHttpParameter param(String name) {
+        ParsedHttpParameter param = mock(ParsedHttpParameter.class);
+        when(param.name()).thenReturn(name);
+        return param;
+    }
+
+    /**
+     * 测试用策略: 参数名匹配时判定为漏洞,可模拟耗时
+     */
+    private static class FakeStrategy implements InjectionStrategy {
+        private final String vulnType;
+        private final String vulnerableParam;
+        private final AtomicInteger calls;
+        private final Set<String> threads;
+        private final long sleepMs;
+
+        FakeStrategy(String vulnType, String vulnerableParam, AtomicInteger calls, Set<String> threads, long sleepMs) {
+            this.vulnType = vulnType;
+            this.vulnerableParam = vulnerableParam;
+            this.calls = calls;
+            this.threads = threads;
+            this.sleepMs = sleepMs;
+        }
+
+        @Override
+        public String getName() {
+            return vulnType;
+        }
+
+        @Override
+        public String getVulnType() {
+            return vulnType;
+        }
+
+        @Override
+        public boolean isEnabled() {
+            return true;
+        }
+
+        @Override
+        public boolean testParameter(ScanTicket ticket, ParsedHttpParameter param, ParameterModifier modifier)
+                throws InterruptedException {
+            calls.incrementAndGet();
+            threads.add(Thread.currentThread().getName());
+            if (sleepMs > 0) {
+                Thread.sleep(sleepMs);
+            }
+            return vulnerableParam.equals(param.name());
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package DetSql.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class BlockDiffTest {
+
+    private static String page(Random random, int rows) {
+        StringBuilder sb = new StringBuilder("<html><body><table>\n");
+        for (int i = 0; i < rows; i++) {
+            sb.append("<tr><td>").append(i).append("</td><td>")
+              .append(Long.toHexString(random.nextLong())).append("</td></tr>\n");
+        }
+        return sb.append("</table></body></html>").toString();
+    }
+
+    private static String edit(Random random, String s, int edits) {
+        StringBuilder sb = new StringBuilder(s);
+        for (int i = 0; i < edits; i++) {
+            int pos = random.nextInt(sb.length());
+            switch (random.nextInt(3)) {
+                case 0 -> sb.insert(pos, "'x");
+                case 1 -> sb.deleteCharAt(pos);
+                default -> sb.setCharAt(pos, '#');
+            }
+        }
+        return sb.toString();
+    }
+
+    @Test
+    public void testUpperBoundOfExactDistance() {
+        Random random = new Random(17);
+        for (int round = 0; round < 40; round++) {
+            String a = page(random, 20 + random.nextInt(40));
+            String b = random.nextInt(4) == 0 ? page(random, 30) : edit(random, a, random.nextInt(8));
+            int exact = BoundedLevenshtein.distance(a, b, -1);
+            int aligned = BlockDiff.distance(a, b, -1);
+            assertTrue(aligned >= exact, "对齐后的距离不应小于真实距离");
+            int bound = random.nextInt(40);
+            int bounded = BlockDiff.distance(a, b, bound);
+            assertEquals(aligned <= bound ? aligned : -1, bounded);
+        }
+    }
+
+    @Test
+    public void testLocalChangeIsExact() {
+        Random random = new Random(23);
+        String a = page(random, 5000);
+        int middle = a.length() / 2;
+        String b = a.substring(0, middle) + "<b>You have an error in your SQL syntax</b>"
+                + a.substring(middle, middle + 300) + a.substring(middle + 310);
+        assertEquals(BoundedLevenshtein.distance(a, b, -1), BlockDiff.distance(a, b, -1));
+    }
+
+    @Test
+    public void testShiftedBlocksRealign() {
+        Random random = new Random(29);
+        String a = page(random, 2000);
+        String b = "<!-- banner -->\n" + a.replace("<tr><td>1000</td>", "<tr class=\"hit\"><td>1000</td>");
+        int aligned = BlockDiff.distance(a, b, -1);
+        assertEquals(BoundedLevenshtein.distance(a, b, -1), aligned);
+        assertEquals(-1, BlockDiff.distance(a, b, aligned - 1));
+    }
+
+    @Test
+    public void testLargeBodiesUseBlockStage() {
+        Random random = new Random(31);
+        String a = page(random, 3000);
+        String b = a.replace("<td>700</td>", "<td>700'</td>").replace("<td>2100</td>", "<td>2100''</td>");
+        SimilarityCascade.Verdict verdict = SimilarityCascade.levenshtein(
+                ResponseSketch.of(a), ResponseSketch.of(b), PayloadEcho.NONE, PayloadEcho.NONE, false, 0.9);
+        assertEquals(SimilarityCascade.Stage.BLOCK_DIFF, verdict.stage());
+        assertTrue(verdict.similarity() > 0.99);
+    }
+}
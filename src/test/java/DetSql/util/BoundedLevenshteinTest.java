@@ -0,0 +1,108 @@
+package DetSql.util;
+
+import org.apache.commons.text.similarity.LevenshteinDistance;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class BoundedLevenshteinTest {
+
+    private static String randomString(Random random, int length, String alphabet) {
+        StringBuilder sb = new StringBuilder(length);
+        for (int i = 0; i < length; i++) {
+            sb.append(alphabet.charAt(random.nextInt(alphabet.length())));
+        }
+        return sb.toString();
+    }
+
+    private static String mutate(Random random, String s, int edits, String alphabet) {
+        StringBuilder sb = new StringBuilder(s);
+        for (int i = 0; i < edits; i++) {
+            int pos = sb.length() == 0 ? 0 : random.nextInt(sb.length());
+            char c = alphabet.charAt(random.nextInt(alphabet.length()));
+            switch (random.nextInt(3)) {
+                case 0 -> sb.insert(pos, c);
+                case 1 -> {
+                    if (sb.length() > 0) {
+                        sb.deleteCharAt(pos);
+                    }
+                }
+                default -> {
+                    if (sb.length() > 0) {
+                        sb.setCharAt(pos, c);
+                    }
+                }
+            }
+        }
+        return sb.toString();
+    }
+
+    @Test
+    public void testMatchesCommonsTextOnRandomStrings() {
+        Random random = new Random(42);
+        LevenshteinDistance reference = LevenshteinDistance.getDefaultInstance();
+        String[] alphabets = {"ab", "abcdefgh", "<div class=\"x\">0123456789</div>\n中文"};
+        for (int round = 0; round < 400; round++) {
+            String alphabet = alphabets[round % alphabets.length];
+            // 覆盖单块(<64)与多块(>64)的模式串
+            String a = randomString(random, random.nextInt(round % 2 == 0 ? 60 : 300), alphabet);
+            String b = round % 3 == 0
+                    ? randomString(random, random.nextInt(300), alphabet)
+                    : mutate(random, a, random.nextInt(40), alphabet);
+            assertEquals(reference.apply(a, b), BoundedLevenshtein.distance(a, b, -1),
+                    "a=" + a + ", b=" + b);
+        }
+    }
+
+    @Test
+    public void testBoundReturnsMinusOneOnlyWhenExceeded() {
+        Random random = new Random(7);
+        LevenshteinDistance reference = LevenshteinDistance.getDefaultInstance();
+        for (int round = 0; round < 200; round++) {
+            String a = randomString(random, 50 + random.nextInt(200), "abcxyz");
+            String b = mutate(random, a, random.nextInt(60), "abcxyz");
+            int expected = reference.apply(a, b);
+            int max = random.nextInt(60);
+            int actual = BoundedLevenshtein.distance(a, b, max);
+            assertEquals(expected <= max ? expected : -1, actual, "max=" + max);
+        }
+    }
+
+    @Test
+    public void testEdgeCases() {
+        assertEquals(0, BoundedLevenshtein.distance("", "", 0));
+        assertEquals(3, BoundedLevenshtein.distance("", "abc", -1));
+        assertEquals(-1, BoundedLevenshtein.distance("", "abc", 2));
+        assertEquals(0, BoundedLevenshtein.distance("same", "same", 0));
+        assertEquals(3, BoundedLevenshtein.distance("kitten", "sitting", 3));
+        assertEquals(-1, BoundedLevenshtein.distance("kitten", "sitting", 2));
+        assertThrows(IllegalArgumentException.class, () -> BoundedLevenshtein.distance(null, "a", 1));
+    }
+
+    @Test
+    public void testTokenSequencesMatchCharacterDistance() {
+        Random random = new Random(21);
+        LevenshteinDistance reference = LevenshteinDistance.getDefaultInstance();
+        for (int round = 0; round < 300; round++) {
+            int[] a = random.ints(random.nextInt(150), 0, 20).map(v -> v * 1_000_003).toArray();
+            int[] b = random.nextBoolean() ? a.clone() : random.ints(random.nextInt(150), 0, 20).map(v -> v * 1_000_003).toArray();
+            for (int i = 0, edits = random.nextInt(10); i < edits && b.length > 0; i++) {
+                b[random.nextInt(b.length)] = random.nextInt(20) * 1_000_003;
+            }
+            int expected = reference.apply(symbols(a), symbols(b));
+            assertEquals(expected, BoundedLevenshtein.distance(a, b, -1));
+            int bound = random.nextInt(30);
+            assertEquals(expected <= bound ? expected : -1, BoundedLevenshtein.distance(a, b, bound));
+        }
+    }
+
+    private static String symbols(int[] tokens) {
+        StringBuilder sb = new StringBuilder(tokens.length);
+        for (int token : tokens) {
+            sb.append((char) ('A' + token / 1_000_003));
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,113 @@
+package DetSql.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ByteTextTest {
+
+    private static final PayloadEcho ECHO = PayloadEcho.of("z");
+
+    private static ByteText bytes(String s) {
+        return ByteText.of(s.getBytes(StandardCharsets.ISO_8859_1));
+    }
+
+    @Test
+    public void testViewsShareContent() {
+        ByteText text = bytes("<html>hello world</html>");
+        assertEquals(24, text.length());
+        assertEquals('<', text.charAt(0));
+        CharSequence inner = text.subSequence(6, 17);
+        assertEquals("hello world", inner.toString());
+        assertEquals("world", inner.subSequence(6, 11).toString());
+        assertSame(text, text.subSequence(0, text.length()));
+        assertThrows(IndexOutOfBoundsException.class, () -> inner.charAt(11));
+        assertEquals(0, ByteText.of(null).length());
+    }
+
+    @Test
+    public void testHighBytesMapToLatin1() {
+        ByteText text = ByteText.of(new byte[]{(byte) 0xE4, (byte) 0xB8, 0x41});
+        assertEquals((char) 0xE4, text.charAt(0));
+        assertEquals(new String(new byte[]{(byte) 0xE4, (byte) 0xB8, 0x41}, StandardCharsets.ISO_8859_1), text.toString());
+    }
+
+    @Test
+    public void testContentComparisons() {
+        ByteText text = bytes("prefix-body-suffix");
+        assertTrue(ByteText.contentEquals(text, "prefix-body-suffix"));
+        assertTrue(ByteText.contentEquals(text.subSequence(7, 11), bytes("body")));
+        assertFalse(ByteText.contentEquals(text, bytes("prefix-body-suffiX")));
+        assertTrue(ByteText.startsWith(text, bytes("prefix")));
+        assertTrue(ByteText.endsWith(text, "suffix"));
+        assertFalse(ByteText.endsWith(bytes("fix"), text));
+    }
+
+    @Test
+    public void testCascadeMatchesStringInput() {
+        Random random = new Random(5);
+        String alphabet = "<p>abc0123 \n";
+        for (int round = 0; round < 300; round++) {
+            StringBuilder sb = new StringBuilder();
+            for (int i = 0, n = 50 + random.nextInt(300); i < n; i++) {
+                sb.append(alphabet.charAt(random.nextInt(alphabet.length())));
+            }
+            String a = sb.toString();
+            for (int i = 0, edits = random.nextInt(40); i < edits && sb.length() > 1; i++) {
+                int pos = random.nextInt(sb.length());
+                if (random.nextBoolean()) {
+                    sb.deleteCharAt(pos);
+                } else {
+                    sb.insert(pos, 'z');
+                }
+            }
+            String b = sb.toString();
+            boolean htmlFlag = round % 2 == 0;
+
+            SimilarityCascade.Verdict expected = SimilarityCascade.levenshtein(
+                    ResponseSketch.of(a), ResponseSketch.of(b), ECHO, ECHO, htmlFlag, 0.9);
+            SimilarityCascade.Verdict actual = SimilarityCascade.levenshtein(
+                    ResponseSketch.of(a), ResponseSketch.of(bytes(b)), ECHO, ECHO, htmlFlag, 0.9);
+            assertEquals(expected, actual, "字节视图与 String 的比较结果应完全相同");
+        }
+    }
+
+    @Test
+    public void testCommonPrefixAndSuffixMatchCharLoop() {
+        Random random = new Random(13);
+        for (int round = 0; round < 200; round++) {
+            String base = "<td>".repeat(random.nextInt(300)) + "x";
+            StringBuilder sb = new StringBuilder(base);
+            if (sb.length() > 0 && random.nextBoolean()) {
+                sb.insert(random.nextInt(sb.length()), "'");
+            }
+            String other = sb.toString();
+            int max = Math.min(base.length(), other.length());
+            int prefix = 0;
+            while (prefix < max && base.charAt(prefix) == other.charAt(prefix)) {
+                prefix++;
+            }
+            int suffix = 0;
+            while (suffix < max - prefix
+                    && base.charAt(base.length() - 1 - suffix) == other.charAt(other.length() - 1 - suffix)) {
+                suffix++;
+            }
+            ByteText a = bytes("pad" + base).subSequence(3, base.length() + 3);
+            ByteText b = bytes(other);
+            assertEquals(prefix, ByteText.commonPrefix(a, b));
+            assertEquals(suffix, ByteText.commonSuffix(a, b, max - prefix));
+            assertEquals(prefix, ByteText.commonPrefix(base, other));
+            assertEquals(suffix, ByteText.commonSuffix(base, other, max - prefix));
+        }
+    }
+
+    @Test
+    public void testLatin1Conversion() {
+        assertInstanceOf(ByteText.class, ByteText.latin1("<p>caf\u00e9</p>"));
+        assertEquals("<p>caf\u00e9</p>", ByteText.latin1("<p>caf\u00e9</p>").toString());
+        assertEquals("中文", ByteText.latin1("中文"));
+    }
+}
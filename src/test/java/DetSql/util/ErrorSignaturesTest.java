@@ -0,0 +1,107 @@
+package DetSql.util;
+
+import DetSql.config.DefaultConfig;
+import DetSql.injection.ScanTicket;
+import org.junit.jupiter.api.Test;
+
+import java.util.BitSet;
+import java.util.Random;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ErrorSignaturesTest {
+
+    @Test
+    public void testRequiredLiteral() {
+        assertEquals("syntax",
+                ErrorSignatures.requiredLiteral("You\\s+have\\s+an\\s+error\\s+in\\s+your\\s+SQL\\s+syntax"));
+        assertEquals("system.exception: sql execution error",
+                ErrorSignatures.requiredLiteral("System\\.Exception: SQL Execution Error"));
+        assertEquals("mysqlsyntaxerrorexception", ErrorSignatures.requiredLiteral("MySQLSyntaxErrorException"));
+        assertEquals("system.data.sqlclient.sqlexception",
+                ErrorSignatures.requiredLiteral("System\\.Data\\.SqlClient\\.SqlException"));
+        assertEquals("microsoft", ErrorSignatures.requiredLiteral("Microsoft\\s+Access"));
+        assertEquals("mysql_fetch_array()", ErrorSignatures.requiredLiteral("mysql_fetch_array\\(\\)"));
+        assertEquals("doesn't", ErrorSignatures.requiredLiteral("Table\\s+'[^']+'\\s+doesn't\\s+exist"));
+        assertEquals("microsoft.sqlserver", ErrorSignatures.requiredLiteral("com.microsoft\\.sqlserver(foo|bar)SQLException"));
+    }
+
+    @Test
+    public void testQuantifiersAndUnsupportedSyntax() {
+        assertEquals("abc", ErrorSignatures.requiredLiteral("abcd?e"));
+        assertEquals("abcd", ErrorSignatures.requiredLiteral("abcd+e"));
+        assertEquals("abc", ErrorSignatures.requiredLiteral("abcd{0,2}"));
+        assertEquals("abcd", ErrorSignatures.requiredLiteral("abcd{2}xy"));
+        assertNull(ErrorSignatures.requiredLiteral("(PLS|ORA)-[0-9][0-9][0-9][0-9]"));
+        assertNull(ErrorSignatures.requiredLiteral("SQL syntax|ORA-01756"));
+        assertNull(ErrorSignatures.requiredLiteral("(?x)SQL syntax"));
+        assertNull(ErrorSignatures.requiredLiteral("\\x41BCDEF"));
+        assertNull(ErrorSignatures.requiredLiteral("ab"));
+    }
+
+    @Test
+    public void testFirstMatchIgnoresCase() {
+        ErrorSignatures signatures = ErrorSignatures.compile(new String[]{"SQL\\s+syntax", "ORA-\\d+"});
+        assertEquals("SQL\\s+syntax", signatures.firstMatch("check the manual for the right sql   SYNTAX to use"));
+        assertEquals("ORA-\\d+", signatures.firstMatch("ora-01756: quoted string not properly terminated"));
+        assertNull(signatures.firstMatch("sql without the other word"));
+        assertNull(signatures.firstMatch(""));
+    }
+
+    @Test
+    public void testBaselineRulesAreExcluded() {
+        ErrorSignatures signatures = ErrorSignatures.compile(
+                new String[]{"SQL\\s+syntax", "ORA-\\d+", "Unknown\\s+column"});
+        BitSet baseline = signatures.matches("Tutorial: common SQL syntax mistakes, ORA-00933 explained");
+        assertEquals(BitSet.valueOf(new long[]{0b011}), baseline);
+
+        // 基线上已有的特征不再算作命中,新出现的特征仍然报告
+        assertNull(signatures.firstMatch("Tutorial: common SQL syntax mistakes, ORA-00933 explained'", baseline));
+        assertEquals("Unknown\\s+column",
+                signatures.firstMatch("SQL syntax ... Unknown column 'x' in 'where clause'", baseline));
+        assertEquals("SQL\\s+syntax", signatures.firstMatch("SQL syntax", new BitSet()));
+    }
+
+    @Test
+    public void testTicketComputesBaselineOnce() {
+        ErrorSignatures signatures = ErrorSignatures.compile(new String[]{"SQL\\s+syntax", "ORA-\\d+"});
+        ScanTicket ticket = new ScanTicket("h", null, "about SQL \r\nsyntax", false);
+        BitSet baseline = ticket.baselineErrorRules(signatures);
+        assertTrue(baseline.get(0));
+        assertFalse(baseline.get(1));
+        assertSame(baseline, ticket.baselineErrorRules(signatures));
+        assertTrue(new ScanTicket("h", null, null, false).baselineErrorRules(signatures).isEmpty());
+    }
+
+    @Test
+    public void testSameFirstRuleAsSequentialMatching() {
+        String[] rules = DefaultConfig.ERROR_DETECTION_RULES;
+        ErrorSignatures signatures = ErrorSignatures.compile(rules);
+        String[] fragments = {
+                "You have an error in your SQL syntax", "ORA-01756", "pls-0042", "Unknown column 'x'",
+                "java.sql.SQLException", "Table 'a.b' doesn't exist", "Syntax error", "SQL", "syntax",
+                "<html>", "Warning", "<b>Warning</b>: ibase_", "mysql", "SELECT", "where  clause", " ", "\t"
+        };
+        Random random = new Random(21);
+        for (int round = 0; round < 300; round++) {
+            StringBuilder text = new StringBuilder();
+            for (int k = random.nextInt(6); k > 0; k--) {
+                String fragment = fragments[random.nextInt(fragments.length)];
+                text.append(random.nextBoolean() ? fragment : fragment.toUpperCase());
+                text.append((char) ('a' + random.nextInt(26)));
+            }
+            assertEquals(sequentialFirstMatch(rules, text.toString()), signatures.firstMatch(text.toString()),
+                    text.toString());
+        }
+    }
+
+    private static String sequentialFirstMatch(String[] rules, String text) {
+        for (String rule : rules) {
+            if (Pattern.compile(rule, Pattern.CASE_INSENSITIVE).matcher(text).find()) {
+                return rule;
+            }
+        }
+        return null;
+    }
+}
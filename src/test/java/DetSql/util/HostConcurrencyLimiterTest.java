@@ -0,0 +1,134 @@
+package DetSql.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class HostConcurrencyLimiterTest {
+
+    private static final String HOST = "https://a.example.com:443";
+
+    @Test
+    public void testLimitGrowsWhileSaturatedAndLatencyFlat() throws InterruptedException {
+        HostConcurrencyLimiter limiter = new HostConcurrencyLimiter(2, 8);
+
+        for (int round = 0; round < 40; round++) {
+            int limit = limiter.getLimit(HOST);
+            for (int i = 0; i < limit; i++) {
+                limiter.acquire(HOST);
+            }
+            for (int i = 0; i < limit; i++) {
+                limiter.release(HOST, 50, HostConcurrencyLimiter.Outcome.SUCCESS);
+            }
+        }
+
+        assertEquals(8, limiter.getLimit(HOST), "平稳延迟下应增长到上限");
+        assertEquals(0, limiter.getInFlight(HOST));
+    }
+
+    @Test
+    public void testLimitDoesNotGrowWhenUnderutilized() throws InterruptedException {
+        HostConcurrencyLimiter limiter = new HostConcurrencyLimiter(4, 16);
+
+        for (int i = 0; i < 100; i++) {
+            limiter.acquire(HOST);
+            limiter.release(HOST, 50, HostConcurrencyLimiter.Outcome.SUCCESS);
+        }
+
+        assertEquals(4, limiter.getLimit(HOST), "并发未用满时不应增长");
+    }
+
+    @Test
+    public void testCancelledReleaseKeepsLimit() throws InterruptedException {
+        HostConcurrencyLimiter limiter = new HostConcurrencyLimiter(8, 16);
+
+        limiter.acquire(HOST);
+        limiter.release(HOST, 0, HostConcurrencyLimiter.Outcome.CANCELLED);
+
+        assertEquals(8, limiter.getLimit(HOST), "取消只归还许可,不应调整上限");
+        assertEquals(0, limiter.getInFlight(HOST));
+    }
+
+    @Test
+    public void testTimeoutHalvesLimit() throws InterruptedException {
+        HostConcurrencyLimiter limiter = new HostConcurrencyLimiter(8, 16);
+
+        limiter.acquire(HOST);
+        limiter.release(HOST, 20_000, HostConcurrencyLimiter.Outcome.TIMEOUT);
+        assertEquals(4, limiter.getLimit(HOST));
+
+        // 同一窗口内的连续失败只减一次
+        limiter.acquire(HOST);
+        limiter.release(HOST, 20_000, HostConcurrencyLimiter.Outcome.SERVER_ERROR);
+        assertEquals(4, limiter.getLimit(HOST));
+    }
+
+    @Test
+    public void testLatencySpikeReducesLimit() throws InterruptedException {
+        HostConcurrencyLimiter limiter = new HostConcurrencyLimiter(8, 16);
+
+        for (int i = 0; i < 10; i++) {
+            limiter.acquire(HOST);
+            limiter.release(HOST, 100, HostConcurrencyLimiter.Outcome.SUCCESS);
+        }
+        assertEquals(8, limiter.getLimit(HOST));
+
+        limiter.acquire(HOST);
+        limiter.release(HOST, 5_000, HostConcurrencyLimiter.Outcome.SUCCESS);
+        assertEquals(4, limiter.getLimit(HOST), "延迟突增应触发减半");
+    }
+
+    @Test
+    public void testAcquireBlocksAtLimit() throws Exception {
+        HostConcurrencyLimiter limiter = new HostConcurrencyLimiter(1, 4);
+        limiter.acquire(HOST);
+
+        AtomicBoolean acquired = new AtomicBoolean(false);
+        CountDownLatch done = new CountDownLatch(1);
+        Thread waiter = new Thread(() -> {
+            try {
+                limiter.acquire(HOST);
+                acquired.set(true);
+                done.countDown();
+            } catch (InterruptedException ignored) {
+            }
+        });
+        waiter.start();
+
+        assertFalse(done.await(200, TimeUnit.MILLISECONDS), "超过上限时应阻塞");
+        limiter.release(HOST, 10, HostConcurrencyLimiter.Outcome.SUCCESS);
+        assertTrue(done.await(2, TimeUnit.SECONDS));
+        assertTrue(acquired.get());
+        waiter.join();
+    }
+
+    @Test
+    public void testHostsAreIndependent() throws InterruptedException {
+        HostConcurrencyLimiter limiter = new HostConcurrencyLimiter(1, 4);
+        limiter.acquire(HOST);
+        // 另一个 host 不受影响,不会阻塞
+        limiter.acquire("http://b.example.com:80");
+
+        List<HostConcurrencyLimiter.HostSnapshot> snapshot = limiter.snapshot();
+        assertEquals(2, snapshot.size());
+        assertEquals("http://b.example.com:80", snapshot.get(0).host());
+        assertEquals(1, snapshot.get(0).inFlight());
+        assertEquals(1, snapshot.get(1).limit());
+    }
+
+    @Test
+    public void testSetMaxLimitClampsExistingHosts() throws InterruptedException {
+        HostConcurrencyLimiter limiter = new HostConcurrencyLimiter(8, 16);
+        limiter.acquire(HOST);
+        limiter.release(HOST, 10, HostConcurrencyLimiter.Outcome.SUCCESS);
+
+        limiter.setMaxLimit(3);
+        assertEquals(3, limiter.getLimit(HOST));
+        assertEquals(3, limiter.getInitialLimit());
+    }
+}
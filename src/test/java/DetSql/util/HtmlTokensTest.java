@@ -0,0 +1,48 @@
+package DetSql.util;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class HtmlTokensTest {
+
+    @Test
+    public void testScriptStyleAndCommentsAreDropped() {
+        int[] plain = HtmlTokens.tokenize("<div>hello world</div>");
+        int[] noisy = HtmlTokens.tokenize("<div><script>var t = 1712345678;</script>hello <!-- build 42 -->"
+                + "<STYLE type=\"text/css\">p{}</STYLE>world</div>");
+        assertArrayEquals(plain, noisy);
+        assertEquals(4, plain.length);
+    }
+
+    @Test
+    public void testWhitespaceAndTagCaseIgnored() {
+        int[] a = HtmlTokens.tokenize("<TD   class=\"x\">  a\n\n  b </td>");
+        int[] b = HtmlTokens.tokenize("<td class=\"x\">a b</TD>");
+        assertArrayEquals(a, b);
+        assertFalse(java.util.Arrays.equals(a, HtmlTokens.tokenize("<td class=\"y\">a b</td>")));
+    }
+
+    @Test
+    public void testUnterminatedMarkup() {
+        assertEquals(2, HtmlTokens.tokenize("a <b").length);
+        assertEquals(1, HtmlTokens.tokenize("x<script>never closed").length);
+        assertEquals(0, HtmlTokens.tokenize("  \n").length);
+    }
+
+    @Test
+    public void testStructureCascadeIgnoresScriptNoise() {
+        StringBuilder page = new StringBuilder("<html><body>");
+        for (int i = 0; i < 40; i++) {
+            page.append("<p>row ").append(i).append("</p>\n");
+        }
+        String left = page + "<script>var nonce='aaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaa';</script><p>id=1</p></body></html>";
+        String right = page + "<script>var nonce='bbbbbbbbbbbbbbbbbbbbbbbbbbbbbbbbbbbbbbbbbbbbbbbb';</script><p>id=1'</p></body></html>";
+        SimilarityCascade.Verdict verdict = SimilarityCascade.htmlStructure(
+                ResponseSketch.of(left), ResponseSketch.of(right), PayloadEcho.NONE, PayloadEcho.of("'"), 0.9);
+        assertTrue(verdict.similarity() > 0.9);
+        SimilarityCascade.Verdict characters = SimilarityCascade.levenshtein(
+                ResponseSketch.of(left), ResponseSketch.of(right), PayloadEcho.NONE, PayloadEcho.of("'"), true, 0.9);
+        assertTrue(characters.similarity() <= 0.9);
+    }
+}
@@ -0,0 +1,55 @@
+package DetSql.util;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class JsonFieldsTest {
+
+    private static double similarity(String a, String b, PayloadEcho echo2) {
+        return JsonFields.similarity(JsonFields.parse(a), JsonFields.parse(b), PayloadEcho.NONE, echo2);
+    }
+
+    @Test
+    public void testKeyOrderAndFormattingIgnored() {
+        assertEquals(1.0, similarity("{\"a\":1,\"b\":{\"c\":[true,null]}}",
+                "{ \"b\" : { \"c\" : [ true, null ] },\n \"a\" : 1 }", PayloadEcho.NONE));
+    }
+
+    @Test
+    public void testPartialCreditAndMissingFields() {
+        // 数值噪声: 4 个字段中 1 个同类型不同值
+        assertEquals(3.5 / 4, similarity("{\"a\":1,\"b\":2,\"c\":3,\"t\":1712345678}",
+                "{\"a\":1,\"b\":2,\"c\":3,\"t\":1712345699}", PayloadEcho.NONE), 1e-9);
+        // 结果集为空: 只剩空数组一个路径,与原来的两行数据无交集
+        assertEquals(0.0, similarity("{\"rows\":[{\"id\":1},{\"id\":2}]}", "{\"rows\":[]}", PayloadEcho.NONE));
+    }
+
+    @Test
+    public void testReflectedPayloadInStringValue() {
+        String base = "{\"q\":\"abc\",\"total\":0}";
+        String poc = "{\"q\":\"abc'\",\"total\":0}";
+        assertEquals(1.0, similarity(base, poc, PayloadEcho.of("'")));
+        assertEquals(0.75, similarity(base, poc, PayloadEcho.NONE));
+    }
+
+    @Test
+    public void testNotJson() {
+        assertFalse(JsonFields.parse("<html></html>").isJson());
+        assertFalse(JsonFields.parse("\"plain\"").isJson());
+        assertFalse(JsonFields.parse("{\"a\":").isJson());
+        assertTrue(JsonFields.parse(ByteText.of("[1,2]".getBytes())).isJson());
+    }
+
+    @Test
+    public void testCascadeFallsBackToText() {
+        String a = "x".repeat(200);
+        SimilarityCascade.Verdict verdict = SimilarityCascade.json(
+                ResponseSketch.of(a), ResponseSketch.of(a + "yy"), PayloadEcho.NONE, PayloadEcho.NONE, 0.9);
+        assertNotEquals(SimilarityCascade.Stage.JSON, verdict.stage());
+        verdict = SimilarityCascade.json(ResponseSketch.of("{\"a\":1}"), ResponseSketch.of("{\"a\":2}"),
+                PayloadEcho.NONE, PayloadEcho.NONE, 0.9);
+        assertEquals(SimilarityCascade.Stage.JSON, verdict.stage());
+        assertEquals(0.5, verdict.similarity());
+    }
+}
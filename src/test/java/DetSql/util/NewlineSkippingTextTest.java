@@ -0,0 +1,54 @@
+package DetSql.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class NewlineSkippingTextTest {
+
+    private static final Pattern NEWLINES = Pattern.compile("\\n|\\r|\\r\\n");
+
+    @Test
+    public void testNoNewlineReturnsOriginal() {
+        String text = "no line breaks here";
+        assertSame(text, NewlineSkippingText.of(text));
+        assertSame("", NewlineSkippingText.of(""));
+    }
+
+    @Test
+    public void testMatchesReplaceAll() {
+        Random random = new Random(24);
+        String alphabet = "ab\r\n<>' ";
+        for (int round = 0; round < 500; round++) {
+            StringBuilder sb = new StringBuilder();
+            for (int k = random.nextInt(60); k > 0; k--) {
+                sb.append(alphabet.charAt(random.nextInt(alphabet.length())));
+            }
+            String text = sb.toString();
+            String expected = NEWLINES.matcher(text).replaceAll("");
+            CharSequence view = NewlineSkippingText.of(text);
+            assertEquals(expected.length(), view.length(), text);
+            assertEquals(expected, view.toString(), text);
+            // 倒序访问走二分查找路径
+            for (int i = expected.length() - 1; i >= 0; i--) {
+                assertEquals(expected.charAt(i), view.charAt(i));
+            }
+            if (expected.length() > 2) {
+                assertEquals(expected.substring(1, expected.length() - 1),
+                        view.subSequence(1, view.length() - 1).toString());
+            }
+        }
+    }
+
+    @Test
+    public void testRegexAcrossRemovedLineBreaks() {
+        CharSequence view = NewlineSkippingText.of("You have an error in your SQL\r\n syntax;\n check the manual");
+        assertTrue(RegexUtils.safeMatchPrecompiled(
+                Pattern.compile("SQL\\s+syntax;\\s+check", Pattern.CASE_INSENSITIVE), view));
+        assertFalse(RegexUtils.safeMatchPrecompiled(Pattern.compile("SQL\\s\\s"), view));
+        assertThrows(IndexOutOfBoundsException.class, () -> view.charAt(view.length()));
+    }
+}
@@ -0,0 +1,86 @@
+package DetSql.util;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class OverflowSpoolTest {
+
+    @TempDir
+    Path dir;
+
+    private static byte[] bytes(String s) {
+        return s.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private long segmentCount() throws IOException {
+        try (Stream<Path> files = Files.list(dir)) {
+            return files.count();
+        }
+    }
+
+    @Test
+    public void testPollReturnsRecordsInAppendOrder() throws IOException {
+        try (OverflowSpool spool = new OverflowSpool(dir)) {
+            assertNull(spool.poll());
+            spool.append(bytes("a"));
+            spool.append(bytes("bb"));
+            spool.append(new byte[0]);
+            assertEquals(3, spool.size());
+
+            assertArrayEquals(bytes("a"), spool.poll());
+            assertArrayEquals(bytes("bb"), spool.poll());
+            assertArrayEquals(new byte[0], spool.poll());
+            assertNull(spool.poll());
+            assertTrue(spool.isEmpty());
+            assertEquals(0, segmentCount(), "全部读完后应删除段文件");
+        }
+    }
+
+    @Test
+    public void testInterleavedAppendAndPollAcrossSegments() throws IOException {
+        // 每段只放得下一条记录,强制频繁切段
+        try (OverflowSpool spool = new OverflowSpool(dir, 1)) {
+            for (int i = 0; i < 5; i++) {
+                spool.append(bytes("r" + i));
+            }
+            assertEquals(5, segmentCount());
+            assertArrayEquals(bytes("r0"), spool.poll());
+            assertArrayEquals(bytes("r1"), spool.poll());
+            spool.append(bytes("r5"));
+            for (int i = 2; i <= 5; i++) {
+                assertArrayEquals(bytes("r" + i), spool.poll());
+            }
+            assertNull(spool.poll());
+            assertEquals(0, segmentCount());
+        }
+    }
+
+    @Test
+    public void testStaleSegmentsRemovedOnOpen() throws IOException {
+        Files.write(dir.resolve("overflow-00000000.seg"), bytes("stale"));
+        Files.write(dir.resolve("keep.txt"), bytes("other"));
+        try (OverflowSpool spool = new OverflowSpool(dir)) {
+            assertTrue(spool.isEmpty());
+            assertFalse(Files.exists(dir.resolve("overflow-00000000.seg")));
+            assertTrue(Files.exists(dir.resolve("keep.txt")));
+        }
+    }
+
+    @Test
+    public void testCloseDiscardsAndRejectsAppend() throws IOException {
+        OverflowSpool spool = new OverflowSpool(dir);
+        spool.append(bytes("x"));
+        spool.close();
+        assertEquals(0, spool.size());
+        assertEquals(0, segmentCount());
+        assertThrows(IOException.class, () -> spool.append(bytes("y")));
+    }
+}
@@ -0,0 +1,83 @@
+package DetSql.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PauseGateTest {
+
+    private static Thread startWaiter(PauseGate gate, String host, CountDownLatch passed) {
+        Thread t = new Thread(() -> {
+            try {
+                gate.awaitOpen(host);
+                passed.countDown();
+            } catch (InterruptedException ignored) {
+                // 测试结束
+            }
+        });
+        t.setDaemon(true);
+        t.start();
+        return t;
+    }
+
+    @Test
+    public void testOpenGateDoesNotBlock() throws InterruptedException {
+        PauseGate gate = new PauseGate();
+        gate.awaitOpen("a.example.com");
+        gate.pauseHost("b.example.com");
+        gate.awaitOpen("a.example.com");
+    }
+
+    @Test
+    public void testPausedHostBlocksUntilResumed() throws InterruptedException {
+        PauseGate gate = new PauseGate();
+        gate.pauseHost("A.example.com");
+        assertTrue(gate.isHostPaused("a.example.com"), "主机名不区分大小写");
+
+        CountDownLatch passed = new CountDownLatch(1);
+        Thread waiter = startWaiter(gate, "a.example.com", passed);
+        assertFalse(passed.await(100, TimeUnit.MILLISECONDS), "暂停的主机应阻塞");
+
+        gate.resumeHost("a.example.com");
+        assertTrue(passed.await(5, TimeUnit.SECONDS), "恢复后应放行");
+        waiter.join(5000);
+    }
+
+    @Test
+    public void testGlobalPauseBlocksAllHosts() throws InterruptedException {
+        PauseGate gate = new PauseGate();
+        gate.pauseAll();
+        gate.pauseHost("b.example.com");
+
+        CountDownLatch passedA = new CountDownLatch(1);
+        CountDownLatch passedB = new CountDownLatch(1);
+        startWaiter(gate, "a.example.com", passedA);
+        startWaiter(gate, "b.example.com", passedB);
+        assertFalse(passedA.await(100, TimeUnit.MILLISECONDS));
+
+        // 全局恢复后,单独暂停的主机仍保持暂停
+        gate.resumeAll();
+        assertTrue(passedA.await(5, TimeUnit.SECONDS));
+        assertFalse(passedB.await(100, TimeUnit.MILLISECONDS));
+
+        gate.resumeHost("b.example.com");
+        assertTrue(passedB.await(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void testInterruptWhilePaused() throws InterruptedException {
+        PauseGate gate = new PauseGate();
+        gate.pauseAll();
+
+        CountDownLatch passed = new CountDownLatch(1);
+        Thread waiter = startWaiter(gate, "a.example.com", passed);
+        waiter.interrupt();
+        waiter.join(5000);
+
+        assertFalse(waiter.isAlive(), "中断应结束等待");
+        assertEquals(1, passed.getCount());
+    }
+}
@@ -0,0 +1,58 @@
+package DetSql.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PayloadEchoTest {
+
+    @Test
+    public void testRepeatedAndMixedEchoes() {
+        PayloadEcho echo = PayloadEcho.of("'||1/0||'", "'");
+        assertTrue(echo.isOnlyEcho(""));
+        assertTrue(echo.isOnlyEcho("'||1/0||'"));
+        assertTrue(echo.isOnlyEcho("'''||1/0||''||1/0||'"));
+        assertFalse(echo.isOnlyEcho("'||1/0||"));
+        assertFalse(echo.isOnlyEcho("'x'"));
+    }
+
+    @Test
+    public void testEncodedForms() {
+        PayloadEcho echo = PayloadEcho.of("'+'");
+        assertTrue(echo.isOnlyEcho("%27%2B%27"));
+        assertTrue(echo.isOnlyEcho("&#39;+&#39;"));
+        assertTrue(echo.isOnlyEcho("&#x27;+&#x27;&apos;+&apos;"));
+        assertFalse(echo.isOnlyEcho("&#39;+"));
+    }
+
+    @Test
+    public void testNoneOnlyMatchesEmpty() {
+        assertTrue(PayloadEcho.NONE.isOnlyEcho(""));
+        assertFalse(PayloadEcho.NONE.isOnlyEcho("a"));
+        assertSame(PayloadEcho.NONE, PayloadEcho.of(""));
+    }
+
+    @Test
+    public void testSingleCharactersMatchRegexRemoval() {
+        PayloadEcho echo = PayloadEcho.of("'", "+");
+        Random random = new Random(9);
+        String alphabet = "'+a";
+        for (int round = 0; round < 500; round++) {
+            StringBuilder sb = new StringBuilder();
+            for (int i = 0, n = random.nextInt(12); i < n; i++) {
+                sb.append(alphabet.charAt(random.nextInt(alphabet.length())));
+            }
+            String part = sb.toString();
+            assertEquals(part.replaceAll("['+]", "").isEmpty(), echo.isOnlyEcho(part), part);
+        }
+    }
+
+    @Test
+    public void testLongReflectionStaysLinear() {
+        String page = "''".repeat(200_000);
+        assertTrue(PayloadEcho.of("''").isOnlyEcho(page));
+        assertFalse(PayloadEcho.of("''").isOnlyEcho(page + "'"));
+    }
+}
@@ -0,0 +1,94 @@
+package DetSql.util;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class RateGovernorTest {
+
+    private ScheduledExecutorService scheduler;
+    private RateGovernor governor;
+
+    @BeforeEach
+    public void setUp() {
+        scheduler = Executors.newSingleThreadScheduledExecutor();
+        governor = new RateGovernor(scheduler);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        scheduler.shutdownNow();
+    }
+
+    @Test
+    public void testBurstThenSpacedByRate() {
+        // 每主机 10 req/s,突发 3
+        governor.configure(0, 10, 3);
+
+        for (int i = 0; i < 3; i++) {
+            assertEquals(0, governor.reserve("a"), "突发内的请求应立即放行");
+        }
+        long fourth = governor.reserve("a");
+        long fifth = governor.reserve("a");
+        // 第 4 个约等待 100ms,第 5 个约等待 200ms (按预约顺序排队)
+        assertTrue(fourth > TimeUnit.MILLISECONDS.toNanos(80) && fourth <= TimeUnit.MILLISECONDS.toNanos(100),
+                "fourth=" + fourth);
+        assertTrue(fifth > TimeUnit.MILLISECONDS.toNanos(180) && fifth <= TimeUnit.MILLISECONDS.toNanos(200),
+                "fifth=" + fifth);
+        assertEquals(2, governor.getDelayedCount());
+    }
+
+    @Test
+    public void testUnlimitedNeverDelays() {
+        governor.configure(0, 0, 1);
+        for (int i = 0; i < 1000; i++) {
+            assertEquals(0, governor.reserve("a"));
+        }
+        assertTrue(governor.acquire("a").isDone());
+        assertEquals(0, governor.getDelayedCount());
+    }
+
+    @Test
+    public void testHostsIndependentButShareGlobalBucket() {
+        // 单主机 1 req/s,全局不限: 不同主机互不影响
+        governor.configure(0, 1, 1);
+        assertEquals(0, governor.reserve("a"));
+        assertEquals(0, governor.reserve("b"));
+        assertTrue(governor.reserve("a") > 0);
+
+        // 全局 1 req/s: 不同主机共用全局令牌
+        governor.reset();
+        governor.configure(1, 0, 1);
+        assertEquals(0, governor.reserve("a"));
+        assertTrue(governor.reserve("b") > 0);
+    }
+
+    @Test
+    public void testDelayedAcquireCompletesOnScheduler() throws Exception {
+        governor.configure(0, 20, 1);
+        assertTrue(governor.acquire("a").isDone());
+
+        CompletableFuture<Void> paced = governor.acquire("a");
+        assertFalse(paced.isDone(), "令牌不足时不应立即放行");
+        long start = System.nanoTime();
+        RateGovernor.await(paced);
+        long waitedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        assertTrue(paced.isDone());
+        assertTrue(waitedMs < 1000, "waited=" + waitedMs);
+    }
+
+    @Test
+    public void testInterruptedAwaitCancelsPacing() {
+        CompletableFuture<Void> ready = governor.delay(10, TimeUnit.SECONDS);
+        Thread.currentThread().interrupt();
+        assertThrows(InterruptedException.class, () -> RateGovernor.await(ready));
+        assertTrue(ready.isCancelled());
+    }
+}
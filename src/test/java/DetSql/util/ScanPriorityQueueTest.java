@@ -0,0 +1,124 @@
+package DetSql.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ScanPriorityQueueTest {
+
+    private record Task(String name, long priority) implements Runnable, ScanPriorityQueue.Prioritized {
+        @Override
+        public void run() {
+        }
+    }
+
+    @Test
+    public void testHigherPriorityFirstAndFifoWithinSamePriority() {
+        ScanPriorityQueue queue = new ScanPriorityQueue(10);
+        queue.offer(new Task("proxy-1", 0));
+        queue.offer(new Task("fresh-1", 100));
+        queue.offer(new Task("manual", 1000));
+        queue.offer(new Task("fresh-2", 100));
+        queue.offer(() -> { });
+
+        List<String> order = new ArrayList<>();
+        Runnable r;
+        while ((r = queue.poll()) != null) {
+            order.add(r instanceof Task t ? t.name() : "plain");
+        }
+        assertEquals(List.of("manual", "fresh-1", "fresh-2", "proxy-1", "plain"), order);
+    }
+
+    @Test
+    public void testBoundedCapacity() {
+        ScanPriorityQueue queue = new ScanPriorityQueue(2);
+        assertEquals(2, queue.remainingCapacity());
+        assertTrue(queue.offer(new Task("a", 1)));
+        assertTrue(queue.offer(new Task("b", 1)));
+        assertFalse(queue.offer(new Task("c", 9)), "队列满时 offer 应返回 false");
+        assertEquals(0, queue.remainingCapacity());
+        assertThrows(IllegalStateException.class, () -> queue.put(new Task("d", 1)));
+    }
+
+    @Test
+    public void testRemoveAndDrain() {
+        ScanPriorityQueue queue = new ScanPriorityQueue(10);
+        Task low = new Task("low", 1);
+        Task high = new Task("high", 5);
+        queue.offer(low);
+        queue.offer(high);
+        assertTrue(queue.remove(low));
+        assertFalse(queue.remove(low));
+
+        List<Runnable> drained = new ArrayList<>();
+        assertEquals(1, queue.drainTo(drained));
+        assertSame(high, drained.get(0));
+        assertTrue(queue.isEmpty());
+    }
+
+    @Test
+    public void testAgingPromotesLongWaitingTasks() {
+        long[] now = {0};
+        ScanPriorityQueue queue = new ScanPriorityQueue(10, 50, () -> now[0]);
+        queue.offer(new Task("proxy", 0));
+        // 排队 10s (+200) 的 Proxy 任务仍排在新提交的手动请求 (1000) 之后
+        now[0] = TimeUnit.SECONDS.toNanos(10);
+        queue.offer(new Task("manual-1", 1000));
+        // 排队 60s (+1200) 后超过新提交的手动请求
+        now[0] = TimeUnit.SECONDS.toNanos(60);
+        queue.offer(new Task("manual-2", 1000));
+
+        List<String> order = new ArrayList<>();
+        Runnable r;
+        while ((r = queue.poll()) != null) {
+            order.add(((Task) r).name());
+        }
+        assertEquals(List.of("manual-1", "proxy", "manual-2"), order);
+    }
+
+    @Test
+    public void testPollTimesOutWhenEmpty() throws InterruptedException {
+        ScanPriorityQueue queue = new ScanPriorityQueue(1);
+        assertNull(queue.poll(10, TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    public void testWorksAsThreadPoolQueue() throws InterruptedException {
+        ScanPriorityQueue queue = new ScanPriorityQueue(10);
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(1, 1, 1, TimeUnit.SECONDS, queue);
+        List<String> order = java.util.Collections.synchronizedList(new ArrayList<>());
+        java.util.concurrent.CountDownLatch gate = new java.util.concurrent.CountDownLatch(1);
+        try {
+            // 第一个任务占住唯一的工作线程,其余任务进入队列排序
+            executor.execute(() -> {
+                try {
+                    gate.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            });
+            executor.execute(new RecordingTask("low", 1, order));
+            executor.execute(new RecordingTask("high", 10, order));
+            executor.execute(new RecordingTask("mid", 5, order));
+            gate.countDown();
+            executor.shutdown();
+            assertTrue(executor.awaitTermination(5, TimeUnit.SECONDS));
+            assertEquals(List.of("high", "mid", "low"), order);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private record RecordingTask(String name, long priority, List<String> order)
+            implements Runnable, ScanPriorityQueue.Prioritized {
+        @Override
+        public void run() {
+            order.add(name);
+        }
+    }
+}
@@ -0,0 +1,101 @@
+package DetSql.util;
+
+import org.apache.commons.text.similarity.LevenshteinDistance;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SimilarityCascadeTest {
+
+    private static String randomBody(Random random, int length) {
+        String alphabet = "<div>abcdefghij0123456789 \n中文";
+        StringBuilder sb = new StringBuilder(length);
+        for (int i = 0; i < length; i++) {
+            sb.append(alphabet.charAt(random.nextInt(alphabet.length())));
+        }
+        return sb.toString();
+    }
+
+    private static String mutate(Random random, String s, int edits) {
+        StringBuilder sb = new StringBuilder(s);
+        for (int i = 0; i < edits && sb.length() > 0; i++) {
+            int pos = random.nextInt(sb.length());
+            switch (random.nextInt(3)) {
+                case 0 -> sb.insert(pos, 'x');
+                case 1 -> sb.deleteCharAt(pos);
+                default -> sb.setCharAt(pos, 'y');
+            }
+        }
+        return sb.toString();
+    }
+
+    @Test
+    public void testSketchIsLowerBoundOfEditDistance() {
+        Random random = new Random(3);
+        for (int round = 0; round < 200; round++) {
+            String a = randomBody(random, random.nextInt(300));
+            String b = random.nextBoolean() ? mutate(random, a, random.nextInt(50)) : randomBody(random, random.nextInt(300));
+            int lowerBound = ResponseSketch.of(a).editDistanceLowerBound(ResponseSketch.of(b));
+            assertTrue(lowerBound <= LevenshteinDistance.getDefaultInstance().apply(a, b));
+        }
+    }
+
+    @Test
+    public void testDecisionMatchesFullComputation() {
+        Random random = new Random(11);
+        double[] thresholds = {0.5, 0.9, 0.95};
+        for (int round = 0; round < 600; round++) {
+            String a = randomBody(random, 50 + random.nextInt(400));
+            String b = mutate(random, a, random.nextInt(80));
+            boolean htmlFlag = round % 2 == 0;
+            double threshold = thresholds[round % thresholds.length];
+
+            double expected = MyCompare.averageLevenshtein(a, b, "", "", htmlFlag).get(0);
+            SimilarityCascade.Verdict verdict = SimilarityCascade.levenshtein(
+                    ResponseSketch.of(a), ResponseSketch.of(b), PayloadEcho.NONE, PayloadEcho.NONE, htmlFlag, threshold);
+
+            assertEquals(expected > threshold, verdict.similarity() > threshold, "判定结论应与完整计算一致");
+            if (verdict.stage() == SimilarityCascade.Stage.GATE
+                    || verdict.stage() == SimilarityCascade.Stage.EDIT_DISTANCE) {
+                assertEquals(expected, verdict.similarity(), 0.0);
+            } else {
+                assertTrue(verdict.similarity() >= expected, "提前判定时返回上界");
+            }
+        }
+    }
+
+    @Test
+    public void testStages() {
+        String base = "<html><body>" + "row-data ".repeat(40) + "</body></html>";
+
+        assertEquals(SimilarityCascade.Stage.GATE, SimilarityCascade.levenshtein(
+                ResponseSketch.of(base), ResponseSketch.of(base + "!"), PayloadEcho.NONE, PayloadEcho.NONE, false, 0.9).stage());
+
+        // 前缀相同、后半段字符分布完全不同: 直方图下界即可判定
+        String other = base.substring(0, 150) + base.substring(150).replaceAll("[a-z]", "Z");
+        assertEquals(SimilarityCascade.Stage.SKETCH, SimilarityCascade.levenshtein(
+                ResponseSketch.of(base), ResponseSketch.of(other + "QQ"), PayloadEcho.NONE, PayloadEcho.NONE, false, 0.9).stage());
+
+        // 字符分布相同但顺序不同: 需要计算编辑距离
+        String shuffled = base.replace("row-data", "data-row") + "  ";
+        SimilarityCascade.Stage stage = SimilarityCascade.levenshtein(
+                ResponseSketch.of(base), ResponseSketch.of(shuffled), PayloadEcho.NONE, PayloadEcho.NONE, false, 0.9).stage();
+        assertTrue(stage == SimilarityCascade.Stage.EDIT_DISTANCE || stage == SimilarityCascade.Stage.BAND_EXIT);
+    }
+
+    @Test
+    public void testStructureNormalizesOverChangedSpan() {
+        StringBuilder page = new StringBuilder("<html><body>");
+        for (int i = 0; i < 200; i++) {
+            page.append("<p>row ").append(i).append("</p>\n");
+        }
+        String left = page + "<div class=\"msg\">No results found</div><p>item 1</p></body></html>";
+        String right = page + "<div class=\"msg\">You have an error in your SQL syntax</div><p>item 1</p></body></html>";
+
+        SimilarityCascade.Verdict verdict = SimilarityCascade.htmlStructure(
+                ResponseSketch.of(left), ResponseSketch.of(right), PayloadEcho.NONE, PayloadEcho.of("'"), 0.9);
+        assertTrue(verdict.similarity() <= 0.9, "大页面中的一小段报错不应被整页 token 数稀释");
+    }
+}
@@ -0,0 +1,44 @@
+package DetSql.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class VirtualThreadsTest {
+
+    @Test
+    public void testSupportMatchesRuntimeVersion() {
+        assertEquals(Runtime.version().feature() >= 21, VirtualThreads.isSupported());
+    }
+
+    @Test
+    public void testFactoryAndExecutorFallback() throws Exception {
+        ThreadFactory factory = VirtualThreads.newThreadFactory("DetSql-Test-");
+        ExecutorService executor = VirtualThreads.newPerTaskExecutor("DetSql-Test-");
+
+        if (!VirtualThreads.isSupported()) {
+            // 运行时不支持时返回 null,由调用方回退到平台线程池
+            assertNull(factory);
+            assertNull(executor);
+            return;
+        }
+
+        assertNotNull(factory);
+        Thread t = factory.newThread(() -> { });
+        assertTrue(t.getName().startsWith("DetSql-Test-"));
+        assertTrue(t.isDaemon(), "虚拟线程总是守护线程");
+
+        assertNotNull(executor);
+        try {
+            Future<String> result = executor.submit(() -> Thread.currentThread().getName());
+            assertTrue(result.get(5, TimeUnit.SECONDS).startsWith("DetSql-Test-"));
+        } finally {
+            executor.shutdown();
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package DetSql.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class VolatileRegionMaskTest {
+
+    private static String page(String csrf, String time, String content) {
+        return "<html><head><meta name=\"csrf\" content=\"" + csrf + "\"></head><body>"
+                + "<div class=\"result\">" + content + "</div>"
+                + "<footer>generated at " + time + " by server</footer></body></html>";
+    }
+
+    @Test
+    public void testLearnsAndMasksTokenAndTimestamp() {
+        String baseline = page("a1b2c3d4e5f6", "12:00:01.123", "row one");
+        String refetch = page("9f8e7d6c5b4a", "12:00:02.7", "row one");
+
+        VolatileRegionMask mask = VolatileRegionMask.learn(baseline, List.of(refetch));
+
+        assertEquals(2, mask.regionCount());
+        assertEquals(mask.apply(baseline), mask.apply(refetch), "屏蔽后两次响应应相同");
+
+        // PoC 响应:长度和偏移不同,易变区域仍能按锚点删除,真实差异保留
+        String poc = page("ffffffffffff", "13:59:59.999", "SQL syntax error near row one");
+        String maskedPoc = mask.apply(poc);
+        assertFalse(maskedPoc.contains("ffffffffffff"));
+        assertFalse(maskedPoc.contains("13:59:59.999"));
+        assertTrue(maskedPoc.contains("SQL syntax error"));
+    }
+
+    @Test
+    public void testIdenticalRefetchLearnsNothing() {
+        String baseline = page("token", "now", "x");
+        VolatileRegionMask mask = VolatileRegionMask.learn(baseline, List.of(baseline));
+        assertTrue(mask.isEmpty());
+        assertSame(baseline, mask.apply(baseline));
+    }
+
+    @Test
+    public void testUnalignableResponseIsNotMasked() {
+        String baseline = "<p>" + "a".repeat(2000) + "</p>";
+        String refetch = "<div>" + "b".repeat(1500) + "</div>";
+        assertTrue(VolatileRegionMask.learn(baseline, List.of(refetch)).isEmpty());
+    }
+}